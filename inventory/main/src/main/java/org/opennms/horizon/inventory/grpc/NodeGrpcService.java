@@ -44,6 +44,8 @@ import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import org.opennms.horizon.inventory.dto.IpInterfaceDTO;
+import org.opennms.horizon.inventory.dto.IpInterfaceList;
+import org.opennms.horizon.inventory.dto.IpInterfacesQuery;
 import org.opennms.horizon.inventory.dto.MonitoredStateQuery;
 import org.opennms.horizon.inventory.dto.NodeCreateDTO;
 import org.opennms.horizon.inventory.dto.NodeDTO;
@@ -365,6 +367,30 @@ public class NodeGrpcService extends NodeServiceGrpc.NodeServiceImplBase {
             () -> responseObserver.onError(StatusProto.toStatusRuntimeException(createTenantIdMissingStatus())));
     }
 
+    /**
+     * Get the IpInterfaces of many ipAddresses of a location at once
+     * @param request
+     * @param responseObserver
+     */
+    @Override
+    public void getIpInterfacesFromQuery(IpInterfacesQuery request, StreamObserver<IpInterfaceList> responseObserver) {
+        tenantLookup.lookupTenantId(Context.current()).ifPresentOrElse(tenantId -> {
+                var location = monitoringLocationService.findByLocationIdAndTenantId(Long.parseLong(request.getLocationId()), tenantId);
+                if (location.isEmpty()) {
+                    Status status = Status.newBuilder()
+                        .setCode(Code.NOT_FOUND_VALUE)
+                        .setMessage(INVALID_REQUEST_LOCATION_AND_IP_NOT_EMPTY_MSG)
+                        .build();
+                    responseObserver.onError(StatusProto.toStatusRuntimeException(status));
+                    return;
+                }
+                var ipInterfaces = ipInterfaceService.findByIpAddressesAndLocationIdAndTenantId(request.getIpAddressesList(), request.getLocationId(), tenantId);
+                responseObserver.onNext(IpInterfaceList.newBuilder().addAllIpInterfaces(ipInterfaces).build());
+                responseObserver.onCompleted();
+            },
+            () -> responseObserver.onError(StatusProto.toStatusRuntimeException(createTenantIdMissingStatus())));
+    }
+
     @Override
     public void getIpInterfaceById(Int64Value request, StreamObserver<IpInterfaceDTO> responseObserver) {
         var ipInterface = tenantLookup.lookupTenantId(Context.current())
@@ -32,6 +32,7 @@ package org.opennms.horizon.inventory.model;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -44,6 +45,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.opennms.horizon.inventory.component.IpInterfaceKafkaProducer;
 
 import java.net.InetAddress;
 import java.util.ArrayList;
@@ -53,6 +55,7 @@ import java.util.List;
 @Setter
 @RequiredArgsConstructor
 @Entity
+@EntityListeners(IpInterfaceKafkaProducer.class)
 public class IpInterface {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
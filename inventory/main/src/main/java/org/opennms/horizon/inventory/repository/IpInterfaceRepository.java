@@ -29,6 +29,7 @@
 package org.opennms.horizon.inventory.repository;
 
 import java.net.InetAddress;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -53,6 +54,16 @@ public interface IpInterfaceRepository extends JpaRepository<IpInterface, Long>
                                                                 @Param("locationId") Long locationId,
                                                                 @Param("tenantId") String tenantId);
 
+    @Query("SELECT ip " +
+        "FROM IpInterface ip " +
+        "WHERE ip.ipAddress IN :ipAddresses " +
+        "AND ip.node.monitoringLocationId = :locationId " +
+        "AND ip.tenantId = :tenantId " +
+        "ORDER BY ip.id")
+    List<IpInterface> findByIpAddressInAndLocationIdAndTenantId(@Param("ipAddresses") Collection<InetAddress> ipAddresses,
+                                                                  @Param("locationId") Long locationId,
+                                                                  @Param("tenantId") String tenantId);
+
     @Query("SELECT ip " +
         "FROM IpInterface ip " +
         "WHERE ip.ipAddress = :ipAddress " +
@@ -1,5 +1,6 @@
 package org.opennms.horizon.inventory.service;
 
+import com.google.common.collect.Lists;
 import lombok.RequiredArgsConstructor;
 import org.opennms.horizon.azure.api.AzureScanNetworkInterfaceItem;
 import org.opennms.horizon.inventory.dto.IpInterfaceDTO;
@@ -15,6 +16,7 @@ import org.opennms.node.scan.contract.IpInterfaceResult;
 import org.springframework.stereotype.Service;
 
 import java.net.InetAddress;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -30,6 +32,11 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class IpInterfaceService {
+    /**
+     * Most addresses looked up by a single query, keeps the IN list of large lookups within the limits of the database.
+     */
+    static final int IP_ADDRESS_QUERY_CHUNK_SIZE = 1000;
+
     private final IpInterfaceRepository modelRepo;
 
     private final IpInterfaceMapper mapper;
@@ -63,7 +70,32 @@ public class IpInterfaceService {
      * @return
      */
     public Optional<IpInterface> findByIpAddressAndLocationIdAndTenantIdModel(InetAddress ipAddress, long locationId, String tenantId) {
-        List<IpInterface> ipInterfaces = modelRepo.findByIpAddressAndLocationIdAndTenantId(ipAddress, locationId, tenantId);
+        return selectInterface(modelRepo.findByIpAddressAndLocationIdAndTenantId(ipAddress, locationId, tenantId));
+    }
+
+    /**
+     * Resolves many addresses with one query per {@value #IP_ADDRESS_QUERY_CHUNK_SIZE} addresses. Per address the interface is picked the same way as by
+     * {@link #findByIpAddressAndLocationIdAndTenantIdModel}, addresses without an interface are left out.
+     */
+    public List<IpInterfaceDTO> findByIpAddressesAndLocationIdAndTenantId(Collection<String> ipAddresses, String location, String tenantId) {
+        if (ipAddresses.isEmpty()) {
+            return List.of();
+        }
+        var inetAddresses = ipAddresses.stream().map(InetAddressUtils::getInetAddress).distinct().collect(Collectors.toList());
+        var locationId = Long.valueOf(location);
+        return Lists.partition(inetAddresses, IP_ADDRESS_QUERY_CHUNK_SIZE)
+            .stream()
+            .flatMap(chunk -> modelRepo.findByIpAddressInAndLocationIdAndTenantId(chunk, locationId, tenantId).stream())
+            .collect(Collectors.groupingBy(IpInterface::getIpAddress))
+            .values()
+            .stream()
+            .map(IpInterfaceService::selectInterface)
+            .flatMap(Optional::stream)
+            .map(mapper::modelToDTO)
+            .collect(Collectors.toList());
+    }
+
+    private static Optional<IpInterface> selectInterface(List<IpInterface> ipInterfaces) {
         if (ipInterfaces.isEmpty()) {
             return Optional.empty();
         } else if (ipInterfaces.size() == 1) {
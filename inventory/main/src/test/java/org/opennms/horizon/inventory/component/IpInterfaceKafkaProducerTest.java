@@ -0,0 +1,43 @@
+package org.opennms.horizon.inventory.component;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opennms.horizon.inventory.model.IpInterface;
+import org.opennms.horizon.inventory.model.Node;
+
+public class IpInterfaceKafkaProducerTest {
+
+    private NodeKafkaProducer mockNodeKafkaProducer;
+
+    private IpInterfaceKafkaProducer target;
+
+    @BeforeEach
+    public void setUp() {
+        mockNodeKafkaProducer = Mockito.mock(NodeKafkaProducer.class);
+
+        target = new IpInterfaceKafkaProducer();
+
+        target.setNodeKafkaProducer(mockNodeKafkaProducer);
+    }
+
+    @Test
+    void testSendNodeOfChangedInterface() {
+        Node testNode = new Node();
+        testNode.setId(131313L);
+        testNode.setTenantId("x-tenant-id-x");
+        IpInterface testIpInterface = new IpInterface();
+        testIpInterface.setNode(testNode);
+
+        target.sendNode(testIpInterface);
+
+        Mockito.verify(mockNodeKafkaProducer).sendNode(testNode);
+    }
+
+    @Test
+    void testInterfaceWithoutNodeIsIgnored() {
+        target.sendNode(new IpInterface());
+
+        Mockito.verifyNoInteractions(mockNodeKafkaProducer);
+    }
+}
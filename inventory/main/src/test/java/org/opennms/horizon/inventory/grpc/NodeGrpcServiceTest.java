@@ -42,6 +42,8 @@ import org.mockito.ArgumentMatcher;
 import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.opennms.horizon.inventory.dto.IpInterfaceDTO;
+import org.opennms.horizon.inventory.dto.IpInterfaceList;
+import org.opennms.horizon.inventory.dto.IpInterfacesQuery;
 import org.opennms.horizon.inventory.dto.MonitoredState;
 import org.opennms.horizon.inventory.dto.MonitoredStateQuery;
 import org.opennms.horizon.inventory.dto.MonitoringLocationDTO;
@@ -868,6 +870,62 @@ class NodeGrpcServiceTest {
         Mockito.verify(mockIpInterfaceDTOStreamObserver).onError(Mockito.argThat(matcher));
     }
 
+    @Test
+    void testGetIpInterfacesFromQuery() {
+        //
+        // Setup test data and interactions
+        //
+        IpInterfacesQuery request =
+            IpInterfacesQuery.newBuilder()
+                .setLocationId(String.valueOf(TEST_LOCATION_ID))
+                .addIpAddresses("192.168.0.1")
+                .addIpAddresses("192.168.0.2")
+                .build();
+        IpInterfaceDTO ipInterfaceDTO =
+            IpInterfaceDTO.newBuilder()
+                .setHostname("x-hostname-x")
+                .setIpAddress("192.168.0.1")
+                .setNodeId(363636L)
+                .build();
+        StreamObserver<IpInterfaceList> mockIpInterfaceListStreamObserver = Mockito.mock(StreamObserver.class);
+        Mockito.when(mockIpInterfaceService.findByIpAddressesAndLocationIdAndTenantId(request.getIpAddressesList(),
+            request.getLocationId(), TEST_TENANT_ID)).thenReturn(List.of(ipInterfaceDTO));
+
+        //
+        // Execute
+        //
+        target.getIpInterfacesFromQuery(request, mockIpInterfaceListStreamObserver);
+
+        //
+        // Validate
+        //
+        Mockito.verify(mockIpInterfaceListStreamObserver).onNext(IpInterfaceList.newBuilder().addIpInterfaces(ipInterfaceDTO).build());
+        Mockito.verify(mockIpInterfaceListStreamObserver).onCompleted();
+    }
+
+    @Test
+    void testGetIpInterfacesFromQueryLocationNotFound() {
+        //
+        // Setup test data and interactions
+        //
+        IpInterfacesQuery request = IpInterfacesQuery.newBuilder()
+            .setLocationId("9999").addIpAddresses("192.168.0.1").build();
+        StreamObserver<IpInterfaceList> mockIpInterfaceListStreamObserver = Mockito.mock(StreamObserver.class);
+
+        //
+        // Execute
+        //
+        target.getIpInterfacesFromQuery(request, mockIpInterfaceListStreamObserver);
+
+        //
+        // Validate
+        //
+        StatusRuntimeExceptionMatcher matcher =
+            new StatusRuntimeExceptionMatcher(this::statusExceptionMatchesNotFound, NodeGrpcService.INVALID_REQUEST_LOCATION_AND_IP_NOT_EMPTY_MSG);
+        Mockito.verify(mockIpInterfaceListStreamObserver).onError(Mockito.argThat(matcher));
+        Mockito.verifyNoInteractions(mockIpInterfaceService);
+    }
+
     @Test
     void testGetIpInterfaceFromMissingTenant() {
         //
@@ -17,11 +17,17 @@ import org.opennms.horizon.shared.utils.IPAddress;
 import org.opennms.horizon.shared.utils.InetAddressUtils;
 import org.opennms.node.scan.contract.IpInterfaceResult;
 
+import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -209,6 +215,88 @@ public class IpInterfaceServiceTest {
         assertEquals(testIpInterfaceDTO3.getId(), expectSnmpAddress.get().getId());
     }
 
+    @Test
+    void testFindByIpAddressesAndLocationAndTenantId() {
+        //
+        // Setup Test Data and Interactions
+        //
+        var address1 = new IPAddress("11.11.11.11").toInetAddress();
+        var address2 = new IPAddress("11.11.11.12").toInetAddress();
+        IpInterface ipAddress1 = new IpInterface();
+        ipAddress1.setId(1L);
+        ipAddress1.setIpAddress(address1);
+        IpInterface ipAddress2 = new IpInterface();
+        ipAddress2.setId(2L);
+        ipAddress2.setIpAddress(address2);
+        IpInterface ipAddress3 = new IpInterface();
+        ipAddress3.setId(3L);
+        ipAddress3.setIpAddress(address2);
+        ipAddress3.setSnmpPrimary(true);
+        var testIpInterfaceDTO1 = IpInterfaceDTO.newBuilder().setId(1L).build();
+        var testIpInterfaceDTO3 = IpInterfaceDTO.newBuilder().setId(3L).build();
+        Mockito.when(mockIpInterfaceRepository.findByIpAddressInAndLocationIdAndTenantId(List.of(address1, address2, new IPAddress("11.11.11.13").toInetAddress()), TEST_LOCATION_ID, TEST_TENANT_ID))
+            .thenReturn(List.of(ipAddress1, ipAddress2, ipAddress3));
+        Mockito.when(mockIpInterfaceMapper.modelToDTO(ipAddress1)).thenReturn(testIpInterfaceDTO1);
+        Mockito.when(mockIpInterfaceMapper.modelToDTO(ipAddress3)).thenReturn(testIpInterfaceDTO3);
+
+        //
+        // Execute
+        //
+        var result = target.findByIpAddressesAndLocationIdAndTenantId(List.of("11.11.11.11", "11.11.11.12", "11.11.11.13"), TEST_LOCATION_ID_TEXT, TEST_TENANT_ID);
+
+        //
+        // Verify the Results
+        //
+        assertEquals(2, result.size());
+        assertTrue(result.containsAll(List.of(testIpInterfaceDTO1, testIpInterfaceDTO3)));
+        Mockito.verify(mockIpInterfaceRepository, Mockito.never()).findByIpAddressAndLocationIdAndTenantId(Mockito.any(), Mockito.anyLong(), Mockito.anyString());
+    }
+
+    @Test
+    void testFindByIpAddressesQueriesInChunks() {
+        //
+        // Setup Test Data and Interactions
+        //
+        var addresses = IntStream.range(0, IpInterfaceService.IP_ADDRESS_QUERY_CHUNK_SIZE * 2 + 1)
+            .mapToObj(i -> "10.0." + (i / 256) + "." + (i % 256))
+            .collect(Collectors.toList());
+        IpInterface first = new IpInterface();
+        first.setId(1L);
+        first.setIpAddress(new IPAddress(addresses.get(0)).toInetAddress());
+        IpInterface last = new IpInterface();
+        last.setId(2L);
+        last.setIpAddress(new IPAddress(addresses.get(addresses.size() - 1)).toInetAddress());
+        var testIpInterfaceDTO1 = IpInterfaceDTO.newBuilder().setId(1L).build();
+        var testIpInterfaceDTO2 = IpInterfaceDTO.newBuilder().setId(2L).build();
+        Mockito.when(mockIpInterfaceRepository.findByIpAddressInAndLocationIdAndTenantId(Mockito.any(), Mockito.eq(TEST_LOCATION_ID), Mockito.eq(TEST_TENANT_ID)))
+            .thenAnswer(invocation -> Stream.of(first, last)
+                .filter(ipInterface -> invocation.<Collection<InetAddress>>getArgument(0).contains(ipInterface.getIpAddress()))
+                .collect(Collectors.toList()));
+        Mockito.when(mockIpInterfaceMapper.modelToDTO(first)).thenReturn(testIpInterfaceDTO1);
+        Mockito.when(mockIpInterfaceMapper.modelToDTO(last)).thenReturn(testIpInterfaceDTO2);
+
+        //
+        // Execute
+        //
+        var result = target.findByIpAddressesAndLocationIdAndTenantId(addresses, TEST_LOCATION_ID_TEXT, TEST_TENANT_ID);
+
+        //
+        // Verify the Results
+        //
+        assertEquals(2, result.size());
+        assertTrue(result.containsAll(List.of(testIpInterfaceDTO1, testIpInterfaceDTO2)));
+        Mockito.verify(mockIpInterfaceRepository, Mockito.times(3)).findByIpAddressInAndLocationIdAndTenantId(
+            Mockito.argThat(chunk -> chunk.size() <= IpInterfaceService.IP_ADDRESS_QUERY_CHUNK_SIZE), Mockito.eq(TEST_LOCATION_ID), Mockito.eq(TEST_TENANT_ID));
+    }
+
+    @Test
+    void testFindByIpAddressesWithoutAddresses() {
+        var result = target.findByIpAddressesAndLocationIdAndTenantId(List.of(), TEST_LOCATION_ID_TEXT, TEST_TENANT_ID);
+
+        assertTrue(result.isEmpty());
+        Mockito.verifyNoInteractions(mockIpInterfaceRepository);
+    }
+
     @Test
     void testCreateOrUpdateFromScanResult() {
         //
@@ -28,11 +28,21 @@
 
 package org.opennms.horizon.flows.classification;
 
+import java.util.function.Predicate;
+
 public interface FilterService {
     void validate(String filterExpression) throws IllegalArgumentException;
 
     boolean matches(String address, String filterExpression);
 
+    /**
+     * Prepares the expression for being evaluated against many addresses. Called once per expression when the
+     * classification rules are loaded, so implementations should parse the expression here rather than on each match.
+     */
+    default Predicate<String> compile(String filterExpression) {
+        return address -> matches(address, filterExpression);
+    }
+
     FilterService NOOP = new FilterService() {
         @Override
         public void validate(String filterExpression) throws IllegalArgumentException {
@@ -46,7 +46,8 @@ import java.util.concurrent.TimeUnit;
  * <p>
  * Reloads are triggered oftentimes while editing classification rules. In addition, reloads may take a couple of seconds
  * depending on the enabled rules. In order to keep the front-end responsive, reloads are done asynchronously.
- * Usages of the classification engine are blocked until ongoing reloads did finish. If a reload fails then
+ * Usages of the classification engine are blocked until the initial load did finish. Afterwards, usages continue
+ * with the rules that were loaded last while a reload is under way and never take a lock. If a reload fails then
  * future usages of this classification engine also fail until a following reload succeeds.
  */
 public class AsyncReloadingClassificationEngine implements ClassificationEngine {
@@ -71,6 +72,10 @@ public class AsyncReloadingClassificationEngine implements ClassificationEngine
     private Throwable reloadException;
     private Future<?> reloadFuture;
 
+    // set while the delegate holds successfully loaded rules and the last completed reload did not fail
+    // -> usages can go straight to the delegate without synchronization
+    private volatile boolean usable;
+
     public AsyncReloadingClassificationEngine(ClassificationEngine delegate) {
         this.delegate = delegate;
         // trigger reload
@@ -116,23 +121,33 @@ public class AsyncReloadingClassificationEngine implements ClassificationEngine
     }
 
     private synchronized void onReloadSucceeded() {
+        usable = true;
         setState(State.READY);
     }
 
     private synchronized void onReloadFailed(Throwable e) {
+        usable = false;
         reloadException = e;
         setState(State.FAILED);
     }
 
+    private void awaitUsable() {
+        if (!usable) {
+            synchronized (this) {
+                waitUntilReadyOrFailed();
+            }
+        }
+    }
+
     @Override
-    public synchronized String classify(ClassificationRequest classificationRequest) {
-        waitUntilReadyOrFailed();
+    public String classify(ClassificationRequest classificationRequest) {
+        awaitUsable();
         return delegate.classify(classificationRequest);
     }
 
     @Override
-    public synchronized List<Rule> getInvalidRules() {
-        waitUntilReadyOrFailed();
+    public List<Rule> getInvalidRules() {
+        awaitUsable();
         return delegate.getInvalidRules();
     }
 
@@ -95,7 +95,8 @@ public class DefaultClassificationEngine implements ClassificationEngine {
             }
         });
 
-        var tree = Tree.of(preprocessedRules, filterService);
+        // Exporter filters are compiled and their outcomes remembered for as long as this rule set is in use
+        var tree = Tree.of(preprocessedRules, new MemoizingFilterService(filterService));
 
         var elapsed = System.currentTimeMillis() - start;
         if (LOG.isInfoEnabled()) {
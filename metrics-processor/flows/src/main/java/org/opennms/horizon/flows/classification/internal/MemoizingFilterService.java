@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.flows.classification.internal;
+
+import org.opennms.horizon.flows.classification.FilterService;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Compiles each distinct filter expression only once and remembers the outcome per exporter address, so matching a
+ * flow against an exporter filter becomes a map lookup once the exporter was seen.
+ * <p>
+ * A new instance is used for every set of loaded rules, so outcomes never outlive the rules they were computed for.
+ */
+public class MemoizingFilterService implements FilterService {
+
+    // bounds the memory used per expression if flows are received from an unexpectedly large number of exporters
+    static final int MAX_MEMOIZED_ADDRESSES = 10_000;
+
+    private final FilterService delegate;
+
+    private final Map<String, MemoizedFilter> filters = new ConcurrentHashMap<>();
+
+    public MemoizingFilterService(FilterService delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    @Override
+    public void validate(String filterExpression) throws IllegalArgumentException {
+        delegate.validate(filterExpression);
+    }
+
+    @Override
+    public boolean matches(String address, String filterExpression) {
+        return compile(filterExpression).test(address);
+    }
+
+    @Override
+    public Predicate<String> compile(String filterExpression) {
+        return filters.computeIfAbsent(filterExpression, expression -> new MemoizedFilter(delegate.compile(expression)));
+    }
+
+    private static class MemoizedFilter implements Predicate<String> {
+        private final Predicate<String> filter;
+        private final Map<String, Boolean> outcomes = new ConcurrentHashMap<>();
+
+        private MemoizedFilter(Predicate<String> filter) {
+            this.filter = Objects.requireNonNull(filter);
+        }
+
+        @Override
+        public boolean test(String address) {
+            var outcome = outcomes.get(address);
+            if (outcome == null) {
+                outcome = filter.test(address);
+                if (outcomes.size() < MAX_MEMOIZED_ADDRESSES) {
+                    outcomes.put(address, outcome);
+                }
+            }
+            return outcome;
+        }
+    }
+}
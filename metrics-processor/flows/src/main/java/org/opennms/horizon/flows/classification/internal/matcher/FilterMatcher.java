@@ -32,19 +32,18 @@ import org.opennms.horizon.flows.classification.ClassificationRequest;
 import org.opennms.horizon.flows.classification.FilterService;
 
 import java.util.Objects;
+import java.util.function.Predicate;
 
 public class FilterMatcher implements Matcher {
 
-    private final FilterService filterService;
-    private final String filterExpression;
+    private final Predicate<String> filter;
 
     public FilterMatcher(String filterExpression, FilterService filterService) {
-        this.filterExpression = Objects.requireNonNull(filterExpression);
-        this.filterService = Objects.requireNonNull(filterService);
+        this.filter = filterService.compile(Objects.requireNonNull(filterExpression));
     }
 
     @Override
     public boolean matches(ClassificationRequest request) {
-        return this.filterService.matches(request.getExporterAddress(), filterExpression);
+        return this.filter.test(request.getExporterAddress());
     }
 }
@@ -34,11 +34,14 @@ import io.grpc.Metadata;
 import io.grpc.stub.MetadataUtils;
 import lombok.RequiredArgsConstructor;
 import org.opennms.horizon.inventory.dto.IpInterfaceDTO;
+import org.opennms.horizon.inventory.dto.IpInterfacesQuery;
 import org.opennms.horizon.inventory.dto.NodeDTO;
 import org.opennms.horizon.inventory.dto.NodeIdQuery;
 import org.opennms.horizon.inventory.dto.NodeServiceGrpc;
 import org.opennms.horizon.shared.constants.GrpcConstants;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @RequiredArgsConstructor
@@ -47,7 +50,7 @@ public class InventoryClient {
     private final long deadline;
     private NodeServiceGrpc.NodeServiceBlockingStub nodeStub;
 
-    protected void initialStubs() {
+    public void initialStubs() {
         nodeStub = NodeServiceGrpc.newBlockingStub(channel);
     }
 
@@ -91,4 +94,14 @@ public class InventoryClient {
             .withDeadlineAfter(deadline, TimeUnit.MILLISECONDS)
             .getIpInterfaceFromQuery(query);
     }
+
+    public List<IpInterfaceDTO> getIpInterfacesFromQuery(String tenantId, Collection<String> ipAddresses, String locationId) {
+        Metadata metadata = getMetadata(true, tenantId);
+
+        IpInterfacesQuery query = IpInterfacesQuery.newBuilder()
+            .addAllIpAddresses(ipAddresses).setLocationId(locationId).build();
+        return nodeStub.withInterceptors(MetadataUtils.newAttachHeadersInterceptor(metadata))
+            .withDeadlineAfter(deadline, TimeUnit.MILLISECONDS)
+            .getIpInterfacesFromQuery(query).getIpInterfacesList();
+    }
 }
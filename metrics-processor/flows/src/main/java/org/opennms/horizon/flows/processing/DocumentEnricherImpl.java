@@ -32,9 +32,13 @@ import java.net.InetAddress;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 import org.opennms.horizon.flows.classification.ClassificationEngine;
 import org.opennms.horizon.flows.classification.ClassificationRequest;
@@ -48,6 +52,8 @@ import org.opennms.horizon.shared.utils.InetAddressUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Sets;
+import com.google.common.net.InetAddresses;
 import com.google.protobuf.UInt64Value;
 
 import io.grpc.Status;
@@ -63,16 +69,30 @@ public class DocumentEnricherImpl {
     private final long clockSkewCorrectionThreshold;
     private final FlowDocumentClassificationRequestMapper flowDocumentBuilderClassificationRequestMapper;
 
+    private final NodeInfoCache nodeInfoCache;
+
     public DocumentEnricherImpl(InventoryClient inventoryClient,
                                 ClassificationEngine classificationEngine,
                                 FlowDocumentClassificationRequestMapper flowDocumentClassificationRequestMapper,
                                 long clockSkewCorrectionThreshold) {
+        this(inventoryClient, classificationEngine, flowDocumentClassificationRequestMapper, clockSkewCorrectionThreshold, null);
+    }
+
+    /**
+     * @param nodeInfoCache cache for the node lookups, or null to query inventory for every log
+     */
+    public DocumentEnricherImpl(InventoryClient inventoryClient,
+                                ClassificationEngine classificationEngine,
+                                FlowDocumentClassificationRequestMapper flowDocumentClassificationRequestMapper,
+                                long clockSkewCorrectionThreshold,
+                                NodeInfoCache nodeInfoCache) {
 
         this.inventoryClient = Objects.requireNonNull(inventoryClient);
         this.classificationEngine = Objects.requireNonNull(classificationEngine);
         this.flowDocumentBuilderClassificationRequestMapper = flowDocumentClassificationRequestMapper;
 
         this.clockSkewCorrectionThreshold = clockSkewCorrectionThreshold;
+        this.nodeInfoCache = nodeInfoCache;
     }
 
     public List<FlowDocument> enrich(TenantLocationSpecificFlowDocumentLog flowsLog) {
@@ -82,7 +102,8 @@ public class DocumentEnricherImpl {
             return Collections.emptyList();
         }
 
-        return flows.stream().map(f -> this.enrichOne(f, flowsLog.getTenantId(), flowsLog.getLocationId())).toList();
+        var nodeInfos = getNodeInfos(flowsLog.getTenantId(), flowsLog.getLocationId(), getIpAddresses(flows));
+        return flows.stream().map(f -> this.enrichOne(f, flowsLog.getLocationId(), nodeInfos)).toList();
     }
 
     private boolean isPrivateAddress(String ipAddress) {
@@ -90,36 +111,88 @@ public class DocumentEnricherImpl {
         return inetAddress.isLoopbackAddress() || inetAddress.isLinkLocalAddress() || inetAddress.isSiteLocalAddress();
     }
 
-    private NodeInfo getNodeInfo(String location, String ipAddress, String tenantId) {
+    /**
+     * Resolves the node information of all addresses of a log, serving what it can from the cache and looking up
+     * the rest with a single inventory request.
+     */
+    private Map<String, NodeInfo> getNodeInfos(String tenantId, String location, Set<String> ipAddresses) {
+        Map<String, NodeInfo> nodeInfos = new HashMap<>();
+        Set<String> missing = ipAddresses;
+        if (nodeInfoCache != null) {
+            var cached = nodeInfoCache.getAllPresent(tenantId, location, ipAddresses);
+            cached.forEach((ipAddress, nodeInfo) -> nodeInfo.ifPresent(info -> nodeInfos.put(ipAddress, info)));
+            missing = Sets.difference(ipAddresses, cached.keySet());
+        }
+        if (missing.isEmpty()) {
+            return nodeInfos;
+        }
+
+        var resolved = lookupNodeInfos(tenantId, location, missing);
+        if (resolved.isEmpty()) {
+            // Lookup failed, try again with the next log
+            return nodeInfos;
+        }
+        nodeInfos.putAll(resolved.get());
+        if (nodeInfoCache != null) {
+            missing.forEach(ipAddress -> nodeInfoCache.put(tenantId, location, ipAddress, Optional.ofNullable(resolved.get().get(ipAddress))));
+        }
+        return nodeInfos;
+    }
 
-        IpInterfaceDTO iface;
+    /**
+     * @return the node information of the addresses known to inventory, or empty if the lookup failed
+     */
+    private Optional<Map<String, NodeInfo>> lookupNodeInfos(String tenantId, String location, Set<String> ipAddresses) {
+        List<IpInterfaceDTO> ifaces;
         try {
-            iface = inventoryClient.getIpInterfaceFromQuery(tenantId, ipAddress, location);
+            ifaces = inventoryClient.getIpInterfacesFromQuery(tenantId, ipAddresses, location);
         } catch (StatusRuntimeException e) {
-            if (!Status.NOT_FOUND.getCode().equals(e.getStatus().getCode())) {
-                LOG.warn("Fail to get NodeInfo ipAddress: {} location: {} unknown error: {}", ipAddress, location, e.getStatus());
+            if (Status.NOT_FOUND.getCode().equals(e.getStatus().getCode())) {
+                // Unknown location, so none of the addresses belongs to a node
+                return Optional.of(Collections.emptyMap());
             }
-            return null;
+            LOG.warn("Fail to get NodeInfo of {} ipAddresses location: {} unknown error: {}", ipAddresses.size(), location, e.getStatus());
+            return Optional.empty();
         }
 
-        if (iface == null) {
-            return null;
+        // Inventory may format an address differently, so match them by value
+        Map<InetAddress, String> requested = new HashMap<>();
+        ipAddresses.forEach(ipAddress -> requested.put(InetAddresses.forString(ipAddress), ipAddress));
+
+        Map<String, NodeInfo> nodeInfos = new HashMap<>();
+        for (var iface : ifaces) {
+            var ipAddress = InetAddresses.isInetAddress(iface.getIpAddress()) ? requested.get(InetAddresses.forString(iface.getIpAddress())) : null;
+            if (ipAddress != null) {
+                nodeInfos.put(ipAddress, NodeInfo.newBuilder()
+                    .setNodeId(iface.getNodeId())
+                    .setInterfaceId(iface.getId())
+                    .setForeignId(iface.getHostname()) // temp until we have better solution
+                    .build());
+            }
+        }
+        return Optional.of(nodeInfos);
+    }
+
+    private static Set<String> getIpAddresses(List<FlowDocument> flows) {
+        Set<String> ipAddresses = new HashSet<>();
+        for (var flow : flows) {
+            ipAddresses.add(flow.getExporterAddress());
+            ipAddresses.add(flow.getSrcAddress());
+            ipAddresses.add(flow.getDstAddress());
         }
-        return NodeInfo.newBuilder()
-            .setNodeId(iface.getNodeId())
-            .setInterfaceId(iface.getId())
-            .setForeignId(iface.getHostname()) // temp until we have better solution
-            .build();
+        // Inventory can't resolve malformed addresses, don't let them fail the lookup of the others
+        ipAddresses.removeIf(ipAddress -> !InetAddresses.isInetAddress(ipAddress));
+        return ipAddresses;
     }
 
     // Note that protobuf semantics prevent nulls in many places here
-    private FlowDocument enrichOne(FlowDocument flow, String tenantId, String location) {
+    private FlowDocument enrichOne(FlowDocument flow, String location, Map<String, NodeInfo> nodeInfos) {
         var document = FlowDocument.newBuilder(flow);     // Can never return null
 
         // Node data
-        Optional.ofNullable(getNodeInfo(location, flow.getExporterAddress(), tenantId)).ifPresent(document::setExporterNode);
-        Optional.ofNullable(getNodeInfo(location, flow.getSrcAddress(), tenantId)).ifPresent(document::setSrcNode);
-        Optional.ofNullable(getNodeInfo(location, flow.getDstAddress(), tenantId)).ifPresent(document::setDestNode);
+        Optional.ofNullable(nodeInfos.get(flow.getExporterAddress())).ifPresent(document::setExporterNode);
+        Optional.ofNullable(nodeInfos.get(flow.getSrcAddress())).ifPresent(document::setSrcNode);
+        Optional.ofNullable(nodeInfos.get(flow.getDstAddress())).ifPresent(document::setDestNode);
 
         // Locality
         document.setSrcLocality(isPrivateAddress(flow.getSrcAddress()) ? Locality.PRIVATE : Locality.PUBLIC);
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.flows.processing;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.opennms.horizon.flows.document.NodeInfo;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Caches the node information resolved for an IP address, keyed by tenant, location and address. Addresses unknown
+ * to inventory are cached as well, so flows from unmanaged hosts don't cause a lookup each time they are seen.
+ */
+public class NodeInfoCache {
+
+    private final Cache<Key, Optional<NodeInfo>> cache;
+
+    /**
+     * @param maximumSize maximum number of cached addresses
+     * @param expireAfterWriteInSeconds time after which an entry is looked up again, 0 to keep entries until evicted
+     * @param recordStats whether to expose hit and miss counts
+     */
+    public NodeInfoCache(MetricRegistry metricRegistry, long maximumSize, long expireAfterWriteInSeconds, boolean recordStats) {
+        var builder = CacheBuilder.newBuilder().maximumSize(maximumSize);
+        if (expireAfterWriteInSeconds > 0) {
+            builder.expireAfterWrite(expireAfterWriteInSeconds, TimeUnit.SECONDS);
+        }
+        if (recordStats) {
+            builder.recordStats();
+        }
+        this.cache = builder.build();
+
+        metricRegistry.register("nodeCacheSize", (Gauge<Long>) cache::size);
+        if (recordStats) {
+            metricRegistry.register("nodeCacheHits", (Gauge<Long>) () -> cache.stats().hitCount());
+            metricRegistry.register("nodeCacheMisses", (Gauge<Long>) () -> cache.stats().missCount());
+            metricRegistry.register("nodeCacheEvictions", (Gauge<Long>) () -> cache.stats().evictionCount());
+        }
+    }
+
+    /**
+     * Returns the cached node information of those addresses which are in the cache, an empty optional meaning that
+     * the address is unknown to inventory.
+     */
+    public Map<String, Optional<NodeInfo>> getAllPresent(String tenantId, String location, Collection<String> ipAddresses) {
+        var keys = ipAddresses.stream().map(ipAddress -> new Key(tenantId, location, ipAddress)).toList();
+        var present = new HashMap<String, Optional<NodeInfo>>();
+        cache.getAllPresent(keys).forEach((key, nodeInfo) -> present.put(key.ipAddress(), nodeInfo));
+        return present;
+    }
+
+    /**
+     * @param nodeInfo the node information of the address, empty if the address is unknown to inventory
+     */
+    public void put(String tenantId, String location, String ipAddress, Optional<NodeInfo> nodeInfo) {
+        cache.put(new Key(tenantId, location, ipAddress), nodeInfo);
+    }
+
+    /**
+     * Drops all entries of the tenant, e.g. after one of its nodes was added or changed. This includes the addresses
+     * which were unknown so far, as they may now belong to a node.
+     */
+    public void invalidateTenant(String tenantId) {
+        cache.asMap().keySet().removeIf(key -> key.tenantId().equals(tenantId));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private record Key(String tenantId, String location, String ipAddress) {
+    }
+}
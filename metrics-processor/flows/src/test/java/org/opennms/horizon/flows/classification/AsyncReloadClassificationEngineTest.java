@@ -34,8 +34,12 @@ import org.opennms.horizon.flows.classification.persistence.api.Rule;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -117,4 +121,52 @@ public class AsyncReloadClassificationEngineTest {
         sleep.set(false);
 
     }
+
+    @Test
+    public void classificationContinuesWhileReloading() throws Exception {
+
+        var application = new AtomicReference<String>();
+        var reloads = new AtomicInteger();
+        var releaseReload = new CountDownLatch(1);
+
+        ClassificationEngine ce = new ClassificationEngine() {
+            @Override
+            public String classify(ClassificationRequest classificationRequest) {
+                return application.get();
+            }
+
+            @Override
+            public List<Rule> getInvalidRules() {
+                return List.of();
+            }
+
+            @Override
+            public void reload() throws InterruptedException {
+                if (reloads.incrementAndGet() > 1) {
+                    releaseReload.await();
+                }
+                application.set("app" + reloads.get());
+            }
+
+            public void addClassificationRulesReloadedListener(final ClassificationRulesReloadedListener classificationRulesReloadedListener) {
+            }
+
+            public void removeClassificationRulesReloadedListener(final ClassificationRulesReloadedListener classificationRulesReloadedListener) {
+            }
+        };
+
+        var x = new AsyncReloadingClassificationEngine(ce);
+        // the initial load is awaited
+        assertThat(x.classify(new ClassificationRequest()), is("app1"));
+
+        x.reload();
+        await().untilAsserted(() -> assertThat(reloads.get(), is(2)));
+
+        // the reload is blocked, classification must not wait for it but use the previously loaded rules
+        var classified = CompletableFuture.supplyAsync(() -> x.classify(new ClassificationRequest()));
+        assertThat(classified.get(5, TimeUnit.SECONDS), is("app1"));
+
+        releaseReload.countDown();
+        await().untilAsserted(() -> assertThat(x.classify(new ClassificationRequest()), is("app2")));
+    }
 }
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.flows.classification;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.horizon.flows.classification.internal.AsyncReloadingClassificationEngine;
+import org.opennms.horizon.flows.classification.internal.DefaultClassificationEngine;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures how classification through the {@link AsyncReloadingClassificationEngine} scales with the number of
+ * classifying threads, optionally while reloads are triggered continuously in the background.
+ * <p>
+ * The reported number of operations per second must be multiplied by the batch size to get the number of
+ * classifications per second.
+ */
+public class AsyncReloadingClassificationEngineBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String PRE_DEFINED_RULES_RESOURCE = "/pre-defined-rules.csv";
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+
+        // whether reloads are triggered in the background while classifying
+        @Param({"false", "true"})
+        public boolean reloading;
+
+        private AsyncReloadingClassificationEngine classificationEngine;
+        private List<ClassificationRequest> classificationRequests;
+        private ScheduledExecutorService reloader;
+
+        @Setup(Level.Trial)
+        public void setup() throws InterruptedException, IOException {
+            var rules = ClassificationEngineBenchmark.getRules(PRE_DEFINED_RULES_RESOURCE);
+            classificationEngine = new AsyncReloadingClassificationEngine(
+                new DefaultClassificationEngine(() -> rules, org.mockito.Mockito.mock(FilterService.class), false));
+            classificationRequests = RandomClassificationEngineTest.streamOfclassificationRequests(rules, 123456l)
+                .limit(BATCH_SIZE).collect(Collectors.toList());
+            if (reloading) {
+                reloader = Executors.newSingleThreadScheduledExecutor();
+                reloader.scheduleWithFixedDelay(classificationEngine::reload, 0, 10, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (reloader != null) {
+                reloader.shutdownNow();
+            }
+        }
+    }
+
+    private static void classifyBatch(BState state, Blackhole blackhole) {
+        for (var cr : state.classificationRequests) {
+            blackhole.consume(state.classificationEngine.classify(cr));
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    @Threads(1)
+    public void classify1Thread(BState state, Blackhole blackhole) {
+        classifyBatch(state, blackhole);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    @Threads(2)
+    public void classify2Threads(BState state, Blackhole blackhole) {
+        classifyBatch(state, blackhole);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    @Threads(4)
+    public void classify4Threads(BState state, Blackhole blackhole) {
+        classifyBatch(state, blackhole);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    @Threads(8)
+    public void classify8Threads(BState state, Blackhole blackhole) {
+        classifyBatch(state, blackhole);
+    }
+}
@@ -39,6 +39,8 @@ import org.opennms.horizon.flows.classification.persistence.api.RuleBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
@@ -199,6 +201,53 @@ public class DefaultClassificationEngineTest {
                 .build()));
     }
 
+    @Test
+    public void verifyExporterFiltersAreCompiledOnceAndMemoized() throws InterruptedException {
+        final AtomicInteger compilations = new AtomicInteger();
+        final AtomicInteger evaluations = new AtomicInteger();
+        final FilterService filterService = new FilterService() {
+            @Override
+            public void validate(String filterExpression) {
+            }
+
+            @Override
+            public boolean matches(String address, String filterExpression) {
+                throw new UnsupportedOperationException("expressions must be compiled");
+            }
+
+            @Override
+            public Predicate<String> compile(String filterExpression) {
+                compilations.incrementAndGet();
+                return address -> {
+                    evaluations.incrementAndGet();
+                    return address.equals(filterExpression);
+                };
+            }
+        };
+        final DefaultClassificationEngine engine = new DefaultClassificationEngine(() -> Lists.newArrayList(
+            new RuleBuilder().withName("HTTP-A").withDstPort(80).withExporterFilter("10.0.0.1").withPosition(1).build(),
+            new RuleBuilder().withName("HTTP-B").withDstPort(80).withExporterFilter("10.0.0.2").withPosition(2).build()
+        ), filterService);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("HTTP-A", engine.classify(new ClassificationRequestBuilder()
+                .withProtocol(TCP).withSrcPort(9999).withDstPort(80).withExporterAddress("10.0.0.1").build()));
+            assertEquals("HTTP-B", engine.classify(new ClassificationRequestBuilder()
+                .withProtocol(TCP).withSrcPort(9999).withDstPort(80).withExporterAddress("10.0.0.2").build()));
+        }
+
+        // one compilation per expression and one evaluation per expression and exporter
+        assertEquals(2, compilations.get());
+        assertEquals(3, evaluations.get());
+
+        // outcomes do not survive a reload
+        engine.reload();
+        engine.classify(new ClassificationRequestBuilder()
+            .withProtocol(TCP).withSrcPort(9999).withDstPort(80).withExporterAddress("10.0.0.1").build());
+        assertEquals(4, compilations.get());
+        assertEquals(4, evaluations.get());
+    }
+
     @Test
     public void verifyAllPortsToEnsureEngineIsProperlyInitialized() throws InterruptedException {
         final ClassificationEngine classificationEngine = new DefaultClassificationEngine(() -> new ArrayList<>(), FilterService.NOOP);
@@ -231,7 +231,7 @@ class DocumentEnricherTest {
         target = new DocumentEnricherImpl(mockInventoryClient, mockClassificationEngine, mockFlowDocumentClassificationRequestMapper, 100);
         StatusRuntimeException testException = new StatusRuntimeException(Status.NOT_FOUND);
 
-        Mockito.when(mockInventoryClient.getIpInterfaceFromQuery("x-tenant-id-x", "1.1.1.1", "x-location-x"))
+        Mockito.when(mockInventoryClient.getIpInterfacesFromQuery(Mockito.eq("x-tenant-id-x"), Mockito.anyCollection(), Mockito.eq("x-location-x")))
             .thenThrow(testException);
 
         //
@@ -266,10 +266,11 @@ class DocumentEnricherTest {
                 .setNodeId(123123)
                 .setId(456456)
                 .setHostname("x-hostname-x")
+                .setIpAddress("1.1.1.1")
                 .build();
 
-        Mockito.when(mockInventoryClient.getIpInterfaceFromQuery("x-tenant-id-x", "1.1.1.1", "x-location-x"))
-            .thenReturn(testIpInterfaceDTO);
+        Mockito.when(mockInventoryClient.getIpInterfacesFromQuery("x-tenant-id-x", Set.of("1.1.1.1", "2.2.2.2", "127.0.0.1"), "x-location-x"))
+            .thenReturn(List.of(testIpInterfaceDTO));
 
         //
         // Execute
@@ -303,7 +304,7 @@ class DocumentEnricherTest {
         target = new DocumentEnricherImpl(mockInventoryClient, mockClassificationEngine, mockFlowDocumentClassificationRequestMapper, 100);
         StatusRuntimeException testException = new StatusRuntimeException(Status.INVALID_ARGUMENT);
 
-        Mockito.when(mockInventoryClient.getIpInterfaceFromQuery("x-tenant-id-x", "1.1.1.1", "x-location-x"))
+        Mockito.when(mockInventoryClient.getIpInterfacesFromQuery(Mockito.eq("x-tenant-id-x"), Mockito.anyCollection(), Mockito.eq("x-location-x")))
             .thenThrow(testException);
 
         //
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.flows.processing;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opennms.horizon.flows.classification.ClassificationEngine;
+import org.opennms.horizon.flows.classification.ClassificationRequest;
+import org.opennms.horizon.flows.document.FlowDocument;
+import org.opennms.horizon.flows.document.TenantLocationSpecificFlowDocumentLog;
+import org.opennms.horizon.flows.grpc.client.InventoryClient;
+import org.opennms.horizon.inventory.dto.IpInterfaceDTO;
+import org.opennms.horizon.inventory.dto.IpInterfaceList;
+import org.opennms.horizon.inventory.dto.IpInterfacesQuery;
+import org.opennms.horizon.inventory.dto.NodeServiceGrpc;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NodeInfoCacheTest {
+
+    private static final Map<String, Long> KNOWN_INTERFACES = Map.of("10.0.0.1", 1L, "10.0.0.2", 2L);
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger lookedUpAddresses = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private Server server;
+    private ManagedChannel channel;
+    private InventoryClient inventoryClient;
+    private FlowDocumentClassificationRequestMapper classificationRequestMapper;
+    private MetricRegistry metricRegistry;
+    private NodeInfoCache nodeInfoCache;
+    private DocumentEnricherImpl target;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        var serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName).directExecutor()
+            .addService(new InventoryStub()).build().start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+
+        inventoryClient = new InventoryClient(channel, 5000);
+        inventoryClient.initialStubs();
+        classificationRequestMapper = Mockito.mock(FlowDocumentClassificationRequestMapper.class);
+        Mockito.when(classificationRequestMapper.createClassificationRequest(Mockito.any(FlowDocument.class), Mockito.anyString()))
+            .thenReturn(Mockito.mock(ClassificationRequest.class));
+
+        metricRegistry = new MetricRegistry();
+        nodeInfoCache = new NodeInfoCache(metricRegistry, 1000, 0, true);
+        target = new DocumentEnricherImpl(inventoryClient, Mockito.mock(ClassificationEngine.class),
+            classificationRequestMapper, 0, nodeInfoCache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void testLookupsStayFlatAsFlowVolumeGrows() {
+        // exporter, one known and one unknown address, all resolved with a single request
+        target.enrich(flowsLog("tenant", 10));
+        assertEquals(1, lookups.get());
+        assertEquals(3, lookedUpAddresses.get());
+
+        for (int i = 0; i < 100; i++) {
+            var enriched = target.enrich(flowsLog("tenant", 100));
+            assertEquals(1L, enriched.get(0).getSrcNode().getNodeId());
+            assertEquals(2L, enriched.get(0).getExporterNode().getNodeId());
+            assertFalse(enriched.get(0).hasDestNode());
+        }
+
+        assertEquals(1, lookups.get());
+        assertEquals(3L, gauge("nodeCacheSize"));
+        assertEquals(3L, gauge("nodeCacheMisses"));
+        assertEquals(300L, gauge("nodeCacheHits"));
+    }
+
+    @Test
+    void testOneLookupPerLogWithoutCache() {
+        target = new DocumentEnricherImpl(inventoryClient, Mockito.mock(ClassificationEngine.class),
+            classificationRequestMapper, 0);
+
+        target.enrich(flowsLog("tenant", 1));
+        target.enrich(flowsLog("tenant", 1000));
+
+        assertEquals(2, lookups.get());
+        assertEquals(6, lookedUpAddresses.get());
+    }
+
+    @Test
+    void testEntriesAreKeptPerTenant() {
+        target.enrich(flowsLog("tenant-a", 1));
+        target.enrich(flowsLog("tenant-b", 1));
+
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void testInvalidateTenant() {
+        target.enrich(flowsLog("tenant-a", 1));
+        target.enrich(flowsLog("tenant-b", 1));
+
+        nodeInfoCache.invalidateTenant("tenant-a");
+        assertEquals(3, nodeInfoCache.size());
+
+        target.enrich(flowsLog("tenant-a", 1));
+        target.enrich(flowsLog("tenant-b", 1));
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    void testFailedLookupsAreNotCached() {
+        failures.set(1);
+
+        var enriched = target.enrich(flowsLog("tenant", 1));
+        assertFalse(enriched.get(0).hasSrcNode());
+        assertEquals(0, nodeInfoCache.size());
+
+        enriched = target.enrich(flowsLog("tenant", 1));
+        assertTrue(enriched.get(0).hasSrcNode());
+        assertEquals(2, lookups.get());
+    }
+
+    private long gauge(String name) {
+        return ((Number) metricRegistry.getGauges().get(name).getValue()).longValue();
+    }
+
+    private static TenantLocationSpecificFlowDocumentLog flowsLog(String tenantId, int flows) {
+        var flowsLog = TenantLocationSpecificFlowDocumentLog.newBuilder()
+            .setTenantId(tenantId)
+            .setLocationId("location");
+        for (int i = 0; i < flows; i++) {
+            flowsLog.addMessage(FlowDocument.newBuilder()
+                .setExporterAddress("10.0.0.2")
+                .setSrcAddress("10.0.0.1")
+                .setDstAddress("192.168.1.1"));
+        }
+        return flowsLog.build();
+    }
+
+    private class InventoryStub extends NodeServiceGrpc.NodeServiceImplBase {
+        @Override
+        public void getIpInterfacesFromQuery(IpInterfacesQuery request, StreamObserver<IpInterfaceList> responseObserver) {
+            lookups.incrementAndGet();
+            lookedUpAddresses.addAndGet(request.getIpAddressesCount());
+            if (failures.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+                return;
+            }
+            var ipInterfaces = IpInterfaceList.newBuilder();
+            for (var ipAddress : request.getIpAddressesList()) {
+                var nodeId = KNOWN_INTERFACES.get(ipAddress);
+                if (nodeId != null) {
+                    ipInterfaces.addIpInterfaces(IpInterfaceDTO.newBuilder()
+                        .setId(nodeId * 10)
+                        .setNodeId(nodeId)
+                        .setIpAddress(ipAddress));
+                }
+            }
+            responseObserver.onNext(ipInterfaces.build());
+            responseObserver.onCompleted();
+        }
+    }
+}
@@ -28,23 +28,22 @@
 
 package org.opennms.horizon.flows;
 
-import com.codahale.metrics.MetricRegistry;
 import com.google.protobuf.InvalidProtocolBufferException;
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.opennms.horizon.flows.document.TenantLocationSpecificFlowDocumentLog;
 import org.opennms.horizon.flows.processing.Pipeline;
+import org.opennms.horizon.metrics.BoundedExecutor;
 import org.opennms.horizon.tenantmetrics.TenantMetricsTracker;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 @Slf4j
@@ -53,33 +52,55 @@ import java.util.concurrent.CompletableFuture;
 public class FlowProcessor {
     private final Pipeline pipeline;
     private final TenantMetricsTracker metricsTracker;
+    private final BoundedExecutor executor;
 
-    public FlowProcessor(final Pipeline pipeline, final TenantMetricsTracker metricsTracker){
+    public FlowProcessor(final Pipeline pipeline, final TenantMetricsTracker metricsTracker,
+                         @Value("${flows.processing.threads:8}") final int threads,
+                         @Value("${flows.processing.queueSize:1000}") final int queueSize) {
         this.pipeline = Objects.requireNonNull(pipeline);
         this.metricsTracker = metricsTracker;
+        this.executor = new BoundedExecutor("flow-processor", threads, queueSize);
     }
 
-    @KafkaListener(topics = "${kafka.flow-topics}", concurrency = "1")
-    public void consume(@Payload byte[] data) {
+    /**
+     * Processes a batch of polled records on the worker pool and returns, letting the container commit the offsets,
+     * only once all of them have been processed. While the pool is saturated the listener blocks.
+     */
+    @KafkaListener(topics = "${kafka.flow-topics}", concurrency = "1", batch = "true")
+    public void consume(@Payload List<byte[]> records) throws InterruptedException {
+        List<CompletableFuture<Void>> pending = new ArrayList<>(records.size());
         try {
-            var flowDocumentLog = TenantLocationSpecificFlowDocumentLog.parseFrom(data);
-            String tenantId = flowDocumentLog.getTenantId();
-            CompletableFuture.supplyAsync(() -> {
+            for (byte[] data : records) {
                 try {
-                    log.trace("Processing flow: tenant-id={}; flow={}", tenantId, flowDocumentLog);
-                    pipeline.process(flowDocumentLog);
-                    metricsTracker.addTenantFlowCompletedCount(tenantId, flowDocumentLog.getMessageCount());
-                } catch (Exception exc) {
-                    log.warn("Error processing flow: tenant-id={}; error: {}", tenantId, exc.getMessage(), exc);
-                } finally {
-                    // record as close as possible to the addTenantFlowCompletedCount (i.e.: after processing)
-                    // so both hopefully end up together in results so we can compute a reasonable success rate
-                    metricsTracker.addTenantFlowReceviedCount(tenantId, flowDocumentLog.getMessageCount());
+                    var flowDocumentLog = TenantLocationSpecificFlowDocumentLog.parseFrom(data);
+                    pending.add(executor.submit(() -> process(flowDocumentLog)));
+                } catch (InvalidProtocolBufferException e) {
+                    log.error("Invalid data from kafka", e);
                 }
-                return null;
-            });
-        } catch (InvalidProtocolBufferException e) {
-            log.error("Invalid data from kafka", e);
+            }
+        } finally {
+            // process() handles its own errors, so the futures always complete normally
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+
+    private void process(TenantLocationSpecificFlowDocumentLog flowDocumentLog) {
+        String tenantId = flowDocumentLog.getTenantId();
+        try {
+            log.trace("Processing flow: tenant-id={}; flow={}", tenantId, flowDocumentLog);
+            pipeline.process(flowDocumentLog);
+            metricsTracker.addTenantFlowCompletedCount(tenantId, flowDocumentLog.getMessageCount());
+        } catch (Exception exc) {
+            log.warn("Error processing flow: tenant-id={}; error: {}", tenantId, exc.getMessage(), exc);
+        } finally {
+            // record as close as possible to the addTenantFlowCompletedCount (i.e.: after processing)
+            // so both hopefully end up together in results so we can compute a reasonable success rate
+            metricsTracker.addTenantFlowReceviedCount(tenantId, flowDocumentLog.getMessageCount());
         }
     }
 }
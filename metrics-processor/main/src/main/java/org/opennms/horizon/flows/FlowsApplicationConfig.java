@@ -35,7 +35,11 @@ import io.grpc.ManagedChannelBuilder;
 import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import lombok.extern.slf4j.Slf4j;
 
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartitionInfo;
 import org.opennms.horizon.flows.classification.ClassificationEngine;
 import org.opennms.horizon.flows.classification.ClassificationRuleProvider;
 import org.opennms.horizon.flows.classification.FilterService;
@@ -47,24 +51,31 @@ import org.opennms.horizon.flows.integration.FlowRepository;
 import org.opennms.horizon.flows.integration.FlowRepositoryImpl;
 import org.opennms.horizon.flows.processing.DocumentEnricherImpl;
 import org.opennms.horizon.flows.processing.FlowDocumentClassificationRequestMapper;
+import org.opennms.horizon.flows.processing.NodeInfoCache;
 import org.opennms.horizon.flows.processing.Pipeline;
 import org.opennms.horizon.flows.processing.PipelineImpl;
 import org.opennms.horizon.flows.processing.impl.FlowDocumentClassificationRequestMapperImpl;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.retry.backoff.FixedBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLException;
 
+@Slf4j
 @Configuration
 @Profile("!test")
 public class FlowsApplicationConfig {
@@ -75,18 +86,21 @@ public class FlowsApplicationConfig {
     @Value("${flows.mangleScriptPath:}")
     private String mangleScriptPath;
 
-    @Value("${flows.nodeCache.enabled:true}")
-    private boolean nodeCacheEnabled;
-
     @Value("${flows.nodeCache.maximumSize:10000}")
     private long nodeCacheMaximumSize;
 
-    @Value("${flows.nodeCache.expireAfterWrite:0}")
+    @Value("${flows.nodeCache.expireAfterWrite:300}")
     private long nodeCacheExpireAfterWrite;
 
     @Value("${flows.nodeCache.recordStats:true}")
     private boolean nodeCacheRecordStats;
 
+    @Value("${kafka.node-topic}")
+    private String nodeTopic;
+
+    @Value("${flows.nodeCache.topicLookupAttempts:10}")
+    private int nodeTopicLookupAttempts;
+
     @Value("${grpc.inventory.url}")
     private String inventoryGrpcAddress;
 
@@ -161,12 +175,44 @@ public class FlowsApplicationConfig {
             FilterService.NOOP);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "flows.nodeCache.enabled", havingValue = "true", matchIfMissing = true)
+    public NodeInfoCache createNodeInfoCache(final MetricRegistry metricRegistry) {
+        return new NodeInfoCache(metricRegistry, nodeCacheMaximumSize, nodeCacheExpireAfterWrite, nodeCacheRecordStats);
+    }
+
+    /**
+     * Partitions of the node topic, which {@link NodeChangeConsumer} assigns to itself. If inventory did not publish a
+     * node yet, the topic is created with the broker defaults, just like the broker does on the first publish. Lookups
+     * are retried while Kafka is unavailable, and startup fails once the attempts are exhausted.
+     */
+    @Bean(name = "nodeTopicPartitions")
+    @ConditionalOnProperty(name = "flows.nodeCache.enabled", havingValue = "true", matchIfMissing = true)
+    public List<Integer> nodeTopicPartitions(final KafkaAdmin kafkaAdmin) {
+        RetryTemplate lookupRetryTemplate = RetryTemplate.builder()
+            .maxAttempts(nodeTopicLookupAttempts)
+            .exponentialBackoff(1000, 2, 30000)
+            .retryOn(KafkaException.class)
+            .build();
+        return lookupRetryTemplate.execute(context -> {
+            if (context.getRetryCount() > 0) {
+                log.warn("Unable to look up partitions of topic {}, attempt {} of {}", nodeTopic,
+                    context.getRetryCount() + 1, nodeTopicLookupAttempts, context.getLastThrowable());
+            }
+            kafkaAdmin.createOrModifyTopics(TopicBuilder.name(nodeTopic).build());
+            TopicDescription description = kafkaAdmin.describeTopics(nodeTopic).get(nodeTopic);
+            return description.partitions().stream().map(TopicPartitionInfo::partition).toList();
+        });
+    }
+
     @Bean
     public DocumentEnricherImpl createDocumentEnricher(InventoryClient inventoryClient,
                                                        ClassificationEngine classificationEngine,
-                                                       FlowDocumentClassificationRequestMapper flowDocumentClassificationRequestMapper
+                                                       FlowDocumentClassificationRequestMapper flowDocumentClassificationRequestMapper,
+                                                       Optional<NodeInfoCache> nodeInfoCache
     ) {
-        return new DocumentEnricherImpl(inventoryClient, classificationEngine, flowDocumentClassificationRequestMapper, clockSkewCorrectionThreshold);
+        return new DocumentEnricherImpl(inventoryClient, classificationEngine, flowDocumentClassificationRequestMapper,
+            clockSkewCorrectionThreshold, nodeInfoCache.orElse(null));
     }
 
     @Bean
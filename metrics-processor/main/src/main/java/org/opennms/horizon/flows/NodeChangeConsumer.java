@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.flows;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.extern.slf4j.Slf4j;
+import org.opennms.horizon.flows.processing.NodeInfoCache;
+import org.opennms.horizon.inventory.dto.NodeDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Drops the cached node lookups of a tenant whenever inventory reports a new or changed node, or a changed IP
+ * interface of a node. Every instance keeps its own cache, so every instance reads all partitions of the node topic.
+ * The partitions are assigned manually instead of joining a consumer group, and reading starts at the end of the
+ * topic: past changes are irrelevant to a cache which starts out empty, so the offsets committed for the group are
+ * never read.
+ */
+@Slf4j
+@Component
+@Profile("!test")
+@ConditionalOnProperty(name = "flows.nodeCache.enabled", havingValue = "true", matchIfMissing = true)
+public class NodeChangeConsumer implements ConsumerSeekAware {
+    private final NodeInfoCache nodeInfoCache;
+
+    public NodeChangeConsumer(final NodeInfoCache nodeInfoCache) {
+        this.nodeInfoCache = Objects.requireNonNull(nodeInfoCache);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<org.apache.kafka.common.TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+    }
+
+    @KafkaListener(topicPartitions = @TopicPartition(topic = "${kafka.node-topic}", partitions = "#{@nodeTopicPartitions}"),
+        groupId = "metrics-processor-node-cache", concurrency = "1")
+    public void consume(@Payload byte[] data) {
+        try {
+            var node = NodeDTO.parseFrom(data);
+            log.debug("Node changed, invalidating cached node lookups: tenant-id={}; node-id={}", node.getTenantId(), node.getId());
+            nodeInfoCache.invalidateTenant(node.getTenantId());
+        } catch (InvalidProtocolBufferException e) {
+            log.error("Invalid node data from kafka", e);
+        }
+    }
+}
@@ -28,14 +28,21 @@
 
 package org.opennms.horizon.tsdata;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Consumer;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
+import jakarta.annotation.PreDestroy;
 import lombok.Setter;
 import org.apache.logging.log4j.util.Strings;
+import org.opennms.horizon.metrics.BoundedExecutor;
 import org.opennms.taskset.contract.TenantLocationSpecificTaskSetResults;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
@@ -50,18 +57,53 @@ public class TSDataProcessor {
 
     private final TaskSetResultProcessor taskSetResultProcessor;
 
+    private final BoundedExecutor executor;
+
     // NOTE: it might be better to split the asynchronous execution into a separate class to make testing here, and there,
     //  more straight-forward (i.e. more "Real Obvious").  Then the submission here would look something like this:
     //  `taskSetResultAsyncProcessor.submitTaskResultForProcessing(tenantId, result)`
     @Setter // Testability
-    private Consumer<Runnable> submitForExecutionOp = this::defaultExecutionSubmissionOp;
+    private Function<Runnable, CompletableFuture<Void>> submitForExecutionOp = this::defaultExecutionSubmissionOp;
 
-    public TSDataProcessor(TaskSetResultProcessor taskSetResultProcessor) {
+    public TSDataProcessor(TaskSetResultProcessor taskSetResultProcessor,
+                           @Value("${tsdata.processing.threads:8}") int threads,
+                           @Value("${tsdata.processing.queueSize:1000}") int queueSize) {
         this.taskSetResultProcessor = taskSetResultProcessor;
+        this.executor = new BoundedExecutor("tsdata-processor", threads, queueSize);
     }
 
-    @KafkaListener(topics = "${kafka.topics}", concurrency = "1")
-    public void consume(@Payload byte[] data) {
+    /**
+     * Processes a batch of polled records on the worker pool. The listener only returns, and so lets the container
+     * commit the offsets, once every result of the batch has been processed. While the pool is saturated the listener
+     * blocks, which stops polling until processing catches up.
+     */
+    @KafkaListener(topics = "${kafka.topics}", concurrency = "1", batch = "true")
+    public void consume(@Payload List<byte[]> records) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        try {
+            for (int i = 0; i < records.size(); i++) {
+                try {
+                    submit(records.get(i), pending);
+                } catch (RuntimeException e) {
+                    // Offsets of the records before this one are committed once their processing has completed
+                    throw new BatchListenerFailedException(e.getMessage(), e, i);
+                }
+            }
+        } finally {
+            awaitCompletion(pending);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+
+//========================================
+// Internals
+//----------------------------------------
+
+    private void submit(byte[] data, List<CompletableFuture<Void>> pending) {
         try {
             TenantLocationSpecificTaskSetResults results = TenantLocationSpecificTaskSetResults.parseFrom(data);
             String tenantId = results.getTenantId();
@@ -75,26 +117,32 @@ public class TSDataProcessor {
             }
 
             results.getResultsList().forEach(
-                result -> submitForExecutionOp.accept(() -> taskSetResultProcessor.processTaskResult(tenantId, locationId, result)));
+                result -> pending.add(submitForExecutionOp.apply(() -> taskSetResultProcessor.processTaskResult(tenantId, locationId, result))));
         } catch (InvalidProtocolBufferException e) {
             log.error("Invalid data from kafka", e);
         }
     }
 
-//========================================
-// Internals
-//----------------------------------------
+    private void awaitCompletion(List<CompletableFuture<Void>> pending) {
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            log.warn("Error processing task results", e.getCause());
+        }
+    }
 
     /**
-     * Default operation for submission of the given Supplier for execution which uses CompletableFuture's supplyAsync()
-     *  method to schedule execution.
+     * Default operation for submission of the given Runnable for execution on the bounded worker pool. Blocks while
+     *  the pool and its queue are full.
      *
      * @param runnable
      */
-    private void defaultExecutionSubmissionOp(Runnable runnable) {
-        CompletableFuture.supplyAsync(() -> {
-            runnable.run();
-            return null;    // Not doing anything with the Future, so the value is of no consequence
-        });
+    private CompletableFuture<Void> defaultExecutionSubmissionOp(Runnable runnable) {
+        try {
+            return executor.submit(runnable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free worker", e);
+        }
     }
 }
@@ -55,9 +55,40 @@ public class TsApplicationConfig {
     @Value("${cortex.organizationid}")
     private String organizationId;
 
+    @Value("${cortex.batch.maxsamples:2000}")
+    private int batchMaxSamples;
+
+    @Value("${cortex.batch.maxsizeinbytes:1048576}")
+    private long batchMaxSizeInBytes;
+
+    @Value("${cortex.wal.directory:}")
+    private String walDirectory;
+
+    @Value("${cortex.wal.maxsizeinbytes:268435456}")
+    private long walMaxSizeInBytes;
+
+    @Value("${cortex.wal.retryinitialbackoffinms:1000}")
+    private long walRetryInitialBackoffInMs;
+
+    @Value("${cortex.wal.retrymaxbackoffinms:60000}")
+    private long walRetryMaxBackoffInMs;
+
     @Bean
     public CortexTSSConfig cortexTSSConfig() {
-        return new CortexTSSConfig(cortexWriteURL, maxConcurrentHttpConnections, cortexWriteTimeoutInMs, readTimeoutInMs, bulkheadMaxWaitDurationInMs, organizationId);
+        return CortexTSSConfig.builder()
+            .writeUrl(cortexWriteURL)
+            .maxConcurrentHttpConnections(maxConcurrentHttpConnections)
+            .writeTimeoutInMs(cortexWriteTimeoutInMs)
+            .readTimeoutInMs(readTimeoutInMs)
+            .bulkheadMaxWaitDurationInMs(bulkheadMaxWaitDurationInMs)
+            .organizationId(organizationId)
+            .batchMaxSamples(batchMaxSamples)
+            .batchMaxSizeInBytes(batchMaxSizeInBytes)
+            .walDirectory(walDirectory)
+            .walMaxSizeInBytes(walMaxSizeInBytes)
+            .walRetryInitialBackoffInMs(walRetryInitialBackoffInMs)
+            .walRetryMaxBackoffInMs(walRetryMaxBackoffInMs)
+            .build();
     }
 
     @Bean
@@ -42,6 +42,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import prometheus.PrometheusTypes;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.opennms.horizon.tsdata.MetricNameConstants.METRIC_AZURE_NODE_TYPE;
 import static org.opennms.horizon.tsdata.MetricNameConstants.METRIC_INSTANCE_LABEL;
 
@@ -62,6 +66,7 @@ public class TaskSetCollectorAzureResponseProcessor {
         Any collectorMetric = response.getResult();
         var azureResponse = collectorMetric.unpack(AzureResponseMetric.class);
 
+        List<PrometheusTypes.TimeSeries> timeSeriesList = new ArrayList<>();
         for (AzureResultMetric azureResult : azureResponse.getResultsList()) {
             try {
                 PrometheusTypes.TimeSeries.Builder builder = PrometheusTypes.TimeSeries.newBuilder();
@@ -85,8 +90,7 @@ public class TaskSetCollectorAzureResponseProcessor {
                     builder.addSamples(PrometheusTypes.Sample.newBuilder()
                         .setTimestamp(response.getTimestamp())
                         .setValue(azureResult.getValue().getUint64()));
-                    cortexTSS.store(tenantId, builder);
-                    tenantMetricsTracker.addTenantMetricSampleCount(tenantId, builder.getSamplesCount());
+                    timeSeriesList.add(builder.build());
                 } else {
                     LOG.warn("SKIP Unrecognized azure value type: {} azureResult: {}", type,  azureResult);
                 }
@@ -94,6 +98,18 @@ public class TaskSetCollectorAzureResponseProcessor {
                 LOG.warn("Exception parsing azure metrics", e);
             }
         }
+        if (timeSeriesList.isEmpty()) {
+            return;
+        }
+
+        try {
+            cortexTSS.store(tenantId, timeSeriesList);
+            for (PrometheusTypes.TimeSeries timeSeries : timeSeriesList) {
+                tenantMetricsTracker.addTenantMetricSampleCount(tenantId, timeSeries.getSamplesCount());
+            }
+        } catch (IOException e) {
+            LOG.warn("Exception storing azure metrics", e);
+        }
     }
 
     private String getInstance(AzureResultMetric azureResult) {
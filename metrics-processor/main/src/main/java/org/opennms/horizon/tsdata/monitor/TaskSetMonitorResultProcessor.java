@@ -42,6 +42,8 @@ import prometheus.PrometheusTypes;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -87,18 +89,23 @@ public class TaskSetMonitorResultProcessor {
             .setTimestamp(timestamp)
             .setValue(monitorResponse.getResponseTimeMs()));
 
-        cortexTSS.store(tenantId, builder);
-        tenantMetricsTracker.addTenantMetricSampleCount(tenantId, builder.getSamplesCount());
-
+        // Store all series of the response at once, so they share a single write request
+        List<PrometheusTypes.TimeSeries> timeSeriesList = new ArrayList<>();
+        timeSeriesList.add(builder.build());
         for (Map.Entry<String, Double> entry : monitorResponse.getMetricsMap().entrySet()) {
-            processMetricMaps(entry, monitorResponse, timestamp, labelValues, tenantId);
+            timeSeriesList.add(processMetricMaps(entry, monitorResponse, timestamp, labelValues));
+        }
+
+        cortexTSS.store(tenantId, timeSeriesList);
+        for (PrometheusTypes.TimeSeries timeSeries : timeSeriesList) {
+            tenantMetricsTracker.addTenantMetricSampleCount(tenantId, timeSeries.getSamplesCount());
         }
     }
 
 //========================================
 // Internals
 //----------------------------------------
-    private void processMetricMaps(Map.Entry<String, Double> entry, MonitorResponse response, long timestamp, String[] labelValues, String tenantId) throws IOException {
+    private PrometheusTypes.TimeSeries processMetricMaps(Map.Entry<String, Double> entry, MonitorResponse response, long timestamp, String[] labelValues) {
         prometheus.PrometheusTypes.TimeSeries.Builder builder = prometheus.PrometheusTypes.TimeSeries.newBuilder();
         String key = entry.getKey();
         Double value = entry.getValue();
@@ -113,8 +120,7 @@ public class TaskSetMonitorResultProcessor {
             .setTimestamp(timestamp)
             .setValue(value));
 
-        cortexTSS.store(tenantId, builder);
-        tenantMetricsTracker.addTenantMetricSampleCount(tenantId, builder.getSamplesCount());
+        return builder.build();
     }
 
     private void addLabels(MonitorResponse response, String[] labelValues, PrometheusTypes.TimeSeries.Builder builder) {
@@ -38,6 +38,8 @@ import org.opennms.horizon.flows.document.TenantLocationSpecificFlowDocumentLog;
 import org.opennms.horizon.flows.processing.Pipeline;
 import org.opennms.horizon.tenantmetrics.TenantMetricsTracker;
 
+import java.util.List;
+
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
@@ -55,7 +57,7 @@ public class FlowProcessorTest {
 
     @BeforeEach
     public void setup() {
-        processor = new FlowProcessor(pipeline, metricsTracker);
+        processor = new FlowProcessor(pipeline, metricsTracker, 1, 1);
     }
 
     @Test
@@ -74,7 +76,7 @@ public class FlowProcessorTest {
                 ).build();
 
 
-        processor.consume(flows.toByteArray());
+        processor.consume(List.of(flows.toByteArray()));
 
         verify(pipeline, timeout(5000).only()).process(flows);
         verify(metricsTracker, timeout(5000).times(1)).addTenantFlowReceviedCount(TENANT_ID, 2);
@@ -32,6 +32,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.opennms.horizon.inventory.dto.IpInterfaceDTO;
+import org.opennms.horizon.inventory.dto.IpInterfaceList;
+import org.opennms.horizon.inventory.dto.IpInterfacesQuery;
 import org.opennms.horizon.inventory.dto.NodeIdQuery;
 import org.opennms.horizon.inventory.dto.NodeServiceGrpc;
 import org.slf4j.Logger;
@@ -47,6 +49,9 @@ public class GrpcInventoryMockServer extends NodeServiceGrpc.NodeServiceImplBase
     @Getter
     private final Map<String, NodeIdQuery> incomingNodeIdQueries = new HashMap<>();
 
+    @Getter
+    private final Map<String, IpInterfacesQuery> incomingIpInterfacesQueries = new HashMap<>();
+
     @Override
     public void getIpInterfaceFromQuery(org.opennms.horizon.inventory.dto.NodeIdQuery request,
                                         io.grpc.stub.StreamObserver<org.opennms.horizon.inventory.dto.IpInterfaceDTO> responseObserver) {
@@ -56,4 +61,11 @@ public class GrpcInventoryMockServer extends NodeServiceGrpc.NodeServiceImplBase
         responseObserver.onCompleted();
     }
 
+    @Override
+    public void getIpInterfacesFromQuery(IpInterfacesQuery request, io.grpc.stub.StreamObserver<IpInterfaceList> responseObserver) {
+        LOG.info("Getting Ip interfaces from Query.. ");
+        incomingIpInterfacesQueries.put(request.getLocationId(), request);
+        responseObserver.onNext(IpInterfaceList.newBuilder().build());
+        responseObserver.onCompleted();
+    }
 }
@@ -36,8 +36,12 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.opennms.taskset.contract.TaskResult;
 import org.opennms.taskset.contract.TenantLocationSpecificTaskSetResults;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import static org.junit.Assert.assertEquals;
@@ -82,7 +86,7 @@ class TSDataProcessorTest {
                 .setTenantId("")
                 .build();
 
-        target = new TSDataProcessor(mockTaskSetMonitorResultProcessor);
+        target = new TSDataProcessor(mockTaskSetMonitorResultProcessor, 1, 1);
         
     }
 
@@ -92,7 +96,7 @@ class TSDataProcessorTest {
         // Execute
         //
         target.setSubmitForExecutionOp(this::testExecutionSubmissionOp);
-        target.consume(testTenantLocationSpecificTaskSetResults.toByteArray());
+        target.consume(List.of(testTenantLocationSpecificTaskSetResults.toByteArray()));
 
         //
         // Verify the Results
@@ -102,6 +106,29 @@ class TSDataProcessorTest {
         Mockito.verifyNoMoreInteractions(mockTaskSetMonitorResultProcessor);
     }
 
+    @Test
+    void testConsumeReturnsOnceProcessingCompleted() {
+        //
+        // Setup Test Data and Interactions
+        //
+        AtomicInteger processed = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(100);
+            processed.incrementAndGet();
+            return null;
+        }).when(mockTaskSetMonitorResultProcessor).processTaskResult(Mockito.anyString(), Mockito.anyString(), Mockito.any());
+
+        //
+        // Execute
+        //
+        target.consume(List.of(testTenantLocationSpecificTaskSetResults.toByteArray(), testTenantLocationSpecificTaskSetResults.toByteArray()));
+
+        //
+        // Verify the Results
+        //
+        assertEquals(4, processed.get());
+    }
+
     @Test
     void testBlankTenantId() {
         //
@@ -109,7 +136,7 @@ class TSDataProcessorTest {
         //
         Exception actualException = null;
         try {
-            target.consume(testTenantLocationSpecificTaskSetResultsBlankTenant.toByteArray());
+            target.consume(List.of(testTenantLocationSpecificTaskSetResultsBlankTenant.toByteArray()));
             fail("Missing expected exception");
         } catch (Exception exc) {
             actualException = exc;
@@ -118,7 +145,9 @@ class TSDataProcessorTest {
         //
         // Verify the Results
         //
-        assertEquals("Missing tenant id", actualException.getMessage());
+        assertTrue(actualException instanceof BatchListenerFailedException);
+        assertEquals(0, ((BatchListenerFailedException) actualException).getIndex());
+        assertEquals("Missing tenant id", actualException.getCause().getMessage());
     }
 
     @Test
@@ -130,7 +159,7 @@ class TSDataProcessorTest {
             //
             // Execute
             //
-            target.consume("----INVALID----".getBytes());
+            target.consume(List.of("----INVALID----".getBytes()));
 
             //
             // Verify the Results
@@ -159,8 +188,9 @@ class TSDataProcessorTest {
      *
      * @param runnable
      */
-    private void testExecutionSubmissionOp(Runnable runnable) {
+    private CompletableFuture<Void> testExecutionSubmissionOp(Runnable runnable) {
         // Immediately pass-through the call
         runnable.run();
+        return CompletableFuture.completedFuture(null);
     }
 }
@@ -50,6 +50,7 @@ import prometheus.PrometheusTypes;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Predicate;
@@ -122,7 +123,7 @@ public class TaskSetCollectorAzureResponseProcessorTest {
         // Setup Test Data and Interactions
         //
         IOException testException = new IOException("x-test-exception-x");
-        Mockito.doThrow(testException).when(mockCortexTSS).store(Mockito.anyString(), Mockito.any(PrometheusTypes.TimeSeries.Builder.class));
+        Mockito.doThrow(testException).when(mockCortexTSS).store(Mockito.anyString(), Mockito.anyList());
 
         try (LogCaptor logCaptor = LogCaptor.forClass(TaskSetCollectorAzureResponseProcessor.class)) {
             //
@@ -136,7 +137,7 @@ public class TaskSetCollectorAzureResponseProcessorTest {
             Predicate<LogEvent> matcher =
                 (logEvent) ->
                     (
-                        Objects.equals("Exception parsing azure metrics", logEvent.getMessage() ) &&
+                        Objects.equals("Exception storing azure metrics", logEvent.getMessage() ) &&
                         (logEvent.getArguments().size() == 0) &&
                         (logEvent.getThrowable().orElse(null) == testException)
                     );
@@ -180,7 +181,7 @@ public class TaskSetCollectorAzureResponseProcessorTest {
 
     }
 
-    private class PrometheusTimeSeriersBuilderArgumentMatcher implements ArgumentMatcher<PrometheusTypes.TimeSeries.Builder> {
+    private class PrometheusTimeSeriersBuilderArgumentMatcher implements ArgumentMatcher<List<PrometheusTypes.TimeSeries>> {
 
         private final double metricValue;
         private final MonitorType monitorType;
@@ -196,20 +197,17 @@ public class TaskSetCollectorAzureResponseProcessorTest {
         }
 
         @Override
-        public boolean matches(PrometheusTypes.TimeSeries.Builder timeseriesBuilder) {
-            if (
-                (labelMatches(timeseriesBuilder)) &&
-                (sampleMatches(timeseriesBuilder))
-            ) {
-                return true;
-            }
-            return false;
+        public boolean matches(List<PrometheusTypes.TimeSeries> timeseriesList) {
+            return timeseriesList.stream().anyMatch(timeSeries ->
+                (labelMatches(timeSeries)) &&
+                (sampleMatches(timeSeries))
+            );
         }
 
-        private boolean labelMatches(PrometheusTypes.TimeSeries.Builder timeseriesBuilder) {
-            if (timeseriesBuilder.getLabelsCount() == 6) {
+        private boolean labelMatches(PrometheusTypes.TimeSeries timeSeries) {
+            if (timeSeries.getLabelsCount() == 6) {
                 Map<String, String> labelMap = new HashMap<>();
-                for (var label : timeseriesBuilder.getLabelsList()) {
+                for (var label : timeSeries.getLabelsList()) {
                     labelMap.put(label.getName(), label.getValue());
                 }
 
@@ -226,9 +224,9 @@ public class TaskSetCollectorAzureResponseProcessorTest {
             return false;
         }
 
-        private boolean sampleMatches(PrometheusTypes.TimeSeries.Builder timeseriesBuilder) {
-            if (timeseriesBuilder.getSamplesCount() == 1) {
-                PrometheusTypes.Sample sample = timeseriesBuilder.getSamples(0);
+        private boolean sampleMatches(PrometheusTypes.TimeSeries timeSeries) {
+            if (timeSeries.getSamplesCount() == 1) {
+                PrometheusTypes.Sample sample = timeSeries.getSamples(0);
 
                 if (Math.abs(metricValue - sample.getValue()) < 0.0000001) {
                     return true;
@@ -45,10 +45,10 @@ import prometheus.PrometheusTypes;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import prometheus.PrometheusTypes.TimeSeries;
-import prometheus.PrometheusTypes.TimeSeries.Builder;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.opennms.horizon.tsdata.MetricNameConstants.METRICS_NAME_PREFIX_MONITOR;
@@ -160,19 +160,20 @@ public class TaskSetMonitorResultProcessorTest {
         //
         var mainMetricMatcher =
             new PrometheusTimeSeriersBuilderArgumentMatcher(1313.0, MonitorType.ECHO, MetricNameConstants.METRICS_NAME_RESPONSE);
-        Mockito.verify(mockCortexTSS).store(eq("x-tenant-id-x"), Mockito.argThat(mainMetricMatcher));
-
         var matcher1 =
             new PrometheusTimeSeriersBuilderArgumentMatcher(1.001, MonitorType.ECHO, METRICS_NAME_PREFIX_MONITOR + "x_metric_001_x");
-        Mockito.verify(mockCortexTSS).store(eq("x-tenant-id-x"), Mockito.argThat(matcher1));
-
         var matcher2 =
             new PrometheusTimeSeriersBuilderArgumentMatcher(2.002, MonitorType.ECHO, METRICS_NAME_PREFIX_MONITOR + "x_metric_002_x");
-        Mockito.verify(mockCortexTSS).store(eq("x-tenant-id-x"), Mockito.argThat(matcher2));
-
         var matcher3 =
             new PrometheusTimeSeriersBuilderArgumentMatcher(3.003, MonitorType.ECHO, METRICS_NAME_PREFIX_MONITOR + "x_metric_003_x");
-        Mockito.verify(mockCortexTSS).store(eq("x-tenant-id-x"), Mockito.argThat(matcher3));
+
+        // All series of the response are stored with a single call
+        Mockito.verify(mockCortexTSS).store(eq("x-tenant-id-x"), Mockito.<List<TimeSeries>>argThat(timeSeriesList ->
+            (timeSeriesList.size() == 4) &&
+            mainMetricMatcher.matches(timeSeriesList) &&
+            matcher1.matches(timeSeriesList) &&
+            matcher2.matches(timeSeriesList) &&
+            matcher3.matches(timeSeriesList)));
 
         Mockito.verify(mockTenantMetricsTracker, Mockito.times(4)).addTenantMetricSampleCount("x-tenant-id-x", 1);
 
@@ -223,7 +224,7 @@ public class TaskSetMonitorResultProcessorTest {
 // Internals
 //----------------------------------------
 
-    static class TimeMatcher implements ArgumentMatcher<TimeSeries.Builder> {
+    static class TimeMatcher implements ArgumentMatcher<List<TimeSeries>> {
 
         private final Predicate<Long> matcher;
 
@@ -236,8 +237,8 @@ public class TaskSetMonitorResultProcessorTest {
         }
 
         @Override
-        public boolean matches(Builder argument) {
-            return matcher.test(argument.getSamples(0).getTimestamp());
+        public boolean matches(List<TimeSeries> argument) {
+            return matcher.test(argument.get(0).getSamples(0).getTimestamp());
         }
 
         @Override
@@ -246,7 +247,7 @@ public class TaskSetMonitorResultProcessorTest {
         }
     }
 
-    private class PrometheusTimeSeriersBuilderArgumentMatcher implements ArgumentMatcher<PrometheusTypes.TimeSeries.Builder> {
+    private class PrometheusTimeSeriersBuilderArgumentMatcher implements ArgumentMatcher<List<PrometheusTypes.TimeSeries>> {
 
         private final double metricValue;
         private final MonitorType monitorType;
@@ -259,17 +260,14 @@ public class TaskSetMonitorResultProcessorTest {
         }
 
         @Override
-        public boolean matches(PrometheusTypes.TimeSeries.Builder timeseriesBuilder) {
-            if (
-                (labelMatches(timeseriesBuilder)) &&
-                (sampleMatches(timeseriesBuilder))
-            ) {
-                return true;
-            }
-            return false;
+        public boolean matches(List<PrometheusTypes.TimeSeries> timeseriesList) {
+            return timeseriesList.stream().anyMatch(timeSeries ->
+                (labelMatches(timeSeries)) &&
+                (sampleMatches(timeSeries))
+            );
         }
 
-        private boolean labelMatches(PrometheusTypes.TimeSeries.Builder timeseriesBuilder) {
+        private boolean labelMatches(PrometheusTypes.TimeSeries timeSeries) {
             boolean isEchoMatcher = (monitorType == MonitorType.ECHO);
 
             int expectedCount;
@@ -279,9 +277,9 @@ public class TaskSetMonitorResultProcessorTest {
                 expectedCount = 6;
             }
 
-            if (timeseriesBuilder.getLabelsCount() == expectedCount) {
+            if (timeSeries.getLabelsCount() == expectedCount) {
                 Map<String, String> labelMap = new HashMap<>();
-                for (var label : timeseriesBuilder.getLabelsList()) {
+                for (var label : timeSeries.getLabelsList()) {
                     labelMap.put(label.getName(), label.getValue());
                 }
 
@@ -298,9 +296,9 @@ public class TaskSetMonitorResultProcessorTest {
             return false;
         }
 
-        private boolean sampleMatches(PrometheusTypes.TimeSeries.Builder timeseriesBuilder) {
-            if (timeseriesBuilder.getSamplesCount() == 1) {
-                PrometheusTypes.Sample sample = timeseriesBuilder.getSamples(0);
+        private boolean sampleMatches(PrometheusTypes.TimeSeries timeSeries) {
+            if (timeSeries.getSamplesCount() == 1) {
+                PrometheusTypes.Sample sample = timeSeries.getSamples(0);
 
                 if (Math.abs(metricValue - sample.getValue()) < 0.0000001) {
                     return true;
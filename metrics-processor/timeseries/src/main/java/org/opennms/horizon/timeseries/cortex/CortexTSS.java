@@ -49,11 +49,21 @@ import org.xerial.snappy.Snappy;
 import prometheus.PrometheusRemote;
 import prometheus.PrometheusTypes;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -61,13 +71,18 @@ import java.util.concurrent.TimeUnit;
  * We use the cortex api to write data (writes to the ingester) and the prometheus api to read data (reads from the Querier).
  * Even though it's possible to read from the ingester it does only give us the most resent data (still held in memory) therefore
  * we use the querier.
+ * Time series are batched per tenant across calls to {@link #store(String, List)}: each tenant has at most one write
+ * in flight, and the series stored meanwhile are coalesced into the next request. This keeps the samples of a tenant in
+ * order, and lets concurrent callers share a request.
+ * Writes that fail with a retryable error are kept in an optional on-disk {@link CortexWriteAheadLog} and replayed
+ * once Cortex is available again.
  * Docs:
  * - https://cortexmetrics.io/docs/api/
  * - https://prometheus.io/docs/prometheus/latest/querying/api/
  *
  * @author jwhite
  */
-public class CortexTSS {
+public class CortexTSS implements Closeable {
     private static final Logger LOG = LoggerFactory.getLogger(CortexTSS.class);
 
     private static final String X_SCOPE_ORG_ID_HEADER = "X-Scope-OrgID";
@@ -81,6 +96,9 @@ public class CortexTSS {
 
     private final Bulkhead asyncHttpCallsBulkhead;
     private final CortexTSSConfig config;
+    private final CortexWriteAheadLog writeAheadLog;
+
+    private final Map<String, TenantBatch> batches = new ConcurrentHashMap<>();
 
     public CortexTSS(final CortexTSSConfig config, final MetricRegistry metrics) {
         this.config = Objects.requireNonNull(config);
@@ -106,6 +124,18 @@ public class CortexTSS {
             .fairCallHandlingStrategyEnabled(true)
             .build();
         asyncHttpCallsBulkhead = Bulkhead.of("asyncHttpCalls", bulkheadConfig);
+
+        if (config.isWriteAheadLogEnabled()) {
+            try {
+                writeAheadLog = new CortexWriteAheadLog(Path.of(config.getWalDirectory()), config.getWalMaxSizeInBytes(),
+                    config.getWalRetryInitialBackoffInMs(), config.getWalRetryMaxBackoffInMs(), this::send,
+                    metrics, samplesWritten, samplesLost);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open the write-ahead log in " + config.getWalDirectory(), e);
+            }
+        } else {
+            writeAheadLog = null;
+        }
     }
 
 
@@ -113,16 +143,119 @@ public class CortexTSS {
         store(tenantId, List.of(timeSeriesBuilder.build()));
     }
 
+    /**
+     * Writes the given time series for the tenant, and returns once they were accepted by Cortex or added to the
+     * write-ahead log. Series stored while an earlier write of the tenant is in flight are coalesced into the next
+     * request, up to the configured number of samples or bytes.
+     *
+     * @throws IOException if the samples could not be written and are lost.
+     */
     public void store(String tenantId, List<PrometheusTypes.TimeSeries> timeSeriesList) throws IOException {
+        TenantBatch batch = batches.computeIfAbsent(tenantId == null ? "" : tenantId, key -> new TenantBatch(tenantId));
+        CompletableFuture<Void> written;
+        PendingWrite next;
+        synchronized (batch) {
+            written = batch.add(timeSeriesList, config.getBatchMaxSamples(), config.getBatchMaxSizeInBytes());
+            next = batch.startWrite();
+        }
+        if (next != null) {
+            writeInOrder(batch, next);
+        }
+        await(written);
+    }
+
+    /**
+     * Waits for all pending writes.
+     */
+    public void flush() {
+        for (TenantBatch batch : batches.values()) {
+            CompletableFuture<Void> last;
+            synchronized (batch) {
+                last = batch.lastWritten;
+            }
+            if (last != null) {
+                // Failures are reported to the callers of store()
+                last.exceptionally(ex -> null).join();
+            }
+        }
+    }
+
+    /**
+     * Writes the given batch, then the batches queued behind it, one after the other.
+     */
+    private void writeInOrder(TenantBatch batch, PendingWrite pending) {
+        write(batch.tenantId, pending.timeSeries).whenComplete((r, ex) -> {
+            if (ex == null) {
+                pending.written.complete(null);
+            } else {
+                pending.written.completeExceptionally(ex);
+            }
+            PendingWrite next;
+            synchronized (batch) {
+                next = batch.nextWrite();
+            }
+            if (next != null) {
+                writeInOrder(batch, next);
+            }
+        });
+    }
+
+    /**
+     * @return future completing once the samples were accepted by Cortex or added to the write-ahead log, or failing
+     *     when they are lost.
+     */
+    private CompletableFuture<Void> write(String tenantId, List<PrometheusTypes.TimeSeries> timeSeriesList) {
         PrometheusRemote.WriteRequest.Builder writeBuilder = PrometheusRemote.WriteRequest.newBuilder();
         writeBuilder.addAllTimeseries(timeSeriesList);
 
         prometheus.PrometheusRemote.WriteRequest writeRequest = writeBuilder.build();
+        int sampleCount = countSamples(timeSeriesList);
+
+        LOG.trace("Writing: {}", writeRequest);
+        try {
+            // Compress the write request using Snappy
+            final byte[] writeRequestCompressed = Snappy.compress(writeRequest.toByteArray());
+
+            if (writeAheadLog != null && writeAheadLog.hasBacklog(tenantId)) {
+                // Older samples of this tenant are still waiting for replay, queue behind them to keep the order
+                writeAheadLog.append(tenantId, writeRequestCompressed, sampleCount);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            asyncHttpCallsBulkhead.executeCompletionStage(() -> send(tenantId, writeRequestCompressed)).whenComplete((r, ex) -> {
+                if (ex == null) {
+                    samplesWritten.mark(sampleCount);
+                    result.complete(null);
+                } else if (handleWriteFailure(tenantId, writeRequestCompressed, sampleCount, ex)) {
+                    result.complete(null);
+                } else {
+                    result.completeExceptionally(ex);
+                }
+            });
+            return result;
+        } catch (IOException e) {
+            samplesLost.mark(sampleCount);
+            LOG.error("Error occurred while writing samples, samples will be lost.", e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-        // Compress the write request using Snappy
-        final byte[] writeRequestCompressed;
-        writeRequestCompressed = Snappy.compress(writeRequest.toByteArray());
+    private static void await(CompletableFuture<Void> written) throws IOException {
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for samples to be written");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to write samples", e.getCause());
+        }
+    }
 
+    public CompletableFuture<Void> send(String tenantId, byte[] writeRequestCompressed) {
         // Build the HTTP request
         final RequestBody body = RequestBody.create(PROTOBUF_MEDIA_TYPE, writeRequestCompressed);
         final Request.Builder builder = new Request.Builder()
@@ -135,20 +268,16 @@ public class CortexTSS {
         if (tenantId != null && tenantId.trim().length() > 0) {
             builder.addHeader(X_SCOPE_ORG_ID_HEADER, tenantId);
         }
-        final Request request = builder.build();
-
-        LOG.trace("Writing: {}", writeRequest);
-        asyncHttpCallsBulkhead.executeCompletionStage(() -> executeAsync(request)).whenComplete((r, ex) -> {
-            if (ex == null) {
-                samplesWritten.mark(1);
-            } else {
-                // FIXME: Data loss
-                samplesLost.mark(1);
-                LOG.error("Error occurred while storing result, sample will be lost.", ex);
-            }
-        });
+        return executeAsync(builder.build());
     }
 
+    @Override
+    public void close() {
+        flush();
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
 
     public CompletableFuture<Void> executeAsync(Request request) {
         final CompletableFuture<Void> future = new CompletableFuture<>();
@@ -170,7 +299,7 @@ public class CortexTSS {
                                 bodyAsString = "(error reading body)";
                             }
                         }
-                        future.completeExceptionally(new RuntimeException(String.format("Writing to Prometheus failed: %s - %s: %s",
+                        future.completeExceptionally(new CortexWriteException(response.code(), String.format("Writing to Prometheus failed: %s - %s: %s",
                             response.code(),
                             response.message(),
                             bodyAsString)));
@@ -183,6 +312,32 @@ public class CortexTSS {
         return future;
     }
 
+    /**
+     * @return true if the samples were added to the write-ahead log, false if they are lost.
+     */
+    private boolean handleWriteFailure(String tenantId, byte[] writeRequestCompressed, int sampleCount, Throwable ex) {
+        if (writeAheadLog != null && CortexWriteException.isRetryable(ex)) {
+            try {
+                writeAheadLog.append(tenantId, writeRequestCompressed, sampleCount);
+                LOG.warn("Error occurred while storing result, samples were added to the write-ahead log: {}", ex.getMessage());
+                return true;
+            } catch (IOException e) {
+                LOG.error("Failed to add sample to the write-ahead log.", e);
+            }
+        }
+        samplesLost.mark(sampleCount);
+        LOG.error("Error occurred while storing result, samples will be lost.", ex);
+        return false;
+    }
+
+    private static int countSamples(List<PrometheusTypes.TimeSeries> timeSeriesList) {
+        int sampleCount = 0;
+        for (PrometheusTypes.TimeSeries timeSeries : timeSeriesList) {
+            sampleCount += timeSeries.getSamplesCount();
+        }
+        return sampleCount;
+    }
+
     public static String sanitizeLabelName(String labelName) {
         // Hard-coded implementation optimized for speed - see
         // See https://github.com/prometheus/common/blob/v0.22.0/model/labels.go#L95
@@ -217,4 +372,64 @@ public class CortexTSS {
         }
         return sb.toString();
     }
+
+    private static final class TenantBatch {
+        private final String tenantId;
+        // Batches waiting for the write in flight, if any
+        private final Deque<PendingWrite> queued = new ArrayDeque<>();
+        private boolean writing;
+        private CompletableFuture<Void> lastWritten;
+
+        private TenantBatch(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        // Must be called while holding the monitor of the batch
+        private CompletableFuture<Void> add(List<PrometheusTypes.TimeSeries> timeSeriesList, int maxSamples, long maxSizeInBytes) {
+            int sampleCount = countSamples(timeSeriesList);
+            long sizeInBytes = timeSeriesList.stream().mapToLong(PrometheusTypes.TimeSeries::getSerializedSize).sum();
+
+            // Start a new batch rather than going over the limits, unless the series alone exceed them
+            PendingWrite last = queued.peekLast();
+            if (last == null || last.sampleCount + sampleCount > maxSamples || last.sizeInBytes + sizeInBytes > maxSizeInBytes) {
+                last = new PendingWrite();
+                queued.addLast(last);
+                lastWritten = last.written;
+            }
+            last.add(timeSeriesList, sampleCount, sizeInBytes);
+            return last.written;
+        }
+
+        /**
+         * @return the batch to write, or null if a write is already in flight. Must be called while holding the
+         *     monitor of the batch.
+         */
+        private PendingWrite startWrite() {
+            if (writing) {
+                return null;
+            }
+            writing = true;
+            return nextWrite();
+        }
+
+        // Must be called while holding the monitor of the batch
+        private PendingWrite nextWrite() {
+            PendingWrite next = queued.pollFirst();
+            writing = next != null;
+            return next;
+        }
+    }
+
+    private static final class PendingWrite {
+        private final List<PrometheusTypes.TimeSeries> timeSeries = new ArrayList<>();
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+        private int sampleCount;
+        private long sizeInBytes;
+
+        private void add(List<PrometheusTypes.TimeSeries> timeSeriesList, int sampleCount, long sizeInBytes) {
+            timeSeries.addAll(timeSeriesList);
+            this.sampleCount += sampleCount;
+            this.sizeInBytes += sizeInBytes;
+        }
+    }
 }
@@ -11,6 +11,12 @@ public class CortexTSSConfig {
     private final long bulkheadMaxWaitDurationInMs;
     private final String organizationId;
     private final boolean hasOrganizationId;
+    private final int batchMaxSamples;
+    private final long batchMaxSizeInBytes;
+    private final String walDirectory;
+    private final long walMaxSizeInBytes;
+    private final long walRetryInitialBackoffInMs;
+    private final long walRetryMaxBackoffInMs;
 
     public CortexTSSConfig() {
         this(builder());
@@ -24,6 +30,12 @@ public class CortexTSSConfig {
         this.bulkheadMaxWaitDurationInMs = builder.bulkheadMaxWaitDurationInMs;
         this.organizationId = builder.organizationId;
         this.hasOrganizationId = organizationId != null && organizationId.trim().length() > 0;
+        this.batchMaxSamples = builder.batchMaxSamples;
+        this.batchMaxSizeInBytes = builder.batchMaxSizeInBytes;
+        this.walDirectory = builder.walDirectory;
+        this.walMaxSizeInBytes = builder.walMaxSizeInBytes;
+        this.walRetryInitialBackoffInMs = builder.walRetryInitialBackoffInMs;
+        this.walRetryMaxBackoffInMs = builder.walRetryMaxBackoffInMs;
     }
 
     /**
@@ -74,6 +86,37 @@ public class CortexTSSConfig {
         return organizationId;
     }
 
+    public int getBatchMaxSamples() {
+        return batchMaxSamples;
+    }
+
+    public long getBatchMaxSizeInBytes() {
+        return batchMaxSizeInBytes;
+    }
+
+    /**
+     * The write-ahead log for failed writes is only used when a directory has been configured.
+     */
+    public boolean isWriteAheadLogEnabled() {
+        return walDirectory != null && walDirectory.trim().length() > 0;
+    }
+
+    public String getWalDirectory() {
+        return walDirectory;
+    }
+
+    public long getWalMaxSizeInBytes() {
+        return walMaxSizeInBytes;
+    }
+
+    public long getWalRetryInitialBackoffInMs() {
+        return walRetryInitialBackoffInMs;
+    }
+
+    public long getWalRetryMaxBackoffInMs() {
+        return walRetryMaxBackoffInMs;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -85,6 +128,12 @@ public class CortexTSSConfig {
         private long readTimeoutInMs = 1000;
         private long bulkheadMaxWaitDurationInMs = Long.MAX_VALUE;
         private String organizationId = null;
+        private int batchMaxSamples = 2000;
+        private long batchMaxSizeInBytes = 1024L * 1024;
+        private String walDirectory = null;
+        private long walMaxSizeInBytes = 256L * 1024 * 1024;
+        private long walRetryInitialBackoffInMs = 1000;
+        private long walRetryMaxBackoffInMs = 60000;
 
         public Builder writeUrl(final String writeUrl) {
             this.writeUrl = writeUrl;
@@ -116,6 +165,36 @@ public class CortexTSSConfig {
             return this;
         }
 
+        public Builder batchMaxSamples(final int batchMaxSamples) {
+            this.batchMaxSamples = batchMaxSamples;
+            return this;
+        }
+
+        public Builder batchMaxSizeInBytes(final long batchMaxSizeInBytes) {
+            this.batchMaxSizeInBytes = batchMaxSizeInBytes;
+            return this;
+        }
+
+        public Builder walDirectory(final String walDirectory) {
+            this.walDirectory = walDirectory;
+            return this;
+        }
+
+        public Builder walMaxSizeInBytes(final long walMaxSizeInBytes) {
+            this.walMaxSizeInBytes = walMaxSizeInBytes;
+            return this;
+        }
+
+        public Builder walRetryInitialBackoffInMs(final long walRetryInitialBackoffInMs) {
+            this.walRetryInitialBackoffInMs = walRetryInitialBackoffInMs;
+            return this;
+        }
+
+        public Builder walRetryMaxBackoffInMs(final long walRetryMaxBackoffInMs) {
+            this.walRetryMaxBackoffInMs = walRetryMaxBackoffInMs;
+            return this;
+        }
+
         public CortexTSSConfig build() {
             return new CortexTSSConfig(this);
         }
@@ -130,6 +209,12 @@ public class CortexTSSConfig {
             .add("readTimeoutInMs=" + readTimeoutInMs)
             .add("bulkheadMaxWaitDurationInMs=" + bulkheadMaxWaitDurationInMs)
             .add("organizationId=" + organizationId)
+            .add("batchMaxSamples=" + batchMaxSamples)
+            .add("batchMaxSizeInBytes=" + batchMaxSizeInBytes)
+            .add("walDirectory='" + walDirectory + "'")
+            .add("walMaxSizeInBytes=" + walMaxSizeInBytes)
+            .add("walRetryInitialBackoffInMs=" + walRetryInitialBackoffInMs)
+            .add("walRetryMaxBackoffInMs=" + walRetryMaxBackoffInMs)
             .toString();
     }
 }
@@ -0,0 +1,444 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.timeseries.cortex;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable backlog for remote write requests which could not be delivered to Cortex.
+ *
+ * Every entry is a Snappy compressed WriteRequest stored in its own file below a per-tenant directory. Entries are
+ * replayed oldest first, one at a time per tenant, so samples of a tenant reach Cortex in the order they were written.
+ * Failed replays are retried with exponential backoff. The total size on disk is bounded; when the bound is reached
+ * the oldest entries are dropped and accounted for as lost samples.
+ */
+public class CortexWriteAheadLog implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(CortexWriteAheadLog.class);
+
+    private static final String TENANT_DIR_PREFIX = "tenant-";
+    private static final String ENTRY_SUFFIX = ".wal";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * Sends a compressed write request for the given tenant to Cortex.
+     */
+    @FunctionalInterface
+    public interface Sender {
+        CompletableFuture<Void> send(String tenantId, byte[] writeRequestCompressed);
+    }
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final long retryInitialBackoffInMs;
+    private final long retryMaxBackoffInMs;
+    private final Sender sender;
+    private final Meter samplesWritten;
+    private final Meter samplesLost;
+    private final ScheduledExecutorService replayExecutor;
+
+    private final Object lock = new Object();
+    private final Map<String, TenantLog> tenantLogs = new HashMap<>();
+    private final NavigableMap<Long, Entry> entriesBySequence = new TreeMap<>();
+    private long sizeInBytes;
+    private long nextSequence;
+
+    @SuppressWarnings("java:S107")
+    public CortexWriteAheadLog(Path directory, long maxSizeInBytes, long retryInitialBackoffInMs, long retryMaxBackoffInMs,
+                               Sender sender, MetricRegistry metrics, Meter samplesWritten, Meter samplesLost) throws IOException {
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.retryInitialBackoffInMs = Math.max(1, retryInitialBackoffInMs);
+        this.retryMaxBackoffInMs = Math.max(this.retryInitialBackoffInMs, retryMaxBackoffInMs);
+        this.sender = sender;
+        this.samplesWritten = samplesWritten;
+        this.samplesLost = samplesLost;
+
+        metrics.register("walBacklogEntries", (Gauge<Integer>) this::getBacklogEntries);
+        metrics.register("walBacklogSizeInBytes", (Gauge<Long>) this::getBacklogSizeInBytes);
+        metrics.register("walOldestEntryAgeInMs", (Gauge<Long>) this::getOldestEntryAgeInMs);
+
+        replayExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cortex-wal-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        recover();
+    }
+
+    /**
+     * Persists the given write request and schedules it for delivery.
+     */
+    public void append(String tenantId, byte[] writeRequestCompressed, int sampleCount) throws IOException {
+        String tenant = tenantId == null ? "" : tenantId;
+        if (writeRequestCompressed.length > maxSizeInBytes) {
+            throw new IOException(String.format("Write request of %d bytes exceeds the write-ahead log size of %d bytes",
+                writeRequestCompressed.length, maxSizeInBytes));
+        }
+
+        // Reserve the sequence number and the space under the lock, but write the file without holding it, so appends
+        // of other tenants and completing replays do not queue up behind the fsync
+        List<Path> evicted = new ArrayList<>();
+        TenantLog tenantLog;
+        long sequence;
+        synchronized (lock) {
+            while (sizeInBytes + writeRequestCompressed.length > maxSizeInBytes && !entriesBySequence.isEmpty()) {
+                Entry oldest = entriesBySequence.firstEntry().getValue();
+                LOG.warn("Write-ahead log is full, dropping oldest entry for tenant {} written at {}.", oldest.tenantLog.tenantId, oldest.createdAt);
+                remove(oldest);
+                evicted.add(oldest.path);
+                samplesLost.mark(oldest.sampleCount);
+            }
+
+            tenantLog = tenantLogs.computeIfAbsent(tenant, TenantLog::new);
+            sequence = nextSequence++;
+            sizeInBytes += writeRequestCompressed.length;
+            tenantLog.pendingAppends++;
+        }
+        evicted.forEach(CortexWriteAheadLog::delete);
+
+        long createdAt = System.currentTimeMillis();
+        Path path = directory.resolve(TENANT_DIR_PREFIX + encodeTenantId(tenant))
+            .resolve(sequence + "-" + createdAt + "-" + sampleCount + ENTRY_SUFFIX);
+        try {
+            Files.createDirectories(path.getParent());
+            write(path, writeRequestCompressed);
+        } catch (IOException | RuntimeException e) {
+            synchronized (lock) {
+                sizeInBytes -= writeRequestCompressed.length;
+                tenantLog.pendingAppends--;
+                scheduleReplay(tenantLog, retryInitialBackoffInMs);
+            }
+            throw e;
+        }
+
+        synchronized (lock) {
+            tenantLog.pendingAppends--;
+            add(new Entry(sequence, tenantLog, path, writeRequestCompressed.length, createdAt, sampleCount));
+            // Appends happen after a failed write, so give Cortex a moment before the first replay
+            scheduleReplay(tenantLog, retryInitialBackoffInMs);
+        }
+    }
+
+    /**
+     * Whether the tenant still has entries waiting for replay. New writes of such a tenant must go through the log
+     * as well, otherwise they would overtake the older samples.
+     */
+    public boolean hasBacklog(String tenantId) {
+        synchronized (lock) {
+            TenantLog tenantLog = tenantLogs.get(tenantId == null ? "" : tenantId);
+            return tenantLog != null && (!tenantLog.entries.isEmpty() || tenantLog.pendingAppends > 0);
+        }
+    }
+
+    public int getBacklogEntries() {
+        synchronized (lock) {
+            return entriesBySequence.size();
+        }
+    }
+
+    public long getBacklogSizeInBytes() {
+        synchronized (lock) {
+            return sizeInBytes;
+        }
+    }
+
+    public long getOldestEntryAgeInMs() {
+        synchronized (lock) {
+            return entriesBySequence.isEmpty() ? 0 : System.currentTimeMillis() - entriesBySequence.firstEntry().getValue().createdAt;
+        }
+    }
+
+    @Override
+    public void close() {
+        // Pending entries stay on disk and are picked up again on the next start
+        replayExecutor.shutdownNow();
+    }
+
+//========================================
+// Internals
+//----------------------------------------
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Entry> recovered = new ArrayList<>();
+        try (DirectoryStream<Path> tenantDirectories = Files.newDirectoryStream(directory, TENANT_DIR_PREFIX + "*")) {
+            for (Path tenantDirectory : tenantDirectories) {
+                String tenant = decodeTenantId(tenantDirectory.getFileName().toString().substring(TENANT_DIR_PREFIX.length()));
+                TenantLog tenantLog = tenantLogs.computeIfAbsent(tenant, TenantLog::new);
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(tenantDirectory)) {
+                    for (Path file : files) {
+                        Entry entry = parseEntry(tenantLog, file);
+                        if (entry != null) {
+                            recovered.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+
+        recovered.sort(Comparator.comparingLong(entry -> entry.sequence));
+        synchronized (lock) {
+            recovered.forEach(entry -> {
+                add(entry);
+                sizeInBytes += entry.size;
+            });
+            nextSequence = recovered.isEmpty() ? 0 : recovered.get(recovered.size() - 1).sequence + 1;
+            tenantLogs.values().stream()
+                .filter(tenantLog -> !tenantLog.entries.isEmpty())
+                .forEach(tenantLog -> scheduleReplay(tenantLog, 0));
+        }
+        if (!recovered.isEmpty()) {
+            LOG.info("Recovered {} write requests ({} bytes) from the write-ahead log in {}.", recovered.size(), sizeInBytes, directory);
+        }
+    }
+
+    private Entry parseEntry(TenantLog tenantLog, Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(TMP_SUFFIX)) {
+            // Left behind by an interrupted write, the request was never acknowledged as persisted
+            Files.deleteIfExists(file);
+            return null;
+        }
+        if (!name.endsWith(ENTRY_SUFFIX)) {
+            return null;
+        }
+        String[] parts = name.substring(0, name.length() - ENTRY_SUFFIX.length()).split("-");
+        try {
+            return new Entry(Long.parseLong(parts[0]), tenantLog, file, Files.size(file), Long.parseLong(parts[1]), Integer.parseInt(parts[2]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            LOG.warn("Ignoring unexpected file in the write-ahead log: {}", file);
+            return null;
+        }
+    }
+
+    private static void write(Path path, byte[] data) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + TMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Must be called while holding the lock; the size of the entry has to be accounted for by the caller
+    private void add(Entry entry) {
+        // Concurrent appends of a tenant may finish writing out of order, keep its entries sorted by sequence
+        Deque<Entry> entries = entry.tenantLog.entries;
+        if (entries.isEmpty() || entries.peekLast().sequence < entry.sequence) {
+            entries.addLast(entry);
+        } else {
+            List<Entry> later = new ArrayList<>();
+            while (!entries.isEmpty() && entries.peekLast().sequence > entry.sequence) {
+                later.add(entries.pollLast());
+            }
+            entries.addLast(entry);
+            for (int i = later.size() - 1; i >= 0; i--) {
+                entries.addLast(later.get(i));
+            }
+        }
+        entriesBySequence.put(entry.sequence, entry);
+    }
+
+    /**
+     * Must be called while holding the lock; the file of the entry has to be deleted by the caller.
+     *
+     * @return false if the entry was already evicted, e.g. while it was being replayed
+     */
+    private boolean remove(Entry entry) {
+        if (entriesBySequence.remove(entry.sequence) == null) {
+            return false;
+        }
+        entry.tenantLog.entries.remove(entry);
+        sizeInBytes -= entry.size;
+        return true;
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete write-ahead log entry {}", path, e);
+        }
+    }
+
+    // Must be called while holding the lock
+    private void scheduleReplay(TenantLog tenantLog, long delayInMs) {
+        if (!tenantLog.replaying) {
+            tenantLog.replaying = true;
+            submitReplay(tenantLog, delayInMs);
+        }
+    }
+
+    private void submitReplay(TenantLog tenantLog, long delayInMs) {
+        try {
+            replayExecutor.schedule(() -> replayNext(tenantLog), delayInMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Write-ahead log is closed, not replaying entries of tenant {}", tenantLog.tenantId);
+        }
+    }
+
+    private void replayNext(TenantLog tenantLog) {
+        Entry entry;
+        synchronized (lock) {
+            entry = tenantLog.entries.peekFirst();
+            // An append still writing may hold an older sequence than the first entry, it schedules the replay once done
+            if (entry == null || tenantLog.pendingAppends > 0) {
+                tenantLog.replaying = false;
+                return;
+            }
+        }
+
+        byte[] payload;
+        try {
+            payload = Files.readAllBytes(entry.path);
+        } catch (IOException e) {
+            LOG.error("Failed to read write-ahead log entry {}, samples will be lost.", entry.path, e);
+            boolean removed;
+            synchronized (lock) {
+                removed = remove(entry);
+            }
+            if (removed) {
+                samplesLost.mark(entry.sampleCount);
+                delete(entry.path);
+            }
+            submitReplay(tenantLog, 0);
+            return;
+        }
+
+        CompletableFuture<Void> future;
+        try {
+            future = sender.send(tenantLog.tenantId, payload);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((result, ex) -> onReplayCompleted(tenantLog, entry, ex));
+    }
+
+    private void onReplayCompleted(TenantLog tenantLog, Entry entry, Throwable ex) {
+        long delayInMs = 0;
+        boolean removed = false;
+        synchronized (lock) {
+            if (ex == null) {
+                // An entry evicted while being replayed was already counted as lost
+                removed = remove(entry);
+                if (removed) {
+                    samplesWritten.mark(entry.sampleCount);
+                }
+                tenantLog.backoffInMs = retryInitialBackoffInMs;
+            } else if (!CortexWriteException.isRetryable(ex)) {
+                LOG.error("Cortex rejected write request from the write-ahead log, samples will be lost.", ex);
+                removed = remove(entry);
+                if (removed) {
+                    samplesLost.mark(entry.sampleCount);
+                }
+            } else {
+                delayInMs = tenantLog.backoffInMs;
+                tenantLog.backoffInMs = Math.min(retryMaxBackoffInMs, tenantLog.backoffInMs * 2);
+                LOG.warn("Replay of write-ahead log for tenant {} failed, retrying in {}ms: {}", tenantLog.tenantId, delayInMs, ex.getMessage());
+            }
+        }
+        if (removed) {
+            delete(entry.path);
+        }
+        submitReplay(tenantLog, delayInMs);
+    }
+
+    private static String encodeTenantId(String tenantId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(tenantId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeTenantId(String encoded) {
+        return new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+    }
+
+    private final class TenantLog {
+        private final String tenantId;
+        private final Deque<Entry> entries = new ArrayDeque<>();
+        private long backoffInMs = retryInitialBackoffInMs;
+        private boolean replaying;
+        // Appends which got their sequence number but are still writing their file
+        private int pendingAppends;
+
+        private TenantLog(String tenantId) {
+            this.tenantId = tenantId;
+        }
+    }
+
+    private static final class Entry {
+        private final long sequence;
+        private final TenantLog tenantLog;
+        private final Path path;
+        private final long size;
+        private final long createdAt;
+        private final int sampleCount;
+
+        private Entry(long sequence, TenantLog tenantLog, Path path, long size, long createdAt, int sampleCount) {
+            this.sequence = sequence;
+            this.tenantLog = tenantLog;
+            this.path = path;
+            this.size = size;
+            this.createdAt = createdAt;
+            this.sampleCount = sampleCount;
+        }
+    }
+}
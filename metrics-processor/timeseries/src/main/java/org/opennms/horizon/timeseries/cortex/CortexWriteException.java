@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.timeseries.cortex;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Raised when Cortex answers a remote write with a non-successful status code.
+ */
+public class CortexWriteException extends RuntimeException {
+    private final int statusCode;
+
+    public CortexWriteException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Client errors (other than throttling) mean Cortex rejected the payload itself, e.g. out-of-order samples,
+     * so sending the same request again will never succeed.
+     */
+    public boolean isRetryable() {
+        return statusCode == 429 || statusCode < 400 || statusCode >= 500;
+    }
+
+    /**
+     * Whether a failed write should be retried. Anything other than a rejection by Cortex, e.g. a connection
+     * failure or a full bulkhead, is considered transient.
+     */
+    public static boolean isRetryable(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        return !(cause instanceof CortexWriteException) || ((CortexWriteException) cause).isRetryable();
+    }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.timeseries.cortex;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.xerial.snappy.Snappy;
+import prometheus.PrometheusRemote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal remote write endpoint which records what it receives and answers with a configurable status code.
+ */
+public class CortexStubServer {
+    private final HttpServer server;
+    private final AtomicInteger responseCode = new AtomicInteger(200);
+    private final List<Long> receivedTimestamps = new CopyOnWriteArrayList<>();
+    private final List<String> receivedTenants = new CopyOnWriteArrayList<>();
+    private final AtomicInteger receivedRequests = new AtomicInteger();
+    private final List<Integer> samplesPerRequest = new CopyOnWriteArrayList<>();
+    private final AtomicLong responseDelayMs = new AtomicLong();
+    private final Map<String, AtomicInteger> inFlightPerTenant = new ConcurrentHashMap<>();
+    private final AtomicInteger maxInFlightPerTenant = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    public CortexStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/push", this::handlePush);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getWriteUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/push";
+    }
+
+    public void setResponseCode(int code) {
+        responseCode.set(code);
+    }
+
+    public void setResponseDelayMs(long delayMs) {
+        responseDelayMs.set(delayMs);
+    }
+
+    /**
+     * Sample timestamps of all accepted requests, in the order they were received.
+     */
+    public List<Long> getReceivedTimestamps() {
+        return receivedTimestamps;
+    }
+
+    /**
+     * Tenant header of every accepted request.
+     */
+    public List<String> getReceivedTenants() {
+        return receivedTenants;
+    }
+
+    public int getReceivedRequests() {
+        return receivedRequests.get();
+    }
+
+    /**
+     * Number of samples of every accepted request.
+     */
+    public List<Integer> getSamplesPerRequest() {
+        return samplesPerRequest;
+    }
+
+    /**
+     * Highest number of requests of a single tenant that were handled at the same time.
+     */
+    public int getMaxInFlightPerTenant() {
+        return maxInFlightPerTenant.get();
+    }
+
+    private void handlePush(HttpExchange exchange) throws IOException {
+        String tenant = String.valueOf(exchange.getRequestHeaders().getFirst("X-Scope-OrgID"));
+        AtomicInteger inFlight = inFlightPerTenant.computeIfAbsent(tenant, key -> new AtomicInteger());
+        maxInFlightPerTenant.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] payload = body.readAllBytes();
+            Thread.sleep(responseDelayMs.get());
+            int code = responseCode.get();
+            if (code == 200) {
+                PrometheusRemote.WriteRequest writeRequest = PrometheusRemote.WriteRequest.parseFrom(Snappy.uncompress(payload));
+                writeRequest.getTimeseriesList().forEach(ts -> ts.getSamplesList()
+                    .forEach(sample -> receivedTimestamps.add(sample.getTimestamp())));
+                samplesPerRequest.add(writeRequest.getTimeseriesList().stream().mapToInt(ts -> ts.getSamplesCount()).sum());
+                receivedTenants.add(exchange.getRequestHeaders().getFirst("X-Scope-OrgID"));
+                receivedRequests.incrementAndGet();
+            }
+            inFlight.decrementAndGet();
+            exchange.sendResponseHeaders(code, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+}
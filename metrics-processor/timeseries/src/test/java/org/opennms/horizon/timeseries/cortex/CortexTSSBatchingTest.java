@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.timeseries.cortex;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import prometheus.PrometheusTypes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CortexTSSBatchingTest {
+
+    private CortexStubServer server;
+    private CortexTSS cortexTSS;
+    private MetricRegistry metrics;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new CortexStubServer();
+        server.start();
+        metrics = new MetricRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (cortexTSS != null) {
+            cortexTSS.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    void testStoreReturnsOnceSamplesAreWritten() throws IOException {
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder());
+        server.setResponseDelayMs(100);
+
+        storeSamples("tenant", 0, 3);
+
+        assertEquals(List.of(0L, 1L, 2L), server.getReceivedTimestamps());
+        assertEquals(3, metrics.meter("samplesWritten").getCount());
+    }
+
+    @Test
+    void testConcurrentStoresShareRequests() throws Exception {
+        int threads = 16;
+        int samplesPerThread = 50;
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder().batchMaxSamples(100));
+        server.setResponseDelayMs(20);
+
+        storeConcurrently("tenant", threads, samplesPerThread);
+
+        int samples = threads * samplesPerThread;
+        assertEquals(samples, server.getReceivedTimestamps().size());
+        assertEquals(samples, metrics.meter("samplesWritten").getCount());
+        assertTrue(server.getReceivedRequests() < samples / 4, "requests: " + server.getReceivedRequests());
+        // Writes of a tenant are never concurrent, so Cortex never sees its samples out of order
+        assertEquals(1, server.getMaxInFlightPerTenant());
+    }
+
+    @Test
+    void testSequentialCallerSharesRequestsAcrossSeriesOfAResult() throws IOException {
+        int results = 20;
+        int seriesPerResult = 5;
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder().batchMaxSamples(100));
+
+        // One series per call, the way a single caller used to store the series of a result
+        storeSamples("tenant", 0, (long) results * seriesPerResult);
+        int requestsPerSeries = server.getReceivedRequests();
+        assertEquals(results * seriesPerResult, requestsPerSeries);
+
+        // All series of a result in one call
+        for (int i = 0; i < results; i++) {
+            List<PrometheusTypes.TimeSeries> timeSeriesList = new ArrayList<>();
+            for (int j = 0; j < seriesPerResult; j++) {
+                timeSeriesList.add(timeSeries((long) i * seriesPerResult + j));
+            }
+            cortexTSS.store("tenant", timeSeriesList);
+        }
+        assertEquals(results, server.getReceivedRequests() - requestsPerSeries);
+        assertTrue(server.getSamplesPerRequest().subList(requestsPerSeries, server.getSamplesPerRequest().size()).stream()
+            .allMatch(count -> count == seriesPerResult), server.getSamplesPerRequest().toString());
+        assertEquals(2L * results * seriesPerResult, metrics.meter("samplesWritten").getCount());
+    }
+
+    @Test
+    void testBatchesAreBoundedBySize() throws Exception {
+        long seriesSize = timeSeries(1).getSerializedSize();
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder().batchMaxSizeInBytes(seriesSize * 2));
+        server.setResponseDelayMs(20);
+
+        storeConcurrently("tenant", 8, 10);
+
+        assertEquals(80, server.getReceivedTimestamps().size());
+        assertTrue(server.getSamplesPerRequest().stream().allMatch(count -> count <= 2), server.getSamplesPerRequest().toString());
+    }
+
+    @Test
+    void testBatchesAreKeptPerTenant() throws IOException {
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder());
+
+        storeSamples("tenant-a", 0, 3);
+        storeSamples("tenant-b", 0, 2);
+
+        assertTrue(server.getReceivedTenants().containsAll(List.of("tenant-a", "tenant-b")));
+        assertEquals(5, server.getReceivedTimestamps().size());
+    }
+
+    @Test
+    void testLostSamplesAreReportedToTheCaller() {
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder());
+        server.setResponseCode(400);
+
+        assertThrows(IOException.class, () -> storeSamples("tenant", 0, 1));
+        assertEquals(1, metrics.meter("samplesLost").getCount());
+    }
+
+    private CortexTSS createCortexTSS(CortexTSSConfig.Builder builder) {
+        return new CortexTSS(builder
+            .writeUrl(server.getWriteUrl())
+            .readTimeoutInMs(10000)
+            .build(), metrics);
+    }
+
+    private void storeConcurrently(String tenantId, int threads, int samplesPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                long from = (long) i * samplesPerThread;
+                futures.add(executor.submit(() -> {
+                    storeSamples(tenantId, from, from + samplesPerThread);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void storeSamples(String tenantId, long fromTimestamp, long toTimestamp) throws IOException {
+        for (long timestamp = fromTimestamp; timestamp < toTimestamp; timestamp++) {
+            cortexTSS.store(tenantId, List.of(timeSeries(timestamp)));
+        }
+    }
+
+    private static PrometheusTypes.TimeSeries timeSeries(long timestamp) {
+        return PrometheusTypes.TimeSeries.newBuilder()
+            .addLabels(PrometheusTypes.Label.newBuilder().setName("__name__").setValue("response_time_msec"))
+            .addSamples(PrometheusTypes.Sample.newBuilder().setTimestamp(timestamp).setValue(1.0))
+            .build();
+    }
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.timeseries.cortex;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xerial.snappy.Snappy;
+import prometheus.PrometheusRemote;
+import prometheus.PrometheusTypes;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CortexTSSWriteAheadLogTest {
+
+    private static final String TENANT_ID = "opennms-prime";
+
+    @TempDir
+    Path walDirectory;
+
+    private CortexStubServer server;
+
+    private CortexTSS cortexTSS;
+    private MetricRegistry metrics;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new CortexStubServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (cortexTSS != null) {
+            cortexTSS.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    void testSamplesAreReplayedInOrderOnceCortexIsBack() throws IOException {
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder());
+
+        server.setResponseCode(503);
+        storeSamples(0, 10);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> walGauge("walBacklogEntries") == 10);
+        assertTrue(walGauge("walBacklogSizeInBytes") > 0);
+        assertTrue(server.getReceivedTimestamps().isEmpty());
+
+        // New samples must queue behind the backlog, even though Cortex is reachable again
+        server.setResponseCode(200);
+        storeSamples(10, 20);
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> server.getReceivedTimestamps().size() == 20);
+        assertEquals(LongStream.range(0, 20).boxed().collect(Collectors.toList()), server.getReceivedTimestamps());
+        assertTrue(server.getReceivedTenants().stream().allMatch(TENANT_ID::equals));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> walGauge("walBacklogEntries") == 0);
+        assertEquals(0, walGauge("walOldestEntryAgeInMs"));
+        assertEquals(20, metrics.meter("samplesWritten").getCount());
+        assertEquals(0, metrics.meter("samplesLost").getCount());
+    }
+
+    @Test
+    void testBacklogSurvivesRestart() throws IOException {
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder());
+
+        server.setResponseCode(503);
+        storeSamples(0, 5);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> walGauge("walBacklogEntries") == 5);
+        cortexTSS.close();
+
+        server.setResponseCode(200);
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder());
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> server.getReceivedTimestamps().size() == 5);
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), server.getReceivedTimestamps());
+        await().atMost(5, TimeUnit.SECONDS).until(() -> walGauge("walBacklogEntries") == 0);
+    }
+
+    @Test
+    void testOldestEntriesAreDroppedWhenFull() throws IOException {
+        byte[] singleRequest = Snappy.compress(PrometheusRemote.WriteRequest.newBuilder()
+            .addTimeseries(timeSeries(1)).build().toByteArray());
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder()
+            .walMaxSizeInBytes(singleRequest.length * 3L));
+
+        server.setResponseCode(503);
+        storeSamples(1, 6);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> metrics.meter("samplesLost").getCount() == 2);
+        assertEquals(3, walGauge("walBacklogEntries"));
+
+        server.setResponseCode(200);
+        await().atMost(10, TimeUnit.SECONDS).until(() -> server.getReceivedTimestamps().size() == 3);
+        assertEquals(List.of(3L, 4L, 5L), server.getReceivedTimestamps());
+    }
+
+    @Test
+    void testEntryEvictedDuringReplayIsOnlyCountedAsLost() throws Exception {
+        byte[] singleRequest = Snappy.compress(PrometheusRemote.WriteRequest.newBuilder()
+            .addTimeseries(timeSeries(1)).build().toByteArray());
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder()
+            .walMaxSizeInBytes(singleRequest.length)
+            .readTimeoutInMs(5000));
+
+        server.setResponseCode(503);
+        storeSamples(1, 2);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> walGauge("walBacklogEntries") == 1);
+
+        // Let the replay of the first entry hang in Cortex, and push it out of the log meanwhile
+        server.setResponseDelayMs(1000);
+        server.setResponseCode(200);
+        Thread.sleep(300);
+        storeSamples(2, 3);
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> server.getReceivedTimestamps().size() == 2);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> walGauge("walBacklogEntries") == 0);
+        assertEquals(1, metrics.meter("samplesLost").getCount());
+        assertEquals(1, metrics.meter("samplesWritten").getCount());
+    }
+
+    @Test
+    void testRejectedSamplesAreNotRetried() throws IOException {
+        cortexTSS = createCortexTSS(CortexTSSConfig.builder());
+
+        server.setResponseCode(400);
+        for (long timestamp = 0; timestamp < 3; timestamp++) {
+            long from = timestamp;
+            assertThrows(IOException.class, () -> storeSamples(from, from + 1));
+        }
+
+        assertEquals(3, metrics.meter("samplesLost").getCount());
+        assertEquals(0, walGauge("walBacklogEntries"));
+    }
+
+    private CortexTSS createCortexTSS(CortexTSSConfig.Builder builder) {
+        metrics = new MetricRegistry();
+        return new CortexTSS(builder
+            .writeUrl(server.getWriteUrl())
+            .maxConcurrentHttpConnections(1)
+            .batchMaxSamples(1)
+            .walDirectory(walDirectory.toString())
+            .walRetryInitialBackoffInMs(10)
+            .walRetryMaxBackoffInMs(100)
+            .build(), metrics);
+    }
+
+    private void storeSamples(long fromTimestamp, long toTimestamp) throws IOException {
+        for (long timestamp = fromTimestamp; timestamp < toTimestamp; timestamp++) {
+            cortexTSS.store(TENANT_ID, List.of(timeSeries(timestamp)));
+        }
+    }
+
+    private static PrometheusTypes.TimeSeries timeSeries(long timestamp) {
+        return PrometheusTypes.TimeSeries.newBuilder()
+            .addLabels(PrometheusTypes.Label.newBuilder().setName("__name__").setValue("response_time_msec"))
+            .addSamples(PrometheusTypes.Sample.newBuilder().setTimestamp(timestamp).setValue(1.0))
+            .build();
+    }
+
+    private long walGauge(String name) {
+        return ((Number) metrics.getGauges().get(name).getValue()).longValue();
+    }
+}
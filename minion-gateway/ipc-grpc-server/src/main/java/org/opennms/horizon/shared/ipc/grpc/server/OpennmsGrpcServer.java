@@ -342,67 +342,17 @@ public class OpennmsGrpcServer extends AbstractMessageConsumerManager implements
 
                 try (var ss = span.makeCurrent()) {
                     if (message.hasSinkMessage()) {
-                        SinkMessage sinkMessage = message.getSinkMessage();
-                        span.updateName("MinionToCloudMessages receive " + sinkMessage.getModuleId());
-                        span.setAttribute("moduleId", sinkMessage.getModuleId());
-                        span.setAttribute("messageId", sinkMessage.getMessageId());
-                        if (sinkMessage.hasIdentity()) {
-                            span.setAttribute("identity", sinkMessage.getIdentity().toString());
-                        }
-
-                        if (debugSpanFullMessage) {
-                            span.setAttribute("message", sinkMessage.toString());
-                        }
-                        if (debugSpanContent) {
-                            span.setAttribute("content", sinkMessage.getContent().toString());
-                        }
-
-                        // We won't have the system ID until we receive the first heartbeat message, so
-                        // once we get it, (1) we stash it with a full set of identity attributes for
-                        // future message spans, (2) we set it on the long-running stream span, and
-                        // (3) we set it on our current span. And we make sure to only do this once.
-                        if (!haveSystemId.get() && "heartbeat".equals(sinkMessage.getModuleId())) {
-                            try {
-                                var heartbeatMessage = HeartbeatMessage.parseFrom(sinkMessage.getContent());
-                                if (heartbeatMessage.getIdentity() != null) {
-                                    var systemId = heartbeatMessage.getIdentity().getSystemId();
-                                    attributes.set(Attributes.builder()
-                                        .putAll(attributes.get())
-                                        .put("systemId", systemId)
-                                        .build());
-                                    streamSpan.setAttribute("systemId", systemId);
-                                    span.setAttribute("systemId", systemId);
-                                    haveSystemId.set(true);
-                                }
-                            } catch (InvalidProtocolBufferException e) {
-                                // ignore
-                            }
-                        }
-
-                        if (!Strings.isNullOrEmpty(sinkMessage.getModuleId())) {
-                            ExecutorService sinkModuleExecutor = sinkConsumersByModuleId.get(sinkMessage.getModuleId());
-                            if (sinkModuleExecutor != null) {
-                                // Schedule execution with the ExecutorService, with the current GRPC context active
-                                Context.currentContextExecutor(sinkModuleExecutor)
-                                    .execute(() -> dispatchSinkMessage(sinkMessage));
-                            } else {
-                                LOG.error("Ignoring sink message; no module executor registered: module-id={}; identity={}; message-id={}",
-                                    sinkMessage.getModuleId(),
-                                    sinkMessage.getIdentity(),
-                                    sinkMessage.getMessageId()
-                                );
-                                span.setStatus(StatusCode.ERROR, "Ignoring sink message; no module executor registered");
-                            }
-                        } else {
-                            LOG.error("Ignoring sink message with null or empty module-id: identity={}; message-id={}",
-                                sinkMessage.getIdentity(),
-                                sinkMessage.getMessageId()
-                            );
-                            span.setStatus(StatusCode.ERROR, "Ignoring sink message with null or empty module-id");
+                        span.updateName("MinionToCloudMessages receive " + message.getSinkMessage().getModuleId());
+                        receiveSinkMessage(message.getSinkMessage(), span);
+                    } else if (message.hasSinkMessageBatch()) {
+                        span.updateName("MinionToCloudMessages receive batch");
+                        span.setAttribute("batchSize", message.getSinkMessageBatch().getSinkMessagesCount());
+                        for (SinkMessage sinkMessage : message.getSinkMessageBatch().getSinkMessagesList()) {
+                            receiveSinkMessage(sinkMessage, span);
                         }
                     } else {
                         LOG.error("Unsupported message {}", message);
-                        span.setStatus(StatusCode.ERROR, "Unsupported message (expecting SinkMessage)");
+                        span.setStatus(StatusCode.ERROR, "Unsupported message (expecting SinkMessage or SinkMessageBatch)");
                         span.setAttribute("message", message.toString());
                     }
                 } catch (Throwable throwable) {
@@ -414,6 +364,65 @@ public class OpennmsGrpcServer extends AbstractMessageConsumerManager implements
                 }
             }
 
+            private void receiveSinkMessage(SinkMessage sinkMessage, Span span) {
+                span.setAttribute("moduleId", sinkMessage.getModuleId());
+                span.setAttribute("messageId", sinkMessage.getMessageId());
+                if (sinkMessage.hasIdentity()) {
+                    span.setAttribute("identity", sinkMessage.getIdentity().toString());
+                }
+
+                if (debugSpanFullMessage) {
+                    span.setAttribute("message", sinkMessage.toString());
+                }
+                if (debugSpanContent) {
+                    span.setAttribute("content", sinkMessage.getContent().toString());
+                }
+
+                // We won't have the system ID until we receive the first heartbeat message, so
+                // once we get it, (1) we stash it with a full set of identity attributes for
+                // future message spans, (2) we set it on the long-running stream span, and
+                // (3) we set it on our current span. And we make sure to only do this once.
+                if (!haveSystemId.get() && "heartbeat".equals(sinkMessage.getModuleId())) {
+                    try {
+                        var heartbeatMessage = HeartbeatMessage.parseFrom(sinkMessage.getContent());
+                        if (heartbeatMessage.getIdentity() != null) {
+                            var systemId = heartbeatMessage.getIdentity().getSystemId();
+                            attributes.set(Attributes.builder()
+                                .putAll(attributes.get())
+                                .put("systemId", systemId)
+                                .build());
+                            streamSpan.setAttribute("systemId", systemId);
+                            span.setAttribute("systemId", systemId);
+                            haveSystemId.set(true);
+                        }
+                    } catch (InvalidProtocolBufferException e) {
+                        // ignore
+                    }
+                }
+
+                if (!Strings.isNullOrEmpty(sinkMessage.getModuleId())) {
+                    ExecutorService sinkModuleExecutor = sinkConsumersByModuleId.get(sinkMessage.getModuleId());
+                    if (sinkModuleExecutor != null) {
+                        // Schedule execution with the ExecutorService, with the current GRPC context active
+                        Context.currentContextExecutor(sinkModuleExecutor)
+                            .execute(() -> dispatchSinkMessage(sinkMessage));
+                    } else {
+                        LOG.error("Ignoring sink message; no module executor registered: module-id={}; identity={}; message-id={}",
+                            sinkMessage.getModuleId(),
+                            sinkMessage.getIdentity(),
+                            sinkMessage.getMessageId()
+                        );
+                        span.setStatus(StatusCode.ERROR, "Ignoring sink message; no module executor registered");
+                    }
+                } else {
+                    LOG.error("Ignoring sink message with null or empty module-id: identity={}; message-id={}",
+                        sinkMessage.getIdentity(),
+                        sinkMessage.getMessageId()
+                    );
+                    span.setStatus(StatusCode.ERROR, "Ignoring sink message with null or empty module-id");
+                }
+            }
+
             @Override
             public void onError(Throwable throwable) {
                 if (throwable instanceof StatusRuntimeException statusRuntimeException
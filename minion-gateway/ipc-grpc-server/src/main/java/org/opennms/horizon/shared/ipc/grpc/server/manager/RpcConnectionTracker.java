@@ -12,6 +12,7 @@ public interface RpcConnectionTracker {
     boolean addConnection(String tenantId, String location, String minionId, StreamObserver<RpcRequestProto> connection);
     StreamObserver<RpcRequestProto> lookupByMinionId(String tenantId, String minionId);
     StreamObserver<RpcRequestProto> lookupByLocationRoundRobin(String tenantId, String locationId);
+    boolean isLocationConnected(String tenantId, String locationId);
     MinionInfo removeConnection(StreamObserver<RpcRequestProto> connection);
     Semaphore getConnectionSemaphore(StreamObserver<RpcRequestProto> connection);
     SpanContext getConnectionSpanContext(StreamObserver<RpcRequestProto> connection);
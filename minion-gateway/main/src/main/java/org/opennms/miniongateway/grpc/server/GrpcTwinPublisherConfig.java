@@ -20,6 +20,9 @@ public class GrpcTwinPublisherConfig {
     @Value("${debug.span.content:false}")
     private boolean debugSpanContent;
 
+    @Value("${twin.protobuf-deltas:false}")
+    private boolean protobufDeltas;
+
     @Bean
     public ServerHandler serverHandler(
         GrpcTwinPublisher grpcTwinPublisher,
@@ -32,7 +35,7 @@ public class GrpcTwinPublisherConfig {
 
     @Bean(initMethod = "start", destroyMethod = "close")
     public GrpcTwinPublisher grpcTwinPublisher(Ignite ignite, OpenTelemetry openTelemetry) {
-        return new GrpcTwinPublisher(ignite, openTelemetry.getTracer(getClass().getName()), debugSpanFullMessage, debugSpanContent);
+        return new GrpcTwinPublisher(ignite, openTelemetry.getTracer(getClass().getName()), debugSpanFullMessage, debugSpanContent, protobufDeltas);
     }
 
 }
@@ -103,10 +103,12 @@ public class RpcConnectionTrackerImpl implements RpcConnectionTracker {
 
     @Override
     public StreamObserver<RpcRequestProto> lookupByLocationRoundRobin(String tenantId, String locationId) {
+        TenantKey tenantLocation = new TenantKey(tenantId, locationId);
+
         synchronized (lock) {
-            Iterator<StreamObserver<RpcRequestProto>> iterator = rpcHandlerIteratorMap.get(locationId);
+            Iterator<StreamObserver<RpcRequestProto>> iterator = rpcHandlerIteratorMap.get(tenantLocation);
 
-            if (iterator == null) {
+            if (iterator == null || !iterator.hasNext()) {
                 return null;
             }
 
@@ -114,6 +116,15 @@ public class RpcConnectionTrackerImpl implements RpcConnectionTracker {
         }
     }
 
+    @Override
+    public boolean isLocationConnected(String tenantId, String locationId) {
+        TenantKey tenantLocation = new TenantKey(tenantId, locationId);
+
+        synchronized (lock) {
+            return connectionListByLocation.containsKey(tenantLocation);
+        }
+    }
+
     @Override
     public MinionInfo removeConnection(StreamObserver<RpcRequestProto> connection) {
         MinionInfo removedMinionInfo = new MinionInfo();
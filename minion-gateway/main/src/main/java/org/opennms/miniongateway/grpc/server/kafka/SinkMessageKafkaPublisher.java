@@ -32,16 +32,22 @@ import com.google.protobuf.Message;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.opennms.horizon.shared.grpc.common.LocationServerInterceptor;
 import org.opennms.horizon.shared.grpc.common.TenantIDGrpcServerInterceptor;
+import org.opennms.miniongateway.grpc.server.model.TenantLocationKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A helper class which produces kafka messages.
  *
- * It additionally retrieves tenant information from present context.
+ * It additionally retrieves tenant information from present context. Records are keyed by tenant (and location), so
+ * all messages of a minion end up in the same partition and keep their order.
  * @param <I> Input message (grpc side) kind
  * @param <O> Output message (kafka side) type
  */
@@ -54,16 +60,20 @@ public class SinkMessageKafkaPublisher<I extends Message, O extends Message> {
     private final SinkMessageMapper<I, O> mapper;
     private final String topic;
     private final MeterRegistry meterRegistry;
+    private final RecordKey recordKey;
+    // Looking up the timer in the registry on every send is costly, so keep the ones already registered at hand
+    private final Map<TenantLocationKey, Timer> sendTimers = new ConcurrentHashMap<>();
 
     public SinkMessageKafkaPublisher(KafkaTemplate<String, byte[]> kafkaTemplate,
                                      TenantIDGrpcServerInterceptor tenantInterceptor, LocationServerInterceptor locationInterceptor,
-                                     SinkMessageMapper<I, O> mapper, String topic, MeterRegistry meterRegistry) {
+                                     SinkMessageMapper<I, O> mapper, String topic, MeterRegistry meterRegistry, RecordKey recordKey) {
         this.kafkaTemplate = kafkaTemplate;
         this.tenantInterceptor = tenantInterceptor;
         this.locationInterceptor = locationInterceptor;
         this.mapper = mapper;
         this.topic = topic;
         this.meterRegistry = meterRegistry;
+        this.recordKey = recordKey;
     }
 
     /**
@@ -79,12 +89,50 @@ public class SinkMessageKafkaPublisher<I extends Message, O extends Message> {
         logger.trace("Received {}; sending a {} to kafka topic {}; tenantId: {}; locationId={}; message={}",
             message.getDescriptorForType().getName(), mapped.getDescriptorForType().getName(), topic, tenantId, locationId, mapped);
 
-        this.meterRegistry.timer("kafka.send",
-                "topic", this.topic,
-                "tenant", tenantId,
-                "location", locationId)
+        String key = recordKey.of(tenantId, locationId);
+        sendTimers.computeIfAbsent(new TenantLocationKey(tenantId, locationId), this::createSendTimer)
             .record(() -> {
-                kafkaTemplate.send(new ProducerRecord<>(topic, mapped.toByteArray()));
+                kafkaTemplate.send(new ProducerRecord<>(topic, key, mapped.toByteArray()));
             });
     }
+
+    private Timer createSendTimer(TenantLocationKey tenantLocationKey) {
+        return this.meterRegistry.timer("kafka.send",
+            "topic", this.topic,
+            "tenant", tenantLocationKey.getTenantId(),
+            "location", tenantLocationKey.getLocationId());
+    }
+
+    /**
+     * Determines the key of the records sent to Kafka and with that the partition they are written to.
+     */
+    public enum RecordKey {
+        /**
+         * Records are not keyed and spread across all partitions.
+         */
+        NONE,
+        /**
+         * All records of a tenant are written to the same partition. This keeps the order across all locations of a
+         * tenant, but caps the throughput of a tenant at what a single partition can take.
+         */
+        TENANT,
+        /**
+         * All records of a location are written to the same partition. Locations of one tenant are spread across
+         * partitions, but all minions of a location still share one partition: a location with a lot of minions or a
+         * lot of traffic (e.g. flows) can turn it into a hot partition. Switch to {@link #NONE} for such deployments if
+         * the consumers do not rely on the order of the records.
+         */
+        TENANT_LOCATION;
+
+        String of(String tenantId, String locationId) {
+            switch (this) {
+                case TENANT:
+                    return tenantId;
+                case TENANT_LOCATION:
+                    return tenantId + ":" + locationId;
+                default:
+                    return null;
+            }
+        }
+    }
 }
@@ -34,6 +34,7 @@ import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.opennms.horizon.shared.grpc.common.LocationServerInterceptor;
 import org.opennms.horizon.shared.grpc.common.TenantIDGrpcServerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
@@ -46,8 +47,11 @@ public class SinkMessageKafkaPublisherFactory {
     private final KafkaTemplate<String, byte[]> kafkaTemplate;
     private final MeterRegistry meterRegistry;
 
+    @Value("${sink.kafka.record-key:TENANT_LOCATION}")
+    private SinkMessageKafkaPublisher.RecordKey recordKey = SinkMessageKafkaPublisher.RecordKey.TENANT_LOCATION;
+
     public <I extends Message, O extends Message> SinkMessageKafkaPublisher<I, O> create(SinkMessageMapper<I, O> mapper, String topic) {
-        return new SinkMessageKafkaPublisher<>(kafkaTemplate, tenantInterceptor, locationInterceptor, mapper, topic, meterRegistry);
+        return new SinkMessageKafkaPublisher<>(kafkaTemplate, tenantInterceptor, locationInterceptor, mapper, topic, meterRegistry, recordKey);
     }
 
 }
@@ -0,0 +1,71 @@
+/*
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ */
+
+package org.opennms.miniongateway.grpc.server.model;
+
+import java.util.Objects;
+
+public class TenantLocationKey {
+    private final String tenantId;
+    private final String locationId;
+
+    public TenantLocationKey(String tenantId, String locationId) {
+        this.tenantId = tenantId;
+        this.locationId = locationId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TenantLocationKey that = (TenantLocationKey) o;
+        return Objects.equals(tenantId, that.tenantId) &&
+            Objects.equals(locationId, that.locationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tenantId, locationId);
+    }
+
+    @Override
+    public String toString() {
+        return "TenantLocationKey{" +
+            "tenantId='" + tenantId + '\'' +
+            ", locationId='" + locationId + '\'' +
+            '}';
+    }
+}
@@ -1,6 +1,8 @@
 package org.opennms.miniongateway.grpc.server.rpcrequest.impl;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.Setter;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.compute.ComputeTaskFuture;
@@ -9,7 +11,10 @@ import org.opennms.cloud.grpc.minion.RpcRequestProto;
 import org.opennms.cloud.grpc.minion.RpcResponseProto;
 import org.opennms.cloud.grpc.minion_gateway.GatewayRpcRequestProto;
 import org.opennms.cloud.grpc.minion_gateway.GatewayRpcResponseProto;
+import org.opennms.cloud.grpc.minion_gateway.MinionIdentity;
 import org.opennms.horizon.shared.grpc.common.TenantIDGrpcServerInterceptor;
+import org.opennms.horizon.shared.ipc.grpc.server.manager.RpcConnectionTracker;
+import org.opennms.miniongateway.detector.server.IgniteRpcRequestDispatcher;
 import org.opennms.miniongateway.grpc.server.rpcrequest.RouterTaskData;
 import org.opennms.miniongateway.grpc.server.rpcrequest.RpcRequestRouterIgniteTask;
 import org.opennms.miniongateway.rpcrequest.RpcRequestRouter;
@@ -19,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class RpcRequestRouterImpl implements RpcRequestRouter {
@@ -36,6 +42,23 @@ public class RpcRequestRouterImpl implements RpcRequestRouter {
     @Setter
     private RpcRequestRouterIgniteTask rpcRequestRouterIgniteTask;
 
+    @Autowired
+    @Setter
+    private RpcConnectionTracker rpcConnectionTracker;
+
+    @Autowired
+    @Setter
+    private IgniteRpcRequestDispatcher localRequestDispatcher;
+
+    private Timer localRouteTimer;
+    private Timer remoteRouteTimer;
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        localRouteTimer = Timer.builder("rpc.route").tag("route", "local").register(meterRegistry);
+        remoteRouteTimer = Timer.builder("rpc.route").tag("route", "remote").register(meterRegistry);
+    }
+
 
     //========================================
 // Interface: RpcRequestRouter
@@ -43,6 +66,53 @@ public class RpcRequestRouterImpl implements RpcRequestRouter {
 
     @Override
     public CompletableFuture<GatewayRpcResponseProto> routeRequest(GatewayRpcRequestProto request) {
+        long start = System.nanoTime();
+
+        CompletableFuture<GatewayRpcResponseProto> resultFuture = routeLocalRequest(request);
+        Timer timer = localRouteTimer;
+        if (resultFuture == null) {
+            resultFuture = routeRemoteRequest(request);
+            timer = remoteRouteTimer;
+        }
+
+        Timer routeTimer = timer;
+        resultFuture.whenComplete((response, error) -> routeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+
+        return resultFuture;
+    }
+
+//========================================
+// Internals
+//----------------------------------------
+
+    /**
+     * Dispatches the request right away if the target minion (or one of the location) is connected to this node.
+     *
+     * @return the response future, or null if the request must be routed through the cluster
+     */
+    private CompletableFuture<GatewayRpcResponseProto> routeLocalRequest(GatewayRpcRequestProto request) {
+        MinionIdentity target = request.getIdentity();
+
+        boolean local;
+        if (!target.getSystemId().isBlank()) {
+            local = rpcConnectionTracker.lookupByMinionId(target.getTenantId(), target.getSystemId()) != null;
+        } else {
+            local = rpcConnectionTracker.isLocationConnected(target.getTenantId(), target.getLocationId());
+        }
+        if (!local) {
+            return null;
+        }
+
+        CompletableFuture<GatewayRpcResponseProto> resultFuture = localRequestDispatcher.execute(request);
+        if (resultFuture.isCompletedExceptionally()) {
+            // The connection went away in the meantime, the minion might have connected to another node already
+            log.debug("local dispatch of rpc request {} failed, routing through the cluster", request.getRpcId());
+            return null;
+        }
+        return resultFuture;
+    }
+
+    private CompletableFuture<GatewayRpcResponseProto> routeRemoteRequest(GatewayRpcRequestProto request) {
         CompletableFuture<GatewayRpcResponseProto> resultFuture = new CompletableFuture<>();
 
         String tenant = request.getIdentity().getTenantId();
@@ -56,10 +126,6 @@ public class RpcRequestRouterImpl implements RpcRequestRouter {
         return resultFuture;
     }
 
-//========================================
-// Internals
-//----------------------------------------
-
     private void processCompletedIgniteFuture(CompletableFuture<GatewayRpcResponseProto> completableFuture, IgniteFuture<byte[]> igniteFuture) {
         assert(igniteFuture.isDone());
 
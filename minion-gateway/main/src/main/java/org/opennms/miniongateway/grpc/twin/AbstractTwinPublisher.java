@@ -33,6 +33,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.github.fge.jsonpatch.diff.JsonDiff;
 import com.google.common.base.Strings;
+import com.google.common.collect.MapMaker;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 import java.io.IOException;
@@ -41,6 +42,9 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import javax.cache.Cache.Entry;
 import org.apache.ignite.Ignite;
@@ -51,7 +55,9 @@ import org.apache.ignite.lang.IgniteBiPredicate;
 import org.opennms.cloud.grpc.minion.TwinRequestProto;
 import org.opennms.cloud.grpc.minion.TwinResponseProto;
 import org.opennms.horizon.shared.protobuf.marshalling.ProtoBufJsonSerializer;
+import org.opennms.horizon.shared.protobuf.util.TaskSetDeltaUtil;
 import org.opennms.taskset.contract.TaskSet;
+import org.opennms.taskset.contract.TaskSetDelta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -64,12 +70,25 @@ public abstract class AbstractTwinPublisher implements TwinPublisher, TwinProvid
 
     protected final IgniteCache<SessionKey, TwinTracker> twinTrackerMap;
     protected final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean protobufDeltas;
+    // Updates are serialized per session key only, so publishing for one location does not hold up the others.
+    // Locks are only weakly referenced, so they are dropped again once no thread uses them (e.g. after the session closed).
+    private final ConcurrentMap<SessionKey, Lock> sessionLocks = new MapMaker().weakValues().makeMap();
 
     public AbstractTwinPublisher(Ignite ignite) {
+        this(ignite, false);
+    }
+
+    /**
+     * @param protobufDeltas publish task sets in protobuf encoding, with updates sent as added, replaced and removed
+     *                       task definitions instead of a JSON patch of the whole task set
+     */
+    public AbstractTwinPublisher(Ignite ignite, boolean protobufDeltas) {
         //TODO: Should probably pass a var args of classes from the impl ctor?
         configureProtobufJson(TaskSet.class);
 
         twinTrackerMap = ignite.cache(TWIN_TRACKER_CACHE_NAME);
+        this.protobufDeltas = protobufDeltas;
     }
 
     /**
@@ -102,13 +121,14 @@ public abstract class AbstractTwinPublisher implements TwinPublisher, TwinProvid
             // Fill TwinUpdate fields from TwinTracker.
             twinUpdate = new TwinUpdate(twinRequest.getConsumerKey(), tenantId, locationId, twinTracker.getObj());
             twinUpdate.setPatch(false);
+            twinUpdate.setProtobuf(twinTracker.isProtobuf());
             twinUpdate.setVersion(twinTracker.getVersion());
             twinUpdate.setSessionId(twinTracker.getSessionId());
         }
         return twinUpdate;
     }
 
-    private synchronized TwinTracker getTwinTracker(String key, String tenantId, String locationId) {
+    private TwinTracker getTwinTracker(String key, String tenantId, String locationId) {
         // Check if we have a session key specific to location else check session key without location.
         TwinTracker twinTracker = twinTrackerMap.get(new SessionKey(key, tenantId, locationId));
         if (twinTracker == null) {
@@ -127,6 +147,7 @@ public abstract class AbstractTwinPublisher implements TwinPublisher, TwinProvid
             builder.setTwinObject(ByteString.copyFrom(twinUpdate.getObject()));
         }
         builder.setIsPatchObject(twinUpdate.isPatch());
+        builder.setIsProtobufObject(twinUpdate.isProtobuf());
         builder.setVersion(twinUpdate.getVersion());
         return builder.build();
     }
@@ -135,21 +156,21 @@ public abstract class AbstractTwinPublisher implements TwinPublisher, TwinProvid
         return location != null ? key + "@" + location : key;
     }
 
-    private synchronized TwinUpdate getResponseFromUpdatedObj(byte[] updatedObj, SessionKey sessionKey) {
+    private TwinUpdate getResponseFromUpdatedObj(byte[] updatedObj, SessionKey sessionKey) {
         TwinTracker twinTracker = getTwinTracker(sessionKey.key, sessionKey.tenantId, sessionKey.locationId);
-        if (twinTracker == null || !Arrays.equals(twinTracker.getObj(), updatedObj)) {
+        if (twinTracker == null || twinTracker.isProtobuf() || !Arrays.equals(twinTracker.getObj(), updatedObj)) {
             TwinUpdate twinUpdate = new TwinUpdate(sessionKey.key, sessionKey.tenantId, sessionKey.locationId, updatedObj);
             if (twinTracker == null) {
                 twinTracker = new TwinTracker(updatedObj);
             } else {
-                // Generate patch and update response with patch.
-                byte[] patchValue = getPatchValue(twinTracker.getObj(), updatedObj, sessionKey);
+                // Generate patch and update response with patch, unless the previous object was not JSON.
+                byte[] patchValue = twinTracker.isProtobuf() ? null : getPatchValue(twinTracker.getObj(), updatedObj, sessionKey);
                 if (patchValue != null) {
                     twinUpdate.setObject(patchValue);
                     twinUpdate.setPatch(true);
                 }
                 // Update Twin tracker with updated obj.
-                twinTracker.update(updatedObj);
+                twinTracker.update(updatedObj, false);
             }
             twinTrackerMap.put(sessionKey, twinTracker);
             twinUpdate.setVersion(twinTracker.getVersion());
@@ -159,6 +180,42 @@ public abstract class AbstractTwinPublisher implements TwinPublisher, TwinProvid
         return null;
     }
 
+    private TwinUpdate getResponseFromUpdatedTaskSet(TaskSet taskSet, SessionKey sessionKey) {
+        byte[] updatedObj = taskSet.toByteArray();
+        TwinTracker twinTracker = getTwinTracker(sessionKey.key, sessionKey.tenantId, sessionKey.locationId);
+        if (twinTracker != null && twinTracker.isProtobuf() && Arrays.equals(twinTracker.getObj(), updatedObj)) {
+            return null;
+        }
+
+        TwinUpdate twinUpdate = new TwinUpdate(sessionKey.key, sessionKey.tenantId, sessionKey.locationId, updatedObj);
+        twinUpdate.setProtobuf(true);
+        if (twinTracker == null) {
+            twinTracker = new TwinTracker(updatedObj, true);
+        } else {
+            // Send only the changed task definitions, unless the previous object was JSON.
+            byte[] deltaValue = twinTracker.isProtobuf() ? getTaskSetDeltaValue(twinTracker.getObj(), taskSet, sessionKey) : null;
+            if (deltaValue != null) {
+                twinUpdate.setObject(deltaValue);
+                twinUpdate.setPatch(true);
+            }
+            twinTracker.update(updatedObj, true);
+        }
+        twinTrackerMap.put(sessionKey, twinTracker);
+        twinUpdate.setVersion(twinTracker.getVersion());
+        twinUpdate.setSessionId(twinTracker.getSessionId());
+        return twinUpdate;
+    }
+
+    private byte[] getTaskSetDeltaValue(byte[] originalObj, TaskSet updatedTaskSet, SessionKey sessionKey) {
+        try {
+            TaskSetDelta delta = TaskSetDeltaUtil.diff(TaskSet.parseFrom(originalObj), updatedTaskSet);
+            return delta != null ? delta.toByteArray() : null;
+        } catch (Exception e) {
+            LOG.error("Unable to generate task set delta for SessionKey {}", sessionKey, e);
+        }
+        return null;
+    }
+
     private byte[] getPatchValue(byte[] originalObj, byte[] updatedObj, SessionKey sessionKey) {
         try {
             JsonNode sourceNode = objectMapper.readTree(originalObj);
@@ -171,11 +228,21 @@ public abstract class AbstractTwinPublisher implements TwinPublisher, TwinProvid
         return null;
     }
 
-    private synchronized void removeSessionKey(SessionKey sessionKey) {
-        twinTrackerMap.remove(sessionKey);
+    private void removeSessionKey(SessionKey sessionKey) {
+        Lock lock = getSessionLock(sessionKey);
+        lock.lock();
+        try {
+            twinTrackerMap.remove(sessionKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lock getSessionLock(SessionKey sessionKey) {
+        return sessionLocks.computeIfAbsent(sessionKey, k -> new ReentrantLock());
     }
 
-    public synchronized void forEachSession(String tenantId, BiConsumer<SessionKey, TwinTracker> consumer) {
+    public void forEachSession(String tenantId, BiConsumer<SessionKey, TwinTracker> consumer) {
         ScanQuery<SessionKey, TwinTracker> query = new ScanQuery<>();
         query.setFilter(new TenantSessionKeyPredicate(tenantId));
         QueryCursor<Entry<SessionKey, TwinTracker>> cursor = twinTrackerMap.query(query);
@@ -199,11 +266,20 @@ public abstract class AbstractTwinPublisher implements TwinPublisher, TwinProvid
         public void publish(T obj) throws IOException {
             try (MDCCloseable mdc = MDC.putCloseable("prefix", TwinConstants.LOG_PREFIX)) {
                 LOG.info("Published an object update for the session with key {}", sessionKey.toString());
-                byte[] objInBytes = objectMapper.writeValueAsBytes(obj);
-                TwinUpdate twinUpdate = getResponseFromUpdatedObj(objInBytes, sessionKey);
-
-                if (twinUpdate != null) {
-                    handleSinkUpdate(sessionKey.locationId, twinUpdate);
+                // Serialize outside the lock, it does not depend on the previous version of the twin.
+                byte[] objInBytes = protobufDeltas && obj instanceof TaskSet ? null : objectMapper.writeValueAsBytes(obj);
+                Lock lock = getSessionLock(sessionKey);
+                lock.lock();
+                try {
+                    TwinUpdate twinUpdate = objInBytes == null
+                        ? getResponseFromUpdatedTaskSet((TaskSet) obj, sessionKey)
+                        : getResponseFromUpdatedObj(objInBytes, sessionKey);
+                    // Send while holding the lock, so minions receive the versions of a twin in order.
+                    if (twinUpdate != null) {
+                        handleSinkUpdate(sessionKey.locationId, twinUpdate);
+                    }
+                } finally {
+                    lock.unlock();
                 }
             }
         }
@@ -81,7 +81,11 @@ public class GrpcTwinPublisher extends AbstractTwinPublisher implements Outgoing
     private final boolean debugSpanContent;
 
     public GrpcTwinPublisher(Ignite ignite, final Tracer tracer, boolean debugSpanFullMessage, boolean debugSpanContent) {
-        super(ignite);
+        this(ignite, tracer, debugSpanFullMessage, debugSpanContent, false);
+    }
+
+    public GrpcTwinPublisher(Ignite ignite, final Tracer tracer, boolean debugSpanFullMessage, boolean debugSpanContent, boolean protobufDeltas) {
+        super(ignite, protobufDeltas);
         this.tracer = tracer;
         this.debugSpanFullMessage = debugSpanFullMessage;
         this.debugSpanContent = debugSpanContent;
@@ -92,16 +96,23 @@ public class GrpcTwinPublisher extends AbstractTwinPublisher implements Outgoing
         sendTwinResponseForSink(sinkUpdate.getTenantId(), locationId, mapTwinResponse(sinkUpdate));
     }
 
-    private synchronized boolean sendTwinResponseForSink(String tenantId, String location, TwinResponseProto twinResponseProto) {
-        if (sinkStreamsByLocation.isEmpty()) {
-            return false;
+    private boolean sendTwinResponseForSink(String tenantId, String location, TwinResponseProto twinResponseProto) {
+        // Only the lookup of the streams is serialized, updates for different locations are sent concurrently
+        Collection<Entry<TenantKey, AdapterObserver>> entries;
+        Collection<AdapterObserver> observers;
+        synchronized (sinkStreamsByLocation) {
+            if (sinkStreamsByLocation.isEmpty()) {
+                return false;
+            }
+            entries = Strings.isBlank(location) ? new ArrayList<>(sinkStreamsByLocation.entries()) : null;
+            observers = entries == null ? new ArrayList<>(sinkStreamsByLocation.get(new TenantKey(tenantId, location))) : null;
         }
         try {
             Object[] diagnosticCtx = {tenantId, twinResponseProto.getConsumerKey(), location};
-            if (Strings.isBlank(location)) {
+            if (entries != null) {
                 // theoretical broadcast scenario - no location given, so we send update to all locations
                 LOG.debug("Sending sink update for tenant {} with key {} in all locations", tenantId, twinResponseProto.getConsumerKey());
-                for (Entry<TenantKey, AdapterObserver> entry : new ArrayList<>(sinkStreamsByLocation.entries())) {
+                for (Entry<TenantKey, AdapterObserver> entry : entries) {
                     if (tenantId.equals(entry.getKey().getTenantId())) {
                         AdapterObserver stream = entry.getValue();
                         try {
@@ -114,8 +125,7 @@ public class GrpcTwinPublisher extends AbstractTwinPublisher implements Outgoing
                     }
                 }
             } else {
-                Collection<AdapterObserver> observers = sinkStreamsByLocation.get(new TenantKey(tenantId, location));
-                for (AdapterObserver stream : new ArrayList<>(observers)) {
+                for (AdapterObserver stream : observers) {
                     try {
                         try {
                             LOG.debug("Sending sink update for tenant {}, key {} at location {}", diagnosticCtx);
@@ -169,7 +179,7 @@ public class GrpcTwinPublisher extends AbstractTwinPublisher implements Outgoing
         }
 
         @Override
-        public void onNext(TwinResponseProto value) {
+        public synchronized void onNext(TwinResponseProto value) {
             SpanBuilder spanBuilder = tracer.spanBuilder("CloudToMinionMessage send " + value.getConsumerKey())
                 .setSpanKind(SpanKind.PRODUCER)
                 .setAllAttributes(this.attributes)
@@ -248,10 +258,13 @@ public class GrpcTwinPublisher extends AbstractTwinPublisher implements Outgoing
     public void create(String systemId, String tenantId, String location, SpanContext streamSpanContext, StreamObserver<CloudToMinionMessage> streamObserver) {
         TenantKey systemIdKey = new TenantKey(tenantId, systemId);
         TenantKey locationKey = new TenantKey(tenantId, location);
-        if (sinkStreamsBySystemId.containsKey(systemIdKey)) {
-            StreamObserver<TwinResponseProto> sinkStream = sinkStreamsBySystemId.remove(systemIdKey);
-            sinkStreamsByLocation.remove(locationKey, sinkStream);
-            sinkStream.onCompleted(); // force termination of session.
+        StreamObserver<TwinResponseProto> previousStream;
+        synchronized (sinkStreamsByLocation) {
+            previousStream = sinkStreamsBySystemId.remove(systemIdKey);
+            sinkStreamsByLocation.remove(locationKey, previousStream);
+        }
+        if (previousStream != null) {
+            previousStream.onCompleted(); // force termination of session.
         }
         var streamAttributes = Attributes.builder()
             .put("user", tenantId)
@@ -260,13 +273,17 @@ public class GrpcTwinPublisher extends AbstractTwinPublisher implements Outgoing
             .build();
         AdapterObserver delegate = new AdapterObserver(streamObserver, tracer, streamSpanContext, streamAttributes);
         delegate.setCompletionCallback(() -> {
-            sinkStreamsByLocation.remove(locationKey, delegate);
-            sinkStreamsBySystemId.remove(systemIdKey);
+            synchronized (sinkStreamsByLocation) {
+                sinkStreamsByLocation.remove(locationKey, delegate);
+                sinkStreamsBySystemId.remove(systemIdKey, delegate);
+            }
             // mark stream as done
             streamObserver.onCompleted();
         });
-        sinkStreamsByLocation.put(locationKey, delegate);
-        sinkStreamsBySystemId.put(systemIdKey, delegate);
+        synchronized (sinkStreamsByLocation) {
+            sinkStreamsByLocation.put(locationKey, delegate);
+            sinkStreamsBySystemId.put(systemIdKey, delegate);
+        }
 
         forEachSession(tenantId, ((sessionKey, twinTracker) -> {
             if (sessionKey.locationId == null || sessionKey.locationId.equals(locationKey.getKey())) {
@@ -274,6 +291,7 @@ public class GrpcTwinPublisher extends AbstractTwinPublisher implements Outgoing
                 twinUpdate.setSessionId(twinTracker.getSessionId());
                 twinUpdate.setVersion(twinTracker.getVersion());
                 twinUpdate.setPatch(false);
+                twinUpdate.setProtobuf(twinTracker.isProtobuf());
                 TwinResponseProto twinResponseProto = mapTwinResponse(twinUpdate);
                 delegate.onNext(twinResponseProto);
             }
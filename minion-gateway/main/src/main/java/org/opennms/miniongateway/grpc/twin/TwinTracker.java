@@ -44,6 +44,7 @@ import org.apache.ignite.binary.Binarylizable;
 /**
  * This Tracks Twin Object Updates for a given SessionKey (key, location).
  * Twin Tracker consists of marshalled object( byte[]), version and sessionId.
+ * The object is marshalled as JSON, unless it is a protobuf task set published as protobuf deltas.
  * Version is incremented whenever object updates.
  * sessionId is created only once per a SessionKey.
  * TwinTracker is created and updated by publisher and only consumed by Subscriber.
@@ -55,14 +56,21 @@ public class TwinTracker implements Binarylizable, Serializable {
     private AtomicInteger version;
     private byte[] obj;
     private String sessionId;
+    private boolean protobuf;
 
     public TwinTracker() {
 
     }
 
     public TwinTracker(byte[] obj) {
+        this(obj, false);
+    }
+
+    public TwinTracker(byte[] obj, boolean protobuf) {
         this(obj, 0, UUID.randomUUID().toString());
+        this.protobuf = protobuf;
     }
+
     public TwinTracker(byte[] obj, int version, String sessionId) {
         this.obj = obj;
         this.version = new AtomicInteger(version);
@@ -81,9 +89,17 @@ public class TwinTracker implements Binarylizable, Serializable {
         return sessionId;
     }
 
+    public boolean isProtobuf() {
+        return protobuf;
+    }
 
     public int update(byte[] obj) {
+        return update(obj, protobuf);
+    }
+
+    public int update(byte[] obj, boolean protobuf) {
         this.obj = obj;
+        this.protobuf = protobuf;
         return version.incrementAndGet();
     }
 
@@ -93,6 +109,7 @@ public class TwinTracker implements Binarylizable, Serializable {
         writer.writeInt("version", version.get());
         writer.writeString("sessionId", sessionId);
         writer.writeByteArray("obj", obj);
+        writer.writeBoolean("protobuf", protobuf);
     }
 
     @Override
@@ -104,5 +121,7 @@ public class TwinTracker implements Binarylizable, Serializable {
         version = new AtomicInteger(reader.readInt("version"));
         sessionId = reader.readString("sessionId");
         obj = reader.readByteArray("obj");
+        // Absent for trackers written before protobuf objects were supported
+        protobuf = reader.readBoolean("protobuf");
     }
 }
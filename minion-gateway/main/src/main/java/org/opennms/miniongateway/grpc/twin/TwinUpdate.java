@@ -43,6 +43,7 @@ public class TwinUpdate {
 
     private int version;
     private boolean isPatch;
+    private boolean isProtobuf;
     private String sessionId;
     @EqualsAndHashCode.Exclude
     private Map<String, String> tracingInfo = new HashMap<>();
@@ -2,6 +2,7 @@ package org.opennms.miniongateway.taskset.internal;
 
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CacheEntryProcessor;
 import org.opennms.miniongateway.grpc.server.model.TenantKey;
 import org.opennms.miniongateway.taskset.service.TaskSetStorage;
 import org.opennms.miniongateway.taskset.service.TaskSetStorageListener;
@@ -13,9 +14,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.processor.MutableEntry;
 import java.util.IdentityHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.function.Function;
 
 /**
  *
@@ -65,33 +65,12 @@ public class TaskSetIgniteStorageImpl implements TaskSetStorage {
      * {@inheritDoc}
      */
     @Override
-    public void atomicUpdateTaskSetForLocation(String tenantId, String locationId, TaskSetStorageUpdateFunction updateFunction) {
+    public <T extends TaskSetStorageUpdateFunction> T atomicUpdateTaskSetForLocation(String tenantId, String locationId, T updateFunction) {
         TenantKey tenantKey = new TenantKey(tenantId, locationId);
 
-        Lock lock = taskSetIgniteCache.lock(tenantKey);
-        lock.lock();
-        try {
-            var currentTaskSet = taskSetIgniteCache.get(tenantKey);
-
-            LOG.debug("Calling update function in (distributed) critical section - STARTED");
-            var updatedTaskSet = updateFunction.process(currentTaskSet);
-            LOG.debug("Calling update function in (distributed) critical section - FINISHED");
-
-            // NOTE the rare instance equality check.  This is intentional.
-            if (updatedTaskSet != currentTaskSet) {
-                if (updatedTaskSet != null) {
-                    LOG.debug("Updating task set after operation complete: tenantId={}; locationId={}", tenantId, locationId);
-                    taskSetIgniteCache.put(tenantKey, updatedTaskSet);
-                } else {
-                    LOG.debug("Removing task set on update operation return null: tenantId={}; locationId={}", tenantId, locationId);
-                    taskSetIgniteCache.remove(tenantKey);
-                }
-            } else {
-                LOG.debug("Skipping task set update - returned task set is the original: tenantId={}; locationId={}", tenantId, locationId);
-            }
-        } finally {
-            lock.unlock();
-        }
+        // The entry processor runs on the node owning the entry, which applies updates of the same entry one at a
+        //  time, so no distributed lock is needed and the task set does not travel to this node and back.
+        return taskSetIgniteCache.invoke(tenantKey, new TaskSetUpdateEntryProcessor<>(updateFunction));
     }
 
     @Override
@@ -122,4 +101,43 @@ public class TaskSetIgniteStorageImpl implements TaskSetStorage {
             LOG.warn("Internal error - publisher session is already registered to receive cache events");
         }
     }
+
+//========================================
+// Internals
+//----------------------------------------
+
+    private static class TaskSetUpdateEntryProcessor<T extends TaskSetStorageUpdateFunction>
+        implements CacheEntryProcessor<TenantKey, TaskSet, T> {
+
+        private final T updateFunction;
+
+        private TaskSetUpdateEntryProcessor(T updateFunction) {
+            this.updateFunction = updateFunction;
+        }
+
+        @Override
+        public T process(MutableEntry<TenantKey, TaskSet> entry, Object... arguments) {
+            var currentTaskSet = entry.getValue();
+
+            DEFAULT_LOGGER.debug("Calling update function in entry processor - STARTED");
+            var updatedTaskSet = updateFunction.process(currentTaskSet);
+            DEFAULT_LOGGER.debug("Calling update function in entry processor - FINISHED");
+
+            // NOTE the rare instance equality check.  This is intentional.
+            if (updatedTaskSet != currentTaskSet) {
+                if (updatedTaskSet != null) {
+                    DEFAULT_LOGGER.debug("Updating task set after operation complete: key={}", entry.getKey());
+                    entry.setValue(updatedTaskSet);
+                } else {
+                    DEFAULT_LOGGER.debug("Removing task set on update operation return null: key={}", entry.getKey());
+                    entry.remove();
+                }
+            } else {
+                DEFAULT_LOGGER.debug("Skipping task set update - returned task set is the original: key={}", entry.getKey());
+            }
+
+            // Hand back the function, so the caller gets hold of its state if it was applied to a copy
+            return updateFunction;
+        }
+    }
 }
@@ -28,22 +28,50 @@
 
 package org.opennms.miniongateway.grpc.server.kafka;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.protobuf.Message;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.internals.DefaultPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 import org.opennms.horizon.flows.document.FlowDocumentLog;
 import org.opennms.horizon.flows.document.TenantLocationSpecificFlowDocumentLog;
 import org.opennms.horizon.shared.grpc.common.LocationServerInterceptor;
 import org.opennms.horizon.shared.grpc.common.TenantIDGrpcServerInterceptor;
+import org.opennms.miniongateway.grpc.server.kafka.SinkMessageKafkaPublisher.RecordKey;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 
 import io.micrometer.core.instrument.MeterRegistry;
@@ -64,7 +92,8 @@ public class SinkMessageKafkaPublisherTest {
     @Before
     public void setUp() {
         messagePublisher = new SinkMessageKafkaPublisher<>(
-            kafkaTemplate, tenantIDGrpcInterceptor, locationServerInterceptor, mapper, TEST_TOPIC_NAME, new SimpleMeterRegistry()
+            kafkaTemplate, tenantIDGrpcInterceptor, locationServerInterceptor, mapper, TEST_TOPIC_NAME, new SimpleMeterRegistry(),
+            RecordKey.TENANT_LOCATION
         );
     }
 
@@ -91,6 +120,90 @@ public class SinkMessageKafkaPublisherTest {
         verify(locationServerInterceptor).readCurrentContextLocationId();
     }
 
+    @Test
+    public void testRecordKeys() {
+        Mockito.when(tenantIDGrpcInterceptor.readCurrentContextTenantId()).thenReturn(TEST_TENANT_ID);
+        Mockito.when(locationServerInterceptor.readCurrentContextLocationId()).thenReturn(TEST_LOCATION_ID);
+        when(mapper.map(any(), any(), any())).thenReturn(FlowDocumentLog.getDefaultInstance());
+
+        assertEquals(TEST_TENANT_ID + ":" + TEST_LOCATION_ID, sendWithRecordKey(RecordKey.TENANT_LOCATION));
+        assertEquals(TEST_TENANT_ID, sendWithRecordKey(RecordKey.TENANT));
+        assertNull(sendWithRecordKey(RecordKey.NONE));
+    }
+
+    @Test
+    public void testSendTimerIsRegisteredOnce() {
+        MeterRegistry meterRegistry = spy(new SimpleMeterRegistry());
+        messagePublisher = new SinkMessageKafkaPublisher<>(
+            kafkaTemplate, tenantIDGrpcInterceptor, locationServerInterceptor, mapper, TEST_TOPIC_NAME, meterRegistry,
+            RecordKey.TENANT_LOCATION
+        );
+        Mockito.when(tenantIDGrpcInterceptor.readCurrentContextTenantId()).thenReturn(TEST_TENANT_ID);
+        Mockito.when(locationServerInterceptor.readCurrentContextLocationId()).thenReturn(TEST_LOCATION_ID);
+        when(mapper.map(any(), any(), any())).thenReturn(FlowDocumentLog.getDefaultInstance());
+
+        for (int i = 0; i < 10; i++) {
+            messagePublisher.send(FlowDocumentLog.getDefaultInstance());
+        }
+
+        verify(meterRegistry, times(1)).timer(eq("kafka.send"), ArgumentMatchers.<String>any());
+        assertEquals(10, meterRegistry.get("kafka.send").tag("location", TEST_LOCATION_ID).timer().count());
+    }
+
+    @Test
+    public void testRecordsOfLocationStayInOnePartition() {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = IntStream.range(0, 8)
+            .mapToObj(partition -> new PartitionInfo(TEST_TOPIC_NAME, partition, node, new Node[]{node}, new Node[]{node}))
+            .collect(Collectors.toList());
+        Cluster cluster = new Cluster("cluster", List.of(node), partitions, Set.of(), Set.of());
+        Map<String, Set<Integer>> partitionsByKey = new ConcurrentHashMap<>();
+        DefaultPartitioner partitioner = new DefaultPartitioner() {
+            @Override
+            public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+                int partition = super.partition(topic, key, keyBytes, value, valueBytes, cluster);
+                partitionsByKey.computeIfAbsent(new String(keyBytes, StandardCharsets.UTF_8), k -> new HashSet<>()).add(partition);
+                return partition;
+            }
+        };
+        MockProducer<String, byte[]> producer = new MockProducer<>(cluster, true, partitioner,
+            new StringSerializer(), new ByteArraySerializer());
+        messagePublisher = new SinkMessageKafkaPublisher<>(
+            new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of()) {
+                @Override
+                protected Producer<String, byte[]> createRawProducer(Map<String, Object> configs) {
+                    return producer;
+                }
+            }), tenantIDGrpcInterceptor, locationServerInterceptor, mapper, TEST_TOPIC_NAME,
+            new SimpleMeterRegistry(), RecordKey.TENANT_LOCATION
+        );
+        Mockito.when(tenantIDGrpcInterceptor.readCurrentContextTenantId()).thenReturn(TEST_TENANT_ID);
+        when(mapper.map(any(), anyString(), any())).thenAnswer(invocation -> TenantLocationSpecificFlowDocumentLog.newBuilder()
+            .setLocationId(invocation.getArgument(1))
+            .build());
+
+        for (int i = 0; i < 100; i++) {
+            Mockito.when(locationServerInterceptor.readCurrentContextLocationId()).thenReturn("location-" + (i % 10));
+            messagePublisher.send(FlowDocumentLog.getDefaultInstance());
+        }
+
+        assertEquals(100, producer.history().size());
+        assertEquals(10, partitionsByKey.size());
+        assertTrue(partitionsByKey.values().stream().allMatch(partitionsOfKey -> partitionsOfKey.size() == 1));
+        // Different locations are still spread across the partitions
+        assertTrue(partitionsByKey.values().stream().flatMap(Set::stream).distinct().count() > 1);
+    }
+
+    private String sendWithRecordKey(RecordKey recordKey) {
+        KafkaTemplate<String, byte[]> template = mock(KafkaTemplate.class);
+        new SinkMessageKafkaPublisher<>(template, tenantIDGrpcInterceptor, locationServerInterceptor, mapper, TEST_TOPIC_NAME,
+            new SimpleMeterRegistry(), recordKey).send(FlowDocumentLog.getDefaultInstance());
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> record = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(template).send(record.capture());
+        return record.getValue().key();
+    }
+
     static class ProducerRecordMatcher implements ArgumentMatcher<ProducerRecord<String, byte[]>> {
 
         private final String topic;
@@ -1,11 +1,14 @@
 package org.opennms.miniongateway.grpc.server.rpcrequest.impl;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.IgniteCompute;
 import org.apache.ignite.compute.ComputeTaskFuture;
 import org.apache.ignite.lang.IgniteFuture;
 import org.apache.ignite.lang.IgniteInClosure;
+import io.grpc.stub.StreamObserver;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -17,6 +20,8 @@ import org.opennms.cloud.grpc.minion_gateway.GatewayRpcRequestProto;
 import org.opennms.cloud.grpc.minion_gateway.GatewayRpcResponseProto;
 import org.opennms.cloud.grpc.minion_gateway.MinionIdentity;
 import org.opennms.horizon.shared.grpc.common.TenantIDGrpcServerInterceptor;
+import org.opennms.horizon.shared.ipc.grpc.server.manager.RpcConnectionTracker;
+import org.opennms.miniongateway.detector.server.IgniteRpcRequestDispatcher;
 import org.opennms.miniongateway.grpc.server.rpcrequest.RouterTaskData;
 import org.opennms.miniongateway.grpc.server.rpcrequest.RpcRequestRouterIgniteTask;
 import org.slf4j.Logger;
@@ -39,6 +44,9 @@ public class RpcRequestRouterImplTest {
     private ComputeTaskFuture mockComputeTaskFuture;
     private IgniteFuture mockIgniteFuture;
     private TenantIDGrpcServerInterceptor mockTenantIDGrpcServerInterceptor;
+    private RpcConnectionTracker mockRpcConnectionTracker;
+    private IgniteRpcRequestDispatcher mockLocalRequestDispatcher;
+    private MeterRegistry meterRegistry;
 
     @Before
     public void setUp() throws Exception {
@@ -51,6 +59,13 @@ public class RpcRequestRouterImplTest {
         mockComputeTaskFuture = Mockito.mock(ComputeTaskFuture.class);
         mockIgniteFuture = Mockito.mock(IgniteFuture.class);
         mockTenantIDGrpcServerInterceptor = Mockito.mock(TenantIDGrpcServerInterceptor.class);
+        mockRpcConnectionTracker = Mockito.mock(RpcConnectionTracker.class);
+        mockLocalRequestDispatcher = Mockito.mock(IgniteRpcRequestDispatcher.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        target.setRpcConnectionTracker(mockRpcConnectionTracker);
+        target.setLocalRequestDispatcher(mockLocalRequestDispatcher);
+        target.setMeterRegistry(meterRegistry);
 
         Mockito.when(mockIgnite.compute()).thenReturn(mockIgniteCompute);
         Mockito.when(mockIgniteCompute.executeAsync(Mockito.same(mockRpcRequestRouterIgniteTask), Mockito.any(RouterTaskData.class))).thenReturn(mockComputeTaskFuture);
@@ -189,4 +204,85 @@ public class RpcRequestRouterImplTest {
             Mockito.verify(mockLogger).error("failed to parse RPC response", exc.getCause());
         }
     }
+
+    @Test
+    public void testRouteRequestToLocalMinion() {
+        GatewayRpcRequestProto testRequest =
+            GatewayRpcRequestProto.newBuilder()
+                .setIdentity(MinionIdentity.newBuilder().setTenantId("x-tenant-id-x").setLocationId("x-test-location-x").setSystemId("x-system-id-x"))
+                .setRpcId("x-rpc-id-x")
+                .build()
+            ;
+        GatewayRpcResponseProto rpcResponseProto =
+            GatewayRpcResponseProto.newBuilder()
+                .setIdentity(MinionIdentity.newBuilder().setSystemId("x-system-id-x"))
+                .build()
+            ;
+
+        Mockito.when(mockRpcConnectionTracker.lookupByMinionId("x-tenant-id-x", "x-system-id-x")).thenReturn(Mockito.mock(StreamObserver.class));
+        Mockito.when(mockLocalRequestDispatcher.execute(testRequest)).thenReturn(CompletableFuture.completedFuture(rpcResponseProto));
+
+        target.setIgnite(mockIgnite);
+        target.setRpcRequestRouterIgniteTask(mockRpcRequestRouterIgniteTask);
+        CompletableFuture<GatewayRpcResponseProto> completableFuture = target.routeRequest(testRequest);
+
+        assertSame(rpcResponseProto, completableFuture.getNow(null));
+        Mockito.verifyNoInteractions(mockIgnite);
+        assertEquals(1, meterRegistry.get("rpc.route").tag("route", "local").timer().count());
+        assertEquals(0, meterRegistry.get("rpc.route").tag("route", "remote").timer().count());
+    }
+
+    @Test
+    public void testRouteRequestToLocalLocation() {
+        GatewayRpcRequestProto testRequest =
+            GatewayRpcRequestProto.newBuilder()
+                .setIdentity(MinionIdentity.newBuilder().setTenantId("x-tenant-id-x").setLocationId("x-test-location-x"))
+                .setRpcId("x-rpc-id-x")
+                .build()
+            ;
+        GatewayRpcResponseProto rpcResponseProto = GatewayRpcResponseProto.newBuilder().build();
+
+        Mockito.when(mockRpcConnectionTracker.isLocationConnected("x-tenant-id-x", "x-test-location-x")).thenReturn(true);
+        Mockito.when(mockLocalRequestDispatcher.execute(testRequest)).thenReturn(CompletableFuture.completedFuture(rpcResponseProto));
+
+        target.setIgnite(mockIgnite);
+        target.setRpcRequestRouterIgniteTask(mockRpcRequestRouterIgniteTask);
+        CompletableFuture<GatewayRpcResponseProto> completableFuture = target.routeRequest(testRequest);
+
+        assertSame(rpcResponseProto, completableFuture.getNow(null));
+        Mockito.verifyNoInteractions(mockIgnite);
+    }
+
+    @Test
+    public void testRouteRequestThroughClusterWhenLocalConnectionIsGone() {
+        GatewayRpcRequestProto testRequest =
+            GatewayRpcRequestProto.newBuilder()
+                .setIdentity(MinionIdentity.newBuilder().setTenantId("x-tenant-id-x").setLocationId("x-test-location-x"))
+                .setRpcId("x-rpc-id-x")
+                .build()
+            ;
+        GatewayRpcResponseProto rpcResponseProto =
+            GatewayRpcResponseProto.newBuilder()
+                .setIdentity(MinionIdentity.newBuilder().setLocationId("x-test-response-location-x"))
+                .build()
+            ;
+
+        Mockito.when(mockRpcConnectionTracker.isLocationConnected("x-tenant-id-x", "x-test-location-x")).thenReturn(true);
+        Mockito.when(mockLocalRequestDispatcher.execute(testRequest))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("Unknown location x-test-location-x")));
+        Mockito.when(mockIgniteFuture.get()).thenReturn(rpcResponseProto.toByteArray());
+        Mockito.when(mockIgniteFuture.isDone()).thenReturn(true);
+
+        target.setIgnite(mockIgnite);
+        target.setRpcRequestRouterIgniteTask(mockRpcRequestRouterIgniteTask);
+        CompletableFuture<GatewayRpcResponseProto> completableFuture = target.routeRequest(testRequest);
+
+        ArgumentCaptor<IgniteInClosure> runnableArgumentCaptor = ArgumentCaptor.forClass(IgniteInClosure.class);
+        Mockito.verify(mockComputeTaskFuture).listen(runnableArgumentCaptor.capture());
+        runnableArgumentCaptor.getValue().apply(mockIgniteFuture);
+
+        assertEquals("x-test-response-location-x", completableFuture.getNow(null).getIdentity().getLocationId());
+        assertEquals(0, meterRegistry.get("rpc.route").tag("route", "local").timer().count());
+        assertEquals(1, meterRegistry.get("rpc.route").tag("route", "remote").timer().count());
+    }
 }
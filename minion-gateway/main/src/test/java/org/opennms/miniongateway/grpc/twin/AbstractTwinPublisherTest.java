@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.miniongateway.grpc.twin;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.opennms.horizon.shared.protobuf.util.TaskSetDeltaUtil;
+import org.opennms.miniongateway.grpc.twin.TwinPublisher.Session;
+import org.opennms.taskset.contract.TaskDefinition;
+import org.opennms.taskset.contract.TaskSet;
+import org.opennms.taskset.contract.TaskSetDelta;
+
+public class AbstractTwinPublisherTest {
+
+    private Ignite ignite;
+    private final List<TwinUpdate> updates = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @Before
+    public void setUp() {
+        ignite = mapBackedIgnite();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testTaskSetUpdatesArePublishedAsDeltas() throws Exception {
+        Session<TaskSet> session = publisher(true).register("task-set", TaskSet.class, "tenant", "location");
+        TaskSet original = taskSet("a", "b", "c");
+        TaskSet updated = TaskSet.newBuilder(original)
+            .setTaskDefinition(1, taskDefinition("b").toBuilder().setSchedule("*/5 * * * * ?"))
+            .removeTaskDefinition(2)
+            .build();
+
+        session.publish(original);
+        session.publish(updated);
+        session.publish(updated);
+
+        assertEquals(2, updates.size());
+        assertTrue(updates.get(0).isProtobuf());
+        assertFalse(updates.get(0).isPatch());
+        assertEquals(original, TaskSet.parseFrom(updates.get(0).getObject()));
+
+        TwinUpdate delta = updates.get(1);
+        assertTrue(delta.isProtobuf());
+        assertTrue(delta.isPatch());
+        assertEquals(updates.get(0).getVersion() + 1, delta.getVersion());
+        TaskSetDelta taskSetDelta = TaskSetDelta.parseFrom(delta.getObject());
+        assertEquals(List.of(updated.getTaskDefinition(1)), taskSetDelta.getUpdatedTaskDefinitionList());
+        assertEquals(List.of("c"), taskSetDelta.getRemovedTaskDefinitionIdList());
+        assertEquals(updated, TaskSetDeltaUtil.apply(original, taskSetDelta));
+    }
+
+    @Test
+    public void testTaskSetsArePublishedAsJsonByDefault() throws Exception {
+        Session<TaskSet> session = publisher(false).register("task-set", TaskSet.class, "tenant", "location");
+
+        session.publish(taskSet("a"));
+        session.publish(taskSet("a", "b"));
+
+        assertEquals(2, updates.size());
+        assertFalse(updates.get(0).isProtobuf());
+        assertFalse(updates.get(1).isProtobuf());
+        assertTrue(updates.get(1).isPatch());
+    }
+
+    @Test
+    public void testSwitchingEncodingSendsFullObject() throws Exception {
+        publisher(false).register("task-set", TaskSet.class, "tenant", "location").publish(taskSet("a"));
+        AbstractTwinPublisher protobufPublisher = publisher(true);
+        protobufPublisher.register("task-set", TaskSet.class, "tenant", "location").publish(taskSet("a", "b"));
+
+        TwinUpdate update = updates.get(1);
+        assertTrue(update.isProtobuf());
+        assertFalse(update.isPatch());
+        assertArrayEquals(taskSet("a", "b").toByteArray(), update.getObject());
+    }
+
+    @Test(timeout = 10000)
+    public void testLocationsArePublishedConcurrently() throws Exception {
+        CountDownLatch publishingToA = new CountDownLatch(1);
+        CountDownLatch publishedToB = new CountDownLatch(1);
+        AbstractTwinPublisher publisher = new AbstractTwinPublisher(ignite, true) {
+            @Override
+            protected void handleSinkUpdate(String locationId, TwinUpdate sinkUpdate) {
+                if ("location-a".equals(locationId)) {
+                    // Hold on to the update of location A until location B got its update
+                    publishingToA.countDown();
+                    awaitUninterruptibly(publishedToB);
+                    updates.add(sinkUpdate);
+                } else {
+                    updates.add(sinkUpdate);
+                    publishedToB.countDown();
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Session<TaskSet> sessionA = publisher.register("task-set", TaskSet.class, "tenant", "location-a");
+        Session<TaskSet> sessionB = publisher.register("task-set", TaskSet.class, "tenant", "location-b");
+
+        Future<?> publishA = executor.submit(() -> {
+            sessionA.publish(taskSet("a"));
+            return null;
+        });
+        assertTrue(publishingToA.await(5, TimeUnit.SECONDS));
+        Future<?> publishB = executor.submit(() -> {
+            sessionB.publish(taskSet("b"));
+            return null;
+        });
+
+        // Would time out if the update of location A blocked location B
+        publishB.get(5, TimeUnit.SECONDS);
+        publishA.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("location-b", "location-a"), updates.stream().map(TwinUpdate::getLocation).toList());
+    }
+
+    @Test(timeout = 10000)
+    public void testUpdatesOfOneSessionAreSerialized() throws Exception {
+        CountDownLatch firstUpdate = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AbstractTwinPublisher publisher = new AbstractTwinPublisher(ignite, true) {
+            @Override
+            protected void handleSinkUpdate(String locationId, TwinUpdate sinkUpdate) {
+                if (sinkUpdate.getVersion() == 0) {
+                    firstUpdate.countDown();
+                    awaitUninterruptibly(release);
+                }
+                updates.add(sinkUpdate);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Session<TaskSet> session = publisher.register("task-set", TaskSet.class, "tenant", "location");
+
+        Future<?> first = executor.submit(() -> {
+            session.publish(taskSet("a"));
+            return null;
+        });
+        assertTrue(firstUpdate.await(5, TimeUnit.SECONDS));
+        Future<?> second = executor.submit(() -> {
+            session.publish(taskSet("a", "b"));
+            return null;
+        });
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(0, 1), updates.stream().map(TwinUpdate::getVersion).toList());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private AbstractTwinPublisher publisher(boolean protobufDeltas) {
+        return new AbstractTwinPublisher(ignite, protobufDeltas) {
+            @Override
+            protected void handleSinkUpdate(String locationId, TwinUpdate sinkUpdate) {
+                updates.add(sinkUpdate);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static TaskSet taskSet(String... ids) {
+        TaskSet.Builder builder = TaskSet.newBuilder();
+        for (String id : ids) {
+            builder.addTaskDefinition(taskDefinition(id));
+        }
+        return builder.build();
+    }
+
+    private static TaskDefinition taskDefinition(String id) {
+        return TaskDefinition.newBuilder()
+            .setId(id)
+            .setPluginName("ICMPMonitor")
+            .setSchedule("60000")
+            .build();
+    }
+
+    /**
+     * Ignite whose twin cache is a plain map, which is all the publisher needs of it.
+     */
+    @SuppressWarnings("unchecked")
+    static Ignite mapBackedIgnite() {
+        Map<Object, Object> map = new ConcurrentHashMap<>();
+        IgniteCache<Object, Object> cache = Mockito.mock(IgniteCache.class);
+        Mockito.when(cache.get(Mockito.any())).thenAnswer(invocation -> map.get(invocation.getArgument(0)));
+        Mockito.doAnswer(invocation -> map.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(cache).put(Mockito.any(), Mockito.any());
+        Mockito.when(cache.remove(Mockito.any())).thenAnswer(invocation -> map.remove(invocation.getArgument(0)) != null);
+        Ignite ignite = Mockito.mock(Ignite.class);
+        Mockito.when(ignite.cache(AbstractTwinPublisher.TWIN_TRACKER_CACHE_NAME)).thenReturn(cache);
+        return ignite;
+    }
+}
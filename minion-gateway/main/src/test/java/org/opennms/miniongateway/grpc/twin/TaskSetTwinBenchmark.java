@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.miniongateway.grpc.twin;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.miniongateway.grpc.twin.TwinPublisher.Session;
+import org.opennms.taskset.contract.TaskDefinition;
+import org.opennms.taskset.contract.TaskSet;
+
+/**
+ * Measures publishing a large task set in which a single task definition changes between updates, with the update
+ * sent as JSON patch or as protobuf delta.
+ */
+public class TaskSetTwinBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+
+        @Param({"50000"})
+        public int tasks;
+
+        @Param({"false", "true"})
+        public boolean protobufDeltas;
+
+        private Session<TaskSet> session;
+        private TaskSet[] taskSets;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup(Blackhole blackhole) throws IOException {
+            AbstractTwinPublisher publisher = new AbstractTwinPublisher(AbstractTwinPublisherTest.mapBackedIgnite(), protobufDeltas) {
+                @Override
+                protected void handleSinkUpdate(String locationId, TwinUpdate sinkUpdate) {
+                    blackhole.consume(sinkUpdate.getObject().length);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            session = publisher.register("task-set", TaskSet.class, "tenant", "location");
+
+            TaskSet.Builder builder = TaskSet.newBuilder();
+            for (int i = 0; i < tasks; i++) {
+                builder.addTaskDefinition(TaskDefinition.newBuilder()
+                    .setId("icmp-" + i)
+                    .setPluginName("ICMPMonitor")
+                    .setSchedule("60000")
+                    .setNodeId(i));
+            }
+            TaskSet taskSet = builder.build();
+            // Alternate between two task sets differing in one task, so every publish yields an update
+            taskSets = new TaskSet[] {
+                taskSet,
+                TaskSet.newBuilder(taskSet)
+                    .setTaskDefinition(tasks / 2, taskSet.getTaskDefinition(tasks / 2).toBuilder().setSchedule("30000"))
+                    .build()
+            };
+            session.publish(taskSets[0]);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Fork(value = 1)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 3)
+    public void publishUpdate(BState state) throws IOException {
+        state.next ^= 1;
+        state.session.publish(state.taskSets[state.next]);
+    }
+}
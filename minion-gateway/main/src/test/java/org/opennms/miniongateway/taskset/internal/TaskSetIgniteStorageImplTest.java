@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.miniongateway.taskset.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.CacheAtomicityMode;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.logger.NullLogger;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opennms.miniongateway.taskset.service.TaskSetGrpcServiceUpdateProcessor;
+import org.opennms.miniongateway.taskset.service.TaskSetStorageUpdateFunction;
+import org.opennms.taskset.contract.TaskDefinition;
+import org.opennms.taskset.contract.TaskSet;
+import org.opennms.taskset.service.contract.AddSingleTaskOp;
+import org.opennms.taskset.service.contract.RemoveSingleTaskOp;
+import org.opennms.taskset.service.contract.UpdateSingleTaskOp;
+import org.opennms.taskset.service.contract.UpdateTasksRequest;
+
+public class TaskSetIgniteStorageImplTest {
+
+    @ClassRule
+    public static final TemporaryFolder workDirectory = new TemporaryFolder();
+
+    private static Ignite ignite;
+    private static TaskSetIgniteStorageImpl target;
+
+    @BeforeClass
+    public static void startIgnite() {
+        IgniteConfiguration configuration = new IgniteConfiguration()
+            .setIgniteInstanceName(TaskSetIgniteStorageImplTest.class.getSimpleName())
+            .setWorkDirectory(workDirectory.getRoot().getAbsolutePath())
+            .setLocalHost("127.0.0.1")
+            .setGridLogger(new NullLogger())
+            .setDiscoverySpi(new TcpDiscoverySpi()
+                .setIpFinder(new TcpDiscoveryVmIpFinder().setAddresses(List.of("127.0.0.1:47500..47509"))))
+            .setCacheConfiguration(new CacheConfiguration<>(TaskSetIgniteStorageImpl.TASK_SET_IGNITE_CACHE_NAME)
+                .setAtomicityMode(CacheAtomicityMode.TRANSACTIONAL));
+        ignite = Ignition.start(configuration);
+        target = new TaskSetIgniteStorageImpl(ignite);
+    }
+
+    @AfterClass
+    public static void stopIgnite() {
+        ignite.close();
+    }
+
+    @Test
+    public void testConcurrentUpdatesAreAllApplied() throws Exception {
+        int updaters = 8;
+        int updatesPerUpdater = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(updaters);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int updater = 0; updater < updaters; updater++) {
+                String prefix = "task-" + updater + "-";
+                futures.add(executor.submit(() -> {
+                    int added = 0;
+                    for (int i = 0; i < updatesPerUpdater; i++) {
+                        added += target.atomicUpdateTaskSetForLocation("tenant", "concurrent",
+                            new TaskSetGrpcServiceUpdateProcessor(request("concurrent", addTask(prefix + i)))).getNumNew();
+                    }
+                    return added;
+                }));
+            }
+
+            int added = 0;
+            for (Future<Integer> future : futures) {
+                added += future.get(60, TimeUnit.SECONDS);
+            }
+
+            Set<String> ids = target.getTaskSetForLocation("tenant", "concurrent").getTaskDefinitionList().stream()
+                .map(TaskDefinition::getId)
+                .collect(Collectors.toSet());
+            assertEquals(updaters * updatesPerUpdater, added);
+            assertEquals(updaters * updatesPerUpdater, ids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUpdateCountsAreReturned() {
+        target.atomicUpdateTaskSetForLocation("tenant", "counts",
+            new TaskSetGrpcServiceUpdateProcessor(request("counts", addTask("a"), addTask("b"))));
+
+        TaskSetGrpcServiceUpdateProcessor processor = target.atomicUpdateTaskSetForLocation("tenant", "counts",
+            new TaskSetGrpcServiceUpdateProcessor(request("counts", addTask("a"), addTask("c"), removeTask("b"))));
+
+        assertEquals(1, processor.getNumNew());
+        assertEquals(1, processor.getNumReplaced());
+        assertEquals(1, processor.getNumRemoved());
+        assertEquals(new HashSet<>(List.of("a", "c")), target.getTaskSetForLocation("tenant", "counts")
+            .getTaskDefinitionList().stream().map(TaskDefinition::getId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testTaskSetIsRemovedWhenFunctionReturnsNull() {
+        target.putTaskSetForLocation("tenant", "removed", TaskSet.newBuilder().build());
+
+        target.atomicUpdateTaskSetForLocation("tenant", "removed", new RemoveTaskSet());
+
+        assertNull(target.getTaskSetForLocation("tenant", "removed"));
+    }
+
+    private static UpdateTasksRequest request(String locationId, UpdateSingleTaskOp... updates) {
+        return UpdateTasksRequest.newBuilder()
+            .setTenantId("tenant")
+            .setLocationId(locationId)
+            .addAllUpdate(List.of(updates))
+            .build();
+    }
+
+    private static UpdateSingleTaskOp addTask(String id) {
+        return UpdateSingleTaskOp.newBuilder()
+            .setAddTask(AddSingleTaskOp.newBuilder()
+                .setTaskDefinition(TaskDefinition.newBuilder().setId(id).setPluginName("ICMPMonitor")))
+            .build();
+    }
+
+    private static UpdateSingleTaskOp removeTask(String id) {
+        return UpdateSingleTaskOp.newBuilder()
+            .setRemoveTask(RemoveSingleTaskOp.newBuilder().setTaskId(id))
+            .build();
+    }
+
+    private static class RemoveTaskSet implements TaskSetStorageUpdateFunction {
+        @Override
+        public TaskSet process(TaskSet original) {
+            return null;
+        }
+    }
+}
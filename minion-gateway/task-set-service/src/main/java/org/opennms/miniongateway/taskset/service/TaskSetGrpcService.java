@@ -67,10 +67,12 @@ public class TaskSetGrpcService extends TaskSetServiceGrpc.TaskSetServiceImplBas
      */
     @Override
     public void updateTasks(UpdateTasksRequest request, StreamObserver<UpdateTasksResponse> responseObserver) {
-        TaskSetGrpcServiceUpdateProcessor updateProcessor = taskSetGrpcServiceUpdateProcessorFactory.create(request);
+        TaskSetGrpcServiceUpdateProcessor updateProcessor;
 
         try {
-            taskSetStorage.atomicUpdateTaskSetForLocation(request.getTenantId(), request.getLocationId(), updateProcessor);
+            // The storage may apply a copy of the processor, so read the counts from the one it returns
+            updateProcessor = taskSetStorage.atomicUpdateTaskSetForLocation(request.getTenantId(), request.getLocationId(),
+                taskSetGrpcServiceUpdateProcessorFactory.create(request));
         } catch (RuntimeException rtExc) {
             // Log exceptions here that might otherwise get swallowed
             LOG.warn("error applying task set updates", rtExc);
@@ -59,7 +59,7 @@ public class TaskSetGrpcServiceUpdateProcessor implements TaskSetStorageUpdateFu
 //----------------------------------------
 
     /**
-     * CRITICAL SECTION WARNING - this method is called with a distributed lock held.  Keep it short and sweet.
+     * CRITICAL SECTION WARNING - other updates of the task set wait for this method.  Keep it short and sweet.
      *
      * Process the updates given to the Task Set.  Note that existing task definitions with the same IDs as added ones
      *  are replaced by the new ones.
@@ -73,6 +73,10 @@ public class TaskSetGrpcServiceUpdateProcessor implements TaskSetStorageUpdateFu
         requestedAddIds = new HashSet<>();
         requestedRemovalIds = new HashSet<>();
         replacedIds = new HashSet<>();
+        // Start over in case the storage retries the update
+        numNew = 0;
+        numReplaced = 0;
+        numRemoved = 0;
 
         TaskSet.Builder updatedTaskSetBuilder = TaskSet.newBuilder();
 
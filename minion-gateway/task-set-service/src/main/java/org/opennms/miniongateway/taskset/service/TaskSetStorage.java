@@ -2,19 +2,19 @@ package org.opennms.miniongateway.taskset.service;
 
 import org.opennms.taskset.contract.TaskSet;
 
-import java.util.function.Function;
-
 public interface TaskSetStorage {
     TaskSet getTaskSetForLocation(String tenantId, String locationId);
     void putTaskSetForLocation(String tenantId, String locationId, TaskSet taskSet);
     boolean deleteTaskSetForLocation(String tenantId, String locationId);
 
     /**
-     * Atomically update the task set for the given Tenant Location.  The given update operation function is called
-     *  with a distributed lock on the entry.
+     * Atomically update the task set for the given Tenant Location.  The given update operation function is applied to
+     *  the entry in place, on the node owning it, instead of reading and writing back the task set under a distributed
+     *  lock.
      *
-     *      - It is VERY IMPORTANT that the updateOp execute quickly as it is called in a critical section, not to
-     *        mention that the lock is distributed, so contention across multiple service instances is a concern.
+     *      - It is VERY IMPORTANT that the updateOp execute quickly as other updates of the same entry wait for it.
+     *      - The function may be applied to a copy of the given instance, and more than once if the operation is
+     *        retried.  Read any state it collects from the returned instance.
      *
      * @param tenantId ID of the Tenant to which the Task Set belongs.
      * @param locationId location to which the Task Set belongs.
@@ -22,8 +22,9 @@ public interface TaskSetStorage {
      *                       exists) and returns one of the following: (1) null to indicate the task set should be
      *                       removed; (2) the original task set itself, in which case the cache is not updated; (3) a
      *                       new TaskSet instance, in which case the cache entry is updated to the new instance.
+     * @return the update function as it was applied to the stored task set.
      */
-    void atomicUpdateTaskSetForLocation(String tenantId, String locationId, TaskSetStorageUpdateFunction updateFunction);
+    <T extends TaskSetStorageUpdateFunction> T atomicUpdateTaskSetForLocation(String tenantId, String locationId, T updateFunction);
 
     /**
      * Add a listener for all TaskSet updates.
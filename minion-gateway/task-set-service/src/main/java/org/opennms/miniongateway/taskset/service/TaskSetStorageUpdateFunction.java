@@ -1,12 +1,18 @@
 package org.opennms.miniongateway.taskset.service;
 
+import java.io.Serializable;
 import org.opennms.taskset.contract.TaskSet;
 
-public interface TaskSetStorageUpdateFunction {
+/**
+ * Update applied to a stored task set.  Implementations are shipped to the node owning the task set, so they need to
+ * be serializable.
+ */
+public interface TaskSetStorageUpdateFunction extends Serializable {
     /**
      * Process the original task set given and return the updated task set to store.
      *
-     * CRITICAL SECTION WARNING: this method is called with a distributed lock held.  Keep implementations short and sweet.
+     * CRITICAL SECTION WARNING: other updates of the same task set wait for this method.  Keep implementations short
+     * and sweet.  It may be called more than once, so it must not carry over state from a previous call.
      *
      * @param original copy of the task set from storage.
      * @return (1) the updated task set, (2) the original to indicate that no changes need to be stored, or (3) null
@@ -93,6 +93,8 @@ class TaskSetGrpcServiceTest {
         Mockito.when(mockTaskSetGrpcServiceUpdateProcessor.getNumNew()).thenReturn(13);
         Mockito.when(mockTaskSetGrpcServiceUpdateProcessor.getNumRemoved()).thenReturn(15);
         Mockito.when(mockTaskSetGrpcServiceUpdateProcessor.getNumReplaced()).thenReturn(17);
+        Mockito.when(mockTaskSetStorage.atomicUpdateTaskSetForLocation("x-tenant-id-x", "505050", mockTaskSetGrpcServiceUpdateProcessor))
+            .thenReturn(mockTaskSetGrpcServiceUpdateProcessor);
 
         //
         // Execute
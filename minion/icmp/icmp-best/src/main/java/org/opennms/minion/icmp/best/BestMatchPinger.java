@@ -30,6 +30,7 @@ package org.opennms.minion.icmp.best;
 
 import java.net.InetAddress;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.opennms.horizon.shared.icmp.NullPinger;
 import org.opennms.horizon.shared.icmp.PingResponseCallback;
@@ -85,6 +86,12 @@ public class BestMatchPinger implements Pinger {
         return m_pinger.parallelPing(host, count, timeout, pingInterval, size);
     }
 
+    @Override
+    public List<CompletableFuture<Number>> bulkPing(final List<InetAddress> hosts, final long timeout, final int retries, final int packetsize) throws Exception {
+        initialize();
+        return m_pinger.bulkPing(hosts, timeout, retries, packetsize);
+    }
+
     @Override
     public void initialize4() throws Exception {
         initialize();
@@ -95,6 +95,11 @@ public abstract class AbstractPinger<T extends InetAddress> implements Runnable
 
     abstract public void ping(T addr, int identifier, int sequenceNumber, long threadId, long count, long interval, int packetSize) throws InterruptedException;
 
+    /**
+     * Sends a single echo request, without waiting.
+     */
+    abstract public void send(T addr, int identifier, int sequenceNumber, long threadId, int packetSize);
+
     public void addPingReplyListener(PingReplyListener listener) {
         m_listeners.add(listener);
     }
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.icmp.jna;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opennms.horizon.shared.icmp.EchoPacket;
+import org.opennms.horizon.shared.icmp.IcmpMessengerIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pings many destinations at once, without going through the request tracker.
+ *
+ * Callers only queue the requests.  A single sender thread sends them, paced by a token bucket, so neither the caller
+ *  nor the sender sleeps between packets.  Pending requests are kept in a concurrent map keyed by the thread id carried
+ *  in the echo payload, so the socket reader threads match the replies without taking a lock.
+ */
+public class BulkPinger implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkPinger.class);
+
+    /**
+     * Thread ids of the bulk requests start here, so they never collide with those of the tracked requests, which count
+     *  up from 1.
+     */
+    private static final AtomicLong s_nextTid = new AtomicLong(1L << 62);
+
+    /**
+     * Wake up the sender at most once per millisecond; the bucket absorbs the tokens accumulated meanwhile.
+     */
+    private static final long MIN_DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final V4Pinger m_v4;
+    private final V6Pinger m_v6;
+    private final int m_pingerId;
+    private final double m_packetsPerSecond;
+    private final int m_burstSize;
+
+    private final ScheduledThreadPoolExecutor m_scheduler;
+    private final Queue<BulkPingRequest> m_queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean m_drainScheduled = new AtomicBoolean(false);
+    private final Map<Long, BulkPingRequest> m_pending = new ConcurrentHashMap<>();
+    private volatile boolean m_closed = false;
+
+    // Token bucket, only used from the sender thread
+    private double m_tokens;
+    private long m_lastRefill;
+
+    /**
+     * @param v4 pinger sending the IPv4 requests; may be null if IPv4 is not available.
+     * @param v6 pinger sending the IPv6 requests; may be null if IPv6 is not available.
+     * @param pingerId identifier of the echo requests.
+     * @param packetsPerSecond sustained rate of the echo requests; 0 or less disables the pacing.
+     * @param burstSize number of echo requests that can be sent back to back after being idle.
+     */
+    public BulkPinger(final V4Pinger v4, final V6Pinger v6, final int pingerId, final double packetsPerSecond, final int burstSize) {
+        m_v4 = v4;
+        m_v6 = v6;
+        m_pingerId = pingerId;
+        m_packetsPerSecond = packetsPerSecond;
+        m_burstSize = Math.max(1, burstSize);
+
+        m_scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "JNA-ICMP-" + pingerId + "-Bulk-Sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        m_scheduler.setRemoveOnCancelPolicy(true);
+
+        m_tokens = m_burstSize;
+        m_lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Queues an echo request to each of the hosts, and returns immediately.
+     *
+     * @return a future per host, in the order of the hosts, completing with the response time in microseconds if the
+     *     host responded with an echo reply, otherwise with a null value.
+     * @throws RejectedExecutionException if the pinger is closed.
+     */
+    public List<CompletableFuture<Number>> ping(final List<InetAddress> hosts, final long timeout, final int retries, final int packetSize) {
+        if (m_closed) {
+            throw new RejectedExecutionException("bulk pinger is closed");
+        }
+
+        final List<BulkPingRequest> requests = new ArrayList<>(hosts.size());
+        final List<CompletableFuture<Number>> futures = new ArrayList<>(hosts.size());
+        for (final InetAddress host : hosts) {
+            final BulkPingRequest request = new BulkPingRequest(host, s_nextTid.getAndIncrement(), timeout, retries, packetSize);
+            m_pending.put(request.m_threadId, request);
+            m_queue.add(request);
+            requests.add(request);
+            futures.add(request.m_future);
+        }
+
+        // close() may have run while the requests were added, after clearing the pending requests
+        if (m_closed) {
+            cancel(requests);
+            return futures;
+        }
+        try {
+            scheduleDrain(0);
+        } catch (final RejectedExecutionException e) {
+            cancel(requests);
+        }
+        return futures;
+    }
+
+    /**
+     * Matches a received echo reply with its pending request.
+     *
+     * @return false if the reply does not belong to a bulk request, so it can be handed to the request tracker.
+     */
+    public boolean handleReply(final InetAddress address, final EchoPacket packet) {
+        final BulkPingRequest request = m_pending.get(packet.getThreadId());
+        if (request == null || !request.matches(address, packet)) {
+            return false;
+        }
+
+        // Only one of the reply and the final timeout removes the request
+        if (m_pending.remove(request.m_threadId, request)) {
+            request.complete(packet);
+        }
+        return true;
+    }
+
+    /**
+     * @return number of requests waiting to be sent or for their reply.
+     */
+    public int getPendingCount() {
+        return m_pending.size();
+    }
+
+    @Override
+    public void close() {
+        m_closed = true;
+        m_scheduler.shutdownNow();
+        m_queue.clear();
+        cancel(new ArrayList<>(m_pending.values()));
+    }
+
+    private void cancel(final List<BulkPingRequest> requests) {
+        for (final BulkPingRequest request : requests) {
+            m_queue.remove(request);
+            if (m_pending.remove(request.m_threadId, request)) {
+                request.m_future.completeExceptionally(new CancellationException("bulk pinger closed"));
+            }
+        }
+    }
+
+//========================================
+// Sender Thread
+//----------------------------------------
+
+    private void scheduleDrain(final long delayNanos) {
+        if (m_drainScheduled.compareAndSet(false, true)) {
+            m_scheduler.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void drain() {
+        refill();
+
+        BulkPingRequest request;
+        while (m_tokens >= 1 && (request = m_queue.poll()) != null) {
+            if (request.send()) {
+                m_tokens--;
+            }
+        }
+
+        // Requests queued after the poll above either see the flag still set and rely on the check below, or schedule
+        //  the next drain themselves
+        m_drainScheduled.set(false);
+        if (!m_queue.isEmpty()) {
+            scheduleDrain(Math.max(MIN_DRAIN_INTERVAL_NANOS, nanosUntilNextToken()));
+        }
+    }
+
+    private void refill() {
+        if (m_packetsPerSecond <= 0) {
+            m_tokens = Double.POSITIVE_INFINITY;
+            return;
+        }
+
+        final long now = System.nanoTime();
+        m_tokens = Math.min(m_burstSize, m_tokens + (now - m_lastRefill) * m_packetsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        m_lastRefill = now;
+    }
+
+    private long nanosUntilNextToken() {
+        if (m_packetsPerSecond <= 0) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - m_tokens) * TimeUnit.SECONDS.toNanos(1) / m_packetsPerSecond);
+    }
+
+//========================================
+// Internal Classes
+//----------------------------------------
+
+    private class BulkPingRequest {
+        private final InetAddress m_address;
+        private final long m_threadId;
+        private final int m_sequenceNumber;
+        private final long m_timeout;
+        private final int m_packetSize;
+        private final CompletableFuture<Number> m_future = new CompletableFuture<>();
+
+        // Only used from the sender thread
+        private int m_retries;
+        private volatile ScheduledFuture<?> m_timeoutTask;
+
+        BulkPingRequest(final InetAddress address, final long threadId, final long timeout, final int retries, final int packetSize) {
+            m_address = address;
+            m_threadId = threadId;
+            m_sequenceNumber = (int) (threadId & 0xFFFF);
+            m_timeout = timeout;
+            m_retries = retries;
+            m_packetSize = packetSize;
+        }
+
+        boolean matches(final InetAddress address, final EchoPacket packet) {
+            return packet.getSequenceNumber() == m_sequenceNumber && Arrays.equals(address.getAddress(), m_address.getAddress());
+        }
+
+        /**
+         * @return false if nothing was sent, as the request was already completed.
+         */
+        boolean send() {
+            if (m_future.isDone()) {
+                return false;
+            }
+
+            // Armed before sending, as the reply may come back before the send returns
+            m_timeoutTask = m_scheduler.schedule(this::processTimeout, m_timeout, TimeUnit.MILLISECONDS);
+            try {
+                if (m_address instanceof Inet4Address && m_v4 != null) {
+                    m_v4.send((Inet4Address) m_address, m_pingerId, m_sequenceNumber, m_threadId, m_packetSize);
+                } else if (m_address instanceof Inet6Address && m_v6 != null) {
+                    m_v6.send((Inet6Address) m_address, m_pingerId, m_sequenceNumber, m_threadId, m_packetSize);
+                } else {
+                    fail(new IcmpMessengerIOException("Cannot ping " + m_address.getHostAddress() + ": No pinger found that can handle this address"));
+                }
+            } catch (final Throwable t) {
+                fail(t);
+            }
+            return true;
+        }
+
+        void complete(final EchoPacket reply) {
+            cancelTimeout();
+            m_future.complete(Math.round(reply.elapsedTime(TimeUnit.MICROSECONDS)));
+        }
+
+        private void processTimeout() {
+            if (m_future.isDone()) {
+                return;
+            }
+
+            if (m_retries > 0) {
+                // Stays pending, so a late reply to the previous attempt still counts
+                m_retries--;
+                m_queue.add(this);
+                scheduleDrain(0);
+            } else if (m_pending.remove(m_threadId, this)) {
+                m_future.complete(null);
+            }
+        }
+
+        private void fail(final Throwable t) {
+            LOG.debug("Failed to send bulk ping request to {}", m_address, t);
+            m_pending.remove(m_threadId, this);
+            cancelTimeout();
+            m_future.completeExceptionally(t);
+        }
+
+        private void cancelTimeout() {
+            final ScheduledFuture<?> timeoutTask = m_timeoutTask;
+            if (timeoutTask != null) {
+                timeoutTask.cancel(false);
+            }
+        }
+    }
+}
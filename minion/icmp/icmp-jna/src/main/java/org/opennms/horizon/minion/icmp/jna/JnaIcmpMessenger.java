@@ -48,11 +48,14 @@ public class JnaIcmpMessenger implements Messenger<JnaPingRequest, JnaPingReply>
 	private static final Logger LOG = LoggerFactory
 			.getLogger(JnaIcmpMessenger.class);
 	
+	private final int m_pingerId;
 	private V4Pinger m_v4;
 	private V6Pinger m_v6;
     private ReplyHandler<JnaPingReply> m_callback = null;
+    private volatile BulkPinger m_bulkPinger = null;
 
 	public JnaIcmpMessenger(final int pingerId) throws Exception {
+	    m_pingerId = pingerId;
 	    Throwable error = null;
 	    try {
 	        m_v4 = new V4Pinger(pingerId);
@@ -105,8 +108,21 @@ public class JnaIcmpMessenger implements Messenger<JnaPingRequest, JnaPingReply>
         if (m_v6 != null) m_v6.start();
 	}
 
+    /**
+     * Creates a pinger sending over the sockets of this messenger.  Its replies are handed to it instead of the
+     * request tracker.
+     */
+    public BulkPinger createBulkPinger(final double packetsPerSecond, final int burstSize) {
+        m_bulkPinger = new BulkPinger(m_v4, m_v6, m_pingerId, packetsPerSecond, burstSize);
+        return m_bulkPinger;
+    }
+
         @Override
 	public void onPingReply(final InetAddress address, final EchoPacket packet) {
+        final BulkPinger bulkPinger = m_bulkPinger;
+        if (bulkPinger != null && bulkPinger.handleReply(address, packet)) {
+            return;
+        }
         m_callback.handleReply(new JnaPingReply(address, packet));
 	}
 
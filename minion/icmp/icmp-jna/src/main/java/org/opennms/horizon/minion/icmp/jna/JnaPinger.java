@@ -37,6 +37,8 @@ import java.net.InetAddress;
 import java.security.SecureRandom;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.opennms.horizon.shared.logging.Logging;
 import org.opennms.horizon.shared.icmp.ParallelPingResponseCallback;
@@ -57,25 +59,44 @@ import org.slf4j.LoggerFactory;
 public class JnaPinger implements Pinger {
     private static final Logger LOG = LoggerFactory.getLogger(JnaPinger.class);
 
+    public static final double DEFAULT_BULK_PACKETS_PER_SECOND = 10000;
+    public static final int DEFAULT_BULK_BURST_SIZE = 500;
+
     private final int m_pingerId = new SecureRandom().nextInt(Short.MAX_VALUE);
 
-    private RequestTracker<JnaPingRequest, JnaPingReply> m_pingTracker;
+    private double m_bulkPacketsPerSecond = DEFAULT_BULK_PACKETS_PER_SECOND;
+    private int m_bulkBurstSize = DEFAULT_BULK_BURST_SIZE;
+
+    // Written last on initialization, so the other fields are visible once it is set
+    private volatile RequestTracker<JnaPingRequest, JnaPingReply> m_pingTracker;
     private JnaIcmpMessenger m_messenger;
+    private BulkPinger m_bulkPinger;
+    private volatile boolean m_shutdown = false;
 
     /**
      * Initializes this singleton
      * @throws Exception 
      */
-    private synchronized void initialize() throws Exception {
+    private void initialize() throws Exception {
+        // Only lock until initialized, as every ping goes through here
         if (m_pingTracker != null) return;
+        synchronized (this) {
+            if (m_pingTracker != null) return;
+            doInitialize();
+        }
+    }
+
+    private void doInitialize() throws Exception {
         try {
             m_messenger = new JnaIcmpMessenger(m_pingerId);
-            m_pingTracker = Logging.withPrefix("icmp", new Callable<RequestTracker<JnaPingRequest,JnaPingReply>>() {
+            m_bulkPinger = m_messenger.createBulkPinger(m_bulkPacketsPerSecond, m_bulkBurstSize);
+            final RequestTracker<JnaPingRequest, JnaPingReply> pingTracker = Logging.withPrefix("icmp", new Callable<RequestTracker<JnaPingRequest,JnaPingReply>>() {
                 @Override public RequestTracker<JnaPingRequest, JnaPingReply> call() throws Exception {
                     return new RequestTracker<JnaPingRequest, JnaPingReply>("JNA-ICMP-"+m_pingerId, m_messenger, new IDBasedRequestLocator<JnaPingRequestId, JnaPingRequest, JnaPingReply>());
                 }
             });
-            m_pingTracker.start();
+            pingTracker.start();
+            m_pingTracker = pingTracker;
         } catch (final IOException e) {
             final String errorMessage = e.getMessage().toLowerCase();
             if (errorMessage.contains("permission denied") || errorMessage.contains("operation not permitted")) {
@@ -85,6 +106,17 @@ public class JnaPinger implements Pinger {
         }
     }
 
+    /**
+     * Stops the sender thread of the bulk pings.  Bulk pings still waiting for a reply fail with a
+     * {@link java.util.concurrent.CancellationException}, later bulk pings are rejected.
+     */
+    public synchronized void shutdown() {
+        m_shutdown = true;
+        if (m_bulkPinger != null) {
+            m_bulkPinger.close();
+        }
+    }
+
     @Override
     public void initialize4() throws Exception {
         initialize();
@@ -257,6 +289,42 @@ public class JnaPinger implements Pinger {
         return parallelPing(host, count, timeout, pingInterval, DEFAULT_PACKET_SIZE);
     }
 
+    /**
+     * Ping many remote hosts at once.  The echo requests are queued and sent by a background thread, paced to the bulk
+     * packet rate, so this returns immediately.
+     *
+     * @param hosts The {@link java.net.InetAddress} addresses to poll.
+     * @param timeout The time to wait between each retry.
+     * @param retries The number of times to retry.
+     * @param packetsize The size in byte of the ICMP packet.
+     * @return a future per host, in the order of the hosts, completing with the response time in microseconds if
+     *     the host responded with an echo reply, otherwise with a null value.
+     */
+    @Override
+    public List<CompletableFuture<Number>> bulkPing(final List<InetAddress> hosts, final long timeout, final int retries, final int packetsize) throws Exception {
+        // Checked before initializing, so a ping racing with the shutdown does not open a new messenger
+        if (m_shutdown) {
+            throw new RejectedExecutionException("pinger is shut down");
+        }
+        initialize();
+        return m_bulkPinger.ping(hosts, timeout == 0 ? DEFAULT_TIMEOUT : timeout, retries, packetsize);
+    }
+
+    /**
+     * Sets the sustained rate of the echo requests sent by {@link #bulkPing}; 0 or less disables the pacing.  Only
+     * applies before the first ping.
+     */
+    public void setBulkPacketsPerSecond(final double bulkPacketsPerSecond) {
+        m_bulkPacketsPerSecond = bulkPacketsPerSecond;
+    }
+
+    /**
+     * Sets the number of echo requests {@link #bulkPing} may send back to back.  Only applies before the first ping.
+     */
+    public void setBulkBurstSize(final int bulkBurstSize) {
+        m_bulkBurstSize = bulkBurstSize;
+    }
+
     @Override
     public void setAllowFragmentation(boolean allow) throws Exception {
         initialize();
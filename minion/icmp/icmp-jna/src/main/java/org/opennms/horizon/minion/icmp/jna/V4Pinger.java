@@ -52,7 +52,7 @@ public class V4Pinger extends AbstractPinger<Inet4Address> {
     
 
     public V4Pinger(final int pingerId) throws Exception {
-        super(pingerId, NativeDatagramSocket.create(NativeDatagramSocket.PF_INET, NativeDatagramSocket.IPPROTO_ICMP, pingerId));
+        this(pingerId, NativeDatagramSocket.create(NativeDatagramSocket.PF_INET, NativeDatagramSocket.IPPROTO_ICMP, pingerId));
         
         // Windows requires at least one packet sent before a receive call can be made without error
         // so we send a packet here to make sure...  This one should not match the normal ping requests
@@ -66,6 +66,10 @@ public class V4Pinger extends AbstractPinger<Inet4Address> {
             getPingSocket().send(packet.toDatagramPacket(InetAddress.getLocalHost()));
         }
     }
+
+    V4Pinger(final int pingerId, final NativeDatagramSocket pingSocket) {
+        super(pingerId, pingSocket);
+    }
     
     @Override
     public void run() {
@@ -95,11 +99,15 @@ public class V4Pinger extends AbstractPinger<Inet4Address> {
     
     @Override
     public void ping(final Inet4Address addr, final int identifier, final int sequenceNumber, final long threadId, final long count, final long interval, final int packetSize) throws InterruptedException {
-        final NativeDatagramSocket socket = getPingSocket();
         for(int i = sequenceNumber; i < sequenceNumber + count; i++) {
-            final V4PingRequest request = new V4PingRequest(identifier, i, threadId,packetSize);
-            request.send(socket, addr);
+            send(addr, identifier, i, threadId, packetSize);
             Thread.sleep(interval);
         }
     }
+
+    @Override
+    public void send(final Inet4Address addr, final int identifier, final int sequenceNumber, final long threadId, final int packetSize) {
+        final V4PingRequest request = new V4PingRequest(identifier, sequenceNumber, threadId, packetSize);
+        request.send(getPingSocket(), addr);
+    }
 }
@@ -95,11 +95,15 @@ public class V6Pinger extends AbstractPinger<Inet6Address> {
     
     @Override
     public void ping(final Inet6Address addr, final int identifier, final int sequenceNumber, final long threadId, final long count, final long interval, final int packetSize) throws InterruptedException {
-        final NativeDatagramSocket socket = getPingSocket();
         for(int i = sequenceNumber; i < sequenceNumber + count; i++) {
-            final V6PingRequest request = new V6PingRequest(identifier, i, threadId,packetSize);
-            request.send(socket, addr);
+            send(addr, identifier, i, threadId, packetSize);
             Thread.sleep(interval);
         }
     }
+
+    @Override
+    public void send(final Inet6Address addr, final int identifier, final int sequenceNumber, final long threadId, final int packetSize) {
+        final V6PingRequest request = new V6PingRequest(identifier, sequenceNumber, threadId, packetSize);
+        request.send(getPingSocket(), addr);
+    }
 }
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.icmp.jna;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opennms.horizon.minion.jicmp.jna.NativeDatagramPacket;
+import org.opennms.horizon.minion.jicmp.jna.NativeDatagramSocket;
+
+public class BulkPingerTest {
+
+    private static final int PINGER_ID = 4242;
+
+    private final StubIcmpSocket socket = new StubIcmpSocket();
+    private V4Pinger v4;
+    private BulkPinger bulkPinger;
+
+    @After
+    public void tearDown() throws Exception {
+        if (bulkPinger != null) {
+            bulkPinger.close();
+        }
+        if (v4 != null) {
+            v4.stop();
+        }
+    }
+
+    @Test
+    public void testRepliesAreMatchedToTheirRequest() throws Exception {
+        start(0, 100);
+        List<InetAddress> hosts = hosts(100);
+        for (int i = 0; i < hosts.size(); i += 10) {
+            socket.unreachable.add(hosts.get(i));
+        }
+
+        List<CompletableFuture<Number>> futures = bulkPinger.ping(hosts, 200, 0, 64);
+
+        for (int i = 0; i < hosts.size(); i++) {
+            Number rtt = futures.get(i).get(5, TimeUnit.SECONDS);
+            if (i % 10 == 0) {
+                assertNull("host " + i + " is unreachable", rtt);
+            } else {
+                assertNotNull("host " + i + " replied", rtt);
+            }
+        }
+        assertEquals(100, socket.sentAt.size());
+        assertEquals(0, bulkPinger.getPendingCount());
+    }
+
+    @Test
+    public void testUnknownRepliesAreLeftToTheTracker() {
+        start(0, 100);
+
+        V4PingReply reply = new V4PingReply(new V4PingRequest(PINGER_ID, 1, 42L, 64), System.nanoTime());
+
+        assertFalse(bulkPinger.handleReply(hosts(1).get(0), reply));
+    }
+
+    @Test
+    public void testTimedOutRequestsAreRetried() throws Exception {
+        start(0, 100);
+        List<InetAddress> hosts = hosts(1);
+        socket.unreachable.add(hosts.get(0));
+
+        assertNull(bulkPinger.ping(hosts, 50, 2, 64).get(0).get(5, TimeUnit.SECONDS));
+        assertEquals(3, socket.sentAt.size());
+    }
+
+    @Test
+    public void testSendsArePacedWithoutBlockingTheCaller() throws Exception {
+        double packetsPerSecond = 2000;
+        int burstSize = 100;
+        int count = 1000;
+        start(packetsPerSecond, burstSize);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Number>> futures = bulkPinger.ping(hosts(count), 1000, 0, 64);
+        long queued = System.nanoTime() - start;
+        int sentOnReturn = socket.sentAt.size();
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        long span = socket.sentAt.get(count - 1) - socket.sentAt.get(0);
+        assertTrue("caller returned before the pings were sent", sentOnReturn < count);
+        // After the initial burst, the bucket refills at the configured rate
+        long expected = (long) ((count - burstSize) / packetsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        assertTrue("sends spread over " + span + " ns", span >= expected * 0.9);
+        assertTrue("queuing took " + queued + " ns", queued < expected);
+        for (CompletableFuture<Number> future : futures) {
+            assertNotNull(future.get());
+        }
+    }
+
+    @Test
+    public void testCloseCancelsPendingPings() throws Exception {
+        start(1, 1);
+        List<CompletableFuture<Number>> futures = bulkPinger.ping(hosts(10), 60000, 0, 64);
+
+        bulkPinger.close();
+
+        // Only the first ping fits into the bucket, the others were still queued
+        for (CompletableFuture<Number> future : futures.subList(1, futures.size())) {
+            assertTrue(future.isCancelled());
+        }
+        assertEquals(0, bulkPinger.getPendingCount());
+    }
+
+    @Test
+    public void testPingAfterCloseIsRejected() {
+        start(1, 1);
+        bulkPinger.close();
+
+        assertThrows(RejectedExecutionException.class, () -> bulkPinger.ping(hosts(10), 60000, 0, 64));
+        assertEquals(0, bulkPinger.getPendingCount());
+    }
+
+    private void start(double packetsPerSecond, int burstSize) {
+        v4 = new V4Pinger(PINGER_ID, socket);
+        bulkPinger = new BulkPinger(v4, null, PINGER_ID, packetsPerSecond, burstSize);
+        v4.addPingReplyListener(bulkPinger::handleReply);
+        v4.start();
+    }
+
+    private static List<InetAddress> hosts(int count) {
+        List<InetAddress> hosts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            hosts.add(address(new byte[] { 10, 0, (byte) (i >> 8), (byte) i }));
+        }
+        return hosts;
+    }
+
+    private static InetAddress address(byte[] octets) {
+        try {
+            return InetAddress.getByAddress(octets);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Answers each echo request with an echo reply, wrapped in an IPv4 header as received from a raw socket, unless the
+     * destination is unreachable.
+     */
+    private static class StubIcmpSocket extends NativeDatagramSocket {
+        private static final int IP_HEADER_LENGTH = 20;
+
+        private final BlockingQueue<NativeDatagramPacket> replies = new LinkedBlockingQueue<>();
+        private final Set<InetAddress> unreachable = ConcurrentHashMap.newKeySet();
+        private final List<Long> sentAt = new CopyOnWriteArrayList<>();
+
+        @Override
+        public int send(NativeDatagramPacket p) {
+            sentAt.add(System.nanoTime());
+            ByteBuffer request = p.getContent();
+            int length = request.remaining();
+            if (!unreachable.contains(p.getAddress())) {
+                ByteBuffer reply = ByteBuffer.allocate(IP_HEADER_LENGTH + length);
+                reply.put((byte) 0x45); // IPv4, header of 5 words
+                reply.position(9);
+                reply.put((byte) NativeDatagramSocket.IPPROTO_ICMP);
+                reply.position(IP_HEADER_LENGTH);
+                reply.put(request);
+                reply.put(IP_HEADER_LENGTH, (byte) 0); // echo reply
+                reply.flip();
+                replies.add(new NativeDatagramPacket(reply, p.getAddress(), 0));
+            }
+            return length;
+        }
+
+        @Override
+        public int receive(NativeDatagramPacket p) {
+            NativeDatagramPacket reply;
+            try {
+                reply = replies.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("socket closed", e);
+            }
+            ByteBuffer content = p.getContent();
+            content.put(reply.getContent());
+            p.setLength(reply.getLength());
+            p.setAddress(reply.getAddress());
+            return reply.getLength();
+        }
+
+        @Override
+        public int getSock() {
+            return 0;
+        }
+
+        @Override
+        public void allowFragmentation(boolean frag) {
+        }
+
+        @Override
+        public void setTrafficClass(int tc) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
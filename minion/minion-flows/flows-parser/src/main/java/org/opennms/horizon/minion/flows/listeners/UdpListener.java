@@ -30,23 +30,26 @@ package org.opennms.horizon.minion.flows.listeners;
 
 import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.Future;
 
 import org.opennms.horizon.minion.flows.listeners.utils.BufferUtils;
+import org.opennms.horizon.minion.flows.listeners.utils.EpollTransport;
 import org.opennms.horizon.minion.flows.listeners.utils.NettyEventListener;
+import org.opennms.horizon.minion.flows.listeners.utils.UdpSocketDrops;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.swrve.ratelimitedlogger.RateLimitedLog;
 
 import io.netty.bootstrap.Bootstrap;
-import io.netty.channel.ChannelFuture;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
@@ -75,11 +78,12 @@ public class UdpListener implements Listener {
     private final Meter packetsReceived;
 
     private EventLoopGroup bossGroup;
-    private ChannelFuture socketFuture;
+    private final List<Channel> channels = new ArrayList<>();
 
     private String host = null;
     private int port = 50000;
     private int maxPacketSize = 8096;
+    private int sockets = 1;
 
     public UdpListener(final String name, final List<UdpParser> parsers, final MetricRegistry metrics) {
         this(name, 0, parsers, metrics);
@@ -101,14 +105,34 @@ public class UdpListener implements Listener {
         }
 
         packetsReceived = metrics.meter(MetricRegistry.name("listeners", name, "packetsReceived"));
+        // Datagrams discarded by the kernel before we could read them, i.e. because the receive buffers were full.
+        // Replaces the gauge of a previous listener with the same name, which may have been bound to another port.
+        final String packetsDropped = MetricRegistry.name("listeners", name, "packetsDropped");
+        metrics.remove(packetsDropped);
+        metrics.register(packetsDropped, (Gauge<Long>) () -> UdpSocketDrops.forPort(this.port));
     }
-    // check
-    
+
     public void start() throws InterruptedException {
-        // Netty defaults to 2 * num cores when the number of threads is set to 0
-        this.bossGroup = new NioEventLoopGroup(0, new ThreadFactoryBuilder()
-            .setNameFormat("telemetryd-nio-" + name + "-%d")
-            .build());
+        // A single socket gains nothing from epoll, so only multiple sockets need the native transport
+        final boolean epoll = this.sockets > 1 && EpollTransport.isAvailable();
+        final int socketCount = epoll ? this.sockets : 1;
+        if (this.sockets > 1 && !epoll) {
+            LOG.warn("Native epoll transport is not available, listener {} falls back to a single socket: {}",
+                this.name, EpollTransport.unavailabilityCause());
+        }
+
+        // Netty defaults to 2 * num cores when the number of threads is set to 0. Each socket needs its own event
+        // loop for the datagrams to be read in parallel.
+        final int threads = socketCount > 1 ? Math.max(socketCount, Runtime.getRuntime().availableProcessors() * 2) : 0;
+        if (epoll) {
+            this.bossGroup = EpollTransport.newEventLoopGroup(threads, new ThreadFactoryBuilder()
+                .setNameFormat("telemetryd-epoll-" + name + "-%d")
+                .build());
+        } else {
+            this.bossGroup = new NioEventLoopGroup(threads, new ThreadFactoryBuilder()
+                .setNameFormat("telemetryd-nio-" + name + "-%d")
+                .build());
+        }
 
         this.parsers.forEach(parser -> parser.start(this.bossGroup));
 
@@ -116,16 +140,26 @@ public class UdpListener implements Listener {
             ? SocketUtils.socketAddress(this.host, this.port)
             : new InetSocketAddress(this.port);
 
-        this.socketFuture = new Bootstrap()
+        final Bootstrap bootstrap = new Bootstrap()
             .group(this.bossGroup)
-            .channel(NioDatagramChannel.class)
             .option(ChannelOption.SO_REUSEADDR, true)
             .option(ChannelOption.SO_RCVBUF, Integer.MAX_VALUE)
             .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(this.maxPacketSize))
-            .handler(new DefaultChannelInitializer())
-            .bind(address)
-            .sync();
-        LOG.info("Udp Flow Listener started at {}:{}", address.getHostName(), address.getPort());
+            .handler(new DefaultChannelInitializer());
+        if (epoll) {
+            // The kernel spreads the exporters over the sockets by hashing their address, so the datagrams of one
+            // exporter are always read by the same event loop
+            EpollTransport.reusePort(bootstrap);
+        } else {
+            bootstrap.channel(NioDatagramChannel.class);
+        }
+
+        // Channels are registered with the event loops of the group in a round-robin fashion
+        for (int i = 0; i < socketCount; i++) {
+            this.channels.add(bootstrap.bind(address).sync().channel());
+        }
+        LOG.info("Udp Flow Listener started at {}:{} with {} {} socket(s)", address.getHostName(), address.getPort(),
+            socketCount, epoll ? "epoll" : "nio");
     }
 
     public void stop() {
@@ -137,17 +171,18 @@ public class UdpListener implements Listener {
             this.bossGroup.shutdownGracefully().addListener(bossListener);
         }
 
-        if (this.socketFuture != null) {
+        for (final Channel channel : this.channels) {
             try {
                 LOG.info("Closing channel...");
-                this.socketFuture.channel().close().sync();
-                if (this.socketFuture.channel().parent() != null) {
-                    this.socketFuture.channel().parent().close().sync();
+                channel.close().sync();
+                if (channel.parent() != null) {
+                    channel.parent().close().sync();
                 }
             } catch (InterruptedException e) {
                 LOG.warn("Fail to close channel. {}", e);
             }
         }
+        this.channels.clear();
 
         this.parsers.forEach(Parser::stop);
     }
@@ -184,6 +219,21 @@ public class UdpListener implements Listener {
         this.maxPacketSize = maxPacketSize;
     }
 
+    public int getSockets() {
+        return sockets;
+    }
+
+    /**
+     * Number of sockets bound to the port with {@code SO_REUSEPORT}. More than one socket requires the native epoll
+     * transport, without it a single NIO socket is used.
+     */
+    public void setSockets(int sockets) {
+        if (sockets < 1) {
+            throw new IllegalArgumentException("At least 1 socket must be used");
+        }
+        this.sockets = sockets;
+    }
+
     private class DefaultChannelInitializer extends ChannelInitializer<DatagramChannel> {
 
         @Override
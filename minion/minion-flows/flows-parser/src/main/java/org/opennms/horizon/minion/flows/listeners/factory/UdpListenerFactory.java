@@ -71,16 +71,19 @@ public class UdpListenerFactory implements ListenerFactory {
             throw new IllegalArgumentException("Each parser must be of type UdpParser but was not: " + parsers);
         }
 
-        int port = 0;
+        final int port = getUnsignedIntParameter(listenerConfig, "port").orElse(0);
+
+        final UdpListener listener = new UdpListener(listenerConfig.getName(), port, udpParsers, metricRegistry);
+        getUnsignedIntParameter(listenerConfig, "sockets").ifPresent(listener::setSockets);
+        return listener;
+    }
+
+    private static Optional<Integer> getUnsignedIntParameter(ListenerConfig listenerConfig, String key) {
         try {
-            Optional<Parameter> parameter = listenerConfig.getParametersList().stream().filter(p -> "port".equals(p.getKey())).findFirst();
-            if (parameter.isPresent()) {
-                port = Integer.parseUnsignedInt(parameter.get().getValue());
-            }
+            Optional<Parameter> parameter = listenerConfig.getParametersList().stream().filter(p -> key.equals(p.getKey())).findFirst();
+            return parameter.map(p -> Integer.parseUnsignedInt(p.getValue()));
         } catch (NumberFormatException e) {
-            throw new IllegalArgumentException(String.format("Invalid port for listener: %s, error: %s", listenerConfig.getName(), e.getMessage()));
+            throw new IllegalArgumentException(String.format("Invalid %s for listener: %s, error: %s", key, listenerConfig.getName(), e.getMessage()));
         }
-
-        return new UdpListener(listenerConfig.getName(), port, udpParsers, metricRegistry);
     }
 }
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.flows.listeners.utils;
+
+import java.util.concurrent.ThreadFactory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+
+/**
+ * Keeps all references to the native epoll transport in one place. The bundle imports its package optionally, so these
+ * classes may be missing at runtime: {@link #isAvailable()} must be checked before any other method is called.
+ */
+public final class EpollTransport {
+
+    private EpollTransport() {
+    }
+
+    public static boolean isAvailable() {
+        try {
+            return Epoll.isAvailable();
+        } catch (final NoClassDefFoundError e) {
+            return false;
+        }
+    }
+
+    public static String unavailabilityCause() {
+        try {
+            return Epoll.unavailabilityCause().getMessage();
+        } catch (final NoClassDefFoundError e) {
+            return "package io.netty.channel.epoll is not available";
+        }
+    }
+
+    public static EventLoopGroup newEventLoopGroup(final int threads, final ThreadFactory threadFactory) {
+        return new EpollEventLoopGroup(threads, threadFactory);
+    }
+
+    /**
+     * Uses epoll datagram channels which are bound with {@code SO_REUSEPORT}.
+     */
+    public static Bootstrap reusePort(final Bootstrap bootstrap) {
+        return bootstrap
+            .channel(EpollDatagramChannel.class)
+            .option(EpollChannelOption.SO_REUSEPORT, true);
+    }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.flows.listeners.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Reads the number of datagrams the kernel dropped on UDP sockets bound to a local port, e.g. because the receive
+ * buffer was full. The counters are only exposed by Linux, on other platforms no drops are reported.
+ */
+public final class UdpSocketDrops {
+    private static final List<Path> PROC_NET_UDP = List.of(Paths.get("/proc/net/udp"), Paths.get("/proc/net/udp6"));
+
+    private UdpSocketDrops() {
+    }
+
+    /**
+     * Sums the drops of all sockets bound to the given port, which covers every socket of a {@code SO_REUSEPORT} group.
+     */
+    public static long forPort(final int port) {
+        long drops = 0;
+        for (final Path path : PROC_NET_UDP) {
+            if (!Files.isReadable(path)) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(path)) {
+                drops += parse(reader, port);
+            } catch (IOException e) {
+                // Counters are best effort
+            }
+        }
+        return drops;
+    }
+
+    private static long parse(final BufferedReader reader, final int port) throws IOException {
+        long drops = 0;
+        // Skip the header
+        String line = reader.readLine();
+        while ((line = reader.readLine()) != null) {
+            // sl local_address rem_address st tx_queue:rx_queue tr:tm->when retrnsmt uid timeout inode ref pointer drops
+            final String[] columns = line.trim().split("\\s+");
+            if (columns.length < 13) {
+                continue;
+            }
+            final String localAddress = columns[1];
+            final int separator = localAddress.lastIndexOf(':');
+            if (separator < 0 || Integer.parseInt(localAddress.substring(separator + 1), 16) != port) {
+                continue;
+            }
+            drops += Long.parseLong(columns[12]);
+        }
+        return drops;
+    }
+}
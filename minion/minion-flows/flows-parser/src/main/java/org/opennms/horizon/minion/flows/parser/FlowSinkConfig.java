@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.flows.parser;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.opennms.horizon.flows.document.FlowDocument;
+
+/**
+ * Tunables of the {@link FlowSinkModule}, i.e. how flows are batched into the messages sent to the cloud.
+ */
+public class FlowSinkConfig {
+
+    /**
+     * Decides which flows end up in the same sink message.
+     */
+    public enum AggregationKey {
+        /**
+         * All flows of the minion are batched together.
+         */
+        SINGLE(flowDocument -> Boolean.TRUE),
+
+        /**
+         * Flows are batched per exporter.
+         */
+        EXPORTER(FlowDocument::getExporterAddress);
+
+        private final Function<FlowDocument, Object> key;
+
+        AggregationKey(Function<FlowDocument, Object> key) {
+            this.key = key;
+        }
+
+        public Object key(FlowDocument flowDocument) {
+            return key.apply(flowDocument);
+        }
+    }
+
+    private AggregationKey aggregationKey = AggregationKey.SINGLE;
+    private int batchSize = 1000;
+    private int batchIntervalMs = 1000;
+    private int queueSize = 10;
+    private int numThreads = 1;
+
+    public AggregationKey getAggregationKey() {
+        return aggregationKey;
+    }
+
+    public void setAggregationKey(AggregationKey aggregationKey) {
+        this.aggregationKey = Objects.requireNonNull(aggregationKey);
+    }
+
+    /**
+     * Case-insensitive variant used by the blueprint, e.g. {@code exporter}.
+     */
+    public void setAggregationKeyName(String aggregationKey) {
+        setAggregationKey(AggregationKey.valueOf(aggregationKey.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchIntervalMs() {
+        return batchIntervalMs;
+    }
+
+    public void setBatchIntervalMs(int batchIntervalMs) {
+        this.batchIntervalMs = batchIntervalMs;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("At least 1 thread is required");
+        }
+        this.numThreads = numThreads;
+    }
+}
@@ -43,9 +43,15 @@ public class FlowSinkModule implements SinkModule<FlowDocument, FlowDocumentLog>
     private static final String ID = "Flow";
 
     private final IpcIdentity identity;
+    private final FlowSinkConfig config;
 
     public FlowSinkModule(IpcIdentity identity) {
+        this(identity, new FlowSinkConfig());
+    }
+
+    public FlowSinkModule(IpcIdentity identity, FlowSinkConfig config) {
         this.identity = Objects.requireNonNull(identity);
+        this.config = Objects.requireNonNull(config);
     }
 
     @Override
@@ -89,21 +95,19 @@ public class FlowSinkModule implements SinkModule<FlowDocument, FlowDocumentLog>
     @Override
     public AggregationPolicy<FlowDocument, FlowDocumentLog, FlowDocumentLog.Builder> getAggregationPolicy() {
         return new AggregationPolicy<>() {
-            //TODO: hardcode for now. Will fix in DC-455
             @Override
             public int getCompletionSize() {
-                return 1000;
+                return config.getBatchSize();
             }
 
-            //TODO: hardcode for now. Will fix in DC-455
             @Override
             public int getCompletionIntervalMs() {
-                return 1000;
+                return config.getBatchIntervalMs();
             }
 
             @Override
             public Object key(FlowDocument flowDocument) {
-                return flowDocument.getTimestamp();
+                return config.getAggregationKey().key(flowDocument);
             }
 
             @Override
@@ -127,18 +131,17 @@ public class FlowSinkModule implements SinkModule<FlowDocument, FlowDocumentLog>
         };
     }
 
-    //TODO: hardcode for now. Will fix in DC-455
     @Override
     public AsyncPolicy getAsyncPolicy() {
         return new AsyncPolicy() {
             @Override
             public int getQueueSize() {
-                return 10;
+                return config.getQueueSize();
             }
 
             @Override
             public int getNumThreads() {
-                return 1;
+                return config.getNumThreads();
             }
 
         };
@@ -69,12 +69,20 @@ public class TelemetryRegistryImpl implements TelemetryRegistry {
                                  IpcIdentity identity,
                                  DnsResolver dnsResolver,
                                  MetricRegistry metricRegistry) throws IOException {
+        this(messageDispatcherFactory, identity, dnsResolver, metricRegistry, new FlowSinkConfig());
+    }
+
+    public TelemetryRegistryImpl(MessageDispatcherFactory messageDispatcherFactory,
+                                 IpcIdentity identity,
+                                 DnsResolver dnsResolver,
+                                 MetricRegistry metricRegistry,
+                                 FlowSinkConfig flowSinkConfig) throws IOException {
         Objects.requireNonNull(messageDispatcherFactory);
         Objects.requireNonNull(identity);
         Objects.requireNonNull(dnsResolver);
         Objects.requireNonNull(metricRegistry);
 
-        var sink = new FlowSinkModule(identity);
+        var sink = new FlowSinkModule(identity, flowSinkConfig);
         this.dispatcher = messageDispatcherFactory.createAsyncDispatcher(sink);
 
         this.addListenerFactory(new UdpListenerFactory(this, metricRegistry));
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.flows.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.opennms.horizon.flows.document.FlowDocument;
+import org.opennms.horizon.flows.document.FlowDocumentLog;
+import org.opennms.horizon.shared.ipc.rpc.IpcIdentity;
+import org.opennms.horizon.shared.ipc.sink.api.AggregationPolicy;
+
+public class FlowSinkModuleTest {
+
+    private final IpcIdentity identity = mock(IpcIdentity.class);
+
+    @Test
+    public void flowsAreBatchedTogetherByDefault() {
+        final var policy = new FlowSinkModule(identity).getAggregationPolicy();
+
+        assertEquals(policy.key(flow("10.0.0.1", 1)), policy.key(flow("10.0.0.2", 2)));
+        assertEquals(1000, policy.getCompletionSize());
+        assertEquals(1000, policy.getCompletionIntervalMs());
+    }
+
+    @Test
+    public void flowsCanBeBatchedPerExporter() {
+        final FlowSinkConfig config = new FlowSinkConfig();
+        config.setAggregationKeyName("exporter");
+        config.setBatchSize(5000);
+        config.setBatchIntervalMs(250);
+        config.setQueueSize(100);
+        config.setNumThreads(4);
+        final var module = new FlowSinkModule(identity, config);
+        final var policy = module.getAggregationPolicy();
+
+        assertEquals(policy.key(flow("10.0.0.1", 1)), policy.key(flow("10.0.0.1", 2)));
+        assertNotEquals(policy.key(flow("10.0.0.1", 1)), policy.key(flow("10.0.0.2", 1)));
+        assertEquals(5000, policy.getCompletionSize());
+        assertEquals(250, policy.getCompletionIntervalMs());
+        assertEquals(100, module.getAsyncPolicy().getQueueSize());
+        assertEquals(4, module.getAsyncPolicy().getNumThreads());
+    }
+
+    @Test
+    public void aggregatedFlowsAreSentAsOneLog() {
+        when(identity.getId()).thenReturn("minion-1");
+        final AggregationPolicy<FlowDocument, FlowDocumentLog, FlowDocumentLog.Builder> policy =
+            new FlowSinkModule(identity).getAggregationPolicy();
+
+        FlowDocumentLog.Builder accumulator = null;
+        for (int i = 0; i < 3000; i++) {
+            accumulator = policy.aggregate(accumulator, flow("10.0.0." + (i % 10), i));
+        }
+
+        final FlowDocumentLog log = policy.build(accumulator);
+        assertEquals("minion-1", log.getSystemId());
+        assertEquals(3000, log.getMessageCount());
+    }
+
+    private static FlowDocument flow(String exporterAddress, long timestamp) {
+        return FlowDocument.newBuilder()
+            .setExporterAddress(exporterAddress)
+            .setTimestamp(timestamp)
+            .build();
+    }
+}
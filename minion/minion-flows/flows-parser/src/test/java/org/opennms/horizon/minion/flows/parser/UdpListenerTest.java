@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.flows.parser;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+import org.opennms.horizon.minion.flows.listeners.UdpListener;
+import org.opennms.horizon.minion.flows.listeners.UdpParser;
+import org.opennms.horizon.minion.flows.parser.session.UdpSessionManager;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.epoll.Epoll;
+
+public class UdpListenerTest {
+    private static final int EXPORTERS = 16;
+    private static final int PACKETS_PER_EXPORTER = 2000;
+
+    private final MetricRegistry metrics = new MetricRegistry();
+    private final CountingParser parser = new CountingParser();
+
+    private UdpListener listener;
+
+    @After
+    public void tearDown() {
+        if (listener != null) {
+            listener.stop();
+        }
+    }
+
+    @Test
+    public void everyPacketIsReceivedOrCountedAsDropped() throws Exception {
+        final int port = startListener(1);
+
+        blast(port);
+
+        assertAllPacketsAccountedFor();
+    }
+
+    @Test
+    public void exportersAreSpreadOverSockets() throws Exception {
+        assumeTrue("Native epoll transport is required for SO_REUSEPORT", Epoll.isAvailable());
+        final int port = startListener(4);
+
+        blast(port);
+
+        assertAllPacketsAccountedFor();
+        assertTrue("Expected packets to be read by several event loops but was: " + parser.threads,
+            parser.threads.size() > 1);
+    }
+
+    private int startListener(int sockets) throws InterruptedException {
+        final int port = TestUtil.findAvailablePort(1024, 65535);
+        listener = new UdpListener("FLOW", Collections.singletonList(parser), metrics);
+        listener.setHost("127.0.0.1");
+        listener.setPort(port);
+        listener.setSockets(sockets);
+        listener.start();
+        return port;
+    }
+
+    // Every exporter sends from its own socket, so the kernel sees a distinct source address for each of them
+    private static void blast(int port) throws Exception {
+        final InetAddress localhost = InetAddress.getByName("127.0.0.1");
+        final byte[] payload = new byte[512];
+        for (int exporter = 0; exporter < EXPORTERS; exporter++) {
+            try (DatagramSocket socket = new DatagramSocket(new InetSocketAddress(localhost, 0))) {
+                for (int i = 0; i < PACKETS_PER_EXPORTER; i++) {
+                    socket.send(new DatagramPacket(payload, payload.length, localhost, port));
+                }
+            }
+        }
+    }
+
+    private void assertAllPacketsAccountedFor() {
+        final long sent = (long) EXPORTERS * PACKETS_PER_EXPORTER;
+        await().atMost(10, TimeUnit.SECONDS).until(() -> parser.packets.get() + packetsDropped() == sent);
+        assertEquals(parser.packets.get(), metrics.meter("listeners.FLOW.packetsReceived").getCount());
+    }
+
+    private long packetsDropped() {
+        return (Long) metrics.getGauges().get("listeners.FLOW.packetsDropped").getValue();
+    }
+
+    private static class CountingParser implements UdpParser {
+        private final AtomicLong packets = new AtomicLong();
+        private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public CompletableFuture<?> parse(ByteBuf buffer, InetSocketAddress remoteAddress, InetSocketAddress localAddress) {
+            threads.add(Thread.currentThread().getName());
+            packets.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public UdpSessionManager getSessionManager() {
+            return null;
+        }
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Counts the received packets";
+        }
+
+        @Override
+        public Object dumpInternalState() {
+            return null;
+        }
+
+        @Override
+        public void start(ScheduledExecutorService executorService) {
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+}
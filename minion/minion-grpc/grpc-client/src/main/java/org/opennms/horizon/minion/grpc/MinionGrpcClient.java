@@ -29,13 +29,15 @@
 package org.opennms.horizon.minion.grpc;
 
 import com.codahale.metrics.MetricRegistry;
-import com.google.protobuf.ByteString;
 import com.google.protobuf.Empty;
 import com.google.protobuf.Message;
+import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.Context;
 import io.grpc.ManagedChannel;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
 import io.opentracing.Tracer;
 import lombok.Setter;
@@ -63,16 +65,11 @@ import org.slf4j.MDC.MDCCloseable;
 import java.io.IOException;
 import java.security.cert.CertificateExpiredException;
 import java.security.cert.CertificateNotYetValidException;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
@@ -94,24 +91,25 @@ import static org.opennms.horizon.shared.ipc.rpc.api.RpcModule.MINION_HEADERS_MO
 public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> implements ClientRequestDispatcher {
 
     private static final Logger LOG = LoggerFactory.getLogger(MinionGrpcClient.class);
-    private static final long SINK_BLOCKING_TIMEOUT = 1000;
-    private static final int SINK_BLOCKING_THREAD_POOL_SIZE = 100;
+    private static final String SINK_RETRY_QUEUE_ID = "sink-retry";
+    private static final long SINK_FLUSH_TIMEOUT_MS = 2000;
+    public static final int DEFAULT_SINK_BATCH_MAX_BYTES = 0;
+    public static final long DEFAULT_SINK_BUFFER_MAX_BYTES = 8L * 1024 * 1024;
+    public static final int DEFAULT_SINK_RETRY_MAX_OUTSTANDING = 100_000;
+    public static final long DEFAULT_SINK_RETRY_INITIAL_BACKOFF_MS = 500;
+    public static final long DEFAULT_SINK_RETRY_MAX_BACKOFF_MS = 30_000;
     private ManagedChannel channel;
     private CloudServiceStub asyncStub;
     private IpcIdentity ipcIdentity;
     private MetricRegistry metricRegistry;
     private StreamObserver<RpcResponseProto> rpcStream;
-    private StreamObserver<MinionToCloudMessage> sinkStream;
+    private SinkMessageSender sinkMessageSender;
+    private volatile SinkRetryQueue sinkRetryQueue;
     private Context.CancellableContext cloudToMinionStreamCancellableContext;
 
-    private final AtomicLong counter = new AtomicLong();
-    private final ThreadFactory blockingSinkMessageThreadFactory = (runnable) -> new Thread(runnable, "blocking-sink-message-" + counter.incrementAndGet());
-    // Each request is handled in a new thread which unmarshals and executes the request.
-    // This maintains a blocking thread for each dispatch module when OpenNMS is not in active state.
-
-    private final ScheduledExecutorService blockingSinkMessageScheduler = Executors.newScheduledThreadPool(SINK_BLOCKING_THREAD_POOL_SIZE,
-            blockingSinkMessageThreadFactory);
-    private final Map<SinkMessage, ScheduledFuture<?>> pendingMessages = new ConcurrentHashMap<>(2000);
+    // Message ids only need to be unique, so we avoid generating a random UUID for every message
+    private final String messageIdPrefix = UUID.randomUUID() + "-";
+    private final AtomicLong messageIdSequence = new AtomicLong();
     private final Tracer tracer;
     private final ManagedChannelFactory managedChannelFactory;
 
@@ -134,6 +132,16 @@ public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> i
     private int grpcPort;
     @Setter
     private String overrideAuthority;
+    @Setter
+    private int sinkBatchMaxBytes = DEFAULT_SINK_BATCH_MAX_BYTES;
+    @Setter
+    private long sinkBufferMaxBytes = DEFAULT_SINK_BUFFER_MAX_BYTES;
+    @Setter
+    private int sinkRetryMaxOutstanding = DEFAULT_SINK_RETRY_MAX_OUTSTANDING;
+    @Setter
+    private long sinkRetryInitialBackoffMs = DEFAULT_SINK_RETRY_INITIAL_BACKOFF_MS;
+    @Setter
+    private long sinkRetryMaxBackoffMs = DEFAULT_SINK_RETRY_MAX_BACKOFF_MS;
 
     private final SendQueueFactory sendQueueFactory;
 
@@ -164,6 +172,11 @@ public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> i
     public void start() throws IOException {
         channel = managedChannelFactory.create(grpcHost, grpcPort, overrideAuthority);
         asyncStub = newStubOperation.apply(channel);
+        sinkMessageSender = new SinkMessageSender(sinkBatchMaxBytes, sinkBufferMaxBytes);
+        // Created right away, so messages persisted by a previous run are retried before any new message is sent
+        sinkRetryQueue = new SinkRetryQueue(sendQueueFactory.createQueue(SINK_RETRY_QUEUE_ID),
+            message -> sendSinkMessage(message, true),
+            sinkRetryMaxOutstanding, sinkRetryInitialBackoffMs, sinkRetryMaxBackoffMs);
 
         reconnectStrategy = simpleReconnectStrategyFactory.create(channel, this::handleReconnect, this::handleDisconnect);
         reconnectStrategy.activate();
@@ -174,13 +187,20 @@ public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> i
 
 
     public void shutdown() {
-        blockingSinkMessageScheduler.shutdown();
+        // Give the buffered sink messages a chance to go out, and keep the rest for the next start
+        List<SinkMessage> unsent = List.of();
+        if (sinkMessageSender != null) {
+            try {
+                sinkMessageSender.flush(SINK_FLUSH_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            unsent = sinkMessageSender.close();
+        }
+        closeSinkRetryQueue(unsent);
         if (rpcStream != null) {
             rpcStream.onCompleted();
         }
-        if (sinkStream != null) {
-            sinkStream.onCompleted();
-        }
         if (channel != null) {
             channel.shutdown();
         }
@@ -216,17 +236,30 @@ public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> i
     // public <S extends org.opennms.horizon.ipc.sink.api.Message, T extends org.opennms.horizon.ipc.sink.api.Message> void dispatch(SinkModule<S, T> module, String metadata, T message) {
     public <S extends Message, T extends Message> void dispatch(SinkModule<S, T> module, String metadata, byte[] message) {
         try (MDCCloseable mdc = MDC.putCloseable("prefix", MessageConsumerManager.LOG_PREFIX)) {
-            String messageId = UUID.randomUUID().toString();
-            SinkMessage.Builder sinkMessageBuilder = SinkMessage.newBuilder()
-                    .setMessageId(messageId)
-                    .setModuleId(module.getId())
-                    .setContent(ByteString.copyFrom(message));
+            SinkMessage sinkMessage = toSinkMessage(module, message);
 
             // If module has asyncpolicy, keep attempting to send message.
             if (module.getAsyncPolicy() != null) {
-                sendBlockingSinkMessage(sinkMessageBuilder.build());
+                sendBlockingSinkMessage(sinkMessage);
+            } else {
+                sendSinkMessage(sinkMessage);
+            }
+        }
+    }
+
+    @Override
+    protected <S extends Message, T extends Message> void dispatch(SinkModule<S, T> module, String metadata, List<byte[]> messages) {
+        try (MDCCloseable mdc = MDC.putCloseable("prefix", MessageConsumerManager.LOG_PREFIX)) {
+            List<SinkMessage> sinkMessages = new ArrayList<>(messages.size());
+            for (byte[] message : messages) {
+                sinkMessages.add(toSinkMessage(module, message));
+            }
+
+            // If module has asyncpolicy, keep attempting to send messages.
+            if (module.getAsyncPolicy() != null) {
+                sendBlockingSinkMessages(sinkMessages);
             } else {
-                sendSinkMessage(sinkMessageBuilder.build());
+                sinkMessages.forEach(this::sendSinkMessage);
             }
         }
     }
@@ -270,6 +303,15 @@ public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> i
 //========================================
 // Internals
 //----------------------------------------
+    private SinkMessage toSinkMessage(SinkModule<?, ?> module, byte[] message) {
+        // The dispatchers hand over the marshalled message, so there is no need to copy it
+        return SinkMessage.newBuilder()
+            .setMessageId(messageIdPrefix + messageIdSequence.incrementAndGet())
+            .setModuleId(module.getId())
+            .setContent(UnsafeByteOperations.unsafeWrap(message))
+            .build();
+    }
+
     private Throwable findRootCause(Throwable t) {
         Throwable rootCause = t;
         while (rootCause.getCause() != null && rootCause.getCause() != rootCause) {
@@ -294,14 +336,8 @@ public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> i
             rpcStream = null;
         }
 
-        if (sinkStream != null) {
-            try {
-                sinkStream.onCompleted();
-            } catch (Exception exc) {
-                LOG.debug("Error on cleanup of existing sink stream", exc);
-            }
-
-            sinkStream = null;
+        if (sinkMessageSender != null) {
+            sinkMessageSender.detach();
         }
 
         if (cloudToMinionStreamCancellableContext != null) {
@@ -323,7 +359,11 @@ public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> i
     }
 
     private void initializeSinkStub() {
-        sinkStream = asyncStub.minionToCloudMessages(new MinionToCloudHandler());
+        sinkMessageSender.attach(asyncStub.minionToCloudMessages(new MinionToCloudHandler()));
+        SinkRetryQueue retryQueue = sinkRetryQueue;
+        if (retryQueue != null) {
+            retryQueue.wakeUp();
+        }
         LOG.info("Initialized Sink stream");
     }
 
@@ -342,43 +382,73 @@ public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> i
     }
 
     private void sendBlockingSinkMessage(SinkMessage sinkMessage) {
-        boolean succeeded = sendSinkMessage(sinkMessage);
-        if (succeeded) {
+        // Messages waiting for a retry go first, so only send directly if there are none.
+        // Waits while the stream is connected but has no room for more messages.
+        SinkRetryQueue retryQueue = sinkRetryQueue;
+        if ((retryQueue == null || retryQueue.isEmpty()) && sendSinkMessage(sinkMessage, true)) {
+            return;
+        }
+        if (retryQueue == null) {
+            LOG.warn("Sink retry queue is closed, dropping message {}", sinkMessage.getMessageId());
             return;
         }
-        //Recursively try to send sink message until it succeeds.
-        scheduleSinkMessageAfterDelay(sinkMessage);
+        try {
+            retryQueue.add(sinkMessage);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while waiting for room in the sink retry queue, dropping message {}", sinkMessage.getMessageId());
+        } catch (RuntimeException e) {
+            LOG.error("Failed to queue sink message {} for retry", sinkMessage.getMessageId(), e);
+        }
     }
 
-    private void scheduleSinkMessageAfterDelay(SinkMessage sinkMessage) {
-        // try until we get a successful send
-        ScheduledFuture<?> future = blockingSinkMessageScheduler.scheduleWithFixedDelay(() -> {
-            if (sendSinkMessage(sinkMessage)) {
-                // canceling myself?
-                pendingMessages.remove(sinkMessage).cancel(false);
+    private void sendBlockingSinkMessages(List<SinkMessage> sinkMessages) {
+        int sent = 0;
+        SinkRetryQueue retryQueue = sinkRetryQueue;
+        if ((retryQueue == null || retryQueue.isEmpty()) && sinkMessageSender != null) {
+            try {
+                sent = sinkMessageSender.sendAll(sinkMessages, true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-        }, SINK_BLOCKING_TIMEOUT, SINK_BLOCKING_TIMEOUT, TimeUnit.MILLISECONDS);
-        pendingMessages.put(sinkMessage, future);
+        }
+        for (SinkMessage sinkMessage : sinkMessages.subList(sent, sinkMessages.size())) {
+            sendBlockingSinkMessage(sinkMessage);
+        }
     }
 
-
-    private synchronized boolean sendSinkMessage(SinkMessage sinkMessage) {
-        if (sinkStream != null) {
-            try {
-                sinkStream.onNext(MinionToCloudMessage.newBuilder()
-                    .setSinkMessage(sinkMessage)
-                    .build()
-                );
-                return true;
-            } catch (Throwable e) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Exception while sending sinkMessage to gRPC IPC server", e);
-                } else {
-                    LOG.error("Exception while sending sinkMessage to gRPC IPC server {}", e.getMessage());
-                }
+    private synchronized void closeSinkRetryQueue(List<SinkMessage> unsent) {
+        if (sinkRetryQueue == null) {
+            if (!unsent.isEmpty()) {
+                LOG.warn("Sink retry queue is closed, dropping {} buffered messages", unsent.size());
             }
+            return;
+        }
+        try {
+            sinkRetryQueue.close(unsent);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.warn("Failed to close sink retry queue", e);
+        }
+        sinkRetryQueue = null;
+    }
+
+
+    private boolean sendSinkMessage(SinkMessage sinkMessage) {
+        return sendSinkMessage(sinkMessage, false);
+    }
+
+    private boolean sendSinkMessage(SinkMessage sinkMessage, boolean block) {
+        if (sinkMessageSender == null) {
+            return false;
+        }
+        try {
+            return sinkMessageSender.send(sinkMessage, block);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
-        return false;
     }
 
 
@@ -487,7 +557,13 @@ public class MinionGrpcClient extends AbstractMessageDispatcherFactory<String> i
         }
     }
 
-    private class MinionToCloudHandler implements StreamObserver<Empty> {
+    private class MinionToCloudHandler implements ClientResponseObserver<MinionToCloudMessage, Empty> {
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<MinionToCloudMessage> requestStream) {
+            // Resume sending once the transport has room for more messages
+            requestStream.setOnReadyHandler(sinkMessageSender::drain);
+        }
 
         @Override
         public void onNext(Empty message) {
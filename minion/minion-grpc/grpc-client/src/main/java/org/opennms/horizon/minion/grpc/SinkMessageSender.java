@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.grpc;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.opennms.cloud.grpc.minion.MinionToCloudMessage;
+import org.opennms.cloud.grpc.minion.SinkMessage;
+import org.opennms.cloud.grpc.minion.SinkMessageBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes sink messages to the minion-to-cloud stream while honoring the flow control of gRPC.
+ * <p>
+ * Messages are buffered until the stream is ready, and the buffered messages are packed into frames of up to
+ * {@code maxBatchBytes}. Once the buffer holds {@code maxBufferedBytes}, blocking senders wait for room, so a slow
+ * gateway slows down the producers instead of piling up messages in the transport buffers.
+ */
+public class SinkMessageSender {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SinkMessageSender.class);
+
+    private static final long WAIT_FOR_ROOM_MS = 1000;
+
+    private final int maxBatchBytes;
+    private final long maxBufferedBytes;
+
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private final Condition notFull = bufferLock.newCondition();
+    private final Deque<SinkMessage> buffer = new ArrayDeque<>();
+    private long bufferedBytes = 0;
+
+    // Writing to the stream is not thread-safe
+    private final ReentrantLock streamLock = new ReentrantLock();
+    private volatile StreamObserver<MinionToCloudMessage> stream;
+
+    /**
+     * @param maxBatchBytes    maximum size of the messages packed into a single frame, values <= 0 disable batching
+     * @param maxBufferedBytes maximum size of the messages waiting for the stream to become ready
+     */
+    public SinkMessageSender(int maxBatchBytes, long maxBufferedBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    /**
+     * Starts writing to the given stream. If the stream is a {@link ClientCallStreamObserver}, its on-ready handler
+     * must call {@link #drain()}.
+     */
+    public void attach(StreamObserver<MinionToCloudMessage> stream) {
+        streamLock.lock();
+        try {
+            this.stream = stream;
+        } finally {
+            streamLock.unlock();
+        }
+        drain();
+    }
+
+    /**
+     * Completes the current stream. Buffered messages are kept for the next stream.
+     */
+    public void detach() {
+        streamLock.lock();
+        try {
+            if (stream != null) {
+                try {
+                    stream.onCompleted();
+                } catch (Exception exc) {
+                    LOG.debug("Error on cleanup of existing sink stream", exc);
+                }
+                stream = null;
+            }
+        } finally {
+            streamLock.unlock();
+        }
+        // Wake up blocked senders, they give up while no stream is attached
+        bufferLock.lock();
+        try {
+            notFull.signalAll();
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /**
+     * Completes the current stream for good, and hands back the buffered messages which were not written to it, so
+     * they can be kept elsewhere instead of being lost.
+     *
+     * @return the unsent messages, oldest first
+     */
+    public List<SinkMessage> close() {
+        // Once detached, no drain is writing anymore and no sender can add to the buffer
+        detach();
+        bufferLock.lock();
+        try {
+            final List<SinkMessage> unsent = new ArrayList<>(buffer);
+            buffer.clear();
+            bufferedBytes = 0;
+            return unsent;
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the buffered messages to be written to the current stream.
+     *
+     * @return {@code false} if messages are still buffered after the timeout, or because no stream is attached
+     */
+    public boolean flush(long timeoutMs) throws InterruptedException {
+        drain();
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        bufferLock.lockInterruptibly();
+        try {
+            while (!buffer.isEmpty() && stream != null && remainingNanos > 0) {
+                remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+            return buffer.isEmpty();
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /**
+     * Buffers the message for sending.
+     *
+     * @param block whether to wait for room in the buffer as long as a stream is attached
+     * @return {@code false} if the message was not accepted, because no stream is attached or the buffer is full
+     */
+    public boolean send(SinkMessage message, boolean block) throws InterruptedException {
+        final int size = message.getSerializedSize();
+        bufferLock.lockInterruptibly();
+        try {
+            // A single message larger than the buffer is accepted once the buffer is empty
+            while (stream != null && bufferedBytes > 0 && bufferedBytes + size > maxBufferedBytes) {
+                if (!block) {
+                    return false;
+                }
+                notFull.await(WAIT_FOR_ROOM_MS, TimeUnit.MILLISECONDS);
+            }
+            if (stream == null) {
+                return false;
+            }
+            buffer.add(message);
+            bufferedBytes += size;
+        } finally {
+            bufferLock.unlock();
+        }
+        drain();
+        return true;
+    }
+
+    /**
+     * Buffers the messages for sending, taking the buffer lock once for all messages which fit into the buffer right
+     * away.
+     *
+     * @param block whether to wait for room in the buffer as long as a stream is attached
+     * @return the number of messages accepted, which are the first ones of the given list
+     */
+    public int sendAll(List<SinkMessage> messages, boolean block) throws InterruptedException {
+        int accepted = 0;
+        bufferLock.lockInterruptibly();
+        try {
+            if (stream == null) {
+                return 0;
+            }
+            while (accepted < messages.size()) {
+                final SinkMessage message = messages.get(accepted);
+                final int size = message.getSerializedSize();
+                if (bufferedBytes > 0 && bufferedBytes + size > maxBufferedBytes) {
+                    break;
+                }
+                buffer.add(message);
+                bufferedBytes += size;
+                accepted++;
+            }
+        } finally {
+            bufferLock.unlock();
+        }
+        drain();
+
+        // The remaining messages have to wait for room one by one
+        while (accepted < messages.size()) {
+            if (!send(messages.get(accepted), block)) {
+                break;
+            }
+            accepted++;
+        }
+        return accepted;
+    }
+
+    /**
+     * Writes buffered messages for as long as the stream is ready.
+     */
+    public void drain() {
+        while (streamLock.tryLock()) {
+            try {
+                final StreamObserver<MinionToCloudMessage> current = stream;
+                while (current != null && isReady(current)) {
+                    final List<SinkMessage> batch = pollBatch();
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    try {
+                        current.onNext(toMessage(batch));
+                    } catch (RuntimeException e) {
+                        requeue(batch);
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Exception while sending sinkMessage to gRPC IPC server", e);
+                        } else {
+                            LOG.error("Exception while sending sinkMessage to gRPC IPC server {}", e.getMessage());
+                        }
+                        return;
+                    }
+                }
+            } finally {
+                streamLock.unlock();
+            }
+            // Messages may have been buffered, or the stream may have become ready, after we stopped writing but
+            // before we released the lock, in which case nobody else would pick them up
+            if (!hasPendingMessages() || stream == null || !isReady(stream)) {
+                return;
+            }
+        }
+    }
+
+    public long getBufferedBytes() {
+        bufferLock.lock();
+        try {
+            return bufferedBytes;
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private boolean hasPendingMessages() {
+        bufferLock.lock();
+        try {
+            return !buffer.isEmpty();
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private static boolean isReady(StreamObserver<MinionToCloudMessage> stream) {
+        return !(stream instanceof ClientCallStreamObserver<MinionToCloudMessage> callStream) || callStream.isReady();
+    }
+
+    private List<SinkMessage> pollBatch() {
+        final List<SinkMessage> batch = new ArrayList<>();
+        bufferLock.lock();
+        try {
+            long batchBytes = 0;
+            SinkMessage next;
+            while ((next = buffer.peek()) != null) {
+                final int size = next.getSerializedSize();
+                if (!batch.isEmpty() && (maxBatchBytes <= 0 || batchBytes + size > maxBatchBytes)) {
+                    break;
+                }
+                batch.add(buffer.poll());
+                batchBytes += size;
+            }
+            bufferedBytes -= batchBytes;
+            notFull.signalAll();
+        } finally {
+            bufferLock.unlock();
+        }
+        return batch;
+    }
+
+    private void requeue(List<SinkMessage> batch) {
+        bufferLock.lock();
+        try {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                buffer.addFirst(batch.get(i));
+                bufferedBytes += batch.get(i).getSerializedSize();
+            }
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private static MinionToCloudMessage toMessage(List<SinkMessage> batch) {
+        if (batch.size() == 1) {
+            return MinionToCloudMessage.newBuilder()
+                .setSinkMessage(batch.get(0))
+                .build();
+        }
+        return MinionToCloudMessage.newBuilder()
+            .setSinkMessageBatch(SinkMessageBatch.newBuilder().addAllSinkMessages(batch))
+            .build();
+    }
+}
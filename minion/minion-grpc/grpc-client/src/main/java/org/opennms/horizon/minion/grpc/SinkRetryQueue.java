@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.grpc;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.opennms.cloud.grpc.minion.SinkMessage;
+import org.opennms.horizon.shared.ipc.sink.api.SendQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Single ordered buffer for sink messages which could not be sent right away.
+ * <p>
+ * Messages are kept in a {@link SendQueue}, which spills to off-heap storage once its memory is exhausted. One thread
+ * takes the messages from the head of the queue and sends them in order, backing off with jitter while the gateway is
+ * not reachable. At most {@code maxOutstanding} messages are held, further callers of {@link #add(SinkMessage)} wait
+ * for room. Messages restored by a persistent queue count towards this limit, and are sent before any new message.
+ */
+public class SinkRetryQueue implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SinkRetryQueue.class);
+
+    private final SendQueue queue;
+    private final Predicate<SinkMessage> sender;
+    private final Semaphore outstanding;
+    private final AtomicInteger size;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    private final Object wakeUp = new Object();
+    private final Thread drainer;
+    private volatile boolean closed = false;
+
+    /**
+     * @param queue            queue holding the messages waiting for a retry
+     * @param sender           sends a message, returning {@code false} if it must be retried later
+     * @param maxOutstanding   maximum number of messages waiting for a retry
+     * @param initialBackoffMs delay before the first retry after a failed send
+     * @param maxBackoffMs     upper bound of the delay between retries
+     */
+    public SinkRetryQueue(SendQueue queue, Predicate<SinkMessage> sender, int maxOutstanding,
+                          long initialBackoffMs, long maxBackoffMs) {
+        this.queue = Objects.requireNonNull(queue);
+        this.sender = Objects.requireNonNull(sender);
+        // Messages left over from a previous run hold their permits until they are sent. The semaphore starts out
+        // negative if more than maxOutstanding messages have been restored.
+        final int restored = queue.size();
+        this.size = new AtomicInteger(restored);
+        this.outstanding = new Semaphore(maxOutstanding - restored);
+        if (restored > 0) {
+            LOG.info("Restored {} sink messages waiting for a retry", restored);
+        }
+        this.initialBackoffMs = Math.max(1, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+
+        this.drainer = new Thread(this::drain, "sink-retry");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Appends the message to the tail of the queue, waiting while the maximum number of messages is outstanding.
+     */
+    public void add(SinkMessage message) throws InterruptedException {
+        outstanding.acquire();
+        size.incrementAndGet();
+        try {
+            queue.enqueue(message.toByteArray());
+        } catch (InterruptedException | RuntimeException e) {
+            size.decrementAndGet();
+            outstanding.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether no messages are waiting for a retry. New messages should be added to the queue instead of being sent
+     * directly as long as this is not the case, to keep them in order.
+     */
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Retries right away instead of waiting for the current backoff to expire, e.g. once the stream is reconnected.
+     */
+    public void wakeUp() {
+        synchronized (wakeUp) {
+            wakeUp.notifyAll();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        close(List.of());
+    }
+
+    /**
+     * Stops retrying, and puts the given messages at the head of the queue before persisting it.
+     *
+     * @param unsent messages older than the ones in the queue, e.g. the ones still buffered for the stream
+     */
+    public void close(List<SinkMessage> unsent) throws Exception {
+        closed = true;
+        drainer.interrupt();
+        drainer.join(1000);
+        for (int i = unsent.size() - 1; i >= 0; i--) {
+            try {
+                queue.requeue(unsent.get(i).toByteArray());
+                size.incrementAndGet();
+            } catch (InterruptedException | RuntimeException e) {
+                LOG.warn("Dropping {} sink messages on shutdown", i + 1, e);
+                break;
+            }
+        }
+        // Persists the remaining messages, so they are retried after a restart
+        queue.close();
+    }
+
+    private void drain() {
+        while (!closed) {
+            final byte[] bytes;
+            try {
+                bytes = queue.dequeue();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            final SinkMessage message;
+            try {
+                message = SinkMessage.parseFrom(bytes);
+            } catch (InvalidProtocolBufferException e) {
+                LOG.warn("Dropping unreadable sink message from retry queue", e);
+                release();
+                continue;
+            }
+
+            try {
+                sendWithBackoff(message);
+                release();
+            } catch (InterruptedException e) {
+                // Put the message back at the head, so it is the first one sent after a restart
+                requeue(bytes);
+                return;
+            }
+        }
+    }
+
+    private void sendWithBackoff(SinkMessage message) throws InterruptedException {
+        long backoffMs = initialBackoffMs;
+        while (!sender.test(message)) {
+            if (closed) {
+                throw new InterruptedException();
+            }
+            // Spread the retries of many minions over time when the gateway comes back
+            final long delayMs = ThreadLocalRandom.current().nextLong(backoffMs / 2, backoffMs + 1);
+            LOG.debug("Failed to send sink message {}, retrying in {}ms", message.getMessageId(), delayMs);
+            synchronized (wakeUp) {
+                wakeUp.wait(Math.max(1, delayMs));
+            }
+            backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+        }
+    }
+
+    private void release() {
+        size.decrementAndGet();
+        outstanding.release();
+    }
+
+    private void requeue(byte[] bytes) {
+        // Clear the interrupt which stopped us, the queue may have to wait for its store
+        Thread.interrupted();
+        try {
+            queue.requeue(bytes);
+        } catch (InterruptedException | RuntimeException e) {
+            LOG.warn("Dropping sink message from retry queue on shutdown", e);
+        }
+    }
+}
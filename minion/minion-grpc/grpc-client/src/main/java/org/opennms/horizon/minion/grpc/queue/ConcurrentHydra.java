@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.grpc.queue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A hydra without a global lock.
+ *
+ * Each sub-queue is guarded by a lock of its own, so sub-queues do not contend with each other, and taking an element
+ * only unlinks it from its sub-queue in O(1). The global queue is not kept as a list of its own. Instead, each
+ * sub-queue keeps a cursor to its oldest element not handed out by the global queue yet, and polling the global queue
+ * picks the sub-queue whose cursor holds the oldest element. Elements are ordered by a sequence number assigned when
+ * they are put. Polling the global queue is O(number of sub-queues), which is small as there is one sub-queue per
+ * sink module. Sub-queues live as long as the hydra.
+ */
+public class ConcurrentHydra<E> implements Hydra<E> {
+
+    private static class Node<E> {
+        public final E element;
+        public final long sequence;
+
+        /** Next node in the sub-queue, guarded by the lock of the sub-queue. **/
+        private Node<E> next;
+
+        private Node(final E element, final long sequence) {
+            this.element = element;
+            this.sequence = sequence;
+        }
+    }
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final List<SubQueue> queues = new CopyOnWriteArrayList<>();
+
+    @Override
+    public E poll() {
+        while (true) {
+            SubQueue oldest = null;
+            long oldestSequence = Long.MAX_VALUE;
+            for (final var queue : this.queues) {
+                final var sequence = queue.cursorSequence;
+                if (sequence < oldestSequence) {
+                    oldest = queue;
+                    oldestSequence = sequence;
+                }
+            }
+
+            if (oldest == null) {
+                return null;
+            }
+
+            final var element = oldest.advanceCursor();
+            if (element != null) {
+                return element;
+            }
+            // The sub-queue has been drained concurrently, look again
+        }
+    }
+
+    @Override
+    public Hydra.SubQueue<E> queue() {
+        final var queue = new SubQueue();
+        this.queues.add(queue);
+        return queue;
+    }
+
+    public class SubQueue implements Hydra.SubQueue<E> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition available = this.lock.newCondition();
+
+        private Node<E> head;
+        private Node<E> tail;
+
+        /** Oldest node not handed out by the global queue yet. **/
+        private Node<E> cursor;
+
+        /** Sequence of the cursor, readable without the lock, or {@link Long#MAX_VALUE} if there is no cursor. **/
+        private volatile long cursorSequence = Long.MAX_VALUE;
+
+        private SubQueue() {}
+
+        @Override
+        public E take() throws InterruptedException {
+            this.lock.lockInterruptibly();
+            try {
+                while (this.head == null) {
+                    this.available.await();
+                }
+                return this.dequeue();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        @Override
+        public E poll() {
+            this.lock.lock();
+            try {
+                if (this.head == null) {
+                    return null;
+                }
+                return this.dequeue();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        @Override
+        public void put(final E element) throws InterruptedException {
+            final var node = new Node<>(element, ConcurrentHydra.this.sequence.getAndIncrement());
+
+            this.lock.lock();
+            try {
+                if (this.tail == null) {
+                    this.head = node;
+                } else {
+                    this.tail.next = node;
+                }
+                this.tail = node;
+
+                if (this.cursor == null) {
+                    this.setCursor(node);
+                }
+
+                this.available.signal();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private E dequeue() {
+            final var node = this.head;
+            this.head = node.next;
+            if (this.head == null) {
+                this.tail = null;
+            } else {
+                // More waiting consumers may proceed
+                this.available.signal();
+            }
+
+            if (this.cursor == node) {
+                this.setCursor(node.next);
+            }
+
+            node.next = null;
+            return node.element;
+        }
+
+        /**
+         * Hands out the element at the cursor to the global queue. The element stays in this sub-queue.
+         */
+        private E advanceCursor() {
+            this.lock.lock();
+            try {
+                final var node = this.cursor;
+                if (node == null) {
+                    return null;
+                }
+                this.setCursor(node.next);
+                return node.element;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void setCursor(final Node<E> node) {
+            this.cursor = node;
+            this.cursorSequence = node != null ? node.sequence : Long.MAX_VALUE;
+        }
+    }
+}
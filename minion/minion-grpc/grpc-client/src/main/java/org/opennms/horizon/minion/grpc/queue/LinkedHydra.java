@@ -42,6 +42,9 @@ public class LinkedHydra<E> implements Hydra<E> {
 
         public Node<E> localNext;
 
+        /** Whether the node is still linked into the global queue. **/
+        public boolean global;
+
         public E element;
     }
 
@@ -58,12 +61,17 @@ public class LinkedHydra<E> implements Hydra<E> {
                 return null;
             }
 
-            this.head = this.head.globalNext;
+            this.head = curr.globalNext;
             if (this.head == null) {
                 this.tail = null;
+            } else {
+                this.head.globalPrev = null;
             }
 
+            // The node stays in its sub-queue, which must not link it back into the global queue
             curr.globalPrev = null;
+            curr.globalNext = null;
+            curr.global = false;
 
             return curr.element;
 
@@ -146,6 +154,7 @@ public class LinkedHydra<E> implements Hydra<E> {
             newNode.globalNext = null;
             newNode.globalPrev = LinkedHydra.this.tail;
             newNode.localNext = null;
+            newNode.global = true;
             newNode.element = element;
 
             if (this.tail == null) {
@@ -172,16 +181,18 @@ public class LinkedHydra<E> implements Hydra<E> {
                 this.tail = null;
             }
 
-            if (curr.globalPrev != null) {
-                curr.globalPrev.globalNext = curr.globalNext;
-            } else {
-                LinkedHydra.this.head = curr.globalNext;
-            }
+            if (curr.global) {
+                if (curr.globalPrev != null) {
+                    curr.globalPrev.globalNext = curr.globalNext;
+                } else {
+                    LinkedHydra.this.head = curr.globalNext;
+                }
 
-            if (curr.globalNext != null) {
-                curr.globalNext.globalPrev = curr.globalPrev;
-            } else {
-                LinkedHydra.this.tail = curr.globalPrev;
+                if (curr.globalNext != null) {
+                    curr.globalNext.globalPrev = curr.globalPrev;
+                } else {
+                    LinkedHydra.this.tail = curr.globalPrev;
+                }
             }
 
             final var element = curr.element;
@@ -29,10 +29,15 @@
 package org.opennms.horizon.minion.grpc.queue;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.Consumer;
@@ -46,6 +51,8 @@ import org.rocksdb.DBOptions;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Streams;
@@ -53,6 +60,11 @@ import com.google.common.collect.Streams;
 
 public class RocksDbStore implements SwappingSendQueueFactory.StoreManager {
 
+    /**
+     * Number of elements read ahead from disk, and number of consumed elements deleted at once.
+     */
+    public static final int READ_BATCH_SIZE = 256;
+
     private final static DBOptions DB_OPTIONS = new DBOptions()
         .setCreateIfMissing(true)
         .setMaxBackgroundJobs(Math.max(Runtime.getRuntime().availableProcessors(), 3))
@@ -69,10 +81,14 @@ public class RocksDbStore implements SwappingSendQueueFactory.StoreManager {
         .setEnableBlobGarbageCollection(true)
         ;
 
+    private final static WriteOptions WRITE_OPTIONS = new WriteOptions();
+
     private final RocksDB db;
 
     private final Map<Prefix, ColumnFamilyHandle> cfHandles;
 
+    private final List<Store> stores = new ArrayList<>();
+
     public RocksDbStore() throws RocksDBException, IOException {
         this(Paths.get("./sink/queue").toAbsolutePath());
     }
@@ -111,27 +127,50 @@ public class RocksDbStore implements SwappingSendQueueFactory.StoreManager {
             this.cfHandles.put(prefix, cfHandle);
         }
 
-        return new Store(cfHandle);
+        final var store = new Store(cfHandle);
+        this.stores.add(store);
+        return store;
     }
 
     @Override
-    public void close() {
-        this.db.close();
+    public synchronized void close() throws IOException {
+        try {
+            for (final var store : this.stores) {
+                store.close();
+            }
+        } finally {
+            this.db.close();
+        }
     }
 
     private class Store implements SwappingSendQueueFactory.Store {
 
         private final ColumnFamilyHandle cf;
 
+        /** Messages read from disk but not yet consumed, by key. **/
+        private final Map<ByteBuffer, byte[]> readAhead = new HashMap<>();
+
+        /** Keys of consumed messages which have not been deleted from disk yet. **/
+        private final List<byte[]> consumed = new ArrayList<>(READ_BATCH_SIZE);
+
         private Store(final ColumnFamilyHandle cf) {
             this.cf = Objects.requireNonNull(cf);
         }
 
         @Override
-        public byte[] get(final byte[] key) throws IOException {
+        public synchronized byte[] get(final byte[] key) throws IOException {
             try {
-                final var result = RocksDbStore.this.db.get(this.cf, key);
-                RocksDbStore.this.db.singleDelete(this.cf, key);
+                var result = this.readAhead.remove(ByteBuffer.wrap(key));
+                if (result == null) {
+                    result = this.readBatch(key);
+                }
+
+                // Deleting a single key costs a write, so we delete the consumed keys in batches
+                this.consumed.add(key);
+                if (this.consumed.size() >= READ_BATCH_SIZE || this.readAhead.isEmpty()) {
+                    this.deleteConsumed();
+                }
+
                 return result;
             } catch (RocksDBException e) {
                 throw new IOException(e);
@@ -147,6 +186,51 @@ public class RocksDbStore implements SwappingSendQueueFactory.StoreManager {
             }
         }
 
+        @Override
+        public void putAll(final Collection<Map.Entry<byte[], byte[]>> entries) throws IOException {
+            try (final var batch = new WriteBatch()) {
+                for (final var entry : entries) {
+                    batch.put(this.cf, entry.getKey(), entry.getValue());
+                }
+                RocksDbStore.this.db.write(WRITE_OPTIONS, batch);
+            } catch (RocksDBException e) {
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Reads the requested message together with the messages following it in key order, which are usually the
+         * next ones to be consumed.
+         */
+        private byte[] readBatch(final byte[] key) throws RocksDBException {
+            // Deleted keys must not be read again
+            this.deleteConsumed();
+
+            try (final var it = RocksDbStore.this.db.newIterator(this.cf)) {
+                it.seek(key);
+                for (int i = 0; i < READ_BATCH_SIZE && it.isValid(); i++, it.next()) {
+                    this.readAhead.putIfAbsent(ByteBuffer.wrap(it.key()), it.value());
+                }
+            }
+
+            return this.readAhead.remove(ByteBuffer.wrap(key));
+        }
+
+        private void deleteConsumed() throws RocksDBException {
+            if (this.consumed.isEmpty()) {
+                return;
+            }
+
+            // Keys are not strictly ordered by the time they are consumed, so we can not use a range deletion here
+            try (final var batch = new WriteBatch()) {
+                for (final var key : this.consumed) {
+                    batch.singleDelete(this.cf, key);
+                }
+                RocksDbStore.this.db.write(WRITE_OPTIONS, batch);
+            }
+            this.consumed.clear();
+        }
+
         @Override
         public void iterate(final Consumer<byte[]> f) {
             try (final var it = RocksDbStore.this.db.newIterator(this.cf)) {
@@ -160,7 +244,13 @@ public class RocksDbStore implements SwappingSendQueueFactory.StoreManager {
         }
 
         @Override
-        public void close() {
+        public synchronized void close() throws IOException {
+            try {
+                this.deleteConsumed();
+            } catch (RocksDBException e) {
+                throw new IOException(e);
+            }
+            this.readAhead.clear();
         }
     }
 }
@@ -30,8 +30,15 @@ package org.opennms.horizon.minion.grpc.queue;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -40,11 +47,21 @@ import java.util.function.Consumer;
 import org.opennms.horizon.shared.ipc.sink.api.SendQueue;
 import org.opennms.horizon.shared.ipc.sink.api.SendQueueFactory;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.primitives.Bytes;
 import com.google.common.primitives.Longs;
 
 public class SwappingSendQueueFactory implements SendQueueFactory, Closeable {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SwappingSendQueueFactory.class);
+
+    /**
+     * Maximum number of elements moved off-heap at once.
+     */
+    public static final int SPILL_BATCH_SIZE = 256;
+
     private final StoreManager stores;
 
     /**
@@ -53,6 +70,11 @@ public class SwappingSendQueueFactory implements SendQueueFactory, Closeable {
      */
     private final AtomicLong blockId = new AtomicLong(0);
 
+    /**
+     * Second half of the key of the last requeued element, decreasing with every requeued element.
+     */
+    private final AtomicLong requeueOrder = new AtomicLong(Long.MAX_VALUE);
+
     private final Semaphore memorySemaphore;
     private final Semaphore totalSemaphore;
 
@@ -77,7 +99,7 @@ public class SwappingSendQueueFactory implements SendQueueFactory, Closeable {
         final int memoryElements,
         final int offHeapElements
     ) {
-        this(stores, memoryElements, offHeapElements, new LinkedHydra<>());
+        this(stores, memoryElements, offHeapElements, new ConcurrentHydra<>());
     }
 
     @Override
@@ -96,6 +118,11 @@ public class SwappingSendQueueFactory implements SendQueueFactory, Closeable {
 
         private final Hydra.SubQueue<Element> elements;
 
+        /** Elements put back to the head of the queue, they are persisted and hold no permits. **/
+        private final ConcurrentLinkedDeque<Element> requeued = new ConcurrentLinkedDeque<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
         public OffHeapSendQueue(final String id) throws IOException {
             this.store = SwappingSendQueueFactory.this.stores.getStore(new Prefix(id));
 
@@ -103,7 +130,8 @@ public class SwappingSendQueueFactory implements SendQueueFactory, Closeable {
 
             this.store.iterate(key -> {
                 try {
-                    this.elements.put(new Element(Bytes.concat(key)));
+                    this.elements.put(new Element(this.store, Bytes.concat(key)));
+                    this.size.incrementAndGet();
                 } catch (final InterruptedException ex) {
                     Thread.currentThread().interrupt();
                     throw new RuntimeException(ex);
@@ -117,24 +145,22 @@ public class SwappingSendQueueFactory implements SendQueueFactory, Closeable {
                 Longs.toByteArray(System.currentTimeMillis()),
                 Longs.toByteArray(SwappingSendQueueFactory.this.blockId.getAndIncrement()));
 
-            final var newElement = new Element(key, message);
+            final var newElement = new Element(this.store, key, message);
 
             // Block until new element can be accepted
             SwappingSendQueueFactory.this.totalSemaphore.acquire();
 
             // Persist elements until memory block becomes available
             while (!SwappingSendQueueFactory.this.memorySemaphore.tryAcquire()) {
-                // Move the oldest memory block to off-heap
+                // Move the oldest memory blocks to off-heap
                 try {
-                    final var memoryBlock = SwappingSendQueueFactory.this.hydra.poll();
-                    if (memoryBlock == null) {
+                    final var persisted = SwappingSendQueueFactory.this.spill();
+                    if (persisted == 0) {
                         Thread.yield();
                         continue;
                     }
 
-                    memoryBlock.persist(this.store);
-
-                    SwappingSendQueueFactory.this.memorySemaphore.release();
+                    SwappingSendQueueFactory.this.memorySemaphore.release(persisted);
                 } catch (final IOException e) {
                     // TODO fooker: Add exception to method signature
                     throw new RuntimeException(e);
@@ -143,19 +169,106 @@ public class SwappingSendQueueFactory implements SendQueueFactory, Closeable {
 
             // Now we have room in memory for a block
             this.elements.put(newElement);
+            this.size.incrementAndGet();
+        }
+
+        @Override
+        public void requeue(final byte[] message) {
+            // Keys of enqueued elements start with a timestamp, so a leading zero sorts this key before all of them.
+            // The second half sorts it before the elements requeued earlier, even across restarts.
+            final long now = System.currentTimeMillis();
+            final long order = SwappingSendQueueFactory.this.requeueOrder
+                .updateAndGet(last -> Math.min(last, Long.MAX_VALUE - now * 1000) - 1);
+            final var key = Bytes.concat(Longs.toByteArray(0L), Longs.toByteArray(order));
+
+            try {
+                this.store.put(key, message);
+            } catch (final IOException e) {
+                // TODO fooker: Add exception to method signature
+                throw new RuntimeException(e);
+            }
+            this.requeued.addFirst(new Element(this.store, key));
+            this.size.incrementAndGet();
+        }
+
+        @Override
+        public int size() {
+            return this.size.get();
+        }
+
+        /**
+         * Takes the element most recently put back to the head of the queue, if any.
+         */
+        private byte[] pollRequeued() throws IOException {
+            final var element = this.requeued.pollFirst();
+            if (element == null) {
+                return null;
+            }
+            this.size.decrementAndGet();
+            return element.read(this.store);
+        }
+
+        @Override
+        public List<byte[]> dequeue(final int maxElements, final long maxBytes) throws InterruptedException {
+            final List<byte[]> messages = new ArrayList<>(Math.min(maxElements, SPILL_BATCH_SIZE));
+            int taken = 0;
+            int inMemory = 0;
+            long bytes = 0;
+            try {
+                final var requeuedMessage = this.pollRequeued();
+                if (requeuedMessage != null) {
+                    return List.of(requeuedMessage);
+                }
+
+                var element = this.elements.take();
+                do {
+                    taken++;
+                    this.size.decrementAndGet();
+                    final var message = element.read(this.store);
+                    if (element.isInMemory()) {
+                        inMemory++;
+                    }
+                    messages.add(message);
+                    bytes += message.length;
+                } while (messages.size() < maxElements && bytes < maxBytes && (element = this.elements.poll()) != null);
+
+                return messages;
+            } catch (final IOException ex) {
+                if (!messages.isEmpty()) {
+                    // Do not lose the messages already read - the failed one is gone either way
+                    LOG.warn("Failed to read message from queue - returning partial batch of {} messages", messages.size(), ex);
+                    return messages;
+                }
+
+                // TODO fooker: Add exception to method signature
+                throw new RuntimeException(ex);
+            } finally {
+                // Hand back the permits of the whole batch at once
+                SwappingSendQueueFactory.this.totalSemaphore.release(taken);
+                SwappingSendQueueFactory.this.memorySemaphore.release(inMemory);
+            }
         }
 
         @Override
         public byte[] dequeue() throws InterruptedException {
             try {
+                final var requeuedMessage = this.pollRequeued();
+                if (requeuedMessage != null) {
+                    return requeuedMessage;
+                }
+
                 final var element = this.elements.take();
 
                 SwappingSendQueueFactory.this.totalSemaphore.release();
+                this.size.decrementAndGet();
+
+                // Reading marks the element as consumed, so it can not be spilled after checking where it is
+                final var message = element.read(this.store);
                 if (element.isInMemory()) {
                     SwappingSendQueueFactory.this.memorySemaphore.release();
                 }
 
-                return element.read(this.store);
+                return message;
             } catch (final IOException ex) {
                 // TODO fooker: Add exception to method signature
                 throw new RuntimeException(ex);
@@ -164,50 +277,112 @@ public class SwappingSendQueueFactory implements SendQueueFactory, Closeable {
 
         @Override
         public void close() throws Exception {
+            final List<Element> remaining = new ArrayList<>();
             for (Element element = this.elements.poll(); element != null; element = this.elements.poll()) {
-                element.persist(this.store);
+                remaining.add(element);
             }
+            Element.persist(this.store, remaining);
 
             this.store.close();
         }
     }
 
-    public class Element {
+    /**
+     * Moves up to {@link #SPILL_BATCH_SIZE} of the oldest in-memory elements to their stores, writing the elements of
+     * each store at once.
+     *
+     * @return the number of elements which have been moved off-heap
+     */
+    private int spill() throws IOException {
+        final Map<Store, List<Element>> elementsByStore = new IdentityHashMap<>();
+        for (int i = 0; i < SPILL_BATCH_SIZE; i++) {
+            final var element = this.hydra.poll();
+            if (element == null) {
+                break;
+            }
+            elementsByStore.computeIfAbsent(element.store, store -> new ArrayList<>()).add(element);
+        }
+
+        int persisted = 0;
+        for (final var entry : elementsByStore.entrySet()) {
+            persisted += Element.persist(entry.getKey(), entry.getValue());
+        }
+        return persisted;
+    }
+
+    public static class Element {
         public final byte[] key;
 
-        private final byte[] message;
+        /** The store of the queue this element belongs to. **/
+        private final Store store;
+
+        /** The message while it is kept in memory, {@code null} once it has been persisted. **/
+        private byte[] message;
+
+        /** Whether the element has been taken from its queue. **/
+        private boolean consumed = false;
 
         /** Lock for database access. **/
         private final Lock lock = new ReentrantLock();
 
-        public Element(final byte[] key,
+        public Element(final Store store,
+                       final byte[] key,
                        final byte[] message) {
+            this.store = Objects.requireNonNull(store);
             this.key = Objects.requireNonNull(key);
             this.message = Objects.requireNonNull(message);
         }
 
-        public Element(final byte[] key) {
+        public Element(final Store store,
+                       final byte[] key) {
+            this.store = Objects.requireNonNull(store);
             this.key = Objects.requireNonNull(key);
             this.message = null;
         }
 
-        private void persist(final Store store) throws IOException {
-            this.lock.lock();
+        /**
+         * Writes the in-memory messages of the given elements to the store at once and drops them from memory.
+         *
+         * @return the number of elements which have been moved off-heap
+         */
+        private static int persist(final Store store, final List<Element> elements) throws IOException {
+            // Hold the locks of all elements until the batch is written, so no element is read half-way persisted
+            final List<Element> locked = new ArrayList<>(elements.size());
             try {
-                if (this.message == null) {
-                    // Already persisted
-                    return;
+                final Collection<Map.Entry<byte[], byte[]>> entries = new ArrayList<>(elements.size());
+                for (final var element : elements) {
+                    element.lock.lock();
+                    locked.add(element);
+
+                    if (element.message == null || element.consumed) {
+                        // Already persisted or already taken from the queue
+                        continue;
+                    }
+                    entries.add(Map.entry(element.key, element.message));
+                }
+
+                if (entries.isEmpty()) {
+                    return 0;
                 }
+                store.putAll(entries);
 
-                store.put(key, this.message);
+                for (final var element : locked) {
+                    if (!element.consumed) {
+                        element.message = null;
+                    }
+                }
+                return entries.size();
             } finally {
-                this.lock.unlock();
+                for (final var element : locked) {
+                    element.lock.unlock();
+                }
             }
         }
 
         private byte[] read(final Store store) throws IOException {
             this.lock.lock();
             try {
+                this.consumed = true;
                 if (this.message != null) {
                     // Still in memory
                     return this.message;
@@ -247,6 +422,15 @@ public class SwappingSendQueueFactory implements SendQueueFactory, Closeable {
 
         void put(final byte[] key, final byte[] message) throws IOException;
 
+        /**
+         * Puts all entries at once.
+         */
+        default void putAll(final Collection<Map.Entry<byte[], byte[]>> entries) throws IOException {
+            for (final var entry : entries) {
+                this.put(entry.getKey(), entry.getValue());
+            }
+        }
+
         void iterate(final Consumer<byte[]> f);
     }
 }
@@ -55,6 +55,7 @@ import org.opennms.cloud.grpc.minion.RpcResponseProto;
 import org.opennms.horizon.minion.grpc.rpc.RpcRequestHandler;
 import org.opennms.horizon.minion.grpc.channel.ManagedChannelFactory;
 import org.opennms.horizon.shared.ipc.rpc.IpcIdentity;
+import org.opennms.horizon.shared.ipc.sink.api.SendQueue;
 import org.opennms.horizon.shared.ipc.sink.api.SendQueueFactory;
 
 import java.util.concurrent.CompletableFuture;
@@ -110,10 +111,17 @@ public class MinionGrpcClientTest {
     private IpcIdentity testIpcIdentity;
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws Exception {
         mockMetricRegistry = Mockito.mock(MetricRegistry.class);
         mockTracer = Mockito.mock(Tracer.class);
         mockSendQueueFactory = Mockito.mock(SendQueueFactory.class);
+        // The sink retry queue is created on start, its empty queue blocks until the client is shut down
+        SendQueue mockSendQueue = Mockito.mock(SendQueue.class);
+        Mockito.lenient().when(mockSendQueue.dequeue()).thenAnswer(invocation -> {
+            Thread.sleep(Long.MAX_VALUE);
+            return null;
+        });
+        Mockito.lenient().when(mockSendQueueFactory.createQueue(Mockito.anyString())).thenReturn(mockSendQueue);
         mockSimpleReconnectStrategyFactory = Mockito.mock(MinionGrpcClient.SimpleReconnectStrategyFactory.class);
         mockSimpleReconnectStrategy = Mockito.mock(SimpleReconnectStrategy.class);
         mockNewStubOperation = Mockito.mock(Function.class);
@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.grpc;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Empty;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opennms.cloud.grpc.minion.CloudServiceGrpc;
+import org.opennms.cloud.grpc.minion.MinionToCloudMessage;
+import org.opennms.cloud.grpc.minion.SinkMessage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SinkMessageSenderTest {
+
+    private static final int PAYLOAD_SIZE = 1000;
+
+    private final ThrottledCloudService cloudService = new ThrottledCloudService();
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).addService(cloudService).directExecutor().build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testPayloadsArePackedIntoFrames() throws Exception {
+        SinkMessageSender sender = new SinkMessageSender(10 * PAYLOAD_SIZE, 1000L * PAYLOAD_SIZE);
+        connect(sender);
+
+        // Nothing is read until all messages are buffered
+        for (int i = 0; i < 100; i++) {
+            assertTrue(sender.send(sinkMessage(i), false));
+        }
+        cloudService.read(Integer.MAX_VALUE);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> cloudService.received.size() == 100);
+        assertEquals(IntStream.range(0, 100).mapToObj(Integer::toString).collect(Collectors.toList()), receivedIds());
+        assertTrue(cloudService.frames.get() <= 100 / 5, "Expected batched frames but got " + cloudService.frames.get());
+        assertEquals(0, sender.getBufferedBytes());
+    }
+
+    @Test
+    void testBufferStaysBoundedWhileGatewayIsSlow() throws Exception {
+        long maxBufferedBytes = 10L * PAYLOAD_SIZE;
+        SinkMessageSender sender = new SinkMessageSender(2 * PAYLOAD_SIZE, maxBufferedBytes);
+        connect(sender);
+
+        int messages = 200;
+        AtomicLong peakBufferedBytes = new AtomicLong();
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < messages; i++) {
+                try {
+                    assertTrue(sender.send(sinkMessage(i), true));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                peakBufferedBytes.accumulateAndGet(sender.getBufferedBytes(), Math::max);
+            }
+        }, executor);
+
+        // The producer has to wait for the gateway once the buffer is full
+        int messageSize = sinkMessage(0).getSerializedSize();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> sender.getBufferedBytes() + messageSize > maxBufferedBytes);
+        await().pollDelay(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> !producer.isDone());
+        assertFalse(sender.send(sinkMessage(-1), false));
+
+        // Read one frame every few milliseconds
+        executor.scheduleAtFixedRate(() -> cloudService.read(1), 0, 2, TimeUnit.MILLISECONDS);
+
+        producer.get(30, TimeUnit.SECONDS);
+        await().atMost(10, TimeUnit.SECONDS).until(() -> cloudService.received.size() == messages);
+        assertEquals(IntStream.range(0, messages).mapToObj(Integer::toString).collect(Collectors.toList()), receivedIds());
+        assertTrue(peakBufferedBytes.get() <= maxBufferedBytes + messageSize,
+            "Buffer grew to " + peakBufferedBytes.get());
+    }
+
+    @Test
+    void testSendAllBuffersWhatFits() throws Exception {
+        int messageSize = sinkMessage(0).getSerializedSize();
+        SinkMessageSender sender = new SinkMessageSender(10 * PAYLOAD_SIZE, 5L * messageSize);
+        connect(sender);
+
+        List<SinkMessage> messages = IntStream.range(0, 8).mapToObj(SinkMessageSenderTest::sinkMessage).collect(Collectors.toList());
+        assertEquals(5, sender.sendAll(messages, false));
+        assertEquals(0, sender.sendAll(messages.subList(5, 8), false));
+
+        cloudService.read(Integer.MAX_VALUE);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> sender.getBufferedBytes() == 0);
+        assertEquals(3, sender.sendAll(messages.subList(5, 8), false));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> cloudService.received.size() == 8);
+        assertEquals(IntStream.range(0, 8).mapToObj(Integer::toString).collect(Collectors.toList()), receivedIds());
+    }
+
+    @Test
+    void testMessagesAreRejectedWithoutStream() throws Exception {
+        SinkMessageSender sender = new SinkMessageSender(PAYLOAD_SIZE, PAYLOAD_SIZE);
+        assertFalse(sender.send(sinkMessage(0), true));
+
+        connect(sender);
+        sender.detach();
+        assertFalse(sender.send(sinkMessage(1), true));
+    }
+
+    @Test
+    void testFlushWaitsForBufferedMessages() throws Exception {
+        SinkMessageSender sender = new SinkMessageSender(PAYLOAD_SIZE, 10L * PAYLOAD_SIZE);
+        connect(sender);
+        int accepted = fill(sender);
+        assertFalse(sender.flush(100));
+
+        executor.schedule(() -> cloudService.read(Integer.MAX_VALUE), 100, TimeUnit.MILLISECONDS);
+        assertTrue(sender.flush(5000));
+        assertEquals(0, sender.getBufferedBytes());
+        await().atMost(5, TimeUnit.SECONDS).until(() -> cloudService.received.size() == accepted);
+    }
+
+    @Test
+    void testCloseHandsBackUnsentMessages() throws Exception {
+        SinkMessageSender sender = new SinkMessageSender(PAYLOAD_SIZE, 10L * PAYLOAD_SIZE);
+        connect(sender);
+        int accepted = fill(sender);
+
+        List<SinkMessage> unsent = sender.close();
+        assertFalse(unsent.isEmpty());
+        assertEquals(0, sender.getBufferedBytes());
+        assertFalse(sender.send(sinkMessage(accepted), true));
+        // The messages still buffered are the last ones accepted, oldest first
+        assertEquals(IntStream.range(accepted - unsent.size(), accepted).mapToObj(Integer::toString).collect(Collectors.toList()),
+            unsent.stream().map(SinkMessage::getMessageId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Sends messages until both the transport and the buffer are full, since nothing is read.
+     *
+     * @return the number of messages accepted
+     */
+    private static int fill(SinkMessageSender sender) throws InterruptedException {
+        int accepted = 0;
+        while (sender.send(sinkMessage(accepted), false)) {
+            accepted++;
+        }
+        return accepted;
+    }
+
+    private void connect(SinkMessageSender sender) {
+        StreamObserver<MinionToCloudMessage> stream = CloudServiceGrpc.newStub(channel)
+            .minionToCloudMessages(new ClientResponseObserver<MinionToCloudMessage, Empty>() {
+                @Override
+                public void beforeStart(ClientCallStreamObserver<MinionToCloudMessage> requestStream) {
+                    requestStream.setOnReadyHandler(sender::drain);
+                }
+
+                @Override
+                public void onNext(Empty value) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            });
+        sender.attach(stream);
+    }
+
+    private List<String> receivedIds() {
+        return cloudService.received.stream().map(SinkMessage::getMessageId).collect(Collectors.toList());
+    }
+
+    private static SinkMessage sinkMessage(int id) {
+        return SinkMessage.newBuilder()
+            .setMessageId(Integer.toString(id))
+            .setModuleId("test")
+            .setContent(ByteString.copyFrom(new byte[PAYLOAD_SIZE]))
+            .build();
+    }
+
+    /**
+     * Only reads frames from the stream when told to.
+     */
+    private static class ThrottledCloudService extends CloudServiceGrpc.CloudServiceImplBase {
+        private final List<SinkMessage> received = new CopyOnWriteArrayList<>();
+        private final AtomicInteger frames = new AtomicInteger();
+        private volatile ServerCallStreamObserver<Empty> call;
+
+        void read(int count) {
+            if (call != null) {
+                call.request(count);
+            }
+        }
+
+        @Override
+        public StreamObserver<MinionToCloudMessage> minionToCloudMessages(StreamObserver<Empty> responseObserver) {
+            call = (ServerCallStreamObserver<Empty>) responseObserver;
+            call.disableAutoRequest();
+            return new StreamObserver<>() {
+                @Override
+                public void onNext(MinionToCloudMessage message) {
+                    frames.incrementAndGet();
+                    if (message.hasSinkMessageBatch()) {
+                        received.addAll(message.getSinkMessageBatch().getSinkMessagesList());
+                    } else {
+                        received.add(message.getSinkMessage());
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                    responseObserver.onNext(Empty.getDefaultInstance());
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.grpc;
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opennms.cloud.grpc.minion.SinkMessage;
+import org.opennms.horizon.minion.grpc.queue.RocksDbStore;
+import org.opennms.horizon.minion.grpc.queue.SwappingSendQueueFactory;
+import org.opennms.horizon.shared.ipc.sink.api.SendQueue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SinkRetryQueueTest {
+
+    private final InMemorySendQueue sendQueue = new InMemorySendQueue();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final List<Long> attempts = new CopyOnWriteArrayList<>();
+    private final Set<Thread> senderThreads = ConcurrentHashMap.newKeySet();
+    private volatile boolean connected = false;
+    private SinkRetryQueue retryQueue;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (retryQueue != null) {
+            retryQueue.close();
+        }
+    }
+
+    @Test
+    void testMessagesAreSentInOrderOnceConnected() throws Exception {
+        retryQueue = new SinkRetryQueue(sendQueue, this::send, 1000, 10, 100);
+
+        for (int i = 0; i < 100; i++) {
+            retryQueue.add(sinkMessage(i));
+        }
+        assertFalse(retryQueue.isEmpty());
+
+        connected = true;
+        retryQueue.wakeUp();
+
+        await().atMost(5, TimeUnit.SECONDS).until(retryQueue::isEmpty);
+        assertEquals(IntStream.range(0, 100).mapToObj(Integer::toString).collect(Collectors.toList()), sent);
+        assertEquals(1, senderThreads.size());
+    }
+
+    @Test
+    void testRetriesBackOffWithJitter() throws Exception {
+        retryQueue = new SinkRetryQueue(sendQueue, this::send, 1000, 20, 80);
+        retryQueue.add(sinkMessage(0));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> attempts.size() >= 6);
+        connected = true;
+        await().atMost(5, TimeUnit.SECONDS).until(retryQueue::isEmpty);
+
+        List<Long> delays = new ArrayList<>();
+        for (int i = 1; i < 6; i++) {
+            delays.add(attempts.get(i) - attempts.get(i - 1));
+        }
+        // Backoff doubles from 20ms up to 80ms, each delay being at least half of it
+        assertTrue(delays.get(0) >= 10, "Delays: " + delays);
+        assertTrue(delays.get(1) >= 20, "Delays: " + delays);
+        assertTrue(delays.stream().skip(2).allMatch(delay -> delay >= 40), "Delays: " + delays);
+        assertEquals(List.of("0"), sent);
+    }
+
+    @Test
+    void testProducersWaitWhenTooManyRetriesAreOutstanding() throws Exception {
+        retryQueue = new SinkRetryQueue(sendQueue, this::send, 10, 10, 10);
+        for (int i = 0; i < 10; i++) {
+            retryQueue.add(sinkMessage(i));
+        }
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            try {
+                retryQueue.add(sinkMessage(10));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        await().pollDelay(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> !producer.isDone());
+        assertEquals(10, retryQueue.size());
+
+        connected = true;
+        producer.get(5, TimeUnit.SECONDS);
+        await().atMost(5, TimeUnit.SECONDS).until(retryQueue::isEmpty);
+        assertEquals(IntStream.rangeClosed(0, 10).mapToObj(Integer::toString).collect(Collectors.toList()), sent);
+    }
+
+    @Test
+    void testRestoredMessagesAreSentFirstAfterRestart(@TempDir Path storeDirectory) throws Exception {
+        var factory = new SwappingSendQueueFactory(new RocksDbStore(storeDirectory), 5, 100);
+        retryQueue = new SinkRetryQueue(factory.createQueue("sink-retry"), this::send, 10, 10, 10);
+        for (int i = 0; i < 10; i++) {
+            retryQueue.add(sinkMessage(i));
+        }
+        // The first message is being retried when the queue is closed, and must be put back at the head
+        await().atMost(5, TimeUnit.SECONDS).until(() -> attempts.size() >= 2);
+        retryQueue.close();
+        factory.close();
+
+        factory = new SwappingSendQueueFactory(new RocksDbStore(storeDirectory), 5, 100);
+        try {
+            retryQueue = new SinkRetryQueue(factory.createQueue("sink-retry"), this::send, 10, 10, 10);
+            assertEquals(10, retryQueue.size());
+            assertFalse(retryQueue.isEmpty());
+
+            connected = true;
+            retryQueue.wakeUp();
+            await().atMost(5, TimeUnit.SECONDS).until(retryQueue::isEmpty);
+            assertEquals(IntStream.range(0, 10).mapToObj(Integer::toString).collect(Collectors.toList()), sent);
+            assertEquals(0, retryQueue.size());
+
+            // Restored messages hand back only the permits they took, so the limit still holds
+            connected = false;
+            for (int i = 10; i < 20; i++) {
+                retryQueue.add(sinkMessage(i));
+            }
+            CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+                try {
+                    retryQueue.add(sinkMessage(20));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            await().pollDelay(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> !producer.isDone());
+            assertEquals(10, retryQueue.size());
+
+            connected = true;
+            producer.get(5, TimeUnit.SECONDS);
+            await().atMost(5, TimeUnit.SECONDS).until(retryQueue::isEmpty);
+        } finally {
+            retryQueue.close();
+            retryQueue = null;
+            factory.close();
+        }
+    }
+
+    @Test
+    void testUnsentMessagesAreSentFirstAfterRestart(@TempDir Path storeDirectory) throws Exception {
+        var factory = new SwappingSendQueueFactory(new RocksDbStore(storeDirectory), 5, 100);
+        retryQueue = new SinkRetryQueue(factory.createQueue("sink-retry"), this::send, 10, 10, 10);
+        for (int i = 2; i < 7; i++) {
+            retryQueue.add(sinkMessage(i));
+        }
+        // Messages still buffered for the stream on shutdown are older than the ones waiting for a retry
+        retryQueue.close(List.of(sinkMessage(0), sinkMessage(1)));
+        factory.close();
+
+        factory = new SwappingSendQueueFactory(new RocksDbStore(storeDirectory), 5, 100);
+        try {
+            connected = true;
+            retryQueue = new SinkRetryQueue(factory.createQueue("sink-retry"), this::send, 10, 10, 10);
+            await().atMost(5, TimeUnit.SECONDS).until(retryQueue::isEmpty);
+            assertEquals(IntStream.range(0, 7).mapToObj(Integer::toString).collect(Collectors.toList()), sent);
+        } finally {
+            retryQueue.close();
+            retryQueue = null;
+            factory.close();
+        }
+    }
+
+    private boolean send(SinkMessage message) {
+        senderThreads.add(Thread.currentThread());
+        attempts.add(System.currentTimeMillis());
+        if (connected) {
+            sent.add(message.getMessageId());
+            return true;
+        }
+        return false;
+    }
+
+    private static SinkMessage sinkMessage(int id) {
+        return SinkMessage.newBuilder()
+            .setMessageId(Integer.toString(id))
+            .setModuleId("test")
+            .setContent(ByteString.copyFromUtf8("payload"))
+            .build();
+    }
+
+    private static class InMemorySendQueue implements SendQueue {
+        private final BlockingDeque<byte[]> queue = new LinkedBlockingDeque<>();
+
+        @Override
+        public void enqueue(byte[] message) throws InterruptedException {
+            queue.put(message);
+        }
+
+        @Override
+        public byte[] dequeue() throws InterruptedException {
+            return queue.take();
+        }
+
+        @Override
+        public void requeue(byte[] message) throws InterruptedException {
+            queue.putFirst(message);
+        }
+
+        @Override
+        public int size() {
+            return queue.size();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.grpc.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentHydraTest extends HydraTest {
+
+    @Override
+    protected Hydra<Integer> spawn() {
+        return new ConcurrentHydra<>();
+    }
+
+    @Test
+    public void testGlobalQueueSkipsTakenElements() throws InterruptedException {
+        final var hydra = this.spawn();
+        final var queues = List.of(hydra.queue(), hydra.queue(), hydra.queue());
+
+        for (int i = 0; i < 30; i++) {
+            queues.get(i % 3).put(i);
+        }
+
+        assertEquals(0, queues.get(0).take());
+        assertEquals(3, queues.get(0).take());
+        assertEquals(1, hydra.poll());
+        assertEquals(1, queues.get(1).take());
+
+        final var expected = IntStream.range(2, 30).filter(i -> i != 3).boxed().collect(Collectors.toList());
+        final var polled = new ArrayList<Integer>();
+        for (var element = hydra.poll(); element != null; element = hydra.poll()) {
+            polled.add(element);
+        }
+        assertEquals(expected, polled);
+
+        // Handing out the elements to the global queue keeps them in their sub-queues
+        assertEquals(6, queues.get(0).take());
+        assertEquals(4, queues.get(1).take());
+        assertEquals(2, queues.get(2).take());
+    }
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.grpc.queue;
+
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the hydra implementations on the path every sink message takes through the send queue: each thread puts
+ * an element into its own sub-queue and takes one out again, while a backlog of elements is kept in the queues.
+ */
+public class HydraBenchmark {
+
+    // elements kept in each sub-queue, similar to a send queue which is not drained right away
+    public static final int BACKLOG = 1024;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    public enum Implementation {
+        NAIVE(NaiveHydra::new),
+        LINKED(LinkedHydra::new),
+        CONCURRENT(ConcurrentHydra::new);
+
+        private final Supplier<Hydra<Integer>> factory;
+
+        Implementation(final Supplier<Hydra<Integer>> factory) {
+            this.factory = factory;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HydraState {
+
+        @Param({"NAIVE", "LINKED", "CONCURRENT"})
+        public Implementation implementation;
+
+        private Hydra<Integer> hydra;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            hydra = implementation.factory.get();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class QueueState {
+
+        private Hydra.SubQueue<Integer> queue;
+
+        @Setup(Level.Trial)
+        public void setup(final HydraState state) throws InterruptedException {
+            queue = state.hydra.queue();
+            for (int i = 0; i < BACKLOG; i++) {
+                queue.put(i);
+            }
+        }
+    }
+
+    private static Integer putAndTake(final QueueState state) throws InterruptedException {
+        state.queue.put(42);
+        return state.queue.take();
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    @Threads(1)
+    public Integer putAndTake1Thread(final QueueState state) throws InterruptedException {
+        return putAndTake(state);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    @Threads(8)
+    public Integer putAndTake8Threads(final QueueState state) throws InterruptedException {
+        return putAndTake(state);
+    }
+}
@@ -30,6 +30,18 @@ package org.opennms.horizon.minion.grpc.queue;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.Test;
 
@@ -92,4 +104,66 @@ public abstract class HydraTest {
         assertNull(hydra.poll());
     }
 
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final int queues = 4;
+        final int producersPerQueue = 2;
+        final int elementsPerProducer = 20_000;
+
+        final var hydra = this.spawn();
+        final ExecutorService executor = Executors.newFixedThreadPool(queues * (producersPerQueue + 1) + 1);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int q = 0; q < queues; q++) {
+                final var queue = hydra.queue();
+                for (int p = 0; p < producersPerQueue; p++) {
+                    final int producer = q * producersPerQueue + p;
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < elementsPerProducer; i++) {
+                            queue.put(producer * elementsPerProducer + i);
+                        }
+                        return null;
+                    }));
+                }
+
+                // Elements of each producer must be taken in the order they were put
+                futures.add(executor.submit(() -> {
+                    final var last = new int[queues * producersPerQueue];
+                    Arrays.fill(last, -1);
+                    for (int i = 0; i < producersPerQueue * elementsPerProducer; i++) {
+                        final int element = queue.take();
+                        final int producer = element / elementsPerProducer;
+                        assertTrue(element % elementsPerProducer > last[producer]);
+                        last[producer] = element % elementsPerProducer;
+                    }
+                    return null;
+                }));
+            }
+
+            // The global queue hands out each element at most once, while the sub-queues are in use
+            final Set<Integer> polled = ConcurrentHashMap.newKeySet();
+            final var done = new AtomicBoolean(false);
+            final var poller = executor.submit(() -> {
+                while (!done.get()) {
+                    final var element = hydra.poll();
+                    if (element != null) {
+                        assertTrue(polled.add(element));
+                    }
+                }
+                return null;
+            });
+
+            for (final var future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            poller.get(10, TimeUnit.SECONDS);
+
+            // Everything has been taken, so nothing is left in the global queue
+            assertNull(hydra.poll());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.grpc.queue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opennms.horizon.shared.ipc.sink.api.SendQueue;
+
+/**
+ * Measures how fast a disconnected minion can move sink messages to disk, and read them back once it is connected
+ * again. Each invocation spills or drains {@link #ELEMENTS} messages to or from a fresh store in a temp directory.
+ */
+public class RocksDbStoreBenchmark {
+
+    public static final int ELEMENTS = 1_000_000;
+
+    // same as the default of sendQueue.memory
+    public static final int MEMORY_ELEMENTS = 4096;
+
+    public static final int MESSAGE_SIZE = 512;
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    private abstract static class QueueState {
+        protected final byte[] message = new byte[MESSAGE_SIZE];
+
+        protected Path folder;
+        protected SwappingSendQueueFactory factory;
+        protected SendQueue queue;
+
+        protected void open() throws Exception {
+            ThreadLocalRandom.current().nextBytes(message);
+
+            folder = Files.createTempDirectory("rocksdb-benchmark");
+            factory = new SwappingSendQueueFactory(new RocksDbStore(folder), MEMORY_ELEMENTS, ELEMENTS);
+            queue = factory.createQueue("benchmark");
+        }
+
+        protected void close() throws Exception {
+            queue.close();
+            factory.close();
+            try (var files = Files.walk(folder)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SpillState extends QueueState {
+
+        @Setup(Level.Iteration)
+        public void setup() throws Exception {
+            open();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws Exception {
+            close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DrainState extends QueueState {
+
+        @Setup(Level.Iteration)
+        public void setup() throws Exception {
+            open();
+            for (int i = 0; i < ELEMENTS; i++) {
+                queue.enqueue(message);
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws Exception {
+            close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(ELEMENTS)
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void spill(SpillState state) throws InterruptedException {
+        for (int i = 0; i < ELEMENTS; i++) {
+            state.queue.enqueue(state.message);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(ELEMENTS)
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void drain(DrainState state, Blackhole blackhole) throws InterruptedException {
+        for (int i = 0; i < ELEMENTS; i++) {
+            blackhole.consume(state.queue.dequeue());
+        }
+    }
+}
@@ -107,6 +107,33 @@ public class SwappingSendQueueFactoryTest {
         assertArrayEquals("9".getBytes(), otherQueue.dequeue());
     }
 
+    @Test
+    public void testRequeueRestoresAtHead() throws Exception {
+        final var queue = this.factory.createQueue("test");
+        queue.enqueue("0".getBytes());
+        queue.enqueue("1".getBytes());
+        queue.enqueue("2".getBytes());
+        assertEquals(3, queue.size());
+
+        final var head = queue.dequeue();
+        assertArrayEquals("0".getBytes(), head);
+        assertEquals(2, queue.size());
+        queue.requeue(head);
+        assertEquals(3, queue.size());
+
+        queue.close();
+
+        final var otherQueue = this.factory.createQueue("test");
+        assertEquals(3, otherQueue.size());
+
+        assertArrayEquals("0".getBytes(), otherQueue.dequeue());
+        otherQueue.requeue("0".getBytes());
+        assertArrayEquals("0".getBytes(), otherQueue.dequeue());
+        assertArrayEquals("1".getBytes(), otherQueue.dequeue());
+        assertArrayEquals("2".getBytes(), otherQueue.dequeue());
+        assertEquals(0, otherQueue.size());
+    }
+
     @Test
     public void testMemoryStealing() throws Exception {
         final var queueA = this.factory.createQueue("testA");
@@ -121,7 +148,79 @@ public class SwappingSendQueueFactoryTest {
 
         queueB.enqueue("test-b-0".getBytes());
 
-        assertEquals(0, this.factory.getMemoryPermits());
+        // The elements of the first queue are moved off-heap in one batch, freeing all but the one taken
+        assertEquals(MEMORY_ELEMENTS - 1, this.factory.getMemoryPermits());
+    }
+
+    @Test
+    public void testSpilledElementsReleaseMemory() throws Exception {
+        final var queue = this.factory.createQueue("test");
+        for (int i = 0; i < MEMORY_ELEMENTS + OFF_HEAP_ELEMENTS; i++) {
+            queue.enqueue(Integer.toString(i).getBytes());
+        }
+
+        assertEquals(0, this.factory.getTotalPermits());
+
+        for (int i = 0; i < MEMORY_ELEMENTS + OFF_HEAP_ELEMENTS; i++) {
+            assertArrayEquals(Integer.toString(i).getBytes(), queue.dequeue());
+        }
+
+        // Every permit is given back exactly once
+        assertEquals(MEMORY_ELEMENTS, this.factory.getMemoryPermits());
+        assertEquals(MEMORY_ELEMENTS + OFF_HEAP_ELEMENTS, this.factory.getTotalPermits());
+    }
+
+    @Test
+    public void testElementsAreSpilledToTheirOwnQueue() throws Exception {
+        final var queueA = this.factory.createQueue("testA");
+        final var queueB = this.factory.createQueue("testB");
+
+        for (int i = 0; i < MEMORY_ELEMENTS; i++) {
+            queueA.enqueue(String.format("test-a-%d", i).getBytes());
+        }
+
+        // Spills the elements of the first queue
+        queueB.enqueue("test-b-0".getBytes());
+
+        assertArrayEquals("test-b-0".getBytes(), queueB.dequeue());
+        for (int i = 0; i < MEMORY_ELEMENTS; i++) {
+            assertArrayEquals(String.format("test-a-%d", i).getBytes(), queueA.dequeue());
+        }
+    }
+
+    @Test
+    public void testBatchDequeue() throws Exception {
+        final var queue = this.factory.createQueue("test");
+        for (int i = 0; i < MEMORY_ELEMENTS + OFF_HEAP_ELEMENTS; i++) {
+            queue.enqueue(Integer.toString(i).getBytes());
+        }
+
+        // Batches span in-memory and off-heap elements and never exceed the element limit
+        final var first = queue.dequeue(8, Long.MAX_VALUE);
+        assertEquals(8, first.size());
+        final var second = queue.dequeue(8, Long.MAX_VALUE);
+        assertEquals(MEMORY_ELEMENTS + OFF_HEAP_ELEMENTS - 8, second.size());
+
+        final var all = Lists.newArrayList(first);
+        all.addAll(second);
+        for (int i = 0; i < MEMORY_ELEMENTS + OFF_HEAP_ELEMENTS; i++) {
+            assertArrayEquals(Integer.toString(i).getBytes(), all.get(i));
+        }
+
+        assertEquals(MEMORY_ELEMENTS, this.factory.getMemoryPermits());
+        assertEquals(MEMORY_ELEMENTS + OFF_HEAP_ELEMENTS, this.factory.getTotalPermits());
+    }
+
+    @Test
+    public void testBatchDequeueStopsAtByteLimit() throws Exception {
+        final var queue = this.factory.createQueue("test");
+        for (int i = 0; i < MEMORY_ELEMENTS; i++) {
+            queue.enqueue(new byte[10]);
+        }
+
+        // The element exceeding the limit is still part of the batch
+        assertEquals(3, queue.dequeue(MEMORY_ELEMENTS, 25).size());
+        assertEquals(2, queue.dequeue(MEMORY_ELEMENTS, 25).size());
     }
 
     @Test
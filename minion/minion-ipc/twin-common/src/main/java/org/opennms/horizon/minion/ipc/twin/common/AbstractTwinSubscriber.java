@@ -57,6 +57,9 @@ import org.opennms.cloud.grpc.minion.TwinResponseProto;
 import org.opennms.horizon.minion.ipc.twin.api.TwinSubscriber;
 import org.opennms.horizon.shared.ipc.rpc.IpcIdentity;
 import org.opennms.horizon.shared.protobuf.marshalling.ProtoBufJsonDeserializer;
+import org.opennms.horizon.shared.protobuf.util.TaskSetDeltaUtil;
+import org.opennms.taskset.contract.TaskSet;
+import org.opennms.taskset.contract.TaskSetDelta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -134,6 +137,7 @@ public abstract class AbstractTwinSubscriber implements TwinSubscriber {
                 twinUpdate.setObject(twinResponseProto.getTwinObject().toByteArray());
             }
             twinUpdate.setPatch(twinResponseProto.getIsPatchObject());
+            twinUpdate.setProtobuf(twinResponseProto.getIsProtobufObject());
             twinUpdate.setVersion(twinResponseProto.getVersion());
             return twinUpdate;
         } catch (InvalidProtocolBufferException e) {
@@ -162,11 +166,14 @@ public abstract class AbstractTwinSubscriber implements TwinSubscriber {
         public final String sessionId;
         public final int version;
 
-        public final JsonNode value;
+        /**
+         * The object as JSON tree, or as {@link TaskSet} if it has been published in protobuf encoding.
+         */
+        public final Object value;
 
         private Value(final String sessionId,
                       final int version,
-                      final JsonNode value) {
+                      final Object value) {
             this.sessionId = Objects.requireNonNull(sessionId);
             this.version = version;
             this.value = Objects.requireNonNull(value);
@@ -176,7 +183,7 @@ public abstract class AbstractTwinSubscriber implements TwinSubscriber {
     public class Subscription {
         private final String key;
 
-        private final Set<Consumer<JsonNode>> consumers = Sets.newConcurrentHashSet();
+        private final Set<Consumer<Object>> consumers = Sets.newConcurrentHashSet();
 
         private Value value = null;
 
@@ -206,10 +213,12 @@ public abstract class AbstractTwinSubscriber implements TwinSubscriber {
          * @return a Closable, stopping the consumption when closed
          */
         public synchronized <T> Closeable consume(final Class<T> clazz, final Consumer<T> consumer) {
-            final Consumer<JsonNode> jsonConsumer = (json) -> {
+            final Consumer<Object> jsonConsumer = (object) -> {
                 try {
-                    // Deserialize to the final class
-                    final var value = AbstractTwinSubscriber.this.objectMapper.treeToValue(json, clazz);
+                    // Deserialize to the final class, protobuf objects are already decoded
+                    final var value = object instanceof JsonNode
+                            ? AbstractTwinSubscriber.this.objectMapper.treeToValue((JsonNode) object, clazz)
+                            : clazz.cast(object);
 
                     // Forward to typed consumer
                     consumer.accept(value);
@@ -271,7 +280,7 @@ public abstract class AbstractTwinSubscriber implements TwinSubscriber {
                 if (!update.isPatch()) {
                     this.accept(new Value(update.getSessionId(),
                                           update.getVersion(),
-                                          objectMapper.readTree(update.getObject())));
+                                          readObject(update)));
                 } else {
                     this.request();
                 }
@@ -287,19 +296,13 @@ public abstract class AbstractTwinSubscriber implements TwinSubscriber {
                 if (!update.isPatch()) {
                     this.accept(new Value(update.getSessionId(),
                                           update.getVersion(),
-                                          objectMapper.readTree(update.getObject())));
+                                          readObject(update)));
                 } else {
                     if (update.getVersion() == this.value.version + 1) {
                         // Version advanced - apply path
-                        try {
-                            final var patchObj = objectMapper.readTree(update.getObject());
+                        final Object value = applyPatch(this.value.value, update);
 
-                            final JsonNode value = JsonPatch.apply(patchObj, this.value.value);
-
-                            this.accept(new Value(update.getSessionId(), update.getVersion(), value));
-                        } catch (final JsonPatchApplicationException e) {
-                            throw new IOException("Unable to apply patch", e);
-                        }
+                        this.accept(new Value(update.getSessionId(), update.getVersion(), value));
 
                     } else {
                         // Version jumped
@@ -314,6 +317,32 @@ public abstract class AbstractTwinSubscriber implements TwinSubscriber {
 // Internals
 //----------------------------------------
 
+    private Object readObject(TwinUpdate update) throws IOException {
+        if (update.isProtobuf()) {
+            return TaskSet.parseFrom(update.getObject());
+        }
+        return objectMapper.readTree(update.getObject());
+    }
+
+    private Object applyPatch(Object value, TwinUpdate update) throws IOException {
+        if (update.isProtobuf()) {
+            if (!(value instanceof TaskSet)) {
+                throw new IOException("Unable to apply task set delta to a JSON object");
+            }
+            return TaskSetDeltaUtil.apply((TaskSet) value, TaskSetDelta.parseFrom(update.getObject()));
+        }
+
+        if (!(value instanceof JsonNode)) {
+            throw new IOException("Unable to apply JSON patch to a protobuf object");
+        }
+        try {
+            final var patchObj = objectMapper.readTree(update.getObject());
+            return JsonPatch.apply(patchObj, (JsonNode) value);
+        } catch (final JsonPatchApplicationException e) {
+            throw new IOException("Unable to apply patch", e);
+        }
+    }
+
     private void lazyAddProtobufJsonForClass(Class<? extends Message> clazz) {
         if (! mapperKnownClasses.contains(clazz)) {
             SimpleModule simpleModule = new SimpleModule();
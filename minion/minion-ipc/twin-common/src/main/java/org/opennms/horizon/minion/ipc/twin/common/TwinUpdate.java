@@ -41,6 +41,7 @@ public class TwinUpdate {
     private byte[] object;
     private int version;
     private boolean isPatch;
+    private boolean isProtobuf;
     private String sessionId;
     @EqualsAndHashCode.Exclude
     private Map<String, String> tracingInfo = new HashMap<>();
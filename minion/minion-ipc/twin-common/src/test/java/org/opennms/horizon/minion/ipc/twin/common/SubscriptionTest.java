@@ -4,6 +4,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.google.protobuf.Message;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -13,6 +17,7 @@ import org.opennms.horizon.shared.ipc.rpc.IpcIdentity;
 import org.opennms.horizon.shared.protobuf.marshalling.ProtoBufJsonSerializer;
 import org.opennms.taskset.contract.TaskDefinition;
 import org.opennms.taskset.contract.TaskSet;
+import org.opennms.taskset.contract.TaskSetDelta;
 import org.opennms.taskset.contract.TaskType;
 
 public class SubscriptionTest {
@@ -62,4 +67,40 @@ public class SubscriptionTest {
 
         subscription.update(twinUpdate);
     }
+
+    @Test
+    public void testProtobufUpdates() throws IOException {
+        List<TaskSet> received = new ArrayList<>();
+        subscription.consume(TaskSet.class, received::add);
+
+        TaskSet taskSet = TaskSet.newBuilder()
+            .addTaskDefinition(TaskDefinition.newBuilder().setId("a").setType(TaskType.MONITOR))
+            .addTaskDefinition(TaskDefinition.newBuilder().setId("b").setType(TaskType.MONITOR))
+            .build();
+        subscription.update(protobufUpdate(1, false, taskSet.toByteArray()));
+        assertEquals(List.of(taskSet), received);
+
+        TaskDefinition detector = TaskDefinition.newBuilder().setId("c").setType(TaskType.DETECTOR).build();
+        TaskSetDelta delta = TaskSetDelta.newBuilder()
+            .addUpdatedTaskDefinition(detector)
+            .addRemovedTaskDefinitionId("a")
+            .build();
+        subscription.update(protobufUpdate(2, true, delta.toByteArray()));
+
+        TaskSet expected = TaskSet.newBuilder().addTaskDefinition(taskSet.getTaskDefinition(1)).addTaskDefinition(detector).build();
+        assertEquals(List.of(taskSet, expected), received);
+
+        // Deltas which skip a version are not applied
+        subscription.update(protobufUpdate(4, true, TaskSetDelta.newBuilder().addRemovedTaskDefinitionId("b").build().toByteArray()));
+        assertEquals(2, received.size());
+    }
+
+    private static TwinUpdate protobufUpdate(int version, boolean patch, byte[] object) {
+        TwinUpdate twinUpdate = new TwinUpdate("blahKey", object);
+        twinUpdate.setVersion(version);
+        twinUpdate.setPatch(patch);
+        twinUpdate.setProtobuf(true);
+        twinUpdate.setSessionId("blahSessionId");
+        return twinUpdate;
+    }
 }
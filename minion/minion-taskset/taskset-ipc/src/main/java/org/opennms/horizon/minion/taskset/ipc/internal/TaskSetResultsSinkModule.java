@@ -1,6 +1,5 @@
 package org.opennms.horizon.minion.taskset.ipc.internal;
 
-import org.opennms.horizon.shared.ipc.sink.aggregation.IdentityAggregationPolicy;
 import org.opennms.horizon.shared.ipc.sink.api.AggregationPolicy;
 import org.opennms.horizon.shared.ipc.sink.api.AsyncPolicy;
 import org.opennms.horizon.shared.ipc.sink.api.SinkModule;
@@ -11,12 +10,19 @@ import org.slf4j.LoggerFactory;
 /**
  * Sink Module for processing TaskSetResults.  Note this is used in the communication between the Minion and
  * Minion Gateway, so Tenant IDs are not explicitly handled here.
+ *
+ * Results are merged into a single TaskSetResults until the batch size or the batch bytes are reached, or the batch
+ * interval elapsed.
  */
 public class TaskSetResultsSinkModule implements SinkModule<TaskSetResults, TaskSetResults> {
 
   public static final String MODULE_ID = "task-set-result";
   private final Logger logger = LoggerFactory.getLogger(TaskSetResultsSinkModule.class);
 
+  private int batchSize = 1000;
+  private int batchIntervalMs = 1000;
+  private int batchMaxBytes = 1024 * 1024;
+
   @Override
   public String getId() {
     return MODULE_ID;
@@ -58,8 +64,42 @@ public class TaskSetResultsSinkModule implements SinkModule<TaskSetResults, Task
   }
 
   @Override
-  public AggregationPolicy<TaskSetResults, TaskSetResults, ?> getAggregationPolicy() {
-    return new IdentityAggregationPolicy<>();
+  public AggregationPolicy<TaskSetResults, TaskSetResults, TaskSetResults.Builder> getAggregationPolicy() {
+    return new AggregationPolicy<>() {
+      @Override
+      public int getCompletionSize() {
+        return batchSize;
+      }
+
+      @Override
+      public int getCompletionIntervalMs() {
+        return batchIntervalMs;
+      }
+
+      @Override
+      public int getCompletionBytes() {
+        return batchMaxBytes;
+      }
+
+      @Override
+      public Object key(TaskSetResults message) {
+        // All results of a minion go to the same place
+        return MODULE_ID;
+      }
+
+      @Override
+      public TaskSetResults.Builder aggregate(TaskSetResults.Builder accumulator, TaskSetResults newMessage) {
+        if (accumulator == null) {
+          accumulator = TaskSetResults.newBuilder();
+        }
+        return accumulator.addAllResults(newMessage.getResultsList());
+      }
+
+      @Override
+      public TaskSetResults build(TaskSetResults.Builder accumulator) {
+        return accumulator.build();
+      }
+    };
   }
 
   @Override
@@ -76,4 +116,16 @@ public class TaskSetResultsSinkModule implements SinkModule<TaskSetResults, Task
     };
   }
 
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public void setBatchIntervalMs(int batchIntervalMs) {
+    this.batchIntervalMs = batchIntervalMs;
+  }
+
+  public void setBatchMaxBytes(int batchMaxBytes) {
+    this.batchMaxBytes = batchMaxBytes;
+  }
+
 }
@@ -0,0 +1,74 @@
+package org.opennms.horizon.minion.taskset.ipc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.opennms.horizon.shared.ipc.sink.aggregation.Aggregator;
+import org.opennms.taskset.contract.Identity;
+import org.opennms.taskset.contract.MonitorResponse;
+import org.opennms.taskset.contract.MonitorType;
+import org.opennms.taskset.contract.TaskResult;
+import org.opennms.taskset.contract.TaskSetResults;
+
+public class TaskSetResultsSinkModuleTest {
+
+    private final List<TaskSetResults> dispatched = new ArrayList<>();
+
+    @Test
+    public void testResultsAreDispatchedInBatches() throws Exception {
+        TaskSetResultsSinkModule module = new TaskSetResultsSinkModule();
+        module.setBatchSize(1000);
+        module.setBatchIntervalMs(0);
+
+        int results = 100_000;
+        try (var aggregator = new Aggregator<>(module.getId(), module.getAggregationPolicy(), dispatched::add)) {
+            for (int i = 0; i < results; i++) {
+                aggregator.aggregate(singleResult("monitor-" + i));
+            }
+        }
+
+        assertEquals(results / 1000, dispatched.size());
+        assertEquals(IntStream.range(0, results).mapToObj(i -> "monitor-" + i).collect(Collectors.toList()),
+            dispatched.stream()
+                .flatMap(batch -> batch.getResultsList().stream())
+                .map(TaskResult::getId)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testBatchesAreBoundedByBytes() throws Exception {
+        int resultSize = singleResult("monitor-0").getSerializedSize();
+        TaskSetResultsSinkModule module = new TaskSetResultsSinkModule();
+        module.setBatchSize(1000);
+        module.setBatchIntervalMs(0);
+        module.setBatchMaxBytes(resultSize * 50);
+
+        try (var aggregator = new Aggregator<>(module.getId(), module.getAggregationPolicy(), dispatched::add)) {
+            for (int i = 0; i < 500; i++) {
+                aggregator.aggregate(singleResult("monitor-" + i % 10));
+            }
+        }
+
+        assertEquals(10, dispatched.size());
+        assertTrue(dispatched.stream().allMatch(batch -> batch.getSerializedSize() <= resultSize * 50 + 500));
+    }
+
+    private static TaskSetResults singleResult(String id) {
+        return TaskSetResults.newBuilder()
+            .addResults(TaskResult.newBuilder()
+                .setId(id)
+                .setIdentity(Identity.newBuilder().setSystemId("minion"))
+                .setMonitorResponse(MonitorResponse.newBuilder()
+                    .setMonitorType(MonitorType.ICMP)
+                    .setIpAddress("127.0.0.1")
+                    .setStatus("Up")
+                    .setResponseTimeMs(1.5)))
+            .build();
+    }
+}
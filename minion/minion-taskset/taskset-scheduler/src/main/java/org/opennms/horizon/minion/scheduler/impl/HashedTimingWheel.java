@@ -0,0 +1,328 @@
+package org.opennms.horizon.minion.scheduler.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timing wheel: timeouts are hashed into buckets by their deadline, and a single ticker thread expires one
+ *  bucket per tick, handing expired tasks to an executor.
+ *
+ * Scheduling and canceling only enqueue the timeout for the ticker, so both are O(1) regardless of the number of
+ *  pending timeouts.  Timeouts fire up to one tick late.  An expired timeout can be scheduled again, so recurring
+ *  tasks do not allocate a new timeout for every execution.
+ */
+public class HashedTimingWheel implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    // Bound the number of new timeouts moved into the wheel per tick, so a burst of scheduling cannot stall the ticker
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_PENDING = 1;
+    private static final int STATE_EXPIRED = 2;
+    private static final int STATE_CANCELLED = 3;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+
+    private final Thread ticker;
+    private final long startTime;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param tickDuration resolution of the wheel
+     * @param unit unit of the tick duration
+     * @param wheelSize number of buckets, rounded up to a power of two
+     * @param executor runs the expired tasks, so the ticker never executes a task itself
+     * @param threadName name of the ticker thread
+     */
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, Executor executor, String threadName) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tick duration must be positive: " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheel size out of range: " + wheelSize);
+        }
+
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[nextPowerOfTwo(wheelSize)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.executor = executor;
+
+        this.startTime = System.nanoTime();
+        this.ticker = new Thread(this::runTicker, threadName);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Schedule the task to run once the given deadline has passed.
+     *
+     * @param task task handed to the executor on expiry.
+     * @param deadline deadline in terms of {@link System#nanoTime()}.
+     * @return handle to cancel the timeout.
+     */
+    public Timeout schedule(Runnable task, long deadline) {
+        Timeout timeout = newTimeout(task);
+        timeout.schedule(deadline);
+        return timeout;
+    }
+
+    /**
+     * Create a timeout for the task without scheduling it yet.
+     *
+     * @param task task handed to the executor whenever the timeout expires.
+     * @return timeout to schedule with {@link Timeout#schedule(long)}.
+     */
+    public Timeout newTimeout(Runnable task) {
+        return new Timeout(task);
+    }
+
+    /**
+     * @return number of timeouts that have neither expired nor been cancelled.
+     */
+    public long getPendingTimeouts() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        ticker.interrupt();
+    }
+
+//========================================
+// Ticker
+//----------------------------------------
+
+    private void runTicker() {
+        while (running) {
+            if (!waitForNextTick()) {
+                break;
+            }
+
+            removeCancelled();
+            transferScheduled();
+            dispatch(wheel[(int) (tick & mask)].expire(System.nanoTime()));
+            tick++;
+        }
+        LOG.debug("Timing wheel ticker stopped");
+    }
+
+    private boolean waitForNextTick() {
+        long deadline = startTime + (tick + 1) * tickNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (!running || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                break;
+            }
+            if (timeout.state.get() != STATE_PENDING) {
+                continue;
+            }
+
+            long deadlineTick = Math.max(0, (timeout.deadline - startTime + tickNanos - 1) / tickNanos);
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+            // Timeouts already due go into the current bucket, which is expired right after the transfer
+            long bucketTick = Math.max(deadlineTick, tick);
+            wheel[(int) (bucketTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void dispatch(List<Runnable> expired) {
+        // Hand each task to the executor on its own, so a slow task does not hold up the ones expiring with it
+        for (Runnable task : expired) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                LOG.warn("Executor rejected expired task", e);
+            }
+        }
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        int result = Integer.highestOneBit(value);
+        return result == value ? result : result << 1;
+    }
+
+//========================================
+// Internal Classes
+//----------------------------------------
+
+    /**
+     * Handle on a scheduled task.
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(STATE_IDLE);
+        // Written before handing the timeout to the ticker through the scheduled queue
+        private volatile long deadline;
+
+        // Only accessed by the ticker thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(Runnable task) {
+            this.task = task;
+        }
+
+        /**
+         * @return deadline of the last time the timeout was scheduled.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Schedule the timeout, if it is new or has expired.
+         *
+         * @param deadline deadline in terms of {@link System#nanoTime()}.
+         * @return false if the timeout is still pending or was cancelled.
+         */
+        public boolean schedule(long deadline) {
+            if (!running) {
+                throw new RejectedExecutionException("timing wheel is closed");
+            }
+            int current = state.get();
+            if ((current != STATE_IDLE && current != STATE_EXPIRED) || !state.compareAndSet(current, STATE_PENDING)) {
+                return false;
+            }
+            this.deadline = deadline;
+            pending.incrementAndGet();
+            scheduled.add(this);
+            return true;
+        }
+
+        /**
+         * Cancel the timeout for good; it cannot be scheduled anymore.
+         *
+         * @return true if this prevented a pending execution of the task.
+         */
+        public boolean cancel() {
+            int current;
+            do {
+                current = state.get();
+                if (current == STATE_CANCELLED) {
+                    return false;
+                }
+            } while (!state.compareAndSet(current, STATE_CANCELLED));
+
+            if (current != STATE_PENDING) {
+                return false;
+            }
+            pending.decrementAndGet();
+            // Unlinking from the bucket is left to the ticker, which owns the buckets
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == STATE_EXPIRED;
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, only accessed by the ticker thread.
+     */
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        List<Runnable> expire(long now) {
+            List<Runnable> expired = new ArrayList<>();
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadline - now <= 0) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(STATE_PENDING, STATE_EXPIRED)) {
+                        pending.decrementAndGet();
+                        expired.add(timeout.task);
+                    }
+                } else if (timeout.state.get() == STATE_CANCELLED) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+            return expired;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.opennms.horizon.minion.scheduler.impl;
+
+import org.opennms.horizon.minion.scheduler.OpennmsScheduler;
+
+/**
+ * Creates the scheduler implementation selected by the configuration.  The executor based scheduler is the default,
+ *  the timing wheel needs to be enabled explicitly.
+ */
+public class OpennmsSchedulerFactory {
+
+    private final ScheduledThreadPoolExecutorFactory executorFactory;
+
+    public OpennmsSchedulerFactory(ScheduledThreadPoolExecutorFactory executorFactory) {
+        this.executorFactory = executorFactory;
+    }
+
+    public OpennmsScheduler create(boolean timingWheel, int threads, String threadNamePrefix,
+                                   long tickMillis, int wheelSize, double jitter, long maxJitterMillis) {
+        if (timingWheel) {
+            // The wheel keeps the pending executions, so the executor only needs to run them
+            return new TimingWheelScheduler(executorFactory.createThreadPool(threads, threadNamePrefix),
+                tickMillis, wheelSize, jitter, maxJitterMillis);
+        }
+
+        OpennmsSchedulerImpl scheduler = new OpennmsSchedulerImpl();
+        scheduler.setScheduledThreadPoolExecutor(executorFactory.create(threads, threadNamePrefix));
+        return scheduler;
+    }
+}
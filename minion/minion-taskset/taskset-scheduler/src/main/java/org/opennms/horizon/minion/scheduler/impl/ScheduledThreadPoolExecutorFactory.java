@@ -1,22 +1,35 @@
 package org.opennms.horizon.minion.scheduler.impl;
 
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class ScheduledThreadPoolExecutorFactory {
     private AtomicLong threadCounter = new AtomicLong(0);
 
     public ScheduledThreadPoolExecutor create(int numThread, String threadNamePrefix) {
-        ThreadFactory threadFactory = runnable -> {
+        return new ScheduledThreadPoolExecutor(numThread, createThreadFactory(threadNamePrefix));
+    }
+
+    /**
+     * Fixed size pool without a delay queue, for schedulers which keep track of the pending executions themselves.
+     */
+    public ThreadPoolExecutor createThreadPool(int numThread, String threadNamePrefix) {
+        return new ThreadPoolExecutor(numThread, numThread, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            createThreadFactory(threadNamePrefix));
+    }
+
+    private ThreadFactory createThreadFactory(String threadNamePrefix) {
+        return runnable -> {
             Thread result = new Thread(runnable);
             result.setDaemon(true);
             result.setName(formatThreadName(threadNamePrefix));
 
             return result;
         };
-
-        return new ScheduledThreadPoolExecutor(numThread, threadFactory);
     }
 
     private String formatThreadName(String prefix) {
@@ -0,0 +1,310 @@
+package org.opennms.horizon.minion.scheduler.impl;
+
+import com.cronutils.model.Cron;
+import com.cronutils.model.CronType;
+import com.cronutils.model.definition.CronDefinitionBuilder;
+import com.cronutils.model.time.ExecutionTime;
+import com.cronutils.parser.CronParser;
+import org.opennms.horizon.minion.scheduler.OpennmsScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler keeping all pending executions in a {@link HashedTimingWheel}, and running them on an executor.
+ *
+ * Periodic tasks run right away and are then spread over their interval by a deterministic jitter derived from the
+ *  task id, so tasks with the same period scheduled at the same time do not all fire in the same tick.  The offset of
+ *  a task stays the same across executions and reschedules, so its period is kept.  Cron tasks are not jittered.
+ */
+public class TimingWheelScheduler implements OpennmsScheduler {
+
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(TimingWheelScheduler.class);
+
+    private Logger log = DEFAULT_LOGGER;
+
+    // Prepare the parser.  Note that the "CRON DEFINITION" specifies WHICH FIELDS (and variations on field inputs) are supported.
+    // For now, just use the QUARTZ setting
+    private final CronParser cronParser = new CronParser(CronDefinitionBuilder.instanceDefinitionFor(CronType.QUARTZ));
+
+    private final ExecutorService executor;
+    private final HashedTimingWheel wheel;
+    private final double jitter;
+    private final long maxJitterNanos;
+
+    private final Map<String, ScheduledTask> scheduledTasks = new ConcurrentHashMap<>();
+
+    /**
+     * @param executor executor running the tasks.
+     * @param tickMillis resolution of the timing wheel.
+     * @param wheelSize number of buckets of the timing wheel.
+     * @param jitter fraction of the interval of recurring tasks over which their executions are spread; 0 disables
+     *               jitter.
+     * @param maxJitterMillis upper bound of the jitter, so tasks with long intervals do not drift too far.
+     */
+    public TimingWheelScheduler(ExecutorService executor, long tickMillis, int wheelSize, double jitter, long maxJitterMillis) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1: " + jitter);
+        }
+        this.executor = executor;
+        this.jitter = jitter;
+        this.maxJitterNanos = TimeUnit.MILLISECONDS.toNanos(maxJitterMillis);
+        this.wheel = new HashedTimingWheel(tickMillis, TimeUnit.MILLISECONDS, wheelSize, executor, "opennms.workflow.scheduler.wheel");
+    }
+
+//========================================
+// Lifecycle Management
+//----------------------------------------
+
+    @Override
+    public void shutdown() {
+        log.info("Shutting down scheduler");
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+//========================================
+// Operations
+//----------------------------------------
+
+    @Override
+    public void scheduleTaskOnCron(String taskId, String cronExpression, Runnable operation) {
+        Cron cron = cronParser.parse(cronExpression);
+        ExecutionTime executionTime = ExecutionTime.forCron(cron);
+
+        start(new CronTask(taskId, operation, executionTime));
+    }
+
+    @Override
+    public void schedulePeriodically(String taskId, long period, TimeUnit unit, Runnable operation) {
+        start(new PeriodicTask(taskId, operation, unit.toNanos(period)));
+    }
+
+    @Override
+    public void scheduleOnce(String taskId, long period, TimeUnit unit, Runnable operation) {
+        start(new OneShotTask(taskId, operation, unit.toNanos(period)));
+    }
+
+    @Override
+    public void cancelTask(String taskId) {
+        ScheduledTask task = scheduledTasks.remove(taskId);
+
+        if (task != null) {
+            task.stop();
+        }
+    }
+
+    /**
+     * @return number of executions waiting in the timing wheel.
+     */
+    public long getPendingExecutions() {
+        return wheel.getPendingTimeouts();
+    }
+
+//========================================
+// Internal Operations
+//----------------------------------------
+
+    private void start(ScheduledTask task) {
+        // Remember the task before scheduling to avoid a possible race condition on reschedule
+        ScheduledTask old = scheduledTasks.put(task.taskId, task);
+        if (old != null) {
+            log.debug("replacing existing operation for task: task-id={}", task.taskId);
+            old.stop();
+        }
+
+        task.start(System.nanoTime());
+    }
+
+    /**
+     * Deterministic offset of the task within the given interval, derived from the task id.
+     */
+    long jitterOffset(String taskId, long intervalNanos) {
+        long spread = Math.min((long) (intervalNanos * jitter), maxJitterNanos);
+        if (spread <= 0) {
+            return 0;
+        }
+
+        // Task ids often share a prefix, so mix the hash before reducing it to the spread
+        long hash = taskId.hashCode() * 0x9E3779B97F4A7C15L;
+        return Math.floorMod(hash ^ (hash >>> 32), spread);
+    }
+
+//========================================
+// Internal Classes
+//----------------------------------------
+
+    private abstract class ScheduledTask {
+        protected final String taskId;
+        private final Runnable operation;
+
+        // Reused for every execution of the task
+        private final HashedTimingWheel.Timeout timeout;
+        private volatile boolean stopped = false;
+
+        ScheduledTask(String taskId, Runnable operation) {
+            this.taskId = taskId;
+            this.operation = operation;
+            this.timeout = wheel.newTimeout(this::execute);
+        }
+
+        /**
+         * @return deadline, in terms of {@link System#nanoTime()}, of the first execution.
+         */
+        abstract long firstDeadline(long now);
+
+        /**
+         * Called once an execution finished; forgets the task unless it is rescheduled.
+         */
+        void afterExecution() {
+            scheduledTasks.remove(taskId, this);
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+
+        long getDeadline() {
+            return timeout.getDeadline();
+        }
+
+        private void execute() {
+            if (stopped) {
+                log.debug("Skipping execution and NOT scheduling next one; was shutdown");
+                return;
+            }
+
+            try {
+                operation.run();
+            } catch (Exception exc) {
+                log.warn("task failure", exc);
+            } finally {
+                afterExecution();
+            }
+        }
+
+        /**
+         * Schedules the first execution; fails with a {@link RejectedExecutionException} once the scheduler is shut
+         * down.
+         */
+        void start(long now) {
+            timeout.schedule(firstDeadline(now));
+        }
+
+        void scheduleAt(long deadline) {
+            // Canceling the timeout is final, so a stopped task is not scheduled again
+            if (stopped) {
+                return;
+            }
+            try {
+                timeout.schedule(deadline);
+            } catch (RejectedExecutionException e) {
+                // The scheduler was shut down while the task was running
+                log.debug("Not scheduling next execution, scheduler was shut down: task-id={}", taskId);
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            timeout.cancel();
+        }
+    }
+
+    private abstract class RecurringTask extends ScheduledTask {
+        RecurringTask(String taskId, Runnable operation) {
+            super(taskId, operation);
+        }
+
+        /**
+         * @return deadline of the execution following the one scheduled at the given deadline.
+         */
+        abstract long nextDeadline(long previousDeadline, long now);
+
+        @Override
+        void afterExecution() {
+            if (isStopped()) {
+                super.afterExecution();
+            } else {
+                scheduleAt(nextDeadline(getDeadline(), System.nanoTime()));
+            }
+        }
+    }
+
+    private class PeriodicTask extends RecurringTask {
+        private final long periodNanos;
+        // Only accessed by the execution of the task, which never runs concurrently with itself
+        private boolean phased = false;
+
+        PeriodicTask(String taskId, Runnable operation, long periodNanos) {
+            super(taskId, operation);
+            this.periodNanos = Math.max(1, periodNanos);
+        }
+
+        @Override
+        long firstDeadline(long now) {
+            // Run right away like the executor based scheduler does, the jitter only shifts the later executions
+            return now;
+        }
+
+        @Override
+        long nextDeadline(long previousDeadline, long now) {
+            long next = previousDeadline + periodNanos;
+            if (!phased) {
+                phased = true;
+                next += jitterOffset(taskId, periodNanos);
+            }
+            if (next - now < 0) {
+                // Overran one or more periods; skip the missed executions instead of running them back to back
+                next += ((now - next) / periodNanos + 1) * periodNanos;
+            }
+            return next;
+        }
+    }
+
+    private class OneShotTask extends ScheduledTask {
+        private final long delayNanos;
+
+        OneShotTask(String taskId, Runnable operation, long delayNanos) {
+            super(taskId, operation);
+            this.delayNanos = delayNanos;
+        }
+
+        @Override
+        long firstDeadline(long now) {
+            return now + delayNanos;
+        }
+
+    }
+
+    private class CronTask extends RecurringTask {
+        private final ExecutionTime executionTime;
+
+        CronTask(String taskId, Runnable operation, ExecutionTime executionTime) {
+            super(taskId, operation);
+            this.executionTime = executionTime;
+        }
+
+        @Override
+        long firstDeadline(long now) {
+            return nextDeadline(now, now);
+        }
+
+        @Override
+        long nextDeadline(long previousDeadline, long now) {
+            ZonedDateTime current = ZonedDateTime.now();
+
+            // Get Optionals, but the contract says they will never be null...
+            ZonedDateTime next = executionTime.nextExecution(current).get();
+
+            // Cron expressions name the exact time to run at, so they are not jittered
+            return now + Duration.between(current, next).toNanos();
+        }
+    }
+}
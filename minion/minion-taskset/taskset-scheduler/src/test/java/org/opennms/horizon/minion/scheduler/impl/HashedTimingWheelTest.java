@@ -0,0 +1,83 @@
+package org.opennms.horizon.minion.scheduler.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashedTimingWheelTest {
+
+    private ExecutorService executor;
+    private HashedTimingWheel wheel;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        // Small wheel, so the deadlines below span several rounds
+        wheel = new HashedTimingWheel(5, TimeUnit.MILLISECONDS, 8, executor, "test-wheel");
+    }
+
+    @After
+    public void tearDown() {
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void testTimeoutsFireAfterTheirDeadline() throws Exception {
+        int count = 100;
+        CountDownLatch fired = new CountDownLatch(count);
+        Map<Integer, Long> lateness = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(3L * i);
+            wheel.schedule(() -> {
+                lateness.put(index, System.nanoTime() - deadline);
+                fired.countDown();
+            }, deadline);
+        }
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, wheel.getPendingTimeouts());
+        lateness.forEach((index, late) -> assertTrue("timeout " + index + " fired early", late >= 0));
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelledTimeoutDoesNotFire() throws Exception {
+        AtomicBoolean cancelledFired = new AtomicBoolean();
+        CountDownLatch fired = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+
+        HashedTimingWheel.Timeout cancelled = wheel.schedule(() -> cancelledFired.set(true), deadline);
+        wheel.schedule(fired::countDown, deadline);
+        assertTrue(cancelled.cancel());
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertFalse(cancelled.cancel());
+        assertFalse(cancelledFired.get());
+        assertEquals(0, wheel.getPendingTimeouts());
+    }
+
+    @Test(timeout = 10000)
+    public void testOverdueTimeoutFiresOnNextTick() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+
+        HashedTimingWheel.Timeout timeout = wheel.schedule(fired::countDown, System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+}
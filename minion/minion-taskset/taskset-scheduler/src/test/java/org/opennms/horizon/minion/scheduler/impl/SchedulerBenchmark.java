@@ -0,0 +1,127 @@
+package org.opennms.horizon.minion.scheduler.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import org.opennms.horizon.minion.scheduler.OpennmsScheduler;
+
+/**
+ * Schedules a large number of periodic tasks on each scheduler implementation and reports how long scheduling and
+ * canceling take, how bursty the executions are, how far executions stray from their period and the CPU used.
+ * Executions are measured after a warm-up period, once all tasks have been scheduled and executed once.
+ *
+ * Run with: java -cp ... SchedulerBenchmark [tasks] [period-ms] [periods] [threads]
+ */
+public class SchedulerBenchmark {
+
+    private static final long WINDOW_MILLIS = 100;
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        long periodMillis = args.length > 1 ? Long.parseLong(args[1]) : 10_000;
+        int periods = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        System.out.printf("%d tasks, period %d ms, %d periods, %d threads%n", tasks, periodMillis, periods, threads);
+        System.out.printf("%-14s %10s %10s %12s %14s %12s %12s %12s %10s%n", "scheduler", "schedule", "cancel",
+            "executions", "peak/100ms", "p50 dev", "p99 dev", "max dev", "cpu");
+
+        ScheduledThreadPoolExecutorFactory executorFactory = new ScheduledThreadPoolExecutorFactory();
+        run("executor", tasks, periodMillis, periods, () -> {
+            OpennmsSchedulerImpl scheduler = new OpennmsSchedulerImpl();
+            scheduler.setScheduledThreadPoolExecutor(executorFactory.create(threads, "benchmark-executor-"));
+            return scheduler;
+        });
+        run("wheel", tasks, periodMillis, periods, () -> new TimingWheelScheduler(
+            executorFactory.createThreadPool(threads, "benchmark-wheel-"), 10, 512, 0, 0));
+        run("wheel+jitter", tasks, periodMillis, periods, () -> new TimingWheelScheduler(
+            executorFactory.createThreadPool(threads, "benchmark-jitter-"), 10, 512, 1.0, periodMillis));
+    }
+
+    private static void run(String name, int tasks, long periodMillis, int periods, Supplier<OpennmsScheduler> schedulerSupplier)
+        throws InterruptedException {
+
+        OpennmsScheduler scheduler = schedulerSupplier.get();
+        long[] lastExecution = new long[tasks];
+        AtomicLongArray windows = new AtomicLongArray((int) ((periods + 1) * periodMillis / WINDOW_MILLIS) + 100);
+        // Deviation of the time between two executions of a task from its period, in ms
+        AtomicLongArray deviations = new AtomicLongArray((int) periodMillis + 1);
+        AtomicLong executions = new AtomicLong();
+        AtomicBoolean measuring = new AtomicBoolean();
+
+        System.gc();
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            int task = i;
+            scheduler.schedulePeriodically("task-" + i, periodMillis, TimeUnit.MILLISECONDS, () -> {
+                long now = System.nanoTime();
+                long last = lastExecution[task];
+                lastExecution[task] = now;
+                if (!measuring.get()) {
+                    return;
+                }
+                int window = (int) (TimeUnit.NANOSECONDS.toMillis(now - start) / WINDOW_MILLIS);
+                if (window < windows.length()) {
+                    windows.incrementAndGet(window);
+                }
+                if (last != 0) {
+                    long deviation = Math.abs(TimeUnit.NANOSECONDS.toMillis(now - last) - periodMillis);
+                    deviations.incrementAndGet((int) Math.min(deviation, deviations.length() - 1));
+                }
+                executions.incrementAndGet();
+            });
+        }
+        long scheduled = System.nanoTime();
+
+        Thread.sleep(periodMillis);
+        measuring.set(true);
+        long cpuStart = processCpuTime();
+        Thread.sleep(periods * periodMillis);
+        measuring.set(false);
+        long cpu = processCpuTime() - cpuStart;
+
+        long cancelStart = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            scheduler.cancelTask("task-" + i);
+        }
+        long cancelled = System.nanoTime();
+        scheduler.shutdown();
+
+        long peak = 0;
+        for (int i = 0; i < windows.length(); i++) {
+            peak = Math.max(peak, windows.get(i));
+        }
+        System.out.printf("%-14s %8d ms %8d ms %12d %14d %9d ms %9d ms %9d ms %7d ms%n", name,
+            TimeUnit.NANOSECONDS.toMillis(scheduled - start),
+            TimeUnit.NANOSECONDS.toMillis(cancelled - cancelStart),
+            executions.get(),
+            peak,
+            percentile(deviations, 0.50),
+            percentile(deviations, 0.99),
+            percentile(deviations, 1.0),
+            TimeUnit.NANOSECONDS.toMillis(cpu));
+    }
+
+    private static long percentile(AtomicLongArray histogram, double percentile) {
+        long total = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            total += histogram.get(i);
+        }
+        long threshold = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            seen += histogram.get(i);
+            if (seen >= threshold && seen > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static long processCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+}
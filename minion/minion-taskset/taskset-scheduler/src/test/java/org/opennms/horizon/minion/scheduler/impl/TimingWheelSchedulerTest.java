@@ -0,0 +1,169 @@
+package org.opennms.horizon.minion.scheduler.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Test;
+
+public class TimingWheelSchedulerTest {
+
+    private TimingWheelScheduler target;
+
+    @After
+    public void tearDown() {
+        if (target != null) {
+            target.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSchedulePeriodically() throws Exception {
+        target = createScheduler(0);
+        CountDownLatch executions = new CountDownLatch(3);
+
+        target.schedulePeriodically("task", 20, TimeUnit.MILLISECONDS, executions::countDown);
+
+        assertTrue(executions.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduleOnce() throws Exception {
+        target = createScheduler(0);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch executed = new CountDownLatch(1);
+
+        target.scheduleOnce("task", 20, TimeUnit.MILLISECONDS, () -> {
+            executions.incrementAndGet();
+            executed.countDown();
+        });
+
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, executions.get());
+        assertEquals(0, target.getPendingExecutions());
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelTask() throws Exception {
+        target = createScheduler(0);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch executed = new CountDownLatch(1);
+        target.schedulePeriodically("task", 20, TimeUnit.MILLISECONDS, () -> {
+            executions.incrementAndGet();
+            executed.countDown();
+        });
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+
+        target.cancelTask("task");
+        int afterCancel = executions.get();
+        Thread.sleep(200);
+
+        // An execution already in flight when canceling may still complete
+        assertTrue(executions.get() <= afterCancel + 1);
+        assertEquals(0, target.getPendingExecutions());
+    }
+
+    @Test(timeout = 10000)
+    public void testRescheduleReplacesOperation() throws Exception {
+        target = createScheduler(0);
+        AtomicInteger replaced = new AtomicInteger();
+        CountDownLatch replacement = new CountDownLatch(3);
+        target.schedulePeriodically("task", 20, TimeUnit.MILLISECONDS, replaced::incrementAndGet);
+
+        target.schedulePeriodically("task", 20, TimeUnit.MILLISECONDS, replacement::countDown);
+        int beforeReplacement = replaced.get();
+
+        assertTrue(replacement.await(5, TimeUnit.SECONDS));
+        assertTrue(replaced.get() <= beforeReplacement + 1);
+    }
+
+    @Test
+    public void testJitterIsDeterministicAndSpread() {
+        target = createScheduler(1.0);
+        long interval = TimeUnit.SECONDS.toNanos(60);
+
+        Set<Long> seconds = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            String taskId = "icmp-monitor-" + i;
+            long offset = target.jitterOffset(taskId, interval);
+            assertTrue(offset >= 0 && offset < interval);
+            assertEquals(offset, target.jitterOffset(taskId, interval));
+            seconds.add(TimeUnit.NANOSECONDS.toSeconds(offset));
+        }
+
+        // 1000 tasks over 60 one-second slots should hit nearly all of them
+        assertTrue("offsets not spread: " + seconds.size(), seconds.size() > 50);
+    }
+
+    @Test
+    public void testJitterIsBounded() {
+        target = new TimingWheelScheduler(Executors.newSingleThreadExecutor(), 5, 64, 0.5, 1000);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(target.jitterOffset("task-" + i, TimeUnit.SECONDS.toNanos(60)) < TimeUnit.SECONDS.toNanos(1));
+            assertTrue(target.jitterOffset("task-" + i, TimeUnit.MILLISECONDS.toNanos(600)) < TimeUnit.MILLISECONDS.toNanos(300));
+        }
+        TimingWheelScheduler unjittered = createScheduler(0);
+        try {
+            assertEquals(0, unjittered.jitterOffset("task", TimeUnit.SECONDS.toNanos(60)));
+        } finally {
+            unjittered.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFirstPeriodicExecutionIsNotJittered() throws Exception {
+        target = createScheduler(1.0);
+        CountDownLatch executed = new CountDownLatch(1);
+
+        // The jitter could delay the task by up to its whole period otherwise
+        target.schedulePeriodically("task", 1, TimeUnit.HOURS, executed::countDown);
+
+        assertTrue(executed.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testShutdownWhileTaskIsRunning() throws Exception {
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        AtomicReference<Throwable> uncaught = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setUncaughtExceptionHandler((t, e) -> uncaught.set(e));
+            worker.set(thread);
+            return thread;
+        });
+        target = new TimingWheelScheduler(executor, 5, 64, 0, 0);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        target.schedulePeriodically("task", 10, TimeUnit.MILLISECONDS, () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+
+        // The task finishes after the wheel was closed, and must not fail trying to schedule its next execution
+        target.shutdown();
+        release.countDown();
+        worker.get().join();
+        assertNull(uncaught.get());
+    }
+
+    private TimingWheelScheduler createScheduler(double jitter) {
+        return new TimingWheelScheduler(Executors.newFixedThreadPool(2), 5, 64, jitter, TimeUnit.MINUTES.toMillis(5));
+    }
+}
@@ -0,0 +1,171 @@
+package org.opennms.horizon.minion.taskset.worker.impl;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.opennms.horizon.minion.taskset.worker.TaskExecutorLocalService;
+import org.opennms.horizon.minion.taskset.worker.TaskExecutorLocalServiceFactory;
+import org.opennms.horizon.minion.taskset.worker.TaskSetLifecycleManager;
+import org.opennms.taskset.contract.TaskDefinition;
+import org.opennms.taskset.contract.TaskSet;
+import org.opennms.taskset.contract.TaskType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs tasks of the configured types in-process, keeping the running tasks in a registry keyed by task id.  On each
+ *  update only the tasks that were added, changed or removed are touched, instead of deploying every task as an Ignite
+ *  service.
+ *
+ * Tasks of the other types are handed to the cluster manager, for those that need to run only once across the cluster.
+ */
+public class LocalTaskSetLifecycleManager implements TaskSetLifecycleManager {
+
+    private static final Logger DEFAULT_LOGGER = LoggerFactory.getLogger(LocalTaskSetLifecycleManager.class);
+
+    private Logger log = DEFAULT_LOGGER;
+
+    private final TaskExecutorLocalServiceFactory taskExecutorLocalServiceFactory;
+    private final TaskSetLifecycleManager clusterLifecycleManager;
+    private final Set<TaskType> localTaskTypes;
+
+    /**
+     * Tasks currently running locally, by task id
+     */
+    private final Map<String, LocalTask> localTasks = new HashMap<>();
+
+    /**
+     * Reference to the last TaskSet that was successfully deployed
+     */
+    private volatile TaskSet deployedTaskSet;
+
+//========================================
+// Constructor
+//----------------------------------------
+
+    /**
+     * @param taskExecutorLocalServiceFactory creates the services executing the tasks.
+     * @param clusterLifecycleManager deploys the tasks not running locally; may be null if all task types run locally.
+     * @param localTaskTypes comma-separated list of the task types to run locally.
+     */
+    public LocalTaskSetLifecycleManager(TaskExecutorLocalServiceFactory taskExecutorLocalServiceFactory,
+                                        TaskSetLifecycleManager clusterLifecycleManager,
+                                        String localTaskTypes) {
+        this.taskExecutorLocalServiceFactory = taskExecutorLocalServiceFactory;
+        this.clusterLifecycleManager = clusterLifecycleManager;
+        this.localTaskTypes = parseTaskTypes(localTaskTypes);
+    }
+
+//========================================
+// Processing
+//----------------------------------------
+
+    @Override
+    public synchronized int deploy(TaskSet taskSet) {
+        Map<String, TaskDefinition> local = new LinkedHashMap<>();
+        TaskSet.Builder clusterTaskSet = TaskSet.newBuilder();
+
+        for (TaskDefinition taskDefinition : taskSet.getTaskDefinitionList()) {
+            if (localTaskTypes.contains(taskDefinition.getType())) {
+                local.put(taskDefinition.getId(), taskDefinition);
+            } else {
+                clusterTaskSet.addTaskDefinition(taskDefinition);
+            }
+        }
+
+        int canceled = 0;
+        if (clusterLifecycleManager != null) {
+            canceled += clusterLifecycleManager.deploy(clusterTaskSet.build());
+        } else if (clusterTaskSet.getTaskDefinitionCount() > 0) {
+            log.warn("No cluster lifecycle manager; ignoring {} tasks of non-local types", clusterTaskSet.getTaskDefinitionCount());
+        }
+
+        // Cancel the removed and changed tasks first, so a restarted task never overlaps with its previous
+        //  incarnation; i.e. on the same listener port or scheduler task id.
+        int stopped = 0;
+        Iterator<LocalTask> iterator = localTasks.values().iterator();
+        while (iterator.hasNext()) {
+            LocalTask localTask = iterator.next();
+            if (!Objects.equals(localTask.taskDefinition, local.get(localTask.taskDefinition.getId()))) {
+                iterator.remove();
+                localTask.cancel();
+                stopped++;
+            }
+        }
+
+        int started = 0;
+        for (TaskDefinition taskDefinition : local.values()) {
+            if (!localTasks.containsKey(taskDefinition.getId()) && start(taskDefinition)) {
+                started++;
+            }
+        }
+
+        log.info("Completed local task set update: start-count={}; cancel-count={}; running-count={}",
+            started, stopped, localTasks.size());
+
+        deployedTaskSet = taskSet;
+
+        return canceled + stopped;
+    }
+
+    @Override
+    public TaskSet getDeployedTaskSet() {
+        return deployedTaskSet;
+    }
+
+    public synchronized void close() {
+        localTasks.values().forEach(LocalTask::cancel);
+        localTasks.clear();
+    }
+
+//========================================
+// Internals
+//----------------------------------------
+
+    private boolean start(TaskDefinition taskDefinition) {
+        try {
+            TaskExecutorLocalService service = taskExecutorLocalServiceFactory.create(taskDefinition);
+            service.start();
+            localTasks.put(taskDefinition.getId(), new LocalTask(taskDefinition, service));
+            return true;
+        } catch (Exception exc) {
+            // Not registered, so the start is retried on the next update
+            log.warn("error starting task {}", taskDefinition.getId(), exc);
+            return false;
+        }
+    }
+
+    private static Set<TaskType> parseTaskTypes(String taskTypes) {
+        Set<TaskType> result = EnumSet.noneOf(TaskType.class);
+        Arrays.stream(taskTypes.split(","))
+            .map(String::trim)
+            .filter(type -> !type.isEmpty())
+            .map(TaskType::valueOf)
+            .forEach(result::add);
+        return result;
+    }
+
+    private class LocalTask {
+        private final TaskDefinition taskDefinition;
+        private final TaskExecutorLocalService service;
+
+        LocalTask(TaskDefinition taskDefinition, TaskExecutorLocalService service) {
+            this.taskDefinition = taskDefinition;
+            this.service = service;
+        }
+
+        void cancel() {
+            try {
+                service.cancel();
+            } catch (RuntimeException exc) {
+                log.warn("error canceling task {}", taskDefinition.getId(), exc);
+            }
+        }
+    }
+}
@@ -41,7 +41,7 @@ public class TaskExecutionResultProcessorImpl implements TaskExecutionResultProc
     @Override
     public void queueSendResult(String id, ScanResultsResponse response) {
         TaskSetResults taskSetResults = formatTaskSetResults(id, response);
-        log.info("Scan Status: id = {}, results = {} ", id, response.getResults());
+        log.debug("Scan Status: id = {}, results = {} ", id, response.getResults());
         try {
             taskSetSinkDispatcher.send(taskSetResults);
         } catch (InterruptedException e) {
@@ -51,7 +51,7 @@ public class TaskExecutionResultProcessorImpl implements TaskExecutionResultProc
 
     @Override
     public void queueSendResult(String id, ServiceMonitorResponse response) {
-        log.info("Poll Status: id = {} , status = {}; ", id, response.getStatus());
+        log.debug("Poll Status: id = {} , status = {}; ", id, response.getStatus());
 
         TaskSetResults taskSetResults = formatTaskSetResults(id, response);
 
@@ -65,7 +65,7 @@ public class TaskExecutionResultProcessorImpl implements TaskExecutionResultProc
     @Override
     public void queueSendResult(String id, CollectionSet collectionSet) {
         TaskSetResults taskSetResults = formatTaskSetResults(id, collectionSet);
-        log.info("Collect Status: id = {}, status = {} ", id, collectionSet.getStatus());
+        log.debug("Collect Status: id = {}, status = {} ", id, collectionSet.getStatus());
         try {
             taskSetSinkDispatcher.send(taskSetResults);
         } catch (InterruptedException e) {
@@ -68,7 +68,9 @@ public class TaskExecutorLocalScannerServiceImpl implements TaskExecutorLocalSer
             Scanner scanner = lookupScanner(taskDefinition);
             log.info("Create Scanner for {}", taskDefinition.getPluginName());
             if(scanner != null) {
-                future = scanner.scan(taskDefinition.getConfiguration());
+                // Scanners which stream their results hand them over while scanning, the rest are sent on completion
+                future = scanner.scan(taskDefinition.getConfiguration(),
+                    partialResponse -> resultProcessor.queueSendResult(taskDefinition.getId(), partialResponse));
                 future.whenComplete(this::handleExecutionComplete);
             }
         } catch (Exception exc) {
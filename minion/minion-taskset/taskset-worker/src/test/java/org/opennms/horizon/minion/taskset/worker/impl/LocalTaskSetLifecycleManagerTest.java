@@ -0,0 +1,138 @@
+package org.opennms.horizon.minion.taskset.worker.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.opennms.horizon.minion.taskset.worker.TaskExecutorLocalService;
+import org.opennms.horizon.minion.taskset.worker.TaskExecutorLocalServiceFactory;
+import org.opennms.horizon.minion.taskset.worker.TaskSetLifecycleManager;
+import org.opennms.taskset.contract.TaskDefinition;
+import org.opennms.taskset.contract.TaskSet;
+import org.opennms.taskset.contract.TaskType;
+
+public class LocalTaskSetLifecycleManagerTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    private TaskSetLifecycleManager clusterLifecycleManager;
+    private LocalTaskSetLifecycleManager target;
+
+    @Before
+    public void setUp() {
+        TaskExecutorLocalServiceFactory factory = mock(TaskExecutorLocalServiceFactory.class);
+        when(factory.create(any())).thenAnswer(invocation -> new RecordingService(invocation.getArgument(0)));
+
+        clusterLifecycleManager = mock(TaskSetLifecycleManager.class);
+        target = new LocalTaskSetLifecycleManager(factory, clusterLifecycleManager, "MONITOR, LISTENER");
+    }
+
+    @Test
+    public void testOnlyChangedTasksAreRestarted() {
+        target.deploy(taskSet(task("a", "60000"), task("b", "60000"), task("c", "60000")));
+        assertEquals(List.of("start a", "start b", "start c"), events);
+        events.clear();
+
+        int stopped = target.deploy(taskSet(task("a", "60000"), task("b", "30000"), task("d", "60000")));
+
+        // Cancel before start, so the new definition of b does not overlap with the old one
+        assertEquals(List.of("cancel b", "cancel c", "start b", "start d"), events);
+        assertEquals(2, stopped);
+    }
+
+    @Test
+    public void testClusterTasksAreDelegated() {
+        TaskDefinition scanner = TaskDefinition.newBuilder().setId("scan").setType(TaskType.SCANNER).build();
+        TaskSet taskSet = taskSet(task("a", "60000"), scanner);
+
+        target.deploy(taskSet);
+
+        ArgumentCaptor<TaskSet> clusterTaskSet = ArgumentCaptor.forClass(TaskSet.class);
+        verify(clusterLifecycleManager).deploy(clusterTaskSet.capture());
+        assertEquals(List.of(scanner), clusterTaskSet.getValue().getTaskDefinitionList());
+        assertEquals(List.of("start a"), events);
+        assertEquals(taskSet, target.getDeployedTaskSet());
+    }
+
+    @Test
+    public void testFailedStartIsRetried() {
+        TaskExecutorLocalServiceFactory factory = mock(TaskExecutorLocalServiceFactory.class);
+        when(factory.create(any()))
+            .thenThrow(new RuntimeException("plugin not available yet"))
+            .thenAnswer(invocation -> new RecordingService(invocation.getArgument(0)));
+        target = new LocalTaskSetLifecycleManager(factory, null, "MONITOR");
+
+        target.deploy(taskSet(task("a", "60000")));
+        target.deploy(taskSet(task("a", "60000")));
+
+        assertEquals(List.of("start a"), events);
+    }
+
+    @Test
+    public void testDeployTimeOf50kTasks() {
+        int count = 50_000;
+        TaskSet.Builder builder = TaskSet.newBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.addTaskDefinition(task("monitor-" + i, "60000"));
+        }
+        TaskSet taskSet = builder.build();
+
+        long start = System.nanoTime();
+        target.deploy(taskSet);
+        long initial = System.nanoTime() - start;
+
+        // Change a single task out of the 50k
+        TaskSet updated = taskSet.toBuilder().setTaskDefinition(0, task("monitor-0", "30000")).build();
+        events.clear();
+        start = System.nanoTime();
+        target.deploy(updated);
+        long incremental = System.nanoTime() - start;
+
+        assertEquals(List.of("cancel monitor-0", "start monitor-0"), events);
+        // Generous bounds, deploying the same tasks as Ignite services takes minutes
+        assertTrue("initial deploy took " + TimeUnit.NANOSECONDS.toMillis(initial) + " ms",
+            TimeUnit.NANOSECONDS.toSeconds(initial) < 10);
+        assertTrue("update took " + TimeUnit.NANOSECONDS.toMillis(incremental) + " ms",
+            TimeUnit.NANOSECONDS.toSeconds(incremental) < 5);
+    }
+
+    private static TaskSet taskSet(TaskDefinition... tasks) {
+        return TaskSet.newBuilder().addAllTaskDefinition(List.of(tasks)).build();
+    }
+
+    private static TaskDefinition task(String id, String schedule) {
+        return TaskDefinition.newBuilder()
+            .setId(id)
+            .setType(TaskType.MONITOR)
+            .setSchedule(schedule)
+            .build();
+    }
+
+    private class RecordingService implements TaskExecutorLocalService {
+        private final TaskDefinition taskDefinition;
+
+        RecordingService(TaskDefinition taskDefinition) {
+            this.taskDefinition = taskDefinition;
+        }
+
+        @Override
+        public void start() {
+            events.add("start " + taskDefinition.getId());
+        }
+
+        @Override
+        public void cancel() {
+            events.add("cancel " + taskDefinition.getId());
+        }
+    }
+}
@@ -28,16 +28,11 @@
 
 package org.opennms.horizon.minion.icmp;
 
-import com.google.common.base.Throwables;
-import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.RateLimiter;
 import com.google.protobuf.Any;
 import com.google.protobuf.InvalidProtocolBufferException;
 import org.opennms.horizon.minion.plugin.api.ScanResultsResponse;
 import org.opennms.horizon.minion.plugin.api.ScanResultsResponseImpl;
 import org.opennms.horizon.minion.plugin.api.Scanner;
-import org.opennms.horizon.shared.icmp.EchoPacket;
-import org.opennms.horizon.shared.icmp.PingResponseCallback;
 import org.opennms.horizon.shared.icmp.Pinger;
 import org.opennms.horizon.shared.icmp.PingerFactory;
 import org.opennms.horizon.shared.utils.InetAddressUtils;
@@ -49,34 +44,47 @@ import org.opennms.taskset.contract.PingResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.function.Consumer;
 
 public class PingScan implements Scanner {
 
     private static final Logger LOG = LoggerFactory.getLogger(PingScan.class);
 
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
     private final PingerFactory pingerFactory;
 
     private final ExecutorService executor;
 
+    private final int maxInFlight;
+
+    private final int chunkSize;
+
     public PingScan(PingerFactory pingerFactory, ExecutorService executor) {
+        this(pingerFactory, executor, DEFAULT_MAX_IN_FLIGHT, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PingScan(PingerFactory pingerFactory, ExecutorService executor, int maxInFlight, int chunkSize) {
         this.pingerFactory = pingerFactory;
         this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.chunkSize = chunkSize;
     }
 
     @Override
     public CompletableFuture<ScanResultsResponse> scan(Any config) {
+        return scan(config, null);
+    }
+
+    @Override
+    public CompletableFuture<ScanResultsResponse> scan(Any config, Consumer<ScanResultsResponse> partialResults) {
 
         if (!config.is(PingSweepRequest.class)) {
             throw new IllegalArgumentException("configuration must be an PingSweepRequest; type-url=" + config.getTypeUrl());
@@ -86,11 +94,7 @@ public class PingScan implements Scanner {
             var request = config.unpack(PingSweepRequest.class);
 
             final Pinger pinger = pingerFactory.getInstance();
-            final PingSweepResultTracker tracker = new PingSweepResultTracker();
-
-            int packetSize = request.getPacketSize();
 
-            var ipRanges = request.getIpRangeList();
             List<IPPollRange> ranges = new ArrayList<>();
             for (IpRange dto : request.getIpRangeList()) {
                 IPPollRange pollRange = new IPPollRange(null, null, dto.getBegin(), dto.getEnd(),
@@ -98,55 +102,34 @@ public class PingScan implements Scanner {
                 ranges.add(pollRange);
             }
 
-            // Use a RateLimiter to limit the ping packets per second that we send
-            RateLimiter limiter = RateLimiter.create(request.getPacketsPerSecond());
-
-            List<IPPollAddress> addresses = StreamSupport.stream(getAddresses(ranges).spliterator(), false)
-                .filter(j -> j.address() != null).collect(Collectors.toList());
-
-           var response = CompletableFuture.supplyAsync(() -> {
-                addresses.forEach(pollAddress -> {
-                    try {
-                        tracker.expectCallbackFor(pollAddress.address());
-                        limiter.acquire();
-                        pinger.ping(pollAddress.address(),
-                            pollAddress.timeout(), pollAddress.retries(), packetSize, 1, tracker);
-                    } catch (Exception e) {
-                        tracker.handleError(pollAddress.address(), null, e);
-                        tracker.completeExceptionally(e);
+            // Without a consumer for partial results, keep the responders until the sweep completes
+            List<PingResult> responders = new ArrayList<>();
+            PingSweep sweep = new PingSweep(pinger, request.getPacketSize(), request.getPacketsPerSecond(),
+                maxInFlight, chunkSize, chunk -> {
+                    if (partialResults != null) {
+                        partialResults.accept(toScanResultsResponse(request.getActiveDiscoveryId(), chunk));
+                    } else {
+                        responders.addAll(chunk);
                     }
                 });
 
+            future.whenComplete((response, throwable) -> {
+                if (future.isCancelled()) {
+                    sweep.cancel();
+                }
+            });
+
+            executor.execute(() -> {
                 try {
-                    tracker.getLatch().await();
-                } catch (InterruptedException e) {
-                    throw Throwables.propagate(e);
+                    responders.addAll(sweep.run(getAddresses(ranges).iterator()));
+                    future.complete(toScanResultsResponse(request.getActiveDiscoveryId(), responders));
+                } catch (Exception e) {
+                    LOG.error("Exception while doing PingScan", e);
+                    future.completeExceptionally(e);
                 }
-                tracker.complete();
-                return tracker.getPingSweepResponse();
-            } , executor);
-
-            var builder = ScanResultsResponseImpl.builder();
-
-           response.whenComplete(((pingSweepResponse, throwable) -> {
-               if(throwable != null) {
-                   builder.reason(throwable.getMessage());
-               } else {
-                   var discoveryResultBuilder = DiscoveryScanResult.newBuilder();
-                   pingSweepResponse.getPingResults().forEach(result -> {
-                       var pingResponse = PingResponse.newBuilder();
-                       pingResponse.setIpAddress(InetAddressUtils.toIpAddrString(result.address()));
-                       pingResponse.setRtt(result.rtt());
-                       discoveryResultBuilder.setActiveDiscoveryId(request.getActiveDiscoveryId());
-                       discoveryResultBuilder.addPingResponse(pingResponse);
-                   });
-                   builder.results(discoveryResultBuilder.build());
-                   future.complete(builder.build());
-               }
-           }
-           ));
-
-           return future;
+            });
+
+            return future;
 
         } catch (InvalidProtocolBufferException | UnknownHostException e) {
 
@@ -156,58 +139,18 @@ public class PingScan implements Scanner {
         return future;
     }
 
-
-    private static class PingSweepResultTracker extends CompletableFuture<PingSweepResponse>
-        implements PingResponseCallback {
-
-        private final Set<InetAddress> waitingFor = Sets.newConcurrentHashSet();
-        private final CountDownLatch m_doneSignal = new CountDownLatch(1);
-        private final PingSweepResponse pingSweepResponse = new PingSweepResponse();
-
-        public void expectCallbackFor(InetAddress address) {
-            waitingFor.add(address);
-        }
-
-        @Override
-        public void handleResponse(InetAddress address, EchoPacket response) {
-            if (response != null) {
-                double responseTimeMicros = Math.round(response.elapsedTime(TimeUnit.MICROSECONDS));
-                double responseTimeMillis = responseTimeMicros / 1000.0;
-                PingResult sweepResult = new PingResult(address, responseTimeMillis);
-                pingSweepResponse.addPingResult(sweepResult);
-            }
-            afterHandled(address);
-        }
-
-        @Override
-        public void handleTimeout(InetAddress address, EchoPacket request) {
-            afterHandled(address);
-        }
-
-        @Override
-        public void handleError(InetAddress address, EchoPacket request, Throwable t) {
-            afterHandled(address);
-        }
-
-        private void afterHandled(InetAddress address) {
-            waitingFor.remove(address);
-            if (waitingFor.isEmpty()) {
-                m_doneSignal.countDown();
-            }
-        }
-
-        public void complete() {
-            complete(pingSweepResponse);
-        }
-
-        public PingSweepResponse getPingSweepResponse() {
-            return pingSweepResponse;
-        }
-
-        public CountDownLatch getLatch() {
-            return m_doneSignal;
-        }
-
+    private static ScanResultsResponse toScanResultsResponse(long activeDiscoveryId, List<PingResult> pingResults) {
+        var discoveryResultBuilder = DiscoveryScanResult.newBuilder()
+            .setActiveDiscoveryId(activeDiscoveryId);
+        pingResults.forEach(result -> {
+            var pingResponse = PingResponse.newBuilder();
+            pingResponse.setIpAddress(InetAddressUtils.toIpAddrString(result.address()));
+            pingResponse.setRtt(result.rtt());
+            discoveryResultBuilder.addPingResponse(pingResponse);
+        });
+        return ScanResultsResponseImpl.builder()
+            .results(discoveryResultBuilder.build())
+            .build();
     }
 
     public Iterable<IPPollAddress> getAddresses(List<IPPollRange> ranges) {
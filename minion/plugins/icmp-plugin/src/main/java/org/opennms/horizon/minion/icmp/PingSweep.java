@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.minion.icmp;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.opennms.horizon.shared.icmp.Pinger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pings the addresses of a sweep while iterating over them, so the addresses are never held in memory all at once.
+ *
+ * At most maxInFlight pings are outstanding at any time, and responders are handed to the chunk consumer in chunks
+ *  while the sweep progresses.  The consumer is always called on the thread running the sweep, never on the threads
+ *  of the pinger.
+ *
+ * The pings go through {@link Pinger#bulkPing}, so pingers supporting it queue them without blocking the sweep.
+ */
+public class PingSweep {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PingSweep.class);
+
+    private static final long DRAIN_INTERVAL_MS = 100;
+
+    private final Pinger pinger;
+    private final int packetSize;
+    private final RateLimiter limiter;
+    private final int maxInFlight;
+    private final int chunkSize;
+    private final Consumer<List<PingResult>> chunkConsumer;
+
+    private final Semaphore inFlight;
+    private final Queue<List<PingResult>> completeChunks = new ConcurrentLinkedQueue<>();
+    private List<PingResult> chunk;
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param packetsPerSecond rate of the pings; values <= 0 disable the rate limit.
+     * @param maxInFlight maximum number of pings waiting for a response, timeout or error.
+     * @param chunkSize number of responders handed to the chunk consumer at once.
+     */
+    public PingSweep(Pinger pinger, int packetSize, double packetsPerSecond, int maxInFlight, int chunkSize,
+                     Consumer<List<PingResult>> chunkConsumer) {
+        if (maxInFlight < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("maxInFlight and chunkSize must be at least 1");
+        }
+        this.pinger = pinger;
+        this.packetSize = packetSize;
+        this.limiter = packetsPerSecond > 0 ? RateLimiter.create(packetsPerSecond) : null;
+        this.maxInFlight = maxInFlight;
+        this.chunkSize = chunkSize;
+        this.chunkConsumer = chunkConsumer;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.chunk = new ArrayList<>(chunkSize);
+    }
+
+    /**
+     * Run the sweep on the calling thread, until every ping was answered, timed out or failed.
+     *
+     * @return the responders of the last chunk, which did not fill up.
+     */
+    public List<PingResult> run(Iterator<IPPollAddress> addresses) throws InterruptedException {
+        while (addresses.hasNext() && !cancelled) {
+            IPPollAddress pollAddress = addresses.next();
+            if (pollAddress.address() == null) {
+                continue;
+            }
+
+            while (!inFlight.tryAcquire(DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                drainCompleteChunks();
+            }
+            if (limiter != null) {
+                limiter.acquire();
+            }
+            InetAddress address = pollAddress.address();
+            try {
+                pinger.bulkPing(List.of(address), pollAddress.timeout(), pollAddress.retries(), packetSize).get(0)
+                    .whenComplete((responseTime, error) -> handleResult(address, responseTime, error));
+            } catch (Exception e) {
+                LOG.debug("Failed to ping {}", pollAddress.address(), e);
+                inFlight.release();
+            }
+            drainCompleteChunks();
+        }
+
+        // Wait for the outstanding pings
+        while (!inFlight.tryAcquire(maxInFlight, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+            drainCompleteChunks();
+        }
+        inFlight.release(maxInFlight);
+        drainCompleteChunks();
+
+        synchronized (this) {
+            List<PingResult> last = chunk;
+            chunk = new ArrayList<>(0);
+            return last;
+        }
+    }
+
+    /**
+     * Stop sending new pings; the pings in flight are still waited for.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @param responseTimeMicros response time of the address, or null if it timed out.
+     * @param error cause of the failed ping, if it failed.
+     */
+    private void handleResult(InetAddress address, Number responseTimeMicros, Throwable error) {
+        if (error != null) {
+            LOG.debug("Failed to ping {}", address, error);
+        } else if (responseTimeMicros != null) {
+            addResult(new PingResult(address, responseTimeMicros.doubleValue() / 1000.0));
+        }
+        inFlight.release();
+    }
+
+    private synchronized void addResult(PingResult result) {
+        chunk.add(result);
+        if (chunk.size() >= chunkSize) {
+            completeChunks.add(chunk);
+            chunk = new ArrayList<>(chunkSize);
+        }
+    }
+
+    private void drainCompleteChunks() {
+        List<PingResult> complete;
+        while ((complete = completeChunks.poll()) != null) {
+            chunkConsumer.accept(complete);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.opennms.horizon.minion.icmp;
+
+import com.google.protobuf.Any;
+import org.junit.After;
+import org.junit.Test;
+import org.opennms.horizon.minion.plugin.api.ScanResultsResponse;
+import org.opennms.horizon.shared.icmp.PingResponseCallback;
+import org.opennms.horizon.shared.icmp.PingerFactory;
+import org.opennms.icmp.contract.IpRange;
+import org.opennms.icmp.contract.PingSweepRequest;
+import org.opennms.taskset.contract.DiscoveryScanResult;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PingSweepTest {
+
+    private final ScheduledExecutorService responder = Executors.newScheduledThreadPool(2);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        responder.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testInFlightPingsAreBoundedAndRespondersAreStreamed() throws Exception {
+        DelayedPinger pinger = new DelayedPinger();
+        List<Integer> sentAtChunk = new ArrayList<>();
+        List<PingResult> streamed = new ArrayList<>();
+
+        PingSweep sweep = new PingSweep(pinger, 64, 0, 64, 1000, chunk -> {
+            sentAtChunk.add(pinger.sent.get());
+            streamed.addAll(chunk);
+        });
+        List<PingResult> last = sweep.run(addresses("10.0.0.0", "10.0.255.255"));
+
+        // Every other address responds
+        assertEquals(32768, streamed.size() + last.size());
+        assertEquals(32, sentAtChunk.size());
+        assertTrue("responders are handed over while the sweep progresses", sentAtChunk.get(0) < 65536 / 2);
+        assertTrue("at most 64 pings in flight, was " + pinger.maxInFlight.get(), pinger.maxInFlight.get() <= 64);
+        assertEquals(0, pinger.inFlight.get());
+    }
+
+    @Test
+    public void testScanStreamsPartialResults() throws Exception {
+        PingScan scan = new PingScan(pingerFactory(new DelayedPinger()), executor, 16, 100);
+        List<ScanResultsResponse> partial = new CopyOnWriteArrayList<>();
+
+        ScanResultsResponse response = scan.scan(request("192.168.0.0", "192.168.3.255"), partial::add)
+            .get(30, TimeUnit.SECONDS);
+
+        assertEquals(5, partial.size());
+        int streamed = partial.stream().mapToInt(PingSweepTest::responders).sum();
+        assertEquals(512, streamed + responders(response));
+    }
+
+    @Test
+    public void testScanWithoutConsumerReturnsAllResponders() throws Exception {
+        PingScan scan = new PingScan(pingerFactory(new DelayedPinger()), executor, 16, 100);
+
+        ScanResultsResponse response = scan.scan(request("192.168.0.0", "192.168.3.255")).get(30, TimeUnit.SECONDS);
+
+        assertEquals(512, responders(response));
+    }
+
+    private static Any request(String begin, String end) {
+        return Any.pack(PingSweepRequest.newBuilder()
+            .addIpRange(IpRange.newBuilder().setBegin(begin).setEnd(end))
+            .setTimeout(800)
+            .setPacketSize(64)
+            .setActiveDiscoveryId(1)
+            .build());
+    }
+
+    private static PingerFactory pingerFactory(DelayedPinger pinger) {
+        PingerFactory pingerFactory = mock(PingerFactory.class);
+        when(pingerFactory.getInstance()).thenReturn(pinger);
+        return pingerFactory;
+    }
+
+    private static Iterator<IPPollAddress> addresses(String begin, String end) throws Exception {
+        return new IPPollRange(null, null, begin, end, 800, 0).iterator();
+    }
+
+    private static int responders(ScanResultsResponse response) {
+        return ((DiscoveryScanResult) response.getResults()).getPingResponseCount();
+    }
+
+    /**
+     * Answers even addresses and times out odd ones, shortly after the ping and from other threads.
+     */
+    private class DelayedPinger extends TestPinger {
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public void ping(InetAddress host, long timeout, int retries, int packetsize, int sequenceId, PingResponseCallback cb) {
+            sent.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            responder.schedule(() -> {
+                inFlight.decrementAndGet();
+                byte[] octets = host.getAddress();
+                if (octets[octets.length - 1] % 2 == 0) {
+                    cb.handleResponse(host, new TestEchoPacket(true));
+                } else {
+                    cb.handleTimeout(host, new TestEchoPacket(false));
+                }
+            }, 50, TimeUnit.MICROSECONDS);
+        }
+    }
+}
@@ -31,7 +31,18 @@ package org.opennms.horizon.minion.plugin.api;
 import com.google.protobuf.Any;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface Scanner {
     CompletableFuture<ScanResultsResponse> scan(Any config);
+
+    /**
+     * Scan, handing results to the given consumer while the scan progresses.  The returned future completes with the
+     *  results not handed to the consumer yet.
+     *
+     * By default, all results are only returned once the scan completes.
+     */
+    default CompletableFuture<ScanResultsResponse> scan(Any config, Consumer<ScanResultsResponse> partialResults) {
+        return scan(config);
+    }
 }
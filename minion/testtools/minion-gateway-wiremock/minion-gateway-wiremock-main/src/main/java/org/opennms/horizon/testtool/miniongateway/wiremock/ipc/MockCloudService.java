@@ -87,7 +87,11 @@ public class MockCloudService extends CloudServiceGrpc.CloudServiceImplBase impl
                 log.info("Have minion-to-cloud-message from module {}: twin-request.consumer-key={}",
                     value.getSinkMessage().getModuleId(),
                     value.getTwinRequest().getConsumerKey());
-                receivedSinkMessages.add(value.getSinkMessage());
+                if (value.hasSinkMessageBatch()) {
+                    receivedSinkMessages.addAll(value.getSinkMessageBatch().getSinkMessagesList());
+                } else {
+                    receivedSinkMessages.add(value.getSinkMessage());
+                }
             }
 
             @Override
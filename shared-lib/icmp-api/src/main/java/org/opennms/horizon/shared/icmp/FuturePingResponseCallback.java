@@ -26,49 +26,36 @@
  *     http://www.opennms.com/
  *******************************************************************************/
 
-package org.opennms.horizon.minion.icmp;
+package org.opennms.horizon.shared.icmp;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
-import java.util.ArrayList;
-import java.util.List;
+import java.net.InetAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
-public class PingSweepResponse {
+/**
+ * Callback completing a future with the round-trip time of the ping, in microseconds, or with null when the ping
+ * timed out.
+ */
+public class FuturePingResponseCallback implements PingResponseCallback {
 
-    private String error;
+    private final CompletableFuture<Number> m_future = new CompletableFuture<>();
 
-    private List<PingResult> pingResults = new ArrayList<>(0);
-
-    public PingSweepResponse() { }
-
-    public PingSweepResponse(Throwable ex) {
-        error = toErrorMessage(ex);
-    }
-
-    public List<PingResult> getPingResults() {
-        return pingResults;
+    public CompletableFuture<Number> getFuture() {
+        return m_future;
     }
 
-    public void setPingResults(List<PingResult> pingResults) {
-        this.pingResults = pingResults;
+    @Override
+    public void handleResponse(InetAddress address, EchoPacket response) {
+        m_future.complete(Math.round(response.elapsedTime(TimeUnit.MICROSECONDS)));
     }
 
-    public void addPingResult(PingResult pingResult) {
-        this.pingResults.add(pingResult);
+    @Override
+    public void handleTimeout(InetAddress address, EchoPacket request) {
+        m_future.complete(null);
     }
 
-    public String getErrorMessage() {
-        return error;
-    }
-
-    public static String toErrorMessage(Throwable t) {
-        if (t == null) {
-            return null;
-        }
-
-        final StringWriter strackTrace = new StringWriter();
-        final PrintWriter pw = new PrintWriter(strackTrace);
-        t.printStackTrace(pw);
-        return strackTrace.toString();
+    @Override
+    public void handleError(InetAddress address, EchoPacket request, Throwable t) {
+        m_future.completeExceptionally(t);
     }
 }
@@ -30,7 +30,9 @@ package org.opennms.horizon.shared.icmp;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>Pinger class.</p>
@@ -133,6 +135,26 @@ public interface Pinger {
          */
         public List<Number> parallelPing(InetAddress host, int count, long timeout, long pingInterval) throws Exception;
         
+        /**
+         * Ping many remote hosts at once, without waiting for the replies.
+         *
+         * @param hosts The {@link java.net.InetAddress} addresses to poll.
+         * @param timeout The time to wait between each retry.
+         * @param retries The number of times to retry.
+         * @param packetsize The size in byte of the ICMP packet.
+         * @return a future per host, in the order of the hosts, completing with the response time in microseconds if
+         *     the host responded with an echo reply, otherwise with a null value.
+         */
+        default List<CompletableFuture<Number>> bulkPing(List<InetAddress> hosts, long timeout, int retries, int packetsize) throws Exception {
+            final List<CompletableFuture<Number>> futures = new ArrayList<>(hosts.size());
+            for (int i = 0; i < hosts.size(); i++) {
+                final FuturePingResponseCallback cb = new FuturePingResponseCallback();
+                ping(hosts.get(i), timeout, retries, packetsize, i, cb);
+                futures.add(cb.getFuture());
+            }
+            return futures;
+        }
+
 	public void setAllowFragmentation(final boolean allow) throws Exception;
 
 	public void setTrafficClass(final int tc) throws Exception;
@@ -1,8 +1,8 @@
 /*******************************************************************************
  * This file is part of OpenNMS(R).
  *
- * Copyright (C) 2016-2016 The OpenNMS Group, Inc.
- * OpenNMS(R) is Copyright (C) 1999-2016 The OpenNMS Group, Inc.
+ * Copyright (C) 2016-2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
  *
  * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
  *
@@ -28,21 +28,20 @@
 
 package org.opennms.horizon.shared.ipc.sink.aggregation;
 
-import com.google.common.util.concurrent.Striped;
 import com.google.protobuf.Message;
 
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.opennms.horizon.shared.ipc.sink.api.AggregationPolicy;
+import org.opennms.horizon.shared.logging.LogPreservingThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +51,13 @@ import org.slf4j.LoggerFactory;
  * This class is designed to delegate dispatching to the calling threads as much
  * as possible (those which make calls to {@link #aggregate(Message).}
  *
+ * Producers never lock: a message claims a position in its bucket with a single
+ * atomic increment and is appended to a lock-free queue. The producer claiming the
+ * last position of a bucket builds and dispatches it. A producer pushing the size of
+ * a bucket over the completion bytes seals and dispatches it early. Buckets which do not fill up
+ * in time are flushed by a hashed timer wheel, so a flush only touches the buckets
+ * which actually expired instead of locking all of them.
+ *
  * @author jwhite
  *
  * @param <S> individual message
@@ -62,21 +68,24 @@ public class Aggregator<S extends Message, T extends Message, U> implements Auto
     private static final Logger LOG = LoggerFactory.getLogger(Aggregator.class);
 
     /**
-     * System property used to override the default number of stripe locks.
+     * Number of wheel ticks per completion interval, i.e. buckets are flushed at most
+     * 1/TICKS_PER_INTERVAL of the interval after they expired.
      */
-    public static final String NUM_STRIPE_LOCKS_SYS_PROP = "org.opennms.ipc.sink.aggregation.stripes";
+    private static final int TICKS_PER_INTERVAL = 16;
 
-    public static final int DEFAULT_NUM_STRIPE_LOCKS = 64;
+    /**
+     * Number of slots of the wheel. Must be a power of two larger than TICKS_PER_INTERVAL,
+     * the headroom covers ticks which are processed late.
+     */
+    private static final int WHEEL_SIZE = 64;
 
     /**
-     * The number of stripe locks used to lock the buckets.
-     *
-     * Increasing this number will reduce the chance of collisions, but will cost
-     * more in terms of memory.
+     * Value the count of a bucket is set to once it was flushed. Any later increment
+     * yields a position beyond the completion size.
      */
-    private static final int NUM_STRIPE_LOCKS = Optional.ofNullable(System.getProperty(NUM_STRIPE_LOCKS_SYS_PROP))
-        .map(Integer::parseInt)
-        .orElse(DEFAULT_NUM_STRIPE_LOCKS);
+    private static final int SEALED = Integer.MAX_VALUE / 2;
+
+    private final String id;
 
     private final AggregationPolicy<S, T, U> aggregationPolicy;
 
@@ -86,151 +95,198 @@ public class Aggregator<S extends Message, T extends Message, U> implements Auto
 
     private final long completionIntervalMs;
 
-    private final Timer flushTimer;
+    private final int completionBytes;
 
     private final ConcurrentHashMap<Object, Bucket> buckets = new ConcurrentHashMap<>();
 
-    private final Striped<Lock> lockStripes = Striped.lock(NUM_STRIPE_LOCKS);
+    private final FlushWheel flushWheel;
 
     public Aggregator(final String id,
                       final AggregationPolicy<S, T, U> policy,
                       final MessageSender<T> sender) {
+        this.id = Objects.requireNonNull(id);
         this.aggregationPolicy = Objects.requireNonNull(policy);
         this.sender = Objects.requireNonNull(sender);
-        completionSize = aggregationPolicy.getCompletionSize();
+        completionSize = Math.max(1, aggregationPolicy.getCompletionSize());
         completionIntervalMs = aggregationPolicy.getCompletionIntervalMs();
+        completionBytes = aggregationPolicy.getCompletionBytes();
 
         if (completionIntervalMs > 0) {
-            // Periodically verify the buckets, and flush those that are older than completionIntervalMs
-            flushTimer = new Timer(String.format("AggregatorFlush-%s", id));
-            flushTimer.scheduleAtFixedRate(new TimerTask() {
-                @Override
-                public void run() {
-                    try {
-                        Aggregator.this.flush();
-                    } catch (final InterruptedException ex) {
-                        Thread.currentThread().interrupt();
-                    } catch (Throwable t) {
-                        // The timer may abort if we throw, so we catch here to make
-                        // sure that the timer keeps running
-                        LOG.error("An error occurred while flushing one or more aggregates in module '{}'.", id, t);
-                    }
-                }
-            }, completionIntervalMs, completionIntervalMs);
+            // Flush the buckets which are older than completionIntervalMs
+            flushWheel = new FlushWheel();
         } else {
-            flushTimer = null;
+            flushWheel = null;
         }
     }
 
     /**
-     * Aggregates the given messages into a bucket and returns
-     * the bucket if it is ready to be dispatched.
+     * Aggregates the given messages into a bucket and dispatches
+     * the bucket if it is complete.
      *
      * @param message the message to aggregated
-     * @return the bucket if it is ready to be dispatched, or <code>null</code>
-     * if nothing is ready to be dispatched
      */
     public void aggregate(S message) throws InterruptedException {
+        if (completionSize == 1) {
+            // Nothing to wait for
+            this.sender.send(aggregationPolicy.build(aggregationPolicy.aggregate(null, message)));
+            return;
+        }
+
         // Compute the key
         final Object key = aggregationPolicy.key(message);
-        // Lock the bucket
-        final Lock lock = lockStripes.get(key);
-        try {
-            lock.lock();
+        while (true) {
             // Obtain the bucket, creating a new one if it doesn't already exist
             Bucket bucket = buckets.get(key);
             if (bucket == null) {
-                bucket = new Bucket();
-                buckets.put(key, bucket);
+                bucket = buckets.computeIfAbsent(key, Bucket::new);
             }
 
-            // Accumulate into the bucket
-            T accumulator = bucket.accumulate(message);
-            if (accumulator != null) {
-                // The bucket is ready to be dispatched
-                buckets.remove(key);
-                this.sender.send(accumulator);
+            final int position = bucket.count.incrementAndGet();
+            if (position > completionSize) {
+                // The bucket was completed or flushed concurrently, make room for a new one
+                buckets.remove(key, bucket);
+                continue;
             }
-        } finally {
-            lock.unlock();
-        }
-    }
 
-    private void flush() throws InterruptedException {
-        final List<T> messagesReadyForDispatch = new LinkedList<>();
-        // Grab a copy of all the current bucket keys
-        final Set<Object> keys = new HashSet<>(buckets.keySet());
-        // NMS-9114: As we iterate over the keys to add them to set above,
-        // it's possible that one of the buckets was removed
-        // in which case the key set may contain a null key
-        // so we remove it here for good measure, otherwise
-        // the call to bulkGet bellow will fail with an NPE
-        keys.remove(null);
-
-        // Lock all the buckets
-        final Iterable<Lock> locks = lockStripes.bulkGet(keys);
-        try {
-            locks.forEach(Lock::lock);
-            // Determine which buckets are ready to be dispatched
-            // and remove these from the map
-            final long cutOff = System.currentTimeMillis() - completionIntervalMs;
-            for (final Object key : keys) {
-                final Bucket bucket = buckets.get(key);
-                // The bucket may have been removed between the time we retrieved
-                // the keys, and the time we obtained the lock, so we make sure
-                // it's non-null before accessing it's properties
-                if (bucket != null && bucket.getFirstTimeMillis() != null && bucket.getFirstTimeMillis() <= cutOff) {
-                    messagesReadyForDispatch.add(bucket.getValue());
-                    buckets.remove(key);
-                }
+            bucket.messages.add(message);
+            if (position == completionSize) {
+                // The bucket is ready to be dispatched
+                buckets.remove(key, bucket);
+                this.sender.send(bucket.build(position));
+            } else if (completionBytes > 0 && bucket.bytes.addAndGet(message.getSerializedSize()) >= completionBytes) {
+                // Large enough, seal the bucket like an expired one
+                flush(bucket);
             }
-        } finally {
-            locks.forEach(Lock::unlock);
+            return;
         }
+    }
 
-        // Dispatch!
-        for (final T message : messagesReadyForDispatch) {
-            sender.send(message);
+    private void flush(final Bucket bucket) throws InterruptedException {
+        final int count = bucket.count.getAndSet(SEALED);
+        buckets.remove(bucket.key, bucket);
+        // Buckets which are complete are dispatched by the producer who completed them
+        if (count > 0 && count < completionSize) {
+            sender.send(bucket.build(count));
         }
     }
 
     @Override
     public void close() throws Exception {
-        if (flushTimer != null) {
-            flushTimer.cancel();
+        if (flushWheel != null) {
+            flushWheel.close();
         }
     }
 
     protected class Bucket {
-        private U accumulator;
-        private int count = 0;
-        private Long firstTimeMillis;
-
-        public T accumulate(S message) {
-            accumulator = aggregationPolicy.aggregate(accumulator, message);
-            count++;
-            if (count >= completionSize) {
-                // We're ready!
-                return aggregationPolicy.build(accumulator);
-            } else if (completionIntervalMs > 0) {
-                final long now = System.currentTimeMillis();
-                if (firstTimeMillis == null) {
-                    firstTimeMillis = now;
-                } else if (now - firstTimeMillis >= completionIntervalMs) {
-                    // We're ready!
-                    return aggregationPolicy.build(accumulator);
-                }
+        private final Object key;
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final Queue<S> messages = new ConcurrentLinkedQueue<>();
+
+        private Bucket(final Object key) {
+            this.key = key;
+            if (flushWheel != null) {
+                flushWheel.schedule(this);
             }
-            // We're NOT ready yet...
-            return null;
         }
 
-        public T getValue() {
+        /**
+         * Aggregates the first messages of the bucket. Called once, by the thread owning the bucket.
+         *
+         * Producers claim their position before adding their message, so we may have to wait
+         * for the last ones to show up.
+         */
+        private T build(final int count) {
+            U accumulator = null;
+            for (int i = 0; i < count; i++) {
+                S message;
+                while ((message = messages.poll()) == null) {
+                    Thread.onSpinWait();
+                }
+                accumulator = aggregationPolicy.aggregate(accumulator, message);
+            }
             return aggregationPolicy.build(accumulator);
         }
+    }
+
+    /**
+     * Hashed timer wheel holding the buckets until they expire. All buckets expire after the
+     * same interval, so the wheel only needs enough slots to cover a single interval.
+     */
+    private class FlushWheel implements AutoCloseable {
+        private final long tickNanos;
+        private final long startNanos = System.nanoTime();
+        private final Queue<Timeout>[] slots;
+        private final ScheduledExecutorService executor;
+        private long processedTick = 0;
 
-        public Long getFirstTimeMillis() {
-            return firstTimeMillis;
+        @SuppressWarnings("unchecked")
+        private FlushWheel() {
+            tickNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(completionIntervalMs) / TICKS_PER_INTERVAL);
+            slots = new Queue[WHEEL_SIZE];
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                slots[i] = new ConcurrentLinkedQueue<>();
+            }
+            executor = Executors.newSingleThreadScheduledExecutor(
+                new LogPreservingThreadFactory(String.format("AggregatorFlush-%s", id), 1));
+            executor.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private long currentTick() {
+            return (System.nanoTime() - startNanos) / tickNanos;
+        }
+
+        private void schedule(final Bucket bucket) {
+            // Round up, so that the bucket is never flushed before the interval elapsed
+            final long deadline = currentTick() + TICKS_PER_INTERVAL + 1;
+            slots[(int) (deadline & (WHEEL_SIZE - 1))].add(new Timeout(bucket, deadline));
+        }
+
+        private void tick() {
+            try {
+                final long now = currentTick();
+                // Catch up on the ticks we missed
+                while (processedTick < now) {
+                    processedTick++;
+                    expire(slots[(int) (processedTick & (WHEEL_SIZE - 1))]);
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                // The executor stops scheduling the task if we throw, so we catch here to make
+                // sure that the wheel keeps turning
+                LOG.error("An error occurred while flushing one or more aggregates in module '{}'.", id, t);
+            }
+        }
+
+        private void expire(final Queue<Timeout> slot) throws InterruptedException {
+            // Timeouts added while we drain the slot are due in a later round
+            for (int pending = slot.size(); pending > 0; pending--) {
+                final Timeout timeout = slot.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.deadline > processedTick) {
+                    slot.add(timeout);
+                } else {
+                    flush(timeout.bucket);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    private class Timeout {
+        private final Bucket bucket;
+        private final long deadline;
+
+        private Timeout(final Bucket bucket, final long deadline) {
+            this.bucket = bucket;
+            this.deadline = deadline;
         }
     }
 
@@ -238,5 +294,5 @@ public class Aggregator<S extends Message, T extends Message, U> implements Auto
     public interface MessageSender<T> {
         void send(final T t) throws InterruptedException;
     }
-    
+
 }
@@ -38,8 +38,8 @@ package org.opennms.horizon.shared.ipc.sink.api;
  * The aggregation function {@link #aggregate(Object, Object)} is called to
  * create accumulators and add messages to existing accumulators.
  *
- * The completion size and completion interval options determine the conditions
- * under which the buckets will be dispatched.
+ * The completion size, completion bytes and completion interval options determine
+ * the conditions under which the buckets will be dispatched.
  *
  * @author jwhite
  *
@@ -73,6 +73,18 @@ public interface AggregationPolicy<S, T, U> {
      */
     int getCompletionIntervalMs();
 
+    /**
+     * Serialized size, in bytes, of the messages added to a bucket after which
+     * the bucket is dispatched, even if it did not reach the completion size yet.
+     *
+     * Values <= 0 disable the limit, which is the default.
+     *
+     * @return number of bytes to accumulate in a bucket before dispatching
+     */
+    default int getCompletionBytes() {
+        return 0;
+    }
+
     /**
      * Calculate a key for the given message.
      *
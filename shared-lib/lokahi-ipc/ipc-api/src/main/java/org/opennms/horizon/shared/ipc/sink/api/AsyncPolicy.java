@@ -51,4 +51,24 @@ public interface AsyncPolicy {
      */
     int getNumThreads();
 
+    /**
+     * Maximum number of queued messages that are handed over
+     * for dispatch at once.
+     *
+     * @return number of messages
+     */
+    default int getMaxBatchSize() {
+        return 100;
+    }
+
+    /**
+     * Size in bytes after which no more queued messages are
+     * added to a batch.
+     *
+     * @return number of bytes
+     */
+    default long getMaxBatchBytes() {
+        return 1024 * 1024;
+    }
+
 }
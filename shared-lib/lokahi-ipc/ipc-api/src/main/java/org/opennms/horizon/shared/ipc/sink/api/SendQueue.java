@@ -28,6 +28,8 @@
 
 package org.opennms.horizon.shared.ipc.sink.api;
 
+import java.util.List;
+
 public interface SendQueue extends AutoCloseable {
 
     /**
@@ -41,4 +43,28 @@ public interface SendQueue extends AutoCloseable {
      * @throws InterruptedException if interrupted while waiting
      */
     byte[] dequeue() throws InterruptedException;
+
+    /**
+     * Retrieves and removes elements from the head of this queue, waiting if necessary until an element becomes
+     * available. Further elements are only taken if they are available right away, until the batch holds
+     * {@code maxElements} elements or at least {@code maxBytes} bytes.
+     *
+     * @return at least one element
+     * @throws InterruptedException if interrupted while waiting
+     */
+    default List<byte[]> dequeue(final int maxElements, final long maxBytes) throws InterruptedException {
+        return List.of(this.dequeue());
+    }
+
+    /**
+     * Puts a message which has been taken from this queue back to its head, e.g. because it could not be handled
+     * before shutdown. The message is returned by the next call to {@link #dequeue()}, and a persistent queue
+     * restores it before all other messages.
+     */
+    void requeue(byte[] message) throws InterruptedException;
+
+    /**
+     * Number of messages in this queue, including the messages restored by a persistent queue.
+     */
+    int size();
 }
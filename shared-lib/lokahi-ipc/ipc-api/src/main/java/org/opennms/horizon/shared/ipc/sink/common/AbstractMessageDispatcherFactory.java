@@ -29,6 +29,7 @@
 package org.opennms.horizon.shared.ipc.sink.common;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
 
 import org.opennms.horizon.shared.ipc.sink.aggregation.AggregatingMessageDispatcher;
@@ -63,6 +64,16 @@ public abstract class AbstractMessageDispatcherFactory<W> implements MessageDisp
 
     protected abstract <S extends Message, T extends Message> void dispatch(SinkModule<S, T> module, W metadata, byte[] message);
 
+    /**
+     * Dispatches several messages at once. Implementations which can send a batch cheaper than the messages one by one
+     * should override this.
+     */
+    protected <S extends Message, T extends Message> void dispatch(SinkModule<S, T> module, W metadata, List<byte[]> messages) {
+        for (final byte[] message : messages) {
+            dispatch(module, metadata, message);
+        }
+    }
+
     public abstract Tracer getTracer();
 
     public abstract MetricRegistry getMetrics();
@@ -79,6 +90,19 @@ public abstract class AbstractMessageDispatcherFactory<W> implements MessageDisp
         }
     }
 
+    /**
+     * Invokes dispatch for a batch of messages within a single timer context.
+     */
+    private <S extends Message, T extends Message> void timedDispatch(DispatcherState<W, S, T> state, List<byte[]> messages) {
+        state.getDispatchCounter().inc(messages.size());
+
+        try (Context ctx = state.getDispatchTimer().time();
+             Scope scope = getTracer().buildSpan(state.getModule().getId()).startActive(true)) {
+            scope.span().setTag("batchSize", messages.size());
+            dispatch(state.getModule(), state.getMetaData(), messages);
+        }
+    }
+
     /**
      * Optionally build meta-data or state information for the module which will
      * be passed on all the calls to {@link #dispatch}.
@@ -124,7 +148,7 @@ public abstract class AbstractMessageDispatcherFactory<W> implements MessageDisp
 
         final DispatcherState<W, S, T> state = new DispatcherState<>(this, module);
 
-        return new AsyncDispatcherImpl<>(state, this.getSendQueueFactory(), message -> this.timedDispatch(state, message));
+        return new AsyncDispatcherImpl<>(state, this.getSendQueueFactory(), messages -> this.timedDispatch(state, messages));
     }
 
     protected abstract SendQueueFactory getSendQueueFactory();
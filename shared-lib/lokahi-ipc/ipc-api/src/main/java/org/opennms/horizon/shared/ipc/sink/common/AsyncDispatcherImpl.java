@@ -30,6 +30,7 @@ package org.opennms.horizon.shared.ipc.sink.common;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -58,10 +59,11 @@ public class AsyncDispatcherImpl<W, S extends Message, T extends Message> implem
 
     private final SendQueue sendQueue;
     private final MessageDispatcher<S, T> messageDispatcher;
-    private final Consumer<byte[]> sender;
+    private final Consumer<List<byte[]>> sender;
     private final AsyncPolicy asyncPolicy;
 
     private final AtomicInteger activeDispatchers = new AtomicInteger(0);
+    private final AtomicInteger inFlightMessages = new AtomicInteger(0);
     
     private final RateLimitedLog RATE_LIMITED_LOGGER = RateLimitedLog
             .withRateLimit(LOG)
@@ -72,7 +74,7 @@ public class AsyncDispatcherImpl<W, S extends Message, T extends Message> implem
 
     public AsyncDispatcherImpl(final DispatcherState<W, S, T> state,
                                final SendQueueFactory sendQueueFactory,
-                               final Consumer<byte[]> sender) throws IOException {
+                               final Consumer<List<byte[]>> sender) throws IOException {
         this.sendQueue = sendQueueFactory.createQueue(state.getModule().getId());
 
         this.messageDispatcher = AbstractMessageDispatcherFactory.createMessageDispatcher(state, this.sendQueue::enqueue);
@@ -83,6 +85,8 @@ public class AsyncDispatcherImpl<W, S extends Message, T extends Message> implem
 
         state.getMetrics().register(MetricRegistry.name(state.getModule().getId(), "queue-size"),
                 (Gauge<Integer>) activeDispatchers::get);
+        state.getMetrics().register(MetricRegistry.name(state.getModule().getId(), "in-flight-messages"),
+                (Gauge<Integer>) inFlightMessages::get);
 
         executor = Executors.newFixedThreadPool(state.getModule().getAsyncPolicy().getNumThreads(),
                 new LogPreservingThreadFactory(WHAT_IS_DEFAULT_INSTANCE_ID + ".Sink.AsyncDispatcher." +
@@ -94,18 +98,21 @@ public class AsyncDispatcherImpl<W, S extends Message, T extends Message> implem
     private void dispatchFromQueue() {
         while (true) {
             try {
-                LOG.trace("Asking send queue for the next entry...");
-                final var message = this.sendQueue.dequeue();
+                LOG.trace("Asking send queue for the next entries...");
+                final var messages = this.sendQueue.dequeue(this.asyncPolicy.getMaxBatchSize(), this.asyncPolicy.getMaxBatchBytes());
 
-                LOG.trace("Received message entry from dispatch queue");
+                LOG.trace("Received {} message entries from dispatch queue", messages.size());
                 activeDispatchers.incrementAndGet();
-
-                LOG.trace("Sending message {}", message);
-                this.sender.accept(message);
-
-                LOG.trace("Successfully sent message {}", message);
-
-                activeDispatchers.decrementAndGet();
+                inFlightMessages.addAndGet(messages.size());
+
+                // Hand over the whole batch, so the sender only pays its per-call overhead once
+                try {
+                    this.sender.accept(messages);
+                    LOG.trace("Successfully sent {} messages", messages.size());
+                } finally {
+                    inFlightMessages.addAndGet(-messages.size());
+                    activeDispatchers.decrementAndGet();
+                }
             } catch (InterruptedException e) {
                 break;
             } catch (Exception e) {
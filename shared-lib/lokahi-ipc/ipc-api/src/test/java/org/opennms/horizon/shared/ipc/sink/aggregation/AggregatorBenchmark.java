@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.shared.ipc.sink.aggregation;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.ListValue;
+
+/**
+ * Measures the load producers can offer to the {@link Aggregator} depending on the number of producing threads and
+ * the number of buckets they spread their messages over.
+ */
+public class AggregatorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BState {
+
+        // number of distinct aggregation keys, i.e. of buckets filled concurrently
+        @Param({"1", "64"})
+        public int keys;
+
+        private Blackhole blackhole;
+        private Aggregator<Int64Value, ListValue, ListValue.Builder> aggregator;
+
+        @Setup(Level.Trial)
+        public void setup(Blackhole blackhole) {
+            this.blackhole = blackhole;
+            aggregator = new Aggregator<>("benchmark", new AggregatorTest.TestPolicy(1000, 100, keys), this::send);
+        }
+
+        private void send(ListValue log) {
+            blackhole.consume(log);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            aggregator.close();
+        }
+    }
+
+    private static void offer(BState state) throws InterruptedException {
+        state.aggregator.aggregate(Int64Value.of(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE)));
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    @Threads(1)
+    public void offer1Thread(BState state) throws InterruptedException {
+        offer(state);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    @Threads(8)
+    public void offer8Threads(BState state) throws InterruptedException {
+        offer(state);
+    }
+
+    @Benchmark
+    @Fork(value = 1)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    @Threads(32)
+    public void offer32Threads(BState state) throws InterruptedException {
+        offer(state);
+    }
+}
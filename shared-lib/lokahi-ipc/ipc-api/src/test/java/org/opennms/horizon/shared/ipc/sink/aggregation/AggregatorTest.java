@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.shared.ipc.sink.aggregation;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+import org.opennms.horizon.shared.ipc.sink.api.AggregationPolicy;
+
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Value;
+
+public class AggregatorTest {
+
+    private final Queue<ListValue> sent = new ConcurrentLinkedQueue<>();
+
+    @Test
+    public void completeBucketsAreDispatchedByProducer() throws Exception {
+        try (var aggregator = new Aggregator<>("test", new TestPolicy(5, 0, 1), sent::add)) {
+            for (long i = 0; i < 12; i++) {
+                aggregator.aggregate(Int64Value.of(i));
+            }
+
+            assertEquals(2, sent.size());
+            assertTrue(sent.stream().allMatch(log -> log.getValuesCount() == 5));
+        }
+    }
+
+    @Test
+    public void expiredBucketsAreFlushed() throws Exception {
+        try (var aggregator = new Aggregator<>("test", new TestPolicy(100, 100, 2), sent::add)) {
+            final long start = System.currentTimeMillis();
+            for (long i = 0; i < 5; i++) {
+                aggregator.aggregate(Int64Value.of(i));
+            }
+
+            await().atMost(5, TimeUnit.SECONDS).until(() -> sent.size() == 2);
+            assertTrue(System.currentTimeMillis() - start >= 100);
+            assertEquals(List.of(0L, 1L, 2L, 3L, 4L), values());
+        }
+    }
+
+    @Test
+    public void bucketsAreDispatchedOnceCompletionBytesAreReached() throws Exception {
+        final int messageSize = Int64Value.of(1000).getSerializedSize();
+        try (var aggregator = new Aggregator<>("test", new TestPolicy(100, 0, 1, messageSize * 10), sent::add)) {
+            for (long i = 1000; i < 1025; i++) {
+                aggregator.aggregate(Int64Value.of(i));
+            }
+
+            // The remaining 5 messages stay in the bucket, as the completion size is not reached either
+            assertEquals(2, sent.size());
+            assertTrue(sent.stream().allMatch(log -> log.getValuesCount() == 10));
+        }
+    }
+
+    @Test
+    public void everyMessageIsDispatchedOnceUnderContention() throws Exception {
+        final int threads = 8;
+        final int messagesPerThread = 10_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (var aggregator = new Aggregator<>("test", new TestPolicy(100, 10, 4), sent::add)) {
+            final List<Future<?>> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final long offset = (long) t * messagesPerThread;
+                producers.add(executor.submit(() -> {
+                    for (long i = offset; i < offset + messagesPerThread; i++) {
+                        aggregator.aggregate(Int64Value.of(i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> producer : producers) {
+                producer.get();
+            }
+
+            final int total = threads * messagesPerThread;
+            await().atMost(5, TimeUnit.SECONDS).until(() -> sent.stream().mapToInt(ListValue::getValuesCount).sum() >= total);
+            assertEquals(LongStream.range(0, total).boxed().collect(Collectors.toList()), values());
+            assertTrue(sent.stream().allMatch(log -> log.getValuesCount() <= 100));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Long> values() {
+        return sent.stream()
+            .flatMap(log -> log.getValuesList().stream())
+            .map(value -> (long) value.getNumberValue())
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    static class TestPolicy implements AggregationPolicy<Int64Value, ListValue, ListValue.Builder> {
+        private final int completionSize;
+        private final int completionIntervalMs;
+        private final int keys;
+        private final int completionBytes;
+
+        TestPolicy(int completionSize, int completionIntervalMs, int keys) {
+            this(completionSize, completionIntervalMs, keys, 0);
+        }
+
+        TestPolicy(int completionSize, int completionIntervalMs, int keys, int completionBytes) {
+            this.completionSize = completionSize;
+            this.completionIntervalMs = completionIntervalMs;
+            this.keys = keys;
+            this.completionBytes = completionBytes;
+        }
+
+        @Override
+        public int getCompletionSize() {
+            return completionSize;
+        }
+
+        @Override
+        public int getCompletionIntervalMs() {
+            return completionIntervalMs;
+        }
+
+        @Override
+        public int getCompletionBytes() {
+            return completionBytes;
+        }
+
+        @Override
+        public Object key(Int64Value message) {
+            return message.getValue() % keys;
+        }
+
+        @Override
+        public ListValue.Builder aggregate(ListValue.Builder accumulator, Int64Value newMessage) {
+            if (accumulator == null) {
+                accumulator = ListValue.newBuilder();
+            }
+            return accumulator.addValues(Value.newBuilder().setNumberValue(newMessage.getValue()));
+        }
+
+        @Override
+        public ListValue build(ListValue.Builder accumulator) {
+            return accumulator.build();
+        }
+    }
+}
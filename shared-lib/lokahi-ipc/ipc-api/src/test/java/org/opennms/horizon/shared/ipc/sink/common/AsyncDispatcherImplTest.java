@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+
+package org.opennms.horizon.shared.ipc.sink.common;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+import org.opennms.horizon.shared.ipc.sink.api.AggregationPolicy;
+import org.opennms.horizon.shared.ipc.sink.api.AsyncPolicy;
+import org.opennms.horizon.shared.ipc.sink.api.SendQueue;
+import org.opennms.horizon.shared.ipc.sink.api.SendQueueFactory;
+import org.opennms.horizon.shared.ipc.sink.api.SinkModule;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+
+import io.opentracing.Tracer;
+
+public class AsyncDispatcherImplTest {
+
+    private final List<List<byte[]>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void queuedMessagesAreSentInBatches() throws Exception {
+        final var blocked = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var state = new DispatcherState<>(new TestFactory(), new TestModule(10));
+
+        try (var dispatcher = new AsyncDispatcherImpl<>(state, new InMemorySendQueueFactory(), messages -> {
+            blocked.countDown();
+            try {
+                // Keep the dispatcher busy, so the following messages pile up in the queue
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(messages);
+        })) {
+            dispatcher.send(Int64Value.of(0));
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            for (long i = 1; i < 25; i++) {
+                dispatcher.send(Int64Value.of(i));
+            }
+            // One thread is busy dispatching a single message
+            assertEquals(1, state.getMetrics().getGauges().get("test.queue-size").getValue());
+            assertEquals(1, state.getMetrics().getGauges().get("test.in-flight-messages").getValue());
+            release.countDown();
+
+            await().atMost(5, TimeUnit.SECONDS).until(() -> values().size() == 25);
+        }
+
+        assertEquals(LongStream.range(0, 25).boxed().collect(Collectors.toList()), values());
+        assertEquals(List.of(1, 10, 10, 4), batches.stream().map(List::size).collect(Collectors.toList()));
+    }
+
+    private List<Long> values() {
+        final List<Long> values = new ArrayList<>();
+        for (final var batch : batches) {
+            for (final var message : batch) {
+                try {
+                    values.add(Int64Value.parseFrom(message).getValue());
+                } catch (InvalidProtocolBufferException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        return values;
+    }
+
+    private static class InMemorySendQueueFactory implements SendQueueFactory {
+        @Override
+        public SendQueue createQueue(final String id) {
+            return new SendQueue() {
+                private final BlockingDeque<byte[]> queue = new LinkedBlockingDeque<>();
+
+                @Override
+                public void enqueue(final byte[] message) throws InterruptedException {
+                    queue.put(message);
+                }
+
+                @Override
+                public byte[] dequeue() throws InterruptedException {
+                    return queue.take();
+                }
+
+                @Override
+                public List<byte[]> dequeue(final int maxElements, final long maxBytes) throws InterruptedException {
+                    final List<byte[]> messages = new ArrayList<>(maxElements);
+                    messages.add(queue.take());
+                    queue.drainTo(messages, maxElements - 1);
+                    return messages;
+                }
+
+                @Override
+                public void requeue(final byte[] message) throws InterruptedException {
+                    queue.putFirst(message);
+                }
+
+                @Override
+                public int size() {
+                    return queue.size();
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+
+    private static class TestFactory extends AbstractMessageDispatcherFactory<Void> {
+        private final MetricRegistry metrics = new MetricRegistry();
+
+        @Override
+        protected <S extends Message, T extends Message> void dispatch(SinkModule<S, T> module, Void metadata, byte[] message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Tracer getTracer() {
+            return null;
+        }
+
+        @Override
+        public MetricRegistry getMetrics() {
+            return metrics;
+        }
+
+        @Override
+        protected SendQueueFactory getSendQueueFactory() {
+            return null;
+        }
+    }
+
+    private static class TestModule implements SinkModule<Int64Value, Int64Value> {
+        private final int maxBatchSize;
+
+        private TestModule(final int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        @Override
+        public String getId() {
+            return "test";
+        }
+
+        @Override
+        public int getNumConsumerThreads() {
+            return 1;
+        }
+
+        @Override
+        public byte[] marshal(final Int64Value message) {
+            return message.toByteArray();
+        }
+
+        @Override
+        public Int64Value unmarshal(final byte[] message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] marshalSingleMessage(final Int64Value message) {
+            return message.toByteArray();
+        }
+
+        @Override
+        public Int64Value unmarshalSingleMessage(final byte[] message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AggregationPolicy<Int64Value, Int64Value, ?> getAggregationPolicy() {
+            return null;
+        }
+
+        @Override
+        public AsyncPolicy getAsyncPolicy() {
+            return new AsyncPolicy() {
+                @Override
+                public int getQueueSize() {
+                    return 100;
+                }
+
+                @Override
+                public int getNumThreads() {
+                    return 1;
+                }
+
+                @Override
+                public int getMaxBatchSize() {
+                    return maxBatchSize;
+                }
+            };
+        }
+    }
+}
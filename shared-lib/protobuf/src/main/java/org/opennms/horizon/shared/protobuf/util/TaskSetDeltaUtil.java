@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.horizon.shared.protobuf.util;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opennms.taskset.contract.TaskDefinition;
+import org.opennms.taskset.contract.TaskSet;
+import org.opennms.taskset.contract.TaskSetDelta;
+
+/**
+ * Computes and applies changes of task sets on the level of single task definitions, identified by their id. This
+ * avoids shipping (and diffing) the whole task set if only a few of its tasks have changed.
+ */
+public class TaskSetDeltaUtil {
+    private TaskSetDeltaUtil() {
+        // block static class constructor
+    }
+
+    /**
+     * @return the changes turning {@code from} into {@code to}, or null if the task definition ids of one of the task
+     *         sets are not unique and the change can not be expressed as a delta
+     */
+    public static TaskSetDelta diff(TaskSet from, TaskSet to) {
+        Map<String, TaskDefinition> previous = indexById(from.getTaskDefinitionList());
+        Map<String, TaskDefinition> current = indexById(to.getTaskDefinitionList());
+        if (previous == null || current == null) {
+            return null;
+        }
+
+        TaskSetDelta.Builder delta = TaskSetDelta.newBuilder();
+        for (TaskDefinition taskDefinition : current.values()) {
+            TaskDefinition previousTaskDefinition = previous.remove(taskDefinition.getId());
+            if (!taskDefinition.equals(previousTaskDefinition)) {
+                delta.addUpdatedTaskDefinition(taskDefinition);
+            }
+        }
+        // Whatever is left has not been part of the current task set anymore
+        delta.addAllRemovedTaskDefinitionId(previous.keySet());
+        return delta.build();
+    }
+
+    /**
+     * @return the task set with the delta applied, replaced task definitions keep their position and added ones are
+     *         appended
+     */
+    public static TaskSet apply(TaskSet taskSet, TaskSetDelta delta) {
+        Map<String, TaskDefinition> taskDefinitions = new LinkedHashMap<>(capacity(taskSet.getTaskDefinitionCount()));
+        for (TaskDefinition taskDefinition : taskSet.getTaskDefinitionList()) {
+            taskDefinitions.put(taskDefinition.getId(), taskDefinition);
+        }
+        for (String removedId : delta.getRemovedTaskDefinitionIdList()) {
+            taskDefinitions.remove(removedId);
+        }
+        for (TaskDefinition taskDefinition : delta.getUpdatedTaskDefinitionList()) {
+            taskDefinitions.put(taskDefinition.getId(), taskDefinition);
+        }
+        return TaskSet.newBuilder().addAllTaskDefinition(taskDefinitions.values()).build();
+    }
+
+    private static Map<String, TaskDefinition> indexById(List<TaskDefinition> taskDefinitions) {
+        Map<String, TaskDefinition> index = new LinkedHashMap<>(capacity(taskDefinitions.size()));
+        for (TaskDefinition taskDefinition : taskDefinitions) {
+            if (index.put(taskDefinition.getId(), taskDefinition) != null) {
+                return null;
+            }
+        }
+        return index;
+    }
+
+    private static int capacity(int size) {
+        return Math.max(16, (int) (size / 0.75f) + 1);
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * This file is part of OpenNMS(R).
+ *
+ * Copyright (C) 2023 The OpenNMS Group, Inc.
+ * OpenNMS(R) is Copyright (C) 1999-2023 The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is a registered trademark of The OpenNMS Group, Inc.
+ *
+ * OpenNMS(R) is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * OpenNMS(R) is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with OpenNMS(R).  If not, see:
+ *      http://www.gnu.org/licenses/
+ *
+ * For more information contact:
+ *     OpenNMS(R) Licensing <license@opennms.org>
+ *     http://www.opennms.org/
+ *     http://www.opennms.com/
+ *******************************************************************************/
+package org.opennms.horizon.protobuf.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.opennms.horizon.shared.protobuf.util.TaskSetDeltaUtil;
+import org.opennms.taskset.contract.TaskDefinition;
+import org.opennms.taskset.contract.TaskSet;
+import org.opennms.taskset.contract.TaskSetDelta;
+
+public class TaskSetDeltaUtilTest {
+
+    @Test
+    public void testDiffAndApply() {
+        TaskSet from = taskSet(task("a", "1"), task("b", "1"), task("c", "1"));
+        TaskSet to = taskSet(task("a", "1"), task("b", "2"), task("d", "1"));
+
+        TaskSetDelta delta = TaskSetDeltaUtil.diff(from, to);
+
+        assertEquals(List.of(task("b", "2"), task("d", "1")), delta.getUpdatedTaskDefinitionList());
+        assertEquals(List.of("c"), delta.getRemovedTaskDefinitionIdList());
+        assertEquals(to, TaskSetDeltaUtil.apply(from, delta));
+    }
+
+    @Test
+    public void testDiffOfEqualTaskSetsIsEmpty() {
+        TaskSet taskSet = taskSet(task("a", "1"), task("b", "1"));
+
+        TaskSetDelta delta = TaskSetDeltaUtil.diff(taskSet, taskSet.toBuilder().build());
+
+        assertEquals(TaskSetDelta.getDefaultInstance(), delta);
+    }
+
+    @Test
+    public void testAppliedTaskDefinitionsKeepTheirPosition() {
+        TaskSet from = taskSet(task("a", "1"), task("b", "1"), task("c", "1"));
+        TaskSetDelta delta = TaskSetDelta.newBuilder()
+            .addUpdatedTaskDefinition(task("d", "1"))
+            .addUpdatedTaskDefinition(task("a", "2"))
+            .addRemovedTaskDefinitionId("b")
+            .build();
+
+        TaskSet result = TaskSetDeltaUtil.apply(from, delta);
+
+        assertEquals(List.of("a", "c", "d"),
+            result.getTaskDefinitionList().stream().map(TaskDefinition::getId).collect(Collectors.toList()));
+        assertEquals("2", result.getTaskDefinition(0).getSchedule());
+    }
+
+    @Test
+    public void testNoDeltaForDuplicateIds() {
+        TaskSet unique = taskSet(task("a", "1"));
+        TaskSet duplicates = taskSet(task("a", "1"), task("a", "2"));
+
+        assertNull(TaskSetDeltaUtil.diff(unique, duplicates));
+        assertNull(TaskSetDeltaUtil.diff(duplicates, unique));
+        assertTrue(TaskSetDeltaUtil.diff(unique, unique).getUpdatedTaskDefinitionList().isEmpty());
+    }
+
+    private static TaskSet taskSet(TaskDefinition... taskDefinitions) {
+        return TaskSet.newBuilder().addAllTaskDefinition(List.of(taskDefinitions)).build();
+    }
+
+    private static TaskDefinition task(String id, String schedule) {
+        return TaskDefinition.newBuilder().setId(id).setSchedule(schedule).build();
+    }
+}